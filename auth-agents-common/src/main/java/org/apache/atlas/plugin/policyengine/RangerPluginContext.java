@@ -29,6 +29,8 @@ import org.apache.atlas.authorization.hadoop.config.RangerPluginConfig;
 import org.apache.atlas.plugin.service.RangerAuthContext;
 import org.apache.atlas.plugin.service.RangerAuthContextListener;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class RangerPluginContext {
 	private static final Log LOG = LogFactory.getLog(RangerPluginContext.class);
 
@@ -36,6 +38,7 @@ public class RangerPluginContext {
 	private       RangerAuthContext         authContext;
 	private       RangerAuthContextListener authContextListener;
 	private 	  AtlasAuthAdminClient 		atlasAdminClient;
+	private final AtomicLong                authContextVersion = new AtomicLong();
 
 
 	public RangerPluginContext(RangerPluginConfig config) {
@@ -58,7 +61,15 @@ public class RangerPluginContext {
 
 	public void setAuthContextListener(RangerAuthContextListener authContextListener) { this.authContextListener = authContextListener; }
 
+	/*
+	 * Incremented whenever policies, roles or tags change; lets callers detect that results they computed earlier
+	 * may no longer be valid.
+	 */
+	public long getAuthContextVersion() { return authContextVersion.get(); }
+
 	public void notifyAuthContextChanged() {
+		authContextVersion.incrementAndGet();
+
 		RangerAuthContextListener authContextListener = this.authContextListener;
 
 		if (authContextListener != null) {
@@ -48,6 +48,7 @@ import org.apache.atlas.plugin.util.RangerRoles;
 import org.apache.atlas.plugin.util.ServicePolicies;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -177,13 +178,29 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 				}
 			}
 			if (requests != null) {
+				// roles and trie lookups are resolved once for the batch, as its requests are typically for the same user and for resources of few types
+				Map<List<Object>, Set<String>> userRoles   = new HashMap<>();
+				Map<List<Object>, Set<?>>      trieLookups = new HashMap<>();
+
 				for (RangerAccessRequest request : requests) {
+					if (request instanceof RangerAccessRequestImpl) {
+						setUserRoles((RangerAccessRequestImpl) request, userRoles);
+
+						RangerAccessRequestUtil.setTrieLookupsInContext(request.getContext(), trieLookups);
+					}
+
 					requestProcessor.preProcess(request);
 
 					RangerAccessResult result = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
 
 					ret.add(result);
 				}
+
+				for (RangerAccessRequest request : requests) {
+					if (request instanceof RangerAccessRequestImpl) {
+						RangerAccessRequestUtil.setTrieLookupsInContext(request.getContext(), null);
+					}
+				}
 			}
 
 			if (resultProcessor != null) {
@@ -589,6 +606,21 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		this.serviceConfig    = new ServiceConfig(other.serviceConfig);
 	}
 
+	private void setUserRoles(RangerAccessRequestImpl request, Map<List<Object>, Set<String>> userRoles) {
+		if (CollectionUtils.isEmpty(request.getUserRoles())) {
+			List<Object> key   = Arrays.asList(request.getUser(), request.getUserGroups());
+			Set<String>  roles = userRoles.get(key);
+
+			if (roles == null) {
+				roles = policyEngine.getPluginContext().getAuthContext().getRolesForUserAndGroups(request.getUser(), request.getUserGroups());
+
+				userRoles.put(key, roles);
+			}
+
+			request.setUserRoles(roles);
+		}
+	}
+
 	private RangerAccessResult zoneAwareAccessEvaluationWithNoAudit(RangerAccessRequest request, String policyType) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerPolicyEngineImpl.zoneAwareAccessEvaluationWithNoAudit(" + request + ", policyType =" + policyType + ")");
@@ -41,11 +41,13 @@ import org.apache.atlas.plugin.policyevaluator.RangerCachedPolicyEvaluator;
 import org.apache.atlas.plugin.policyevaluator.RangerOptimizedPolicyEvaluator;
 import org.apache.atlas.plugin.policyevaluator.RangerPolicyEvaluator;
 import org.apache.atlas.plugin.store.AbstractServiceStore;
+import org.apache.atlas.plugin.util.RangerAccessRequestUtil;
 import org.apache.atlas.plugin.util.RangerPerfTracer;
 import org.apache.atlas.plugin.util.ServiceDefUtil;
 import org.apache.atlas.plugin.util.ServicePolicies;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -701,6 +703,7 @@ public class RangerPolicyRepository {
 
         List<String>                     resourceKeys = resource == null ? null : options.getServiceDefHelper().getOrderedResourceNames(resource.getKeys());
         Set<RangerPolicyEvaluator>       smallestList = null;
+        Map<List<Object>, Set<?>>        trieLookups  = RangerAccessRequestUtil.getTrieLookupsFromContext(request.getContext());
 
         if (CollectionUtils.isNotEmpty(resourceKeys)) {
 
@@ -711,7 +714,7 @@ public class RangerPolicyRepository {
                     continue;
                 }
 
-                Set<RangerPolicyEvaluator> serviceResourceMatchersForResource = trie.getEvaluatorsForResource(resource.getValue(resourceName), request.getResourceMatchingScope());
+                Set<RangerPolicyEvaluator> serviceResourceMatchersForResource = getEvaluatorsForResource(trie, resource.getValue(resourceName), request.getResourceMatchingScope(), trieLookups);
                 Set<RangerPolicyEvaluator> inheritedResourceMatchers = trie.getInheritedEvaluators();
 
                 if (smallestList != null) {
@@ -775,6 +778,27 @@ public class RangerPolicyRepository {
         return ret;
     }
 
+    /*
+     * Requests evaluated in a batch share the trie lookups of their common resource values, like the entity-type of
+     * entities of the same type; the sets returned by the trie are not modified by the caller.
+     */
+    private Set<RangerPolicyEvaluator> getEvaluatorsForResource(RangerResourceTrie<RangerPolicyEvaluator> trie, Object resourceValue, RangerAccessRequest.ResourceMatchingScope scope, Map<List<Object>, Set<?>> trieLookups) {
+        if (trieLookups == null) {
+            return trie.getEvaluatorsForResource(resourceValue, scope);
+        }
+
+        List<Object>               key = Arrays.asList(trie, resourceValue, scope);
+        Set<RangerPolicyEvaluator> ret = (Set<RangerPolicyEvaluator>) trieLookups.get(key);
+
+        if (ret == null && !trieLookups.containsKey(key)) {
+            ret = trie.getEvaluatorsForResource(resourceValue, scope);
+
+            trieLookups.put(key, ret);
+        }
+
+        return ret;
+    }
+
     private List<RangerPolicy> normalizeAndPrunePolicies(List<RangerPolicy> rangerPolicies, final String componentType) {
         if (CollectionUtils.isNotEmpty(rangerPolicies) && StringUtils.isNotBlank(componentType)) {
             List<RangerPolicy> policiesToPrune = null;
@@ -284,6 +284,10 @@ public class RangerBasePlugin {
 		return ret != null ? ret : -1L;
 	}
 
+	public long getAuthContextVersion() {
+		return pluginContext.getAuthContextVersion();
+	}
+
 	public long getRolesVersion() {
 		RangerPolicyEngine policyEngine = this.policyEngine;
 		Long               ret          = policyEngine != null ? policyEngine.getRoleVersion() : null;
@@ -338,6 +342,8 @@ public class RangerBasePlugin {
 						// Rebuild policies from deltas
 						RangerPolicyEngineImpl policyEngine = (RangerPolicyEngineImpl) oldPolicyEngine;
 
+						policies.setPolicyDeltas(RangerPolicyDeltaUtil.resolvePolicyDeletesByGuid(policies.getPolicyDeltas(), policyEngine.getResourcePolicies(), policyEngine.getTagPolicies()));
+
 						servicePolicies = ServicePolicies.applyDelta(policies, policyEngine);
 
 						if (servicePolicies != null) {
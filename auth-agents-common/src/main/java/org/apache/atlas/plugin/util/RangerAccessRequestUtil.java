@@ -28,6 +28,7 @@ import org.apache.atlas.plugin.policyengine.RangerAccessResource;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -45,6 +46,7 @@ public class RangerAccessRequestUtil {
 	public static final String KEY_ROLES = "ROLES";
 	public static final String KEY_CONTEXT_ACCESSTYPES = "ACCESSTYPES";
 	public static final String KEY_CONTEXT_IS_ANY_ACCESS = "ISANYACCESS";
+	public static final String KEY_CONTEXT_TRIE_LOOKUPS  = "TRIE_LOOKUPS";
 
 	public static void setRequestTagsInContext(Map<String, Object> context, Set<RangerTagForEval> tags) {
 		if(CollectionUtils.isEmpty(tags)) {
@@ -184,4 +186,18 @@ public class RangerAccessRequestUtil {
 	public static Boolean getIsAnyAccessInContext(Map<String, Object> context) {
 		return (Boolean)context.get(KEY_CONTEXT_IS_ANY_ACCESS);
 	}
+
+	public static void setTrieLookupsInContext(Map<String, Object> context, Map<List<Object>, Set<?>> trieLookups) {
+		if (trieLookups == null) {
+			context.remove(KEY_CONTEXT_TRIE_LOOKUPS);
+		} else {
+			context.put(KEY_CONTEXT_TRIE_LOOKUPS, trieLookups);
+		}
+	}
+
+	public static Map<List<Object>, Set<?>> getTrieLookupsFromContext(Map<String, Object> context) {
+		Object val = context != null ? context.get(KEY_CONTEXT_TRIE_LOOKUPS) : null;
+
+		return val instanceof Map ? (Map<List<Object>, Set<?>>) val : null;
+	}
 }
@@ -152,6 +152,57 @@ public class RangerPolicyDeltaUtil {
         return ret;
     }
 
+    /*
+     * AuthPolicy entities are transformed into one or more policies, with guids of the form <AuthPolicy guid>[-<index>].
+     * When an AuthPolicy changes, the policies it was transformed into earlier are not known to the server; it sends a
+     * delete-delta carrying only the AuthPolicy guid, and no policy id. Replaces each such delta with delete-deltas for
+     * the matching policies among the given ones; other deltas are returned as-is.
+     */
+    public static List<RangerPolicyDelta> resolvePolicyDeletesByGuid(List<RangerPolicyDelta> deltas, List<RangerPolicy> resourcePolicies, List<RangerPolicy> tagPolicies) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> resolvePolicyDeletesByGuid(deltas=" + (deltas != null ? deltas.size() : 0) + ")");
+        }
+
+        List<RangerPolicyDelta> ret = deltas;
+
+        if (CollectionUtils.isNotEmpty(deltas)) {
+            ret = new ArrayList<>(deltas.size());
+
+            for (RangerPolicyDelta delta : deltas) {
+                RangerPolicy policy = delta.getPolicy();
+
+                if (delta.getChangeType() == null || delta.getChangeType() != RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE || policy == null || policy.getId() != null || StringUtils.isEmpty(policy.getGuid())) {
+                    ret.add(delta);
+
+                    continue;
+                }
+
+                String guid          = policy.getGuid();
+                String derivedPrefix = guid + "-";
+
+                for (List<RangerPolicy> policies : Arrays.asList(resourcePolicies, tagPolicies)) {
+                    if (policies == null) {
+                        continue;
+                    }
+
+                    for (RangerPolicy existingPolicy : policies) {
+                        String existingGuid = existingPolicy.getGuid();
+
+                        if (existingGuid != null && (existingGuid.equals(guid) || existingGuid.startsWith(derivedPrefix))) {
+                            ret.add(new RangerPolicyDelta(delta.getId(), RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE, delta.getPoliciesVersion(), existingPolicy));
+                        }
+                    }
+                }
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== resolvePolicyDeletesByGuid(deltas=" + (deltas != null ? deltas.size() : 0) + "): " + (ret != null ? ret.size() : 0));
+        }
+
+        return ret;
+    }
+
     public static boolean isValidDeltas(List<RangerPolicyDelta> deltas, String componentServiceType) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> isValidDeltas(deltas=" + Arrays.toString(deltas.toArray()) + ", componentServiceType=" + componentServiceType +")");
@@ -21,6 +21,7 @@ package org.apache.atlas.policytransformer;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.RequestContext;
 import org.apache.atlas.discovery.EntityDiscoveryService;
+import org.apache.atlas.discovery.IndexSearchPaginator;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.discovery.AtlasSearchResult;
 import org.apache.atlas.model.discovery.IndexSearchParams;
@@ -33,6 +34,7 @@ import org.apache.atlas.plugin.model.RangerPolicy.RangerPolicyItemAccess;
 import org.apache.atlas.plugin.model.RangerPolicy.RangerPolicyItemCondition;
 import org.apache.atlas.plugin.model.RangerPolicy.RangerPolicyItemDataMaskInfo;
 import org.apache.atlas.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.atlas.plugin.model.RangerPolicyDelta;
 import org.apache.atlas.plugin.model.RangerServiceDef;
 import org.apache.atlas.plugin.model.RangerValiditySchedule;
 import org.apache.atlas.plugin.util.ServicePolicies.TagPolicies;
@@ -42,6 +44,7 @@ import org.apache.atlas.repository.store.graph.v2.EntityGraphRetriever;
 import org.apache.atlas.type.AtlasType;
 import org.apache.atlas.type.AtlasTypeRegistry;
 import org.apache.atlas.utils.AtlasPerfMetrics;
+import org.apache.atlas.utils.AtlasPerfMetrics.MetricId;
 import org.apache.atlas.v1.model.instance.Id;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -52,8 +55,10 @@ import org.springframework.stereotype.Component;
 import javax.inject.Inject;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -61,6 +66,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static org.apache.atlas.repository.Constants.NAME;
@@ -107,6 +113,11 @@ public class CachePolicyTransformerImpl {
     private static final String RESOURCE_SERVICE_DEF_PATH = "/service-defs/";
     private static final String RESOURCE_SERVICE_DEF_PATTERN = RESOURCE_SERVICE_DEF_PATH + "atlas-servicedef-%s.json";
 
+    private static final MetricId METRIC_GET_POLICIES       = MetricId.of("CachePolicyTransformerImpl.getPolicies.{}");
+    private static final MetricId METRIC_GET_POLICY_DELTAS  = MetricId.of("CachePolicyTransformerImpl.getPolicyDeltas.{}");
+    private static final MetricId METRIC_TRANSFORM_POLICIES = MetricId.of("CachePolicyTransformerImpl.{}.transformAtlasPoliciesToRangerPolicies");
+    private static final MetricId METRIC_GET_ATLAS_POLICIES = MetricId.of("CachePolicyTransformerImpl.{}.getAtlasPolicies");
+
     private EntityDiscoveryService discoveryService;
     private AtlasGraph                graph;
     private EntityGraphRetriever      entityRetriever;
@@ -138,7 +149,7 @@ public class CachePolicyTransformerImpl {
 
     public ServicePolicies getPolicies(String serviceName, String pluginId, Long lastUpdatedTime) {
         //TODO: return only if updated
-        AtlasPerfMetrics.MetricRecorder recorder = RequestContext.get().startMetricRecord("CachePolicyTransformerImpl.getPolicies." + serviceName);
+        AtlasPerfMetrics.MetricRecorder recorder = RequestContext.get().startMetricRecord(METRIC_GET_POLICIES, serviceName);
 
         ServicePolicies servicePolicies = new ServicePolicies();
 
@@ -202,6 +213,102 @@ public class CachePolicyTransformerImpl {
         return servicePolicies;
     }
 
+    /**
+     * Returns the changes to the policies of the given service and of its tag service as policy deltas, given the
+     * guids of the AuthPolicy entities created, updated or deleted since the last download.
+     *
+     * An AuthPolicy can be transformed into several Ranger policies, and the ones it was transformed into earlier are
+     * not known here; so each changed AuthPolicy gets a delete delta carrying only its guid, which the plugin resolves
+     * against the policies it has, followed by create deltas for the policies it is transformed into now.
+     * Returns null if the deltas could not be computed, in which case all policies should be downloaded instead.
+     */
+    public ServicePolicies getPolicyDeltas(String serviceName, String pluginId, Collection<String> changedPolicyGuids, long policyVersion, Date policyUpdateTime) {
+        AtlasPerfMetrics.MetricRecorder recorder = RequestContext.get().startMetricRecord(METRIC_GET_POLICY_DELTAS, serviceName);
+
+        ServicePolicies servicePolicies = new ServicePolicies();
+
+        try {
+            service = getServiceEntity(serviceName);
+
+            if (service == null) {
+                return null;
+            }
+
+            servicePolicies.setServiceName(serviceName);
+            servicePolicies.setServiceId(service.getGuid());
+            servicePolicies.setPolicyVersion(policyVersion);
+            servicePolicies.setPolicyUpdateTime(policyUpdateTime);
+            servicePolicies.setPolicies(new ArrayList<>());
+
+            String serviceDefName = String.format(RESOURCE_SERVICE_DEF_PATTERN, serviceName);
+            servicePolicies.setServiceDef(getResourceAsObject(serviceDefName, RangerServiceDef.class));
+
+            Map<String, String> serviceTypes = new HashMap<>();
+            serviceTypes.put(serviceName, (String) service.getAttribute(ATTR_SERVICE_SERVICE_TYPE));
+
+            String tagServiceName = (String) service.getAttribute(ATTR_SERVICE_TAG_SERVICE);
+            if (StringUtils.isNotEmpty(tagServiceName)) {
+                AtlasEntityHeader tagService = getServiceEntity(tagServiceName);
+
+                if (tagService != null) {
+                    TagPolicies tagPolicies = new TagPolicies();
+
+                    tagPolicies.setServiceName(tagServiceName);
+                    tagPolicies.setPolicyUpdateTime(policyUpdateTime);
+                    tagPolicies.setServiceId(tagService.getGuid());
+                    tagPolicies.setPolicyVersion(policyVersion);
+                    tagPolicies.setPolicies(new ArrayList<>());
+
+                    String tagServiceDefName =  String.format(RESOURCE_SERVICE_DEF_PATTERN, tagService.getAttribute(NAME));
+                    tagPolicies.setServiceDef(getResourceAsObject(tagServiceDefName, RangerServiceDef.class));
+
+                    servicePolicies.setTagPolicies(tagPolicies);
+
+                    serviceTypes.put(tagServiceName, (String) tagService.getAttribute(ATTR_SERVICE_SERVICE_TYPE));
+                }
+            }
+
+            Map<String, List<AtlasEntityHeader>> changedPoliciesByService = new HashMap<>();
+
+            if (CollectionUtils.isNotEmpty(changedPolicyGuids)) {
+                List<Map<String, Object>> mustClauseList = new ArrayList<>();
+                mustClauseList.add(getMap("terms", getMap("__guid", new ArrayList<>(changedPolicyGuids))));
+                mustClauseList.add(getMap("terms", getMap(ATTR_POLICY_SERVICE_NAME, new ArrayList<>(serviceTypes.keySet()))));
+                mustClauseList.add(getMap("match", getMap("__state", Id.EntityState.ACTIVE)));
+
+                changedPoliciesByService = getAtlasPolicies(mustClauseList, 0).stream()
+                        .collect(Collectors.groupingBy(x -> (String) x.getAttribute(ATTR_POLICY_SERVICE_NAME)));
+            }
+
+            List<RangerPolicyDelta> policyDeltas = new ArrayList<>();
+
+            for (String changedPolicyGuid : changedPolicyGuids) {
+                RangerPolicy policyToDelete = new RangerPolicy();
+
+                policyToDelete.setGuid(changedPolicyGuid);
+
+                policyDeltas.add(new RangerPolicyDelta((long) policyDeltas.size(), RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE, policyVersion, policyToDelete));
+            }
+
+            for (Map.Entry<String, List<AtlasEntityHeader>> entry : changedPoliciesByService.entrySet()) {
+                for (RangerPolicy policy : transformAtlasPoliciesToRangerPolicies(entry.getValue(), serviceTypes.get(entry.getKey()), entry.getKey())) {
+                    policyDeltas.add(new RangerPolicyDelta((long) policyDeltas.size(), RangerPolicyDelta.CHANGE_TYPE_POLICY_CREATE, policyVersion, policy));
+                }
+            }
+
+            servicePolicies.setPolicyDeltas(policyDeltas);
+
+            LOG.info("Found {} changed policies, {} policy deltas", changedPolicyGuids.size(), policyDeltas.size());
+        } catch (Exception e) {
+            LOG.error("ERROR in getPolicyDeltas {}: ", e);
+            return null;
+        } finally {
+            RequestContext.get().endMetricRecord(recorder);
+        }
+
+        return servicePolicies;
+    }
+
     private List<RangerPolicy> getServicePolicies(AtlasEntityHeader service, int batchSize) throws AtlasBaseException, IOException {
 
         List<RangerPolicy> servicePolicies = new ArrayList<>();
@@ -220,7 +327,7 @@ public class CachePolicyTransformerImpl {
     private List<RangerPolicy> transformAtlasPoliciesToRangerPolicies(List<AtlasEntityHeader> atlasPolicies,
                                                                       String serviceType,
                                                                       String serviceName) throws IOException, AtlasBaseException {
-        AtlasPerfMetrics.MetricRecorder recorder = RequestContext.get().startMetricRecord("CachePolicyTransformerImpl."+serviceName+".transformAtlasPoliciesToRangerPolicies");
+        AtlasPerfMetrics.MetricRecorder recorder = RequestContext.get().startMetricRecord(METRIC_TRANSFORM_POLICIES, serviceName);
 
         List<RangerPolicy> rangerPolicies = new ArrayList<>();
         try {
@@ -452,7 +559,15 @@ public class CachePolicyTransformerImpl {
     }
 
     private List<AtlasEntityHeader> getAtlasPolicies(String serviceName, int batchSize) throws AtlasBaseException {
-        AtlasPerfMetrics.MetricRecorder recorder = RequestContext.get().startMetricRecord("CachePolicyTransformerImpl."+service+".getAtlasPolicies");
+        List<Map<String, Object>> mustClauseList = new ArrayList<>();
+        mustClauseList.add(getMap("term", getMap(ATTR_POLICY_SERVICE_NAME, serviceName)));
+        mustClauseList.add(getMap("match", getMap("__state", Id.EntityState.ACTIVE)));
+
+        return getAtlasPolicies(mustClauseList, batchSize);
+    }
+
+    private List<AtlasEntityHeader> getAtlasPolicies(List<Map<String, Object>> mustClauseList, int batchSize) throws AtlasBaseException {
+        AtlasPerfMetrics.MetricRecorder recorder = RequestContext.get().startMetricRecord(METRIC_GET_ATLAS_POLICIES, service);
 
         List<AtlasEntityHeader> ret = new ArrayList<>();
         try {
@@ -476,13 +591,7 @@ public class CachePolicyTransformerImpl {
             attributes.add(ATTR_POLICY_IS_ENABLED);
             attributes.add(ATTR_POLICY_CONNECTION_QN);
 
-            Map<String, Object> dsl = getMap("size", 0);
-
-            List<Map<String, Object>> mustClauseList = new ArrayList<>();
-            mustClauseList.add(getMap("term", getMap(ATTR_POLICY_SERVICE_NAME, serviceName)));
-            mustClauseList.add(getMap("match", getMap("__state", Id.EntityState.ACTIVE)));
-
-            dsl.put("query", getMap("bool", getMap("must", mustClauseList)));
+            Map<String, Object> dsl = getMap("query", getMap("bool", getMap("must", mustClauseList)));
 
             List<Map> sortList = new ArrayList<>(0);
             sortList.add(getMap("__timestamp", getMap("order", "asc")));
@@ -492,29 +601,17 @@ public class CachePolicyTransformerImpl {
             indexSearchParams.setDsl(dsl);
             indexSearchParams.setAttributes(attributes);
 
-            int from = 0;
             int size = 100;
 
             if (batchSize > 0) {
                 size = batchSize;
             }
-            boolean found = true;
 
-            do {
-                dsl.put("from", from);
-                dsl.put("size", size);
-                indexSearchParams.setDsl(dsl);
-
-                List<AtlasEntityHeader> headers = discoveryService.directIndexSearch(indexSearchParams).getEntities();
-                if (headers != null) {
-                    ret.addAll(headers);
-                } else {
-                    found = false;
+            try (IndexSearchPaginator<AtlasEntityHeader> paginator = discoveryService.indexSearchPaginator(indexSearchParams, size)) {
+                while (paginator.hasNext()) {
+                    ret.addAll(paginator.next());
                 }
-
-                from += size;
-
-            } while (found && ret.size() % size == 0);
+            }
 
         } finally {
             RequestContext.get().endMetricRecord(recorder);
@@ -561,7 +658,7 @@ public class CachePolicyTransformerImpl {
     private RangerPolicy getRangerPolicy(AtlasEntityHeader atlasPolicy, String serviceType) {
         RangerPolicy policy = new RangerPolicy();
 
-        //policy.setId(atlasPolicy.getGuid());
+        policy.setId(getPolicyId(atlasPolicy.getGuid()));
         policy.setName((String) atlasPolicy.getAttribute(QUALIFIED_NAME));
         policy.setService((String) atlasPolicy.getAttribute(ATTR_POLICY_SERVICE_NAME));
         policy.setServiceType(serviceType);
@@ -579,4 +676,12 @@ public class CachePolicyTransformerImpl {
 
         return policy;
     }
+
+    /**
+     * Policy deltas identify policies by a numeric id, which AuthPolicy entities do not have; derives a stable one
+     * from the guid of the (transformed) policy, so that the same policy gets the same id in every download.
+     */
+    static Long getPolicyId(String policyGuid) {
+        return UUID.nameUUIDFromBytes(policyGuid.getBytes(StandardCharsets.UTF_8)).getMostSignificantBits() & Long.MAX_VALUE;
+    }
 }
@@ -0,0 +1,246 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.plugin.policyengine;
+
+import org.apache.atlas.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.atlas.plugin.model.RangerPolicy;
+import org.apache.atlas.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.atlas.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.atlas.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.atlas.plugin.model.RangerServiceDef;
+import org.apache.atlas.plugin.util.RangerAccessRequestUtil;
+import org.apache.atlas.plugin.util.RangerRoles;
+import org.apache.atlas.plugin.util.ServicePolicies;
+import org.apache.atlas.type.AtlasType;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class RangerPolicyEngineImplTest {
+    private static final String SERVICE_NAME   = "atlas";
+    private static final String ENTITY_READ    = "entity-read";
+    private static final String NOT_CLASSIFIED = "_NOT_CLASSIFIED";
+    private static final String USER           = "user1";
+
+    private RangerPolicyEngine policyEngine;
+
+    @BeforeClass
+    public void setup() throws Exception {
+        RangerServiceDef serviceDef;
+
+        try (InputStream stream = getClass().getResourceAsStream("/service-defs/atlas-servicedef-atlas.json")) {
+            serviceDef = AtlasType.fromJson(stream, RangerServiceDef.class);
+        }
+
+        ServicePolicies servicePolicies = new ServicePolicies();
+
+        servicePolicies.setServiceName(SERVICE_NAME);
+        servicePolicies.setServiceDef(serviceDef);
+        servicePolicies.setPolicyVersion(1L);
+        servicePolicies.setPolicies(Arrays.asList(policy(1L, Collections.singletonList("*"), Arrays.asList("PII", NOT_CLASSIFIED), Collections.singletonList("db.*")),
+                                                  policy(2L, Collections.singletonList("hive_column"), Collections.singletonList("*"), Collections.singletonList("*"))));
+
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.disableContextEnrichers = true;
+        options.disableTagPolicyEvaluation = true;
+
+        RangerPluginContext pluginContext = new RangerPluginContext(new RangerPluginConfig(SERVICE_NAME, SERVICE_NAME, "test", "cl1", "on-prem", options));
+
+        policyEngine = new RangerPolicyEngineImpl(servicePolicies, pluginContext, new RangerRoles());
+    }
+
+    @Test
+    public void testBatchEvaluationMatchesSingleEvaluation() {
+        // an entity is allowed only if it is allowed for each of its classifications
+        List<Entity> entities = Arrays.asList(new Entity(USER, "hive_table", "db.t1"),
+                                              new Entity(USER, "hive_table", "db.t2", "PII"),
+                                              new Entity(USER, "hive_table", "db.t3", "PHI"),
+                                              new Entity(USER, "hive_table", "db.t4", "PII", "PHI"),
+                                              new Entity(USER, "hive_table", "other.t5"),
+                                              new Entity(USER, "hive_column", "other.c1", "PHI"),
+                                              new Entity("user2", "hive_table", "db.t1"));
+
+        boolean[] expected = { true, true, false, false, false, true, false };
+
+        List<RangerAccessRequest> batch = new ArrayList<>();
+
+        for (Entity entity : entities) {
+            batch.addAll(entity.getRequests());
+        }
+
+        Collection<RangerAccessResult> batchResults = policyEngine.evaluatePolicies(batch, RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+        assertEquals(batchResults.size(), batch.size());
+
+        List<RangerAccessResult> results = new ArrayList<>(batchResults);
+        int                      idx     = 0;
+
+        for (int i = 0; i < entities.size(); i++) {
+            boolean isAllowedInBatch = true;
+            boolean isAllowed        = true;
+
+            for (RangerAccessRequest request : entities.get(i).getRequests()) {
+                RangerAccessResult batchResult  = results.get(idx++);
+                RangerAccessResult singleResult = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+                assertEquals(batchResult.getIsAllowed(), singleResult.getIsAllowed(), entities.get(i).toString());
+                assertEquals(batchResult.getPolicyId(), singleResult.getPolicyId(), entities.get(i).toString());
+
+                isAllowedInBatch &= batchResult.getIsAllowed();
+                isAllowed        &= singleResult.getIsAllowed();
+            }
+
+            assertEquals(isAllowedInBatch, expected[i], entities.get(i).toString());
+            assertEquals(isAllowed, expected[i], entities.get(i).toString());
+        }
+
+        for (RangerAccessRequest request : batch) {
+            assertFalse(request.getContext().containsKey(RangerAccessRequestUtil.KEY_CONTEXT_TRIE_LOOKUPS));
+        }
+    }
+
+    @Test
+    public void testSharedTrieLookupsAreNotModified() {
+        Map<List<Object>, Set<?>> trieLookups = new HashMap<>();
+        Map<List<Object>, Set<?>> snapshots   = new HashMap<>();
+        List<Entity>              entities    = Arrays.asList(new Entity(USER, "hive_table", "db.t1"),
+                                                              new Entity(USER, "hive_table", "db.t4", "PII", "PHI"),
+                                                              new Entity(USER, "hive_column", "other.c1", "PHI"),
+                                                              new Entity(USER, "hive_column", "db.c2", "PII"),
+                                                              new Entity(USER, "hive_table", "db.t1"));
+
+        for (Entity entity : entities) {
+            for (RangerAccessRequest request : entity.getRequests()) {
+                RangerAccessRequestUtil.setTrieLookupsInContext(request.getContext(), trieLookups);
+
+                boolean expected = policyEngine.evaluatePolicies(entity.copy().getRequests().get(0), RangerPolicy.POLICY_TYPE_ACCESS, null).getIsAllowed();
+
+                assertEquals(policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null).getIsAllowed(), expected, entity.toString());
+
+                for (Map.Entry<List<Object>, Set<?>> entry : trieLookups.entrySet()) {
+                    if (entry.getValue() == null) {
+                        continue;
+                    }
+
+                    Set<?> snapshot = snapshots.get(entry.getKey());
+
+                    if (snapshot == null) {
+                        snapshots.put(entry.getKey(), new HashSet<>(entry.getValue()));
+                    } else {
+                        assertEquals(entry.getValue(), snapshot);
+                    }
+                }
+            }
+        }
+
+        assertTrue(snapshots.size() > 0);
+    }
+
+    private static RangerPolicy policy(long id, List<String> entityTypes, List<String> classifications, List<String> entityIds) {
+        RangerPolicy                      ret       = new RangerPolicy();
+        Map<String, RangerPolicyResource> resources = new HashMap<>();
+        RangerPolicyItem                  item      = new RangerPolicyItem();
+
+        resources.put("entity-type", new RangerPolicyResource(entityTypes, false, false));
+        resources.put("entity-classification", new RangerPolicyResource(classifications, false, false));
+        resources.put("entity", new RangerPolicyResource(entityIds, false, false));
+
+        item.setAccesses(Collections.singletonList(new RangerPolicyItemAccess(ENTITY_READ)));
+        item.setUsers(Collections.singletonList(USER));
+
+        ret.setId(id);
+        ret.setGuid("policy" + id);
+        ret.setName("policy" + id);
+        ret.setService(SERVICE_NAME);
+        ret.setPolicyType(RangerPolicy.POLICY_TYPE_ACCESS);
+        ret.setResources(resources);
+        ret.setPolicyItems(Collections.singletonList(item));
+
+        return ret;
+    }
+
+    // the entity-read requests the authorizer builds for an entity: one for each of its classifications
+    private static class Entity {
+        private final String   user;
+        private final String   typeName;
+        private final String   qualifiedName;
+        private final String[] classifications;
+
+        Entity(String user, String typeName, String qualifiedName, String... classifications) {
+            this.user            = user;
+            this.typeName        = typeName;
+            this.qualifiedName   = qualifiedName;
+            this.classifications = classifications;
+        }
+
+        Entity copy() {
+            return new Entity(user, typeName, qualifiedName, classifications);
+        }
+
+        List<RangerAccessRequest> getRequests() {
+            List<RangerAccessRequest> ret = new ArrayList<>();
+
+            if (classifications.length == 0) {
+                ret.add(getRequest(NOT_CLASSIFIED));
+            } else {
+                for (String classification : classifications) {
+                    ret.add(getRequest(Collections.singleton(classification)));
+                }
+            }
+
+            return ret;
+        }
+
+        private RangerAccessRequest getRequest(Object classification) {
+            RangerAccessRequestImpl  ret      = new RangerAccessRequestImpl();
+            RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+            resource.setValue("entity-type", new HashSet<>(Arrays.asList(typeName, "DataSet")));
+            resource.setValue("entity-classification", classification);
+            resource.setValue("entity", qualifiedName);
+
+            ret.setResource(resource);
+            ret.setAccessType(ENTITY_READ);
+            ret.setAction(ENTITY_READ);
+            ret.setUser(user);
+            ret.setUserGroups(Collections.emptySet());
+
+            return ret;
+        }
+
+        @Override
+        public String toString() {
+            return user + ":" + typeName + ":" + qualifiedName + ":" + Arrays.toString(classifications);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.plugin.util;
+
+import org.apache.atlas.plugin.model.RangerPolicy;
+import org.apache.atlas.plugin.model.RangerPolicyDelta;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+public class RangerPolicyDeltaUtilTest {
+    private static final String SERVICE_TYPE = "atlas";
+    private static final String TAG_SERVICE_TYPE = "tag";
+
+    @Test
+    public void resolvesDeleteByGuidToPoliciesTransformedFromIt() {
+        RangerPolicy resourcePolicy        = policy(1L, "guid1", SERVICE_TYPE);
+        RangerPolicy derivedResourcePolicy = policy(2L, "guid1-1", SERVICE_TYPE);
+        RangerPolicy otherResourcePolicy   = policy(3L, "guid1X-1", SERVICE_TYPE);
+        RangerPolicy derivedTagPolicy      = policy(4L, "guid1-2", TAG_SERVICE_TYPE);
+        RangerPolicy otherTagPolicy        = policy(5L, "guid2-0", TAG_SERVICE_TYPE);
+
+        List<RangerPolicyDelta> resolved = RangerPolicyDeltaUtil.resolvePolicyDeletesByGuid(Collections.singletonList(deleteByGuid("guid1")),
+                Arrays.asList(resourcePolicy, derivedResourcePolicy, otherResourcePolicy), Arrays.asList(derivedTagPolicy, otherTagPolicy));
+
+        assertEquals(resolved.size(), 3);
+        assertDelete(resolved.get(0), resourcePolicy);
+        assertDelete(resolved.get(1), derivedResourcePolicy);
+        assertDelete(resolved.get(2), derivedTagPolicy);
+    }
+
+    @Test
+    public void keepsOtherDeltas() {
+        RangerPolicyDelta deleteById = new RangerPolicyDelta(1L, RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE, 1L, policy(1L, "guid1", SERVICE_TYPE));
+        RangerPolicyDelta create     = new RangerPolicyDelta(2L, RangerPolicyDelta.CHANGE_TYPE_POLICY_CREATE, 1L, policy(2L, "guid2", SERVICE_TYPE));
+
+        List<RangerPolicyDelta> resolved = RangerPolicyDeltaUtil.resolvePolicyDeletesByGuid(Arrays.asList(deleteById, create),
+                Collections.singletonList(policy(1L, "guid1", SERVICE_TYPE)), null);
+
+        assertEquals(resolved.size(), 2);
+        assertSame(resolved.get(0), deleteById);
+        assertSame(resolved.get(1), create);
+
+        assertNull(RangerPolicyDeltaUtil.resolvePolicyDeletesByGuid(null, null, null));
+    }
+
+    @Test
+    public void dropsDeleteByGuidOfUnknownPolicy() {
+        List<RangerPolicyDelta> resolved = RangerPolicyDeltaUtil.resolvePolicyDeletesByGuid(Collections.singletonList(deleteByGuid("guid3")),
+                Collections.singletonList(policy(1L, "guid1", SERVICE_TYPE)), null);
+
+        assertEquals(resolved.size(), 0);
+    }
+
+    @Test
+    public void applyingChangeOfPolicyAgainLeavesPoliciesUnchanged() {
+        List<RangerPolicy> policies = new ArrayList<>(Arrays.asList(policy(1L, "guid1-0", SERVICE_TYPE), policy(2L, "guid1-1", SERVICE_TYPE), policy(3L, "guid2", SERVICE_TYPE)));
+
+        List<RangerPolicy> once  = applyChangeOfGuid1(policies);
+        List<RangerPolicy> twice = applyChangeOfGuid1(once);
+
+        assertEquals(getGuids(once), Arrays.asList("guid1-0", "guid2"));
+        assertEquals(once.get(0).getName(), "changed");
+        assertEquals(getGuids(twice), getGuids(once));
+    }
+
+    private static List<RangerPolicy> applyChangeOfGuid1(List<RangerPolicy> policies) {
+        RangerPolicy changedPolicy = policy(1L, "guid1-0", SERVICE_TYPE);
+
+        changedPolicy.setName("changed");
+
+        List<RangerPolicyDelta> deltas = Arrays.asList(deleteByGuid("guid1"), new RangerPolicyDelta(2L, RangerPolicyDelta.CHANGE_TYPE_POLICY_CREATE, 2L, changedPolicy));
+
+        return RangerPolicyDeltaUtil.applyDeltas(policies, RangerPolicyDeltaUtil.resolvePolicyDeletesByGuid(deltas, policies, null), SERVICE_TYPE);
+    }
+
+    private static RangerPolicyDelta deleteByGuid(String guid) {
+        return new RangerPolicyDelta(1L, RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE, 2L, policy(null, guid, SERVICE_TYPE));
+    }
+
+    private static RangerPolicy policy(Long id, String guid, String serviceType) {
+        RangerPolicy ret = new RangerPolicy();
+
+        ret.setId(id);
+        ret.setGuid(guid);
+        ret.setName(guid);
+        ret.setServiceType(serviceType);
+
+        return ret;
+    }
+
+    private static void assertDelete(RangerPolicyDelta delta, RangerPolicy policy) {
+        assertEquals(delta.getChangeType().intValue(), RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE);
+        assertSame(delta.getPolicy(), policy);
+    }
+
+    private static List<String> getGuids(List<RangerPolicy> policies) {
+        List<String> ret = new ArrayList<>();
+
+        for (RangerPolicy policy : policies) {
+            ret.add(policy.getGuid());
+        }
+
+        return ret;
+    }
+}
@@ -46,6 +46,7 @@ import org.apache.atlas.plugin.audit.RangerDefaultAuditHandler;
 import org.apache.atlas.plugin.contextenricher.RangerTagForEval;
 import org.apache.atlas.plugin.model.RangerServiceDef;
 import org.apache.atlas.plugin.model.RangerTag;
+import org.apache.atlas.plugin.policyengine.RangerAccessRequest;
 import org.apache.atlas.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.atlas.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.atlas.plugin.policyengine.RangerAccessResult;
@@ -53,10 +54,13 @@ import org.apache.atlas.plugin.policyresourcematcher.RangerPolicyResourceMatcher
 import org.apache.atlas.plugin.service.RangerBasePlugin;
 import org.apache.atlas.plugin.util.RangerPerfTracer;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -74,6 +78,7 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
 
     private static volatile RangerBasePlugin atlasPlugin = null;
     private static volatile RangerGroupUtil groupUtil = null;
+    private static volatile RangerAtlasDecisionCache decisionCache = null;
 
     static final Set<AtlasPrivilege> CLASSIFICATION_PRIVILEGES = new HashSet<AtlasPrivilege>() {{
         add(AtlasPrivilege.ENTITY_ADD_CLASSIFICATION);
@@ -101,6 +106,7 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
 
                     atlasPlugin = plugin;
                     groupUtil = new RangerGroupUtil(atlasPlugin.getUserStore());
+                    decisionCache = RangerAtlasDecisionCache.createIfEnabled();
                 }
             }
         }
@@ -130,6 +136,7 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
 
                     atlasPlugin = plugin;
                     groupUtil = new RangerGroupUtil(atlasPlugin.getUserStore());
+                    decisionCache = RangerAtlasDecisionCache.createIfEnabled();
                 }
             }
         }
@@ -550,27 +557,7 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
                 perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "RangerAtlasAuthorizer.scrubSearchResults(" + request + ")");
             }
 
-            final AtlasSearchResult result = request.getSearchResult();
-
-            if (CollectionUtils.isNotEmpty(result.getEntities())) {
-                for (AtlasEntityHeader entity : result.getEntities()) {
-                    checkAccessAndScrub(entity, request);
-                }
-            }
-
-            if (CollectionUtils.isNotEmpty(result.getFullTextResult())) {
-                for (AtlasSearchResult.AtlasFullTextResult fullTextResult : result.getFullTextResult()) {
-                    if (fullTextResult != null) {
-                        checkAccessAndScrub(fullTextResult.getEntity(), request);
-                    }
-                }
-            }
-
-            if (MapUtils.isNotEmpty(result.getReferredEntities())) {
-                for (AtlasEntityHeader entity : result.getReferredEntities().values()) {
-                    checkAccessAndScrub(entity, request);
-                }
-            }
+            checkAccessAndScrub(getEntitiesToScrub(request.getSearchResult()), request);
         } finally {
             RangerPerfTracer.log(perf);
         }
@@ -588,22 +575,13 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
         try {
             if (RangerPerfTracer.isPerfTraceEnabled(PERF_LOG))
                 perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "RangerAtlasAuthorizer.scrubSearchResults(" + request + ")");
-            AtlasSearchResult result = request.getSearchResult();
-            if (CollectionUtils.isNotEmpty(result.getEntities())) {
-                for (AtlasEntityHeader entity : result.getEntities()) {
-                    checkAccessAndScrub(entity, request, isScrubAuditEnabled);
-                }
-            }
-            if (CollectionUtils.isNotEmpty(result.getFullTextResult())) {
-                for (AtlasSearchResult.AtlasFullTextResult fullTextResult : result.getFullTextResult()) {
-                    if (fullTextResult != null)
-                        checkAccessAndScrub(fullTextResult.getEntity(), request, isScrubAuditEnabled);
-                }
-            }
-            if (MapUtils.isNotEmpty(result.getReferredEntities())) {
-                for (AtlasEntityHeader entity : result.getReferredEntities().values()) {
+            List<AtlasEntityHeader> entities = getEntitiesToScrub(request.getSearchResult());
+            if (isScrubAuditEnabled) {
+                for (AtlasEntityHeader entity : entities) {
                     checkAccessAndScrub(entity, request, isScrubAuditEnabled);
                 }
+            } else {
+                checkAccessAndScrub(entities, request);
             }
         } finally {
             RangerPerfTracer.log(perf);
@@ -651,6 +629,36 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
     }
 
     private boolean isAccessAllowed(AtlasEntityAccessRequest request, RangerAtlasAuditHandler auditHandler) throws AtlasAuthorizationException {
+        RangerAtlasDecisionCache             cache    = decisionCache;
+        RangerBasePlugin                     plugin   = atlasPlugin;
+        RangerAtlasDecisionCache.DecisionKey cacheKey = null;
+
+        if (cache != null && plugin != null) {
+            groupUtil.setUserStore(plugin.getUserStore());
+
+            cacheKey = RangerAtlasDecisionCache.getKey(request, groupUtil.getContainedGroups(request.getUser()), plugin.getAuthContextVersion());
+
+            Boolean cachedDecision = cache.get(cacheKey, auditHandler != null);
+
+            if (cachedDecision != null) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("<== isAccessAllowed(" + request + "): " + cachedDecision + " (cached)");
+                }
+
+                return cachedDecision;
+            }
+        }
+
+        boolean ret = evaluateAccess(request, auditHandler);
+
+        if (cacheKey != null) {
+            cache.put(cacheKey, ret, auditHandler != null && !auditHandler.hasAuditEvents());
+        }
+
+        return ret;
+    }
+
+    private boolean evaluateAccess(AtlasEntityAccessRequest request, RangerAtlasAuditHandler auditHandler) throws AtlasAuthorizationException {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> isAccessAllowed(" + request + ")");
         }
@@ -844,7 +852,7 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
         return result;
     }
 
-    private void checkAccessAndScrub(AtlasEntityHeader entity, AtlasSearchResultScrubRequest request) throws AtlasAuthorizationException {
+    private void checkAccessAndScrub(AtlasEntityHeader entity, AtlasSearchResultScrubRequest request, boolean isScrubAuditEnabled) throws AtlasAuthorizationException {
         if (entity != null && request != null) {
             final AtlasEntityAccessRequest entityAccessRequest = new AtlasEntityAccessRequest(request.getTypeRegistry(), AtlasPrivilege.ENTITY_READ, entity, request.getUser(), request.getUserGroups());
 
@@ -852,25 +860,189 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
             entityAccessRequest.setForwardedAddresses(request.getForwardedAddresses());
             entityAccessRequest.setRemoteIPAddress(request.getRemoteIPAddress());
 
-            if (!isAccessAllowed(entityAccessRequest, null)) {
+            boolean isEntityAccessAllowed  = isScrubAuditEnabled ?  isAccessAllowed(entityAccessRequest) : isAccessAllowed(entityAccessRequest, null);
+            if (!isEntityAccessAllowed) {
                 scrubEntityHeader(entity, request.getTypeRegistry());
             }
         }
     }
 
-    private void checkAccessAndScrub(AtlasEntityHeader entity, AtlasSearchResultScrubRequest request, boolean isScrubAuditEnabled) throws AtlasAuthorizationException {
-        if (entity != null && request != null) {
+    private List<AtlasEntityHeader> getEntitiesToScrub(AtlasSearchResult result) {
+        List<AtlasEntityHeader> ret = new ArrayList<>();
+
+        if (CollectionUtils.isNotEmpty(result.getEntities())) {
+            ret.addAll(result.getEntities());
+        }
+
+        if (CollectionUtils.isNotEmpty(result.getFullTextResult())) {
+            for (AtlasSearchResult.AtlasFullTextResult fullTextResult : result.getFullTextResult()) {
+                if (fullTextResult != null && fullTextResult.getEntity() != null) {
+                    ret.add(fullTextResult.getEntity());
+                }
+            }
+        }
+
+        if (MapUtils.isNotEmpty(result.getReferredEntities())) {
+            ret.addAll(result.getReferredEntities().values());
+        }
+
+        return ret;
+    }
+
+    /*
+     * Checks read access to the entities without auditing, evaluating in a single batch the entities whose decision
+     * is not cached: the groups of the user are resolved once, and the classifications in the context of each
+     * request are built once for each set of classifications. Access to an entity is allowed only if it is allowed
+     * for each of its classifications, as in evaluateAccess().
+     */
+    private void checkAccessAndScrub(List<AtlasEntityHeader> entities, AtlasSearchResultScrubRequest request) throws AtlasAuthorizationException {
+        if (CollectionUtils.isEmpty(entities) || request == null) {
+            return;
+        }
+
+        RangerBasePlugin plugin = atlasPlugin;
+
+        if (plugin == null) {
+            LOG.warn("RangerAtlasPlugin not initialized. Access blocked!!!");
+
+            for (AtlasEntityHeader entity : entities) {
+                if (entity != null) {
+                    scrubEntityHeader(entity, request.getTypeRegistry());
+                }
+            }
+
+            return;
+        }
+
+        groupUtil.setUserStore(plugin.getUserStore());
+
+        RangerAtlasDecisionCache                   cache              = decisionCache;
+        Set<String>                                userGroups         = groupUtil.getContainedGroups(request.getUser());
+        long                                       authContextVersion = plugin.getAuthContextVersion();
+        List<AtlasEntityHeader>                    entitiesToEvaluate = new ArrayList<>();
+        List<RangerAtlasDecisionCache.DecisionKey> cacheKeys          = new ArrayList<>();
+        List<RangerAccessRequest>                  rangerRequests     = new ArrayList<>();
+        List<Integer>                              requestEntityIdx   = new ArrayList<>();
+        Map<Set<List<?>>, Set<RangerTagForEval>>   tagsForEval        = new HashMap<>();
+
+        for (AtlasEntityHeader entity : entities) {
+            if (entity == null) {
+                continue;
+            }
+
             final AtlasEntityAccessRequest entityAccessRequest = new AtlasEntityAccessRequest(request.getTypeRegistry(), AtlasPrivilege.ENTITY_READ, entity, request.getUser(), request.getUserGroups());
 
             entityAccessRequest.setClientIPAddress(request.getClientIPAddress());
             entityAccessRequest.setForwardedAddresses(request.getForwardedAddresses());
             entityAccessRequest.setRemoteIPAddress(request.getRemoteIPAddress());
 
-            boolean isEntityAccessAllowed  = isScrubAuditEnabled ?  isAccessAllowed(entityAccessRequest) : isAccessAllowed(entityAccessRequest, null);
-            if (!isEntityAccessAllowed) {
-                scrubEntityHeader(entity, request.getTypeRegistry());
+            RangerAtlasDecisionCache.DecisionKey cacheKey = null;
+
+            if (cache != null) {
+                cacheKey = RangerAtlasDecisionCache.getKey(entityAccessRequest, userGroups, authContextVersion);
+
+                Boolean cachedDecision = cache.get(cacheKey, false);
+
+                if (cachedDecision != null) {
+                    if (!cachedDecision) {
+                        scrubEntityHeader(entity, request.getTypeRegistry());
+                    }
+
+                    continue;
+                }
+            }
+
+            int entityIdx = entitiesToEvaluate.size();
+
+            entitiesToEvaluate.add(entity);
+            cacheKeys.add(cacheKey);
+
+            Set<AtlasClassification> entityClassifications = entityAccessRequest.getEntityClassifications();
+
+            if (CollectionUtils.isNotEmpty(entityClassifications)) {
+                Set<RangerTagForEval> tags = getRangerServiceTag(entityClassifications, tagsForEval);
+
+                for (AtlasClassification classificationToAuthorize : entityClassifications) {
+                    rangerRequests.add(getEntityReadRequest(entityAccessRequest, userGroups, tags, entityAccessRequest.getClassificationTypeAndAllSuperTypes(classificationToAuthorize.getTypeName())));
+                    requestEntityIdx.add(entityIdx);
+                }
+            } else {
+                rangerRequests.add(getEntityReadRequest(entityAccessRequest, userGroups, null, ENTITY_NOT_CLASSIFIED));
+                requestEntityIdx.add(entityIdx);
             }
         }
+
+        if (entitiesToEvaluate.isEmpty()) {
+            return;
+        }
+
+        boolean[]                      isDenied = new boolean[entitiesToEvaluate.size()];
+        Collection<RangerAccessResult> results  = plugin.isAccessAllowed(rangerRequests, null);
+        Iterator<RangerAccessResult>   iter     = results != null ? results.iterator() : Collections.<RangerAccessResult>emptyIterator();
+
+        for (Integer entityIdx : requestEntityIdx) {
+            RangerAccessResult result = iter.hasNext() ? iter.next() : null;
+
+            if (result == null || !result.getIsAllowed()) {
+                isDenied[entityIdx] = true;
+            }
+        }
+
+        for (int i = 0; i < entitiesToEvaluate.size(); i++) {
+            if (cacheKeys.get(i) != null) {
+                cache.put(cacheKeys.get(i), !isDenied[i], false);
+            }
+
+            if (isDenied[i]) {
+                scrubEntityHeader(entitiesToEvaluate.get(i), request.getTypeRegistry());
+            }
+        }
+    }
+
+    private RangerAccessRequestImpl getEntityReadRequest(AtlasEntityAccessRequest request, Set<String> userGroups, Set<RangerTagForEval> tags, Object entityClassification) {
+        final String                   action         = request.getAction() != null ? request.getAction().getType() : null;
+        final RangerAccessRequestImpl  rangerRequest  = new RangerAccessRequestImpl();
+        final RangerAccessResourceImpl rangerResource = new RangerAccessResourceImpl();
+        final String                   ownerUser      = request.getEntity() != null ? (String) request.getEntity().getAttribute(RESOURCE_ENTITY_OWNER) : null;
+
+        rangerResource.setValue(RESOURCE_ENTITY_TYPE, request.getEntityTypeAndAllSuperTypes());
+        rangerResource.setValue(RESOURCE_ENTITY_ID, request.getEntityId());
+        rangerResource.setValue(RESOURCE_ENTITY_CLASSIFICATION, entityClassification);
+        rangerResource.setOwnerUser(ownerUser);
+        rangerRequest.setAccessType(action);
+        rangerRequest.setAction(action);
+        rangerRequest.setUser(request.getUser());
+        rangerRequest.setUserGroups(userGroups);
+        rangerRequest.setClientIPAddress(request.getClientIPAddress());
+        rangerRequest.setAccessTime(request.getAccessTime());
+        rangerRequest.setResource(rangerResource);
+        rangerRequest.setForwardedAddresses(request.getForwardedAddresses());
+        rangerRequest.setRemoteIPAddress(request.getRemoteIPAddress());
+
+        if (tags != null) {
+            rangerRequest.getContext().put("CLASSIFICATIONS", tags);
+        }
+
+        return rangerRequest;
+    }
+
+    // entities having classifications of same types and attributes share the tags in their request contexts
+    private Set<RangerTagForEval> getRangerServiceTag(Set<AtlasClassification> classifications, Map<Set<List<?>>, Set<RangerTagForEval>> tagsForEval) {
+        Set<List<?>> key = new HashSet<>();
+
+        for (AtlasClassification classification : classifications) {
+            key.add(Arrays.asList(classification.getTypeName(), classification.getAttributes()));
+        }
+
+        Set<RangerTagForEval> ret = tagsForEval.get(key);
+
+        if (ret == null) {
+            ret = getRangerServiceTag(classifications);
+
+            tagsForEval.put(key, ret);
+        }
+
+        return ret;
     }
 
     class RangerAtlasPlugin extends RangerBasePlugin {
@@ -938,6 +1110,10 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
         }
 
 
+        public boolean hasAuditEvents() {
+            return !auditEvents.isEmpty();
+        }
+
         public void flushAudit() {
             if (auditEvents != null) {
                 for (AuthzAuditEvent auditEvent : auditEvents.values()) {
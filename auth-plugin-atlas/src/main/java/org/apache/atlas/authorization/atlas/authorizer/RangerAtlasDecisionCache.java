@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.atlas.authorization.atlas.authorizer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.authorize.AtlasEntityAccessRequest;
+import org.apache.atlas.model.instance.AtlasClassification;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.atlas.service.metrics.MetricUtils.getMeterRegistry;
+import static org.apache.atlas.services.atlas.RangerServiceAtlas.RESOURCE_ENTITY_OWNER;
+
+/**
+ * Cache of entity access decisions, keyed by everything the decision depends on: the user and the groups resolved
+ * for the user, the action, the entity type, id and owner, the classifications of the entity and the label, business
+ * metadata or classification being acted upon, the client addresses, and the plugin's auth-context version. The
+ * version changes whenever policies, roles or tags change, so entries computed before are never returned afterwards;
+ * they are dropped as soon as a change is seen. Entries also expire after a short time, to bound the effect of
+ * time-based policy conditions.
+ *
+ * A decision computed while auditing is returned to an audited request only if its evaluation logged no audit
+ * event, so that cached decisions never skip an audit.
+ *
+ * Disabled by default; see atlas.authorizer.decision.cache.enabled.
+ */
+final class RangerAtlasDecisionCache {
+    private static final Log LOG = LogFactory.getLog(RangerAtlasDecisionCache.class);
+
+    private static final String CACHE_NAME = "authorizer_decision_cache";
+
+    private final Cache<DecisionKey, Decision> cache;
+    private volatile long                      authContextVersion = -1;
+
+    private RangerAtlasDecisionCache(Cache<DecisionKey, Decision> cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the decision cache if enabled, null otherwise.
+     */
+    static RangerAtlasDecisionCache createIfEnabled() {
+        if (!AtlasConfiguration.AUTHORIZER_DECISION_CACHE_ENABLED.getBoolean()) {
+            return null;
+        }
+
+        long maxEntries = AtlasConfiguration.AUTHORIZER_DECISION_CACHE_MAX_ENTRIES.getLong();
+        long ttlSeconds = AtlasConfiguration.AUTHORIZER_DECISION_CACHE_TTL_SECONDS.getLong();
+
+        Cache<DecisionKey, Decision> cache = CacheBuilder.newBuilder()
+                                                         .maximumSize(maxEntries)
+                                                         .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                                                         .recordStats()
+                                                         .build();
+
+        GuavaCacheMetrics.monitor(getMeterRegistry(), cache, CACHE_NAME);
+
+        LOG.info("Authorizer decision cache enabled: maxEntries=" + maxEntries + ", ttlSeconds=" + ttlSeconds);
+
+        return new RangerAtlasDecisionCache(cache);
+    }
+
+    static DecisionKey getKey(AtlasEntityAccessRequest request, Set<String> userGroups, long authContextVersion) {
+        return new DecisionKey(request, userGroups, authContextVersion);
+    }
+
+    /**
+     * Returns the cached decision for the given key, or null if there is none usable for a request that is, or is
+     * not, audited.
+     */
+    Boolean get(DecisionKey key, boolean isAudited) {
+        onAuthContextVersion(key.authContextVersion);
+
+        Decision decision = cache.getIfPresent(key);
+
+        if (decision == null || (isAudited && !decision.isAuditFree)) {
+            return null;
+        }
+
+        return decision.isAllowed;
+    }
+
+    /**
+     * Caches a decision; isAuditFree tells whether it was computed while auditing, without logging any audit event.
+     */
+    void put(DecisionKey key, boolean isAllowed, boolean isAuditFree) {
+        if (key.authContextVersion != authContextVersion) {
+            return;
+        }
+
+        Decision existing = cache.getIfPresent(key);
+
+        if (existing == null || !existing.isAuditFree || isAuditFree) {
+            cache.put(key, new Decision(isAllowed, isAuditFree));
+        }
+    }
+
+    private void onAuthContextVersion(long version) {
+        if (version != authContextVersion) {
+            synchronized (this) {
+                if (version > authContextVersion) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Auth context changed from version " + authContextVersion + " to " + version + "; clearing " + cache.size() + " cached decisions");
+                    }
+
+                    authContextVersion = version;
+
+                    cache.invalidateAll();
+                }
+            }
+        }
+    }
+
+    private static final class Decision {
+        private final boolean isAllowed;
+        private final boolean isAuditFree;
+
+        Decision(boolean isAllowed, boolean isAuditFree) {
+            this.isAllowed   = isAllowed;
+            this.isAuditFree = isAuditFree;
+        }
+    }
+
+    static final class DecisionKey {
+        private final String       user;
+        private final Set<String>  userGroups;
+        private final String       action;
+        private final String       entityType;
+        private final String       entityId;
+        private final String       ownerUser;
+        private final String       label;
+        private final String       businessMetadata;
+        private final String       classification;
+        private final Set<List<?>> entityClassifications;
+        private final String       clientIPAddress;
+        private final String       remoteIPAddress;
+        private final List<String> forwardedAddresses;
+        private final long         authContextVersion;
+        private final int          hashCode;
+
+        private DecisionKey(AtlasEntityAccessRequest request, Set<String> userGroups, long authContextVersion) {
+            this.user                  = request.getUser();
+            this.userGroups            = userGroups != null ? userGroups : Collections.emptySet();
+            this.action                = request.getAction() != null ? request.getAction().getType() : null;
+            this.entityType            = request.getEntityType();
+            this.entityId              = request.getEntityId();
+            this.ownerUser             = request.getEntity() != null ? (String) request.getEntity().getAttribute(RESOURCE_ENTITY_OWNER) : null;
+            this.label                 = request.getLabel();
+            this.businessMetadata      = request.getBusinessMetadata();
+            this.classification        = request.getClassification() != null ? request.getClassification().getTypeName() : null;
+            this.entityClassifications = getClassificationsKey(request.getEntityClassifications());
+            this.clientIPAddress       = request.getClientIPAddress();
+            this.remoteIPAddress       = request.getRemoteIPAddress();
+            this.forwardedAddresses    = request.getForwardedAddresses();
+            this.authContextVersion    = authContextVersion;
+            this.hashCode              = Objects.hash(user, this.userGroups, action, entityType, entityId, ownerUser, label, businessMetadata, classification,
+                                                      entityClassifications, clientIPAddress, remoteIPAddress, forwardedAddresses, authContextVersion);
+        }
+
+        // type name and attributes of each classification, as tag-based policy conditions can refer to attributes
+        private static Set<List<?>> getClassificationsKey(Set<AtlasClassification> classifications) {
+            if (classifications == null || classifications.isEmpty()) {
+                return Collections.emptySet();
+            }
+
+            Set<List<?>> ret = new HashSet<>();
+
+            for (AtlasClassification classification : classifications) {
+                Map<String, Object> attributes = classification.getAttributes();
+
+                ret.add(Arrays.asList(classification.getTypeName(), attributes != null ? attributes : Collections.emptyMap()));
+            }
+
+            return ret;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof DecisionKey)) {
+                return false;
+            }
+
+            DecisionKey other = (DecisionKey) o;
+
+            return hashCode == other.hashCode &&
+                   authContextVersion == other.authContextVersion &&
+                   Objects.equals(user, other.user) &&
+                   Objects.equals(userGroups, other.userGroups) &&
+                   Objects.equals(action, other.action) &&
+                   Objects.equals(entityType, other.entityType) &&
+                   Objects.equals(entityId, other.entityId) &&
+                   Objects.equals(ownerUser, other.ownerUser) &&
+                   Objects.equals(label, other.label) &&
+                   Objects.equals(businessMetadata, other.businessMetadata) &&
+                   Objects.equals(classification, other.classification) &&
+                   Objects.equals(entityClassifications, other.entityClassifications) &&
+                   Objects.equals(clientIPAddress, other.clientIPAddress) &&
+                   Objects.equals(remoteIPAddress, other.remoteIPAddress) &&
+                   Objects.equals(forwardedAddresses, other.forwardedAddresses);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
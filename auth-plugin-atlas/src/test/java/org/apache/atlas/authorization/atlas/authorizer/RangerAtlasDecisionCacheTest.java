@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.atlas.authorization.atlas.authorizer;
+
+import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.authorization.atlas.authorizer.RangerAtlasDecisionCache.DecisionKey;
+import org.apache.atlas.authorize.AtlasEntityAccessRequest;
+import org.apache.atlas.authorize.AtlasPrivilege;
+import org.apache.atlas.model.instance.AtlasClassification;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.plugin.policyengine.RangerPluginContext;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.apache.atlas.services.atlas.RangerServiceAtlas.RESOURCE_ENTITY_OWNER;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+public class RangerAtlasDecisionCacheTest {
+    private static final String      USER   = "user1";
+    private static final Set<String> GROUPS = Collections.singleton("group1");
+
+    private RangerPluginContext      pluginContext;
+    private RangerAtlasDecisionCache cache;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        ApplicationProperties.get().setProperty(AtlasConfiguration.AUTHORIZER_DECISION_CACHE_ENABLED.getPropertyName(), true);
+
+        pluginContext = new RangerPluginContext(null);
+        cache         = RangerAtlasDecisionCache.createIfEnabled();
+
+        assertNotNull(cache);
+    }
+
+    @Test
+    public void testDecisionIsReusedForIdenticalKeyOnly() {
+        DecisionKey key = key(request(AtlasPrivilege.ENTITY_UPDATE, "db.t1", "alice", "PII"), GROUPS);
+
+        assertNull(cache.get(key, false));
+
+        cache.put(key, true, true);
+
+        assertEquals(cache.get(key(request(AtlasPrivilege.ENTITY_UPDATE, "db.t1", "alice", "PII"), GROUPS), false), Boolean.TRUE);
+        assertEquals(cache.get(key(request(AtlasPrivilege.ENTITY_UPDATE, "db.t1", "alice", "PII"), new HashSet<>(GROUPS)), true), Boolean.TRUE);
+
+        assertNull(cache.get(key(request(AtlasPrivilege.ENTITY_UPDATE, "db.t1", "alice", "PII"), new HashSet<>(Arrays.asList("group1", "group2"))), false));
+        assertNull(cache.get(key(request(AtlasPrivilege.ENTITY_UPDATE, "db.t1", "alice", "PII"), Collections.emptySet()), false));
+        assertNull(cache.get(key(request(AtlasPrivilege.ENTITY_READ, "db.t1", "alice", "PII"), GROUPS), false));
+        assertNull(cache.get(key(request(AtlasPrivilege.ENTITY_UPDATE, "db.t2", "alice", "PII"), GROUPS), false));
+        assertNull(cache.get(key(request(AtlasPrivilege.ENTITY_UPDATE, "db.t1", "bob", "PII"), GROUPS), false));
+        assertNull(cache.get(key(request(AtlasPrivilege.ENTITY_UPDATE, "db.t1", "alice", "PHI"), GROUPS), false));
+        assertNull(cache.get(key(request(AtlasPrivilege.ENTITY_UPDATE, "db.t1", "alice"), GROUPS), false));
+        assertNull(cache.get(key(request(AtlasPrivilege.ENTITY_UPDATE, "db.t1", "alice", "PII", "PHI"), GROUPS), false));
+
+        AtlasEntityAccessRequest otherUser = new AtlasEntityAccessRequest(null, AtlasPrivilege.ENTITY_UPDATE, entity("db.t1", "alice", "PII"), "user2", GROUPS);
+
+        assertNull(cache.get(key(otherUser, GROUPS), false));
+
+        AtlasEntityHeader   entity         = entity("db.t1", "alice");
+        AtlasClassification classification = new AtlasClassification("PII");
+
+        classification.setAttribute("level", "high");
+        entity.setClassifications(Collections.singletonList(classification));
+
+        assertNull(cache.get(key(new AtlasEntityAccessRequest(null, AtlasPrivilege.ENTITY_UPDATE, entity, USER, GROUPS), GROUPS), false));
+    }
+
+    @Test
+    public void testDecisionLoggedToAuditIsNotReusedForAuditedRequest() {
+        DecisionKey key = key(request(AtlasPrivilege.ENTITY_UPDATE, "db.t1", "alice"), GROUPS);
+
+        assertNull(cache.get(key, true));
+
+        cache.put(key, false, false);
+
+        assertEquals(cache.get(key, false), Boolean.FALSE);
+        assertNull(cache.get(key, true));
+
+        cache.put(key, false, true);
+
+        assertEquals(cache.get(key, true), Boolean.FALSE);
+    }
+
+    @Test
+    public void testAuthContextChangeClearsCache() {
+        DecisionKey key = key(request(AtlasPrivilege.ENTITY_UPDATE, "db.t1", "alice"), GROUPS);
+
+        assertNull(cache.get(key, false));
+
+        cache.put(key, true, true);
+
+        assertEquals(cache.get(key, false), Boolean.TRUE);
+
+        // called on policy, role and user-store changes
+        pluginContext.notifyAuthContextChanged();
+
+        DecisionKey newKey = key(request(AtlasPrivilege.ENTITY_UPDATE, "db.t1", "alice"), GROUPS);
+
+        assertNull(cache.get(newKey, false));
+        assertNull(cache.get(key, false));
+
+        // a decision computed on the earlier context is not cached
+        cache.put(key, true, true);
+
+        assertNull(cache.get(newKey, false));
+
+        cache.put(newKey, false, true);
+
+        assertEquals(cache.get(newKey, false), Boolean.FALSE);
+    }
+
+    private DecisionKey key(AtlasEntityAccessRequest request, Set<String> userGroups) {
+        return RangerAtlasDecisionCache.getKey(request, userGroups, pluginContext.getAuthContextVersion());
+    }
+
+    private static AtlasEntityAccessRequest request(AtlasPrivilege action, String qualifiedName, String owner, String... classificationNames) {
+        return new AtlasEntityAccessRequest(null, action, entity(qualifiedName, owner, classificationNames), USER, GROUPS);
+    }
+
+    private static AtlasEntityHeader entity(String qualifiedName, String owner, String... classificationNames) {
+        AtlasEntityHeader ret = new AtlasEntityHeader("hive_table");
+
+        ret.setAttribute("qualifiedName", qualifiedName);
+        ret.setAttribute(RESOURCE_ENTITY_OWNER, owner);
+
+        if (classificationNames.length > 0) {
+            List<AtlasClassification> classifications = new ArrayList<>();
+
+            for (String classificationName : classificationNames) {
+                classifications.add(new AtlasClassification(classificationName));
+            }
+
+            ret.setClassifications(classifications);
+        }
+
+        return ret;
+    }
+}
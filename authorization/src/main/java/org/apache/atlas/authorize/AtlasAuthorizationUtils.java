@@ -22,6 +22,7 @@ package org.apache.atlas.authorize;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.RequestContext;
 import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.instance.AtlasClassification;
 import org.apache.atlas.model.instance.AtlasEntityHeader;
 import org.apache.atlas.type.AtlasTypeRegistry;
 import org.apache.atlas.utils.AtlasPerfMetrics.MetricRecorder;
@@ -37,6 +38,7 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.*;
 
+import static org.apache.atlas.repository.Constants.OWNER_ATTRIBUTE;
 import static org.apache.atlas.repository.Constants.SKIP_DELETE_AUTH_CHECK_TYPES;
 import static org.apache.atlas.repository.Constants.SKIP_UPDATE_AUTH_CHECK_TYPES;
 
@@ -81,6 +83,20 @@ public class AtlasAuthorizationUtils {
         }
     }
 
+    /**
+     * Verifies the given entity requests with one authorizer call; throws for the first request not allowed, with its
+     * error message.
+     */
+    public static void verifyAccess(List<AtlasEntityAccessRequest> requests, List<String> errorMessages) throws AtlasBaseException {
+        boolean[] allowed = isAccessAllowed(requests);
+
+        for (int i = 0; i < allowed.length; i++) {
+            if (!allowed[i]) {
+                throw new AtlasBaseException(AtlasErrorCode.UNAUTHORIZED_ACCESS, requests.get(i).getUser(), errorMessages.get(i));
+            }
+        }
+    }
+
     public static void verifyAccess(AtlasRelationshipAccessRequest request, Object... errorMsgParams) throws AtlasBaseException {
         if (!isAccessAllowed(request)) {
             String message = (errorMsgParams != null && errorMsgParams.length > 0) ? StringUtils.join(errorMsgParams) : "";
@@ -173,6 +189,59 @@ public class AtlasAuthorizationUtils {
         return ret;
     }
 
+    /**
+     * Evaluates the given entity requests with one authorizer call. Requests that policies can't tell apart - of the
+     * same action, entity type, id, owner and classifications, and on the same classification, label, business
+     * metadata or attribute - are evaluated once.
+     *
+     * @return for each request, in the same order, whether it is allowed
+     */
+    public static boolean[] isAccessAllowed(List<AtlasEntityAccessRequest> requests) {
+        MetricRecorder metric = RequestContext.get().startMetricRecord("isAccessAllowedBatch");
+
+        boolean[] ret      = new boolean[requests.size()];
+        String    userName = getCurrentUserName();
+
+        if (StringUtils.isNotEmpty(userName) && !RequestContext.get().isImportInProgress()) {
+            Set<String>                    userGroups      = getCurrentUserGroups();
+            List<AtlasEntityAccessRequest> distinct        = new ArrayList<>();
+            Map<List<Object>, Integer>     distinctIndexes = new HashMap<>();
+            int[]                          indexes         = new int[requests.size()];
+
+            for (int i = 0; i < indexes.length; i++) {
+                final AtlasEntityAccessRequest request = requests.get(i);
+
+                request.setUser(userName, userGroups);
+                request.setClientIPAddress(RequestContext.get().getClientIPAddress());
+                request.setForwardedAddresses(RequestContext.get().getForwardedAddresses());
+                request.setRemoteIPAddress(RequestContext.get().getClientIPAddress());
+
+                indexes[i] = distinctIndexes.computeIfAbsent(getDecisionKey(request), k -> {
+                    distinct.add(request);
+
+                    return distinct.size() - 1;
+                });
+            }
+
+            try {
+                AtlasAuthorizer authorizer = AtlasAuthorizerFactory.getAtlasAuthorizer();
+                boolean[]       allowed    = authorizer.isAccessAllowed(distinct);
+
+                for (int i = 0; i < indexes.length; i++) {
+                    ret[i] = allowed[indexes[i]];
+                }
+            } catch (AtlasAuthorizationException e) {
+                LOG.error("Unable to obtain AtlasAuthorizer", e);
+            }
+        } else {
+            Arrays.fill(ret, true);
+        }
+
+        RequestContext.get().endMetricRecord(metric);
+
+        return ret;
+    }
+
     public static boolean isAccessAllowed(AtlasTypeAccessRequest request) {
         MetricRecorder metric = RequestContext.get().startMetricRecord("isAccessAllowed");
 
@@ -357,6 +426,24 @@ public class AtlasAuthorizationUtils {
         return ret;
     }
 
+    // the user and client are the same for all requests of a batch, so are left out
+    private static List<Object> getDecisionKey(AtlasEntityAccessRequest request) {
+        AtlasEntityHeader   entity                = request.getEntity();
+        AtlasClassification classification        = request.getClassification();
+        Set<List<Object>>   entityClassifications = new HashSet<>();
+
+        if (request.getEntityClassifications() != null) {
+            for (AtlasClassification entityClassification : request.getEntityClassifications()) {
+                entityClassifications.add(Arrays.asList(entityClassification.getTypeName(), entityClassification.getAttributes()));
+            }
+        }
+
+        return Arrays.asList(request.getAction(), request.getEntityType(), request.getEntityId(),
+                             entity != null ? entity.getAttribute(OWNER_ATTRIBUTE) : null,
+                             classification != null ? classification.getTypeName() : null, entityClassifications,
+                             request.getLabel(), request.getBusinessMetadata(), request.getAttributeName(), request.isAuditEnabled());
+    }
+
     private static void setAuthInfo(AtlasAccessRequest request) {
         request.setUser(getCurrentUserName(), getCurrentUserGroups());
         request.setClientIPAddress(RequestContext.get().getClientIPAddress());
@@ -24,6 +24,7 @@ import org.apache.atlas.type.AtlasEntityType;
 import org.apache.atlas.type.AtlasStructType;
 import org.apache.atlas.type.AtlasTypeRegistry;
 
+import java.util.List;
 import java.util.Set;
 
 public interface AtlasAuthorizer {
@@ -53,6 +54,23 @@ public interface AtlasAuthorizer {
      */
     boolean isAccessAllowed(AtlasEntityAccessRequest request) throws AtlasAuthorizationException;
 
+    /**
+     * authorize operations on entities, in one call
+     * @param requests
+     * @return for each request, in the same order, whether it is allowed
+     * @throws AtlasAuthorizationException
+     */
+    default
+    boolean[] isAccessAllowed(List<AtlasEntityAccessRequest> requests) throws AtlasAuthorizationException {
+        boolean[] ret = new boolean[requests.size()];
+
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = isAccessAllowed(requests.get(i));
+        }
+
+        return ret;
+    }
+
     /**
      * authorize operations on a type
      * @param request
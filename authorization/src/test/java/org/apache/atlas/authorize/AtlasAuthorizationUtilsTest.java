@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.authorize;
+
+import org.apache.atlas.RequestContext;
+import org.apache.atlas.model.instance.AtlasClassification;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.atlas.repository.Constants.OWNER_ATTRIBUTE;
+import static org.testng.Assert.assertEquals;
+
+public class AtlasAuthorizationUtilsTest {
+    private static final String USER      = "user1";
+    private static final String DENIED_ID = "db.denied";
+
+    private final List<List<AtlasEntityAccessRequest>> batches = new ArrayList<>();
+
+    private AtlasAuthorizer originalAuthorizer;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        batches.clear();
+
+        originalAuthorizer = setAuthorizer(new AtlasNoneAuthorizer() {
+            @Override
+            public boolean[] isAccessAllowed(List<AtlasEntityAccessRequest> requests) {
+                boolean[] ret = new boolean[requests.size()];
+
+                for (int i = 0; i < ret.length; i++) {
+                    ret[i] = !DENIED_ID.equals(requests.get(i).getEntityId());
+                }
+
+                batches.add(new ArrayList<>(requests));
+
+                return ret;
+            }
+        });
+
+        RequestContext.clear();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(USER, "", Collections.singletonList(new SimpleGrantedAuthority("group1"))));
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        setAuthorizer(originalAuthorizer);
+        SecurityContextHolder.clearContext();
+        RequestContext.clear();
+    }
+
+    @Test
+    public void testIdenticalRequestsAreEvaluatedOnce() {
+        List<AtlasEntityAccessRequest> requests = Arrays.asList(request("db.t1", "alice", "PII"),
+                                                                request("db.t1", "alice", "PII"),
+                                                                request(DENIED_ID, "alice", "PII"),
+                                                                request(DENIED_ID, "alice", "PII"));
+
+        boolean[] allowed = AtlasAuthorizationUtils.isAccessAllowed(requests);
+
+        assertEquals(allowed, new boolean[] { true, true, false, false });
+        assertEquals(batches.size(), 1);
+        assertEquals(batches.get(0).size(), 2);
+        assertEquals(batches.get(0).get(0).getEntityId(), "db.t1");
+        assertEquals(batches.get(0).get(1).getEntityId(), DENIED_ID);
+
+        for (AtlasEntityAccessRequest request : requests) {
+            assertEquals(request.getUser(), USER);
+            assertEquals(request.getUserGroups(), Collections.singleton("group1"));
+        }
+    }
+
+    @Test
+    public void testRequestsDifferingInPolicyInputsAreNotMerged() {
+        List<AtlasEntityAccessRequest> requests = Arrays.asList(request("db.t1", "alice", "PII"),
+                                                                request(DENIED_ID, "alice", "PII"),
+                                                                request("db.t1", "bob", "PII"),
+                                                                request("db.t1", "alice", "PHI"),
+                                                                request("db.t1", "alice"),
+                                                                request("db.t1", "alice", "PII"));
+
+        boolean[] allowed = AtlasAuthorizationUtils.isAccessAllowed(requests);
+
+        assertEquals(allowed, new boolean[] { true, false, true, true, true, true });
+        assertEquals(batches.size(), 1);
+        assertEquals(batches.get(0).size(), 5);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(batches.get(0).get(i), requests.get(i));
+        }
+    }
+
+    @Test
+    public void testRequestsOfDifferentActionsAreNotMerged() {
+        AtlasEntityAccessRequest update = request("db.t1", "alice", "PII");
+        AtlasEntityAccessRequest create = new AtlasEntityAccessRequest(null, AtlasPrivilege.ENTITY_CREATE, update.getEntity());
+
+        boolean[] allowed = AtlasAuthorizationUtils.isAccessAllowed(Arrays.asList(update, create));
+
+        assertEquals(allowed, new boolean[] { true, true });
+        assertEquals(batches.get(0).size(), 2);
+    }
+
+    private static AtlasEntityAccessRequest request(String qualifiedName, String owner, String... classificationNames) {
+        AtlasEntityHeader entity = new AtlasEntityHeader("hive_table");
+
+        entity.setAttribute("qualifiedName", qualifiedName);
+        entity.setAttribute(OWNER_ATTRIBUTE, owner);
+
+        if (classificationNames.length > 0) {
+            List<AtlasClassification> classifications = new ArrayList<>();
+
+            for (String classificationName : classificationNames) {
+                classifications.add(new AtlasClassification(classificationName));
+            }
+
+            entity.setClassifications(classifications);
+        }
+
+        return new AtlasEntityAccessRequest(null, AtlasPrivilege.ENTITY_UPDATE, entity);
+    }
+
+    private static AtlasAuthorizer setAuthorizer(AtlasAuthorizer authorizer) throws Exception {
+        Field           instance = AtlasAuthorizerFactory.class.getDeclaredField("INSTANCE");
+
+        instance.setAccessible(true);
+
+        AtlasAuthorizer ret = (AtlasAuthorizer) instance.get(null);
+
+        instance.set(null, authorizer);
+
+        return ret;
+    }
+}
@@ -26,6 +26,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.testng.AssertJUnit;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -350,6 +351,37 @@ public class AtlasSimpleAuthorizerTest {
         }
     }
 
+    @Test(enabled = true)
+    public void testBatchMatchesSingleRequests() {
+        try {
+            List<AtlasEntityAccessRequest> requests = new ArrayList<>();
+
+            for (String userName : Arrays.asList(USER_DATA_SCIENTIST, USER_DATA_STEWARD, USER_DATA_STEWARD_EX)) {
+                for (AtlasPrivilege privilege : ENTITY_PRIVILEGES) {
+                    AtlasEntityAccessRequest request = new AtlasEntityAccessRequest(null, privilege);
+
+                    setUser(request, userName);
+
+                    requests.add(request);
+                }
+            }
+
+            boolean[] isAccessAllowed = authorizer.isAccessAllowed(requests);
+
+            AssertJUnit.assertEquals(requests.size(), isAccessAllowed.length);
+
+            for (int i = 0; i < requests.size(); i++) {
+                AtlasEntityAccessRequest request = requests.get(i);
+
+                AssertJUnit.assertEquals(request.getAction() + " for user " + request.getUser(), authorizer.isAccessAllowed(request), isAccessAllowed[i]);
+            }
+        } catch (AtlasAuthorizationException e) {
+            LOG.error("Exception in AtlasSimpleAuthorizerTest", e);
+
+            AssertJUnit.fail();
+        }
+    }
+
     private void setUser(AtlasAccessRequest request, String userName) {
         Set<String> userGroups = USER_GROUPS.get(userName);
 
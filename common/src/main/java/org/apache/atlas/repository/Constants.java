@@ -203,6 +203,17 @@ public final class Constants {
 
     public static String[] PROCESS_EDGE_LABELS = {PROCESS_OUTPUTS, PROCESS_INPUTS};
 
+    /**
+     * Precomputed lineage counts: on datasets, the number of datasets one process hop upstream/downstream;
+     * on processes, the active input/output counts last applied to those datasets; on lineage edges, whether
+     * the edge is included in the count of its dataset.
+     */
+    public static final String LINEAGE_UPSTREAM_COUNT_PROPERTY_KEY       = encodePropertyKey(INTERNAL_PROPERTY_KEY_PREFIX + "lineageUpstreamCount");
+    public static final String LINEAGE_DOWNSTREAM_COUNT_PROPERTY_KEY     = encodePropertyKey(INTERNAL_PROPERTY_KEY_PREFIX + "lineageDownstreamCount");
+    public static final String LINEAGE_ACTIVE_INPUTS_COUNT_PROPERTY_KEY  = encodePropertyKey(INTERNAL_PROPERTY_KEY_PREFIX + "lineageActiveInputsCount");
+    public static final String LINEAGE_ACTIVE_OUTPUTS_COUNT_PROPERTY_KEY = encodePropertyKey(INTERNAL_PROPERTY_KEY_PREFIX + "lineageActiveOutputsCount");
+    public static final String LINEAGE_COUNTED_PROPERTY_KEY              = encodePropertyKey(INTERNAL_PROPERTY_KEY_PREFIX + "lineageCounted");
+
     /**
      * The homeId field is used when saving into Atlas a copy of an object that is being imported from another
      * repository. The homeId will be set to a String that identifies the other repository. The specific format
@@ -351,6 +362,7 @@ public final class Constants {
     public static final String TASK_CLASSIFICATION_ID       = encodePropertyKey(TASK_PREFIX + "classificationId");
     public static final String TASK_ENTITY_GUID             = encodePropertyKey(TASK_PREFIX + "entityGuid");
     public static final String TASK_CLASSIFICATION_NAME    = encodePropertyKey(TASK_PREFIX + "classificationName");
+    public static final String TASK_PROPAGATION_CURSOR     = encodePropertyKey(TASK_PREFIX + "propagationCursor");
     public static final String ACTIVE_STATE_VALUE           = "ACTIVE";
 
     /**
@@ -6,6 +6,7 @@ import org.apache.atlas.ApplicationProperties;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.utils.AtlasMetricType;
 import org.apache.atlas.utils.AtlasPerfMetrics;
+import org.apache.atlas.utils.AtlasPerfMetrics.MetricId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -15,8 +16,10 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -33,27 +36,86 @@ public class MetricsRegistryServiceImpl implements MetricsRegistry {
     private static final String METHOD_DIST_SUMMARY = "method_dist_summary";
     private static final String APPLICATION_LEVEL_METRICS_SUMMARY = "application_level_metrics_summary";
     private static final double[] PERCENTILES = {0.99};
+    private static final double[] METHOD_PERCENTILES = {0.5, 0.99};
+    private static final Duration[] APPLICATION_LEVEL_METRICS_SLOS = {
+            Duration.ofMillis(500),
+            Duration.ofMillis(750),
+            Duration.ofMillis(1000),
+            Duration.ofMillis(1200),
+            Duration.ofMillis(1500),
+            Duration.ofSeconds(2),
+            Duration.ofSeconds(3),
+            Duration.ofSeconds(4),
+            Duration.ofSeconds(5),
+            Duration.ofSeconds(7),
+            Duration.ofSeconds(10),
+            Duration.ofSeconds(15),
+            Duration.ofSeconds(20),
+            Duration.ofSeconds(25),
+            Duration.ofSeconds(30),
+            Duration.ofSeconds(40),
+            Duration.ofSeconds(60),
+            Duration.ofSeconds(90),
+            Duration.ofSeconds(120),
+            Duration.ofSeconds(180)
+    };
     private static final String METHOD_LEVEL_METRICS_ENABLE = "atlas.metrics.method_level.enable";
     private static final String ATLAS_METRICS_METHOD_PATTERNS = "atlas.metrics.method_patterns";
-    private final List<String> filteredMethods;
+    private static final String SCRAPE_BUFFER_SIZE = "atlas.metrics.scrape.buffer.size";
+    private static final String SCRAPE_MAX_SERIES_PER_FAMILY = "atlas.metrics.scrape.max.series.per.family";
+    private final List<MetricId> filteredMethods;
+    private final boolean isMethodLevelMetricsEnabled;
+    private final PrometheusScrapeWriter scrapeWriter;
+
+    // meters are looked up here rather than built and registered again on every request; method timers are kept
+    // per uri, in the order of filteredMethods
+    private final Map<String, Timer[]> methodTimers = new ConcurrentHashMap<>();
+    private final Map<List<Object>, Meter> applicationMeters = new ConcurrentHashMap<>();
 
     @Inject
     public MetricsRegistryServiceImpl() throws AtlasException {
-        this.filteredMethods = Arrays.stream(ApplicationProperties.get().getStringArray(ATLAS_METRICS_METHOD_PATTERNS)).collect(Collectors.toList());
+        this.filteredMethods = Arrays.stream(ApplicationProperties.get().getStringArray(ATLAS_METRICS_METHOD_PATTERNS)).map(MetricId::of).collect(Collectors.toList());
+        this.isMethodLevelMetricsEnabled = ApplicationProperties.get().getBoolean(METHOD_LEVEL_METRICS_ENABLE, false);
+        this.scrapeWriter = new PrometheusScrapeWriter(ApplicationProperties.get().getInt(SCRAPE_BUFFER_SIZE, 64 * 1024),
+                                                       ApplicationProperties.get().getInt(SCRAPE_MAX_SERIES_PER_FAMILY, 10000));
     }
 
     @Override
     public void collect(String requestId, String requestUri, AtlasPerfMetrics metrics) {
         try {
-            if (!ApplicationProperties.get().getBoolean(METHOD_LEVEL_METRICS_ENABLE, false)) {
+            if (!isMethodLevelMetricsEnabled) {
                 return;
             }
 
-            for (String name : this.filteredMethods) {
-                if(metrics.hasMetric(name)) {
-                    AtlasPerfMetrics.Metric metric = metrics.getMetric(name);
-                    Timer.builder(METHOD_DIST_SUMMARY).tags(Tags.of(NAME, metric.getName(), URI, requestUri)).publishPercentiles(PERCENTILES)
-                            .register(getMeterRegistry()).record(metric.getTotalTimeMSecs(), TimeUnit.MILLISECONDS);
+            Timer[] timers = null;
+
+            for (int i = 0; i < filteredMethods.size(); i++) {
+                AtlasPerfMetrics.Metric metric = metrics.getMetric(filteredMethods.get(i));
+
+                if (metric == null) {
+                    metric = metrics.getMetric(filteredMethods.get(i).getName()); // recorded by name
+                }
+
+                if (metric != null) {
+                    if (timers == null) {
+                        timers = methodTimers.get(requestUri);
+
+                        if (timers == null) {
+                            timers = methodTimers.computeIfAbsent(requestUri, uri -> new Timer[filteredMethods.size()]);
+                        }
+                    }
+
+                    Timer timer = timers[i];
+
+                    if (timer == null) {
+                        // percentiles are computed from HdrHistogram-based histograms
+                        timer = Timer.builder(METHOD_DIST_SUMMARY).tags(Tags.of(NAME, metric.getName(), URI, requestUri)).publishPercentiles(METHOD_PERCENTILES)
+                                .register(getMeterRegistry());
+
+                        timers[i] = timer;
+                    }
+
+                    timer.record(metric.getTotalTimeNanos(), TimeUnit.NANOSECONDS);
                 }
             }
         } catch (Exception e) {
@@ -66,37 +128,21 @@ public class MetricsRegistryServiceImpl implements MetricsRegistry {
         try {
             for(AtlasPerfMetrics.Metric metric : applicationMetrics){
                 if (metric.getMetricType() == AtlasMetricType.COUNTER) {
-                    Counter.builder(metric.getName())
-                            .tags(convertToMicrometerTags(metric.getTags()))
-                            .register(getMeterRegistry())
-                            .increment(metric.getInvocations());
+                    Counter counter = (Counter) applicationMeters.computeIfAbsent(Arrays.asList(AtlasMetricType.COUNTER, metric.getName(), new HashMap<>(metric.getTags())),
+                            key -> Counter.builder(metric.getName())
+                                    .tags(convertToMicrometerTags(metric.getTags()))
+                                    .register(getMeterRegistry()));
+
+                    counter.increment(metric.getInvocations());
                 } else {
-                    Timer.builder(APPLICATION_LEVEL_METRICS_SUMMARY)
-                            .serviceLevelObjectives(
-                                    Duration.ofMillis(500),
-                                    Duration.ofMillis(750),
-                                    Duration.ofMillis(1000),
-                                    Duration.ofMillis(1200),
-                                    Duration.ofMillis(1500),
-                                    Duration.ofSeconds(2),
-                                    Duration.ofSeconds(3),
-                                    Duration.ofSeconds(4),
-                                    Duration.ofSeconds(5),
-                                    Duration.ofSeconds(7),
-                                    Duration.ofSeconds(10),
-                                    Duration.ofSeconds(15),
-                                    Duration.ofSeconds(20),
-                                    Duration.ofSeconds(25),
-                                    Duration.ofSeconds(30),
-                                    Duration.ofSeconds(40),
-                                    Duration.ofSeconds(60),
-                                    Duration.ofSeconds(90),
-                                    Duration.ofSeconds(120),
-                                    Duration.ofSeconds(180)
-                            )
-                            .publishPercentiles(PERCENTILES)
-                            .tags(convertToMicrometerTags(metric.getTags()))
-                            .register(getMeterRegistry()).record(metric.getTotalTimeMSecs(), TimeUnit.MILLISECONDS);
+                    Timer timer = (Timer) applicationMeters.computeIfAbsent(Arrays.asList(AtlasMetricType.TIMER, new HashMap<>(metric.getTags())),
+                            key -> Timer.builder(APPLICATION_LEVEL_METRICS_SUMMARY)
+                                    .serviceLevelObjectives(APPLICATION_LEVEL_METRICS_SLOS)
+                                    .publishPercentiles(PERCENTILES)
+                                    .tags(convertToMicrometerTags(metric.getTags()))
+                                    .register(getMeterRegistry()));
+
+                    timer.record(metric.getTotalTimeNanos(), TimeUnit.NANOSECONDS);
                 }
             }
         } catch (Exception e) {
@@ -113,16 +159,19 @@ public class MetricsRegistryServiceImpl implements MetricsRegistry {
 
     @Override
     public void scrape(PrintWriter writer) {
-        Metrics.globalRegistry.getRegistries().forEach(r -> {
-            try {
-                ((PrometheusMeterRegistry) r).scrape(writer);
-                writer.flush();
-            } catch (IOException e) {
-                LOG.warn("Failed to write metrics while scraping", e);
-            } finally {
-                writer.close();
+        try {
+            for (MeterRegistry registry : Metrics.globalRegistry.getRegistries()) {
+                if (registry instanceof PrometheusMeterRegistry) {
+                    scrapeWriter.write(((PrometheusMeterRegistry) registry).getPrometheusRegistry(), writer);
+                }
             }
-        });
+
+            writer.flush();
+        } catch (IOException e) {
+            LOG.warn("Failed to write metrics while scraping", e);
+        } finally {
+            writer.close();
+        }
     }
 
 }
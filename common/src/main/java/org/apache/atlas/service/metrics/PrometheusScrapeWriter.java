@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.service.metrics;
+
+import io.prometheus.client.Collector.MetricFamilySamples;
+import io.prometheus.client.Collector.MetricFamilySamples.Sample;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the metrics of a Prometheus registry in the text format one metric family at a time, through a buffer of
+ * bufferSize chars, instead of rendering the whole scrape first.
+ *
+ * The text of each family is kept from one scrape to the next, and written again as is while the samples of the
+ * family are unchanged, which is the case of most families with per-uri timers. Families with more than
+ * maxSeriesPerFamily series, series being told apart by their labels other than quantile and le, are cut to the
+ * first maxSeriesPerFamily; 0 is for no limit.
+ */
+class PrometheusScrapeWriter {
+    private static final Logger LOG = LoggerFactory.getLogger(PrometheusScrapeWriter.class);
+
+    private static final String LABEL_QUANTILE = "quantile";
+    private static final String LABEL_LE       = "le";
+
+    private final int                         bufferSize;
+    private final int                         maxSeriesPerFamily;
+    private       Map<String, RenderedFamily> renderedFamilies = new HashMap<>();
+
+    PrometheusScrapeWriter(int bufferSize, int maxSeriesPerFamily) {
+        this.bufferSize         = bufferSize;
+        this.maxSeriesPerFamily = maxSeriesPerFamily;
+    }
+
+    synchronized void write(CollectorRegistry registry, Writer writer) throws IOException {
+        Map<String, RenderedFamily> rendered = new HashMap<>();
+        BufferedWriter              out      = new BufferedWriter(writer, bufferSize);
+
+        for (Enumeration<MetricFamilySamples> families = registry.metricFamilySamples(); families.hasMoreElements(); ) {
+            MetricFamilySamples family   = limitSeries(families.nextElement());
+            RenderedFamily      previous = renderedFamilies.get(family.name);
+            RenderedFamily      current  = previous != null && previous.family.equals(family) ? previous : render(family);
+
+            out.write(current.text);
+
+            rendered.put(family.name, current);
+        }
+
+        out.flush();
+
+        renderedFamilies = rendered; // families no longer in the registry are dropped
+    }
+
+    private MetricFamilySamples limitSeries(MetricFamilySamples family) {
+        if (maxSeriesPerFamily <= 0 || family.samples.size() <= maxSeriesPerFamily) {
+            return family;
+        }
+
+        Set<List<String>> series  = new HashSet<>();
+        List<Sample>      samples = new ArrayList<>();
+
+        for (Sample sample : family.samples) {
+            List<String> seriesKey = getSeriesKey(sample);
+
+            if (series.contains(seriesKey) || series.size() < maxSeriesPerFamily) {
+                series.add(seriesKey);
+                samples.add(sample);
+            }
+        }
+
+        if (samples.size() == family.samples.size()) {
+            return family;
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Metric family {} has over {} series; dropped {} of {} samples", family.name, maxSeriesPerFamily, family.samples.size() - samples.size(), family.samples.size());
+        }
+
+        return new MetricFamilySamples(family.name, family.unit, family.type, family.help, samples);
+    }
+
+    private static List<String> getSeriesKey(Sample sample) {
+        List<String> ret = new ArrayList<>(sample.labelValues.size());
+
+        for (int i = 0; i < sample.labelNames.size(); i++) {
+            String labelName = sample.labelNames.get(i);
+
+            if (!LABEL_QUANTILE.equals(labelName) && !LABEL_LE.equals(labelName)) {
+                ret.add(sample.labelValues.get(i));
+            }
+        }
+
+        return ret;
+    }
+
+    private static RenderedFamily render(MetricFamilySamples family) throws IOException {
+        StringWriter text = new StringWriter();
+
+        TextFormat.write004(text, Collections.enumeration(Collections.singletonList(family)));
+
+        return new RenderedFamily(family, text.toString());
+    }
+
+    private static final class RenderedFamily {
+        private final MetricFamilySamples family;
+        private final String              text;
+
+        RenderedFamily(MetricFamilySamples family, String text) {
+            this.family = family;
+            this.text   = text;
+        }
+    }
+}
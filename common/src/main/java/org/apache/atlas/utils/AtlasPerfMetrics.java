@@ -19,39 +19,52 @@
 package org.apache.atlas.utils;
 
 
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Per-request metrics: number of invocations and total time taken, in nanoseconds, of each recorded stage. Stages
+ * can be recorded concurrently, by threads working for the same request.
+ *
+ * Stages recorded by MetricId are kept in an array indexed by the id, so that recording them needs neither hashing
+ * nor building their names; see MetricId.
+ */
 public class AtlasPerfMetrics {
-    private final Map<String, Metric> metrics = new LinkedHashMap<>();
+    private static final Metric[] NO_METRICS = new Metric[0];
+
+    private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+    private volatile Metric[]         metricsById = NO_METRICS;
 
 
     public MetricRecorder getMetricRecorder(String name) {
-        return new MetricRecorder(name);
+        return new MetricRecorder(name, null);
+    }
+
+    public MetricRecorder getMetricRecorder(MetricId metricId) {
+        return new MetricRecorder(metricId.name, metricId);
     }
 
     public void recordMetric(MetricRecorder recorder) {
         if (recorder != null) {
-            final String name = recorder.name;
-            final long timeTaken = recorder.getElapsedTime();
+            final long timeTakenNanos = recorder.getElapsedTimeNanos();
 
-            Metric metric = metrics.get(name);
+            Metric metric = recorder.metricId != null && recorder.metricId.isInterned() ? getOrCreateMetric(recorder.metricId) : getOrCreateMetric(recorder.name);
 
-            if (metric == null) {
-                metric = new Metric(name);
-
-                metrics.put(name, metric);
-            }
-
-            metric.invocations++;
-            metric.totalTimeMSecs += timeTaken;
+            metric.invocations.increment();
+            metric.totalTimeNanos.add(timeTakenNanos);
         }
     }
 
-    public void clear() {
+    public synchronized void clear() {
         metrics.clear();
+
+        metricsById = NO_METRICS;
     }
 
     public boolean isEmpty() {
@@ -66,6 +79,16 @@ public class AtlasPerfMetrics {
         return metrics.get(name);
     }
 
+    public Metric getMetric(MetricId metricId) {
+        if (!metricId.isInterned()) {
+            return getMetric(metricId.name);
+        }
+
+        Metric[] metricsById = this.metricsById;
+
+        return metricId.id < metricsById.length ? metricsById[metricId.id] : null;
+    }
+
     public boolean hasMetric(String name) {
         return metrics.containsKey(name);
     }
@@ -89,16 +112,149 @@ public class AtlasPerfMetrics {
         return sb.toString();
     }
 
-    public class MetricRecorder {
-        private final String name;
-        private final long startTimeMs = System.currentTimeMillis();
+    private Metric getOrCreateMetric(String name) {
+        Metric metric = metrics.get(name);
 
-        MetricRecorder(String name) {
+        if (metric == null) {
+            metric = metrics.computeIfAbsent(name, Metric::new);
+        }
+
+        return metric;
+    }
+
+    private Metric getOrCreateMetric(MetricId metricId) {
+        Metric metric = getMetric(metricId);
+
+        if (metric == null) {
+            synchronized (this) {
+                Metric[] metricsById = this.metricsById;
+
+                if (metricId.id >= metricsById.length) {
+                    metricsById = Arrays.copyOf(metricsById, Math.max(MetricId.count(), metricId.id + 1));
+                }
+
+                metric = metricsById[metricId.id];
+
+                if (metric == null) {
+                    metric = getOrCreateMetric(metricId.name); // also by name, for readers going by name
+
+                    metricsById[metricId.id] = metric;
+                }
+
+                this.metricsById = metricsById;
+            }
+        }
+
+        return metric;
+    }
+
+    /**
+     * Id of a metric name, assigned once per name for the life of the process. Ids are meant to be held in constants,
+     * for example:
+     * <pre>
+     *   private static final MetricId GET_POLICIES = MetricId.of("CachePolicyTransformerImpl.getPolicies.{}");
+     *
+     *   RequestContext.get().startMetricRecord(GET_POLICIES, serviceName);
+     * </pre>
+     *
+     * Qualifiers can come from requests, so only the first MAX_QUALIFIERS qualifiers of a name are given ids; metrics
+     * of other qualifiers are recorded by name, as those of names not given ids.
+     */
+    public static final class MetricId {
+        static final int MAX_QUALIFIERS = 32;
+
+        private static final Map<String, MetricId> IDS         = new ConcurrentHashMap<>();
+        private static final AtomicInteger         NEXT_ID     = new AtomicInteger();
+        private static final String                PLACEHOLDER = "{}";
+        private static final int                   NO_ID       = -1;
+
+        private final int                   id;
+        private final String                name;
+        private final Map<String, MetricId> qualified = new ConcurrentHashMap<>();
+
+        private MetricId(int id, String name) {
+            this.id   = id;
             this.name = name;
         }
 
-        long getElapsedTime() {
-            return System.currentTimeMillis() - startTimeMs;
+        public static MetricId of(String name) {
+            MetricId ret = IDS.get(name);
+
+            if (ret == null) {
+                ret = IDS.computeIfAbsent(name, n -> new MetricId(NEXT_ID.getAndIncrement(), n));
+            }
+
+            return ret;
+        }
+
+        static int count() {
+            return NEXT_ID.get();
+        }
+
+        /**
+         * Returns the id of this name with its {} placeholder replaced by the given qualifier, like a service name. Once
+         * MAX_QUALIFIERS qualifiers of this name have ids, returns for others a MetricId without an id, which metrics
+         * are recorded by name; see isInterned().
+         */
+        public MetricId with(String qualifier) {
+            if (qualifier == null) {
+                qualifier = "null";
+            }
+
+            MetricId ret = qualified.get(qualifier);
+
+            if (ret == null) {
+                synchronized (qualified) {
+                    ret = qualified.get(qualifier);
+
+                    if (ret == null && qualified.size() < MAX_QUALIFIERS) {
+                        ret = of(name.replace(PLACEHOLDER, qualifier));
+
+                        qualified.put(qualifier, ret);
+                    }
+                }
+
+                if (ret == null) {
+                    ret = new MetricId(NO_ID, name.replace(PLACEHOLDER, qualifier));
+                }
+            }
+
+            return ret;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Returns whether this name has an id, for its metrics to be recorded by id rather than by name.
+         */
+        public boolean isInterned() {
+            return id != NO_ID;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public class MetricRecorder {
+        private final String   name;
+        private final MetricId metricId;
+        private final long startTimeNanos = System.nanoTime();
+
+        MetricRecorder(String name, MetricId metricId) {
+            this.name     = name;
+            this.metricId = metricId;
+        }
+
+        long getElapsedTimeNanos() {
+            return System.nanoTime() - startTimeNanos;
         }
     }
 
@@ -106,8 +262,8 @@ public class AtlasPerfMetrics {
         private final String name;
 
         private AtlasMetricType metricType;
-        private long invocations = 0;
-        private long totalTimeMSecs = 0;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder totalTimeNanos = new LongAdder();
         HashMap<String, String> tags = new HashMap<>();
 
         public Metric(String name) {
@@ -127,15 +283,20 @@ public class AtlasPerfMetrics {
         }
 
         public long getInvocations() {
-            return invocations;
+            return invocations.sum();
         }
 
         public void setTotalTimeMSecs(long totalTimeMSecs) {
-            this.totalTimeMSecs = totalTimeMSecs;
+            totalTimeNanos.reset();
+            totalTimeNanos.add(TimeUnit.MILLISECONDS.toNanos(totalTimeMSecs));
         }
 
         public long getTotalTimeMSecs() {
-            return totalTimeMSecs;
+            return TimeUnit.NANOSECONDS.toMillis(totalTimeNanos.sum());
+        }
+
+        public long getTotalTimeNanos() {
+            return totalTimeNanos.sum();
         }
 
         public void addTag(String key, String value) {
@@ -146,7 +307,7 @@ public class AtlasPerfMetrics {
         }
 
         public void incrementInvocations() {
-            invocations++;
+            invocations.increment();
         }
 
     }
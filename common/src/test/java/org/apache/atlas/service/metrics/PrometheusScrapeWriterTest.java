@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.testng.annotations.Test;
+
+import java.io.StringWriter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class PrometheusScrapeWriterTest {
+    @Test
+    public void testWritesSameTextAsRegistry() throws Exception {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        PrometheusScrapeWriter  writer   = new PrometheusScrapeWriter(1024, 0);
+
+        Counter.builder("scrape_test_counter").tag("uri", "/a").register(registry).increment();
+
+        assertEquals(scrape(writer, registry), registry.scrape());
+        assertEquals(scrape(writer, registry), registry.scrape()); // unchanged, written from the previous text
+
+        registry.counter("scrape_test_counter", "uri", "/a").increment();
+
+        String text = scrape(writer, registry);
+
+        assertEquals(text, registry.scrape());
+        assertTrue(text.contains("scrape_test_counter_total{uri=\"/a\",} 2.0"));
+    }
+
+    @Test
+    public void testLimitsSeriesPerFamily() throws Exception {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        PrometheusScrapeWriter  writer   = new PrometheusScrapeWriter(1024, 2);
+
+        for (int i = 0; i < 5; i++) {
+            registry.counter("scrape_test_limited", "uri", "/" + i).increment();
+        }
+
+        String text   = scrape(writer, registry);
+        int    series = 0;
+
+        for (int i = 0; i < 5; i++) {
+            if (text.contains("uri=\"/" + i + "\"")) {
+                series++;
+            }
+        }
+
+        assertEquals(series, 2);
+        assertFalse(text.isEmpty());
+    }
+
+    private static String scrape(PrometheusScrapeWriter writer, PrometheusMeterRegistry registry) throws Exception {
+        StringWriter ret = new StringWriter();
+
+        writer.write(registry.getPrometheusRegistry(), ret);
+
+        return ret.toString();
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.utils;
+
+import org.apache.atlas.utils.AtlasPerfMetrics.MetricId;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class AtlasPerfMetricsTest {
+    @Test
+    public void testRecordsSubMillisecondStages() {
+        AtlasPerfMetrics metrics = new AtlasPerfMetrics();
+
+        for (int i = 0; i < 10; i++) {
+            metrics.recordMetric(metrics.getMetricRecorder("stage"));
+        }
+
+        AtlasPerfMetrics.Metric metric = metrics.getMetric("stage");
+
+        assertEquals(metric.getInvocations(), 10);
+        assertTrue(metric.getTotalTimeNanos() > 0);
+        assertNull(metrics.getMetric("other"));
+    }
+
+    @Test
+    public void testRecordsConcurrently() throws Exception {
+        AtlasPerfMetrics metrics  = new AtlasPerfMetrics();
+        ExecutorService  executor = Executors.newFixedThreadPool(4);
+
+        for (int i = 0; i < 4; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    metrics.recordMetric(metrics.getMetricRecorder("stage-" + (j % 2)));
+                }
+            });
+        }
+
+        executor.shutdown();
+
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(metrics.getMetric("stage-0").getInvocations(), 2000);
+        assertEquals(metrics.getMetric("stage-1").getInvocations(), 2000);
+    }
+
+    @Test
+    public void testTotalTimeInMilliseconds() {
+        AtlasPerfMetrics.Metric metric = new AtlasPerfMetrics.Metric("stage");
+
+        metric.setTotalTimeMSecs(1500);
+
+        assertEquals(metric.getTotalTimeMSecs(), 1500);
+        assertEquals(metric.getTotalTimeNanos(), TimeUnit.MILLISECONDS.toNanos(1500));
+    }
+
+    @Test
+    public void testMetricIds() {
+        MetricId template = MetricId.of("AtlasPerfMetricsTest.{}.stage");
+
+        assertSame(MetricId.of("AtlasPerfMetricsTest.{}.stage"), template);
+        assertSame(template.with("svc1"), MetricId.of("AtlasPerfMetricsTest.svc1.stage"));
+        assertSame(template.with("svc1"), template.with("svc1"));
+        assertNotEquals(template.with("svc1").getId(), template.with("svc2").getId());
+    }
+
+    @Test
+    public void testQualifiersBeyondMaxAreNotInterned() {
+        MetricId template = MetricId.of("AtlasPerfMetricsTest.{}.capped");
+
+        for (int i = 0; i < MetricId.MAX_QUALIFIERS; i++) {
+            assertTrue(template.with("svc" + i).isInterned());
+        }
+
+        int      count    = MetricId.count();
+        MetricId unknown  = template.with("unknown");
+        MetricId unknown2 = template.with("unknown");
+
+        assertFalse(unknown.isInterned());
+        assertNotSame(unknown, unknown2);
+        assertEquals(unknown.getName(), "AtlasPerfMetricsTest.unknown.capped");
+        assertEquals(MetricId.count(), count);
+        assertTrue(template.with("svc0").isInterned());
+
+        AtlasPerfMetrics metrics = new AtlasPerfMetrics();
+
+        metrics.recordMetric(metrics.getMetricRecorder(unknown));
+        metrics.recordMetric(metrics.getMetricRecorder(unknown2));
+
+        assertEquals(metrics.getMetric("AtlasPerfMetricsTest.unknown.capped").getInvocations(), 2);
+        assertSame(metrics.getMetric(unknown), metrics.getMetric(unknown.getName()));
+    }
+
+    @Test
+    public void testRecordsByMetricId() {
+        AtlasPerfMetrics metrics = new AtlasPerfMetrics();
+        MetricId         stage   = MetricId.of("AtlasPerfMetricsTest.byId");
+
+        metrics.recordMetric(metrics.getMetricRecorder(stage));
+        metrics.recordMetric(metrics.getMetricRecorder(stage.getName()));
+
+        assertEquals(metrics.getMetric(stage).getInvocations(), 2);
+        assertSame(metrics.getMetric(stage.getName()), metrics.getMetric(stage));
+
+        metrics.clear();
+
+        assertNull(metrics.getMetric(stage));
+        assertTrue(metrics.isEmpty());
+    }
+}
@@ -29,6 +29,7 @@ import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -118,6 +119,27 @@ public interface AtlasGraph<V, E> {
      */
     AtlasVertex<V, E> getVertex(String vertexId);
 
+    /**
+     * Gets the vertices with the specified ids, fetching them from the backend in
+     * as few round-trips as the implementation allows. Ids that do not resolve to
+     * an existing vertex are absent from the returned map.
+     *
+     * @param vertexIds
+     * @return map of vertex-id to vertex, in the iteration order of vertexIds
+     */
+    Map<String, AtlasVertex<V, E>> getVertices(Collection<String> vertexIds);
+
+    /**
+     * Loads the edges with the given labels for all the given vertices in as few backend
+     * round-trips as the implementation allows, so that subsequent reads of these edges
+     * are served from the transaction cache. Implementations that can't batch may do nothing.
+     *
+     * @param vertices
+     * @param direction
+     * @param edgeLabels
+     */
+    void prefetchEdges(Collection<AtlasVertex<V, E>> vertices, AtlasEdgeDirection direction, String... edgeLabels);
+
     /**
      * Gets the names of the indexes on edges
      * type.
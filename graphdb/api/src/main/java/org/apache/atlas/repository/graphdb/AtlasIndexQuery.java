@@ -79,6 +79,23 @@ public interface AtlasIndexQuery<V, E> {
      */
     Long vertexTotals();
 
+    /**
+     * Opens a point in time on the index, to page through a consistent view of it with search_after; queries on it
+     * carry the point in time in their DSL instead of naming the index.
+     * @param keepAlive how long the point in time is kept between requests, like "1m"
+     * @return id of the point in time, or null if the index does not support points in time
+     */
+    default String openPointInTime(String keepAlive) throws AtlasBaseException {
+        return null;
+    }
+
+    /**
+     * Releases a point in time opened with openPointInTime().
+     * @param pitId id of the point in time
+     */
+    default void closePointInTime(String pitId) {
+    }
+
     /**
      * Query result from an index query.
      *
@@ -92,6 +109,14 @@ public interface AtlasIndexQuery<V, E> {
          */
         AtlasVertex<V, E> getVertex();
 
+        /**
+         * Gets the id of the vertex for this result, without loading the vertex.
+         * Returns null when the id is not known up front; callers should then use getVertex().
+         */
+        default String getVertexId() {
+            return null;
+        }
+
         /**
          * Gets the score for this result.
          *
@@ -9,6 +9,7 @@ public class DirectIndexQueryResult<V, E> {
     private Iterator<AtlasIndexQuery.Result<V, E>> iterator;
     private Map<String, Aggregation> aggregationMap;
     private Integer approximateCount;
+    private String pitId;
 
     public Iterator<AtlasIndexQuery.Result<V, E>> getIterator() {
         return iterator;
@@ -34,4 +35,16 @@ public class DirectIndexQueryResult<V, E> {
         this.approximateCount = approximateCount;
     }
 
+    /**
+     * Id of the point in time to use for the next page, when the query was run on a point in time; may differ from
+     * the id the query was run with.
+     */
+    public String getPitId() {
+        return pitId;
+    }
+
+    public void setPitId(String pitId) {
+        this.pitId = pitId;
+    }
+
 }
\ No newline at end of file
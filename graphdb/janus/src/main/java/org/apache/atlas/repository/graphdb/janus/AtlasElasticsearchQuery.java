@@ -21,6 +21,7 @@ import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.RequestContext;
 import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.discovery.IndexSearchParams;
 import org.apache.atlas.model.discovery.SearchParams;
 import org.apache.atlas.repository.graphdb.AtlasIndexQuery;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
@@ -135,11 +136,17 @@ public class AtlasElasticsearchQuery implements AtlasIndexQuery<AtlasJanusVertex
             if(searchParams.isCallAsync()) {
                 return performAsyncDirectIndexQuery(searchParams);
             } else{
-                String responseString =  performDirectIndexQuery(searchParams.getQuery(), false);
+                Response response = executeDirectIndexQuery(searchParams.getQuery(), false, isPointInTimeQuery(searchParams));
+
                 if (LOG.isDebugEnabled()) {
+                    String responseString = EntityUtils.toString(response.getEntity());
+
                     LOG.debug("runQueryWithLowLevelClient.response : {}", responseString);
+
+                    return getResultFromResponse(AtlasElasticsearchResponseParser.parse(responseString));
                 }
-                return getResultFromResponse(responseString);
+
+                return getResultFromResponse(AtlasElasticsearchResponseParser.parse(response.getEntity().getContent()));
             }
         } catch (IOException e) {
             LOG.error("Failed to execute direct query on ES {}", e.getMessage());
@@ -407,13 +414,26 @@ public class AtlasElasticsearchQuery implements AtlasIndexQuery<AtlasJanusVertex
     }
 
     private String performDirectIndexQuery(String query, boolean source) throws AtlasBaseException, IOException {
+        Response response = executeDirectIndexQuery(query, source);
+
+        return EntityUtils.toString(response.getEntity());
+    }
+
+    private Response executeDirectIndexQuery(String query, boolean source) throws AtlasBaseException, IOException {
+        return executeDirectIndexQuery(query, source, false);
+    }
+
+    private Response executeDirectIndexQuery(String query, boolean source, boolean pointInTime) throws AtlasBaseException, IOException {
         HttpEntity entity = new NStringEntity(query, ContentType.APPLICATION_JSON);
         String endPoint;
 
+        // a query on a point in time must not name the index, as the point in time determines it
+        String searchEndPoint = pointInTime ? "_search" : index + "/_search";
+
         if (source) {
-            endPoint = index + "/_search";
+            endPoint = searchEndPoint;
         } else {
-            endPoint = index + "/_search?_source=false";
+            endPoint = searchEndPoint + "?_source=false";
         }
 
         Request request = new Request("GET", endPoint);
@@ -431,49 +451,90 @@ public class AtlasElasticsearchQuery implements AtlasIndexQuery<AtlasJanusVertex
             }
         }
 
-        return EntityUtils.toString(response.getEntity());
+        return response;
     }
 
     private DirectIndexQueryResult getResultFromResponse(String responseString, boolean async) throws IOException {
-        Map<String, LinkedHashMap> responseMap = AtlasType.fromJson(responseString, Map.class);
-        return getResultFromResponse(responseMap.get("response"));
+        return getResultFromResponse(AtlasElasticsearchResponseParser.parseAsync(responseString));
     }
 
-    private DirectIndexQueryResult getResultFromResponse(Map<String, LinkedHashMap> responseMap) throws IOException {
+    private DirectIndexQueryResult getResultFromResponse(AtlasElasticsearchResponseParser.SearchResponse response) {
         DirectIndexQueryResult result = new DirectIndexQueryResult();
-        Map<String, LinkedHashMap> hits_0 = AtlasType.fromJson(AtlasType.toJson(responseMap.get("hits")), Map.class);
-        if (hits_0 == null) {
+        AtlasElasticsearchResponseParser.SearchHits hits = response.getHits();
+        if (hits == null) {
             return result;
         }
-        LinkedHashMap approximateCount = hits_0.get("total");
-        if (approximateCount != null) {
-            this.vertexTotals = (Integer) approximateCount.get("value");
+        if (hits.getTotal() != null) {
+            this.vertexTotals = hits.getTotal();
         }
 
-        List<LinkedHashMap> hits_1 = AtlasType.fromJson(AtlasType.toJson(hits_0.get("hits")), List.class);
-
-        Stream<Result<AtlasJanusVertex, AtlasJanusEdge>> resultStream = hits_1.stream().map(ResultImplDirect::new);
+        Stream<Result<AtlasJanusVertex, AtlasJanusEdge>> resultStream = hits.getHits().stream().map(ResultImplDirect::new);
         result.setIterator(resultStream.iterator());
 
-        Map<String, Object> aggregationsMap = (Map<String, Object>) responseMap.get("aggregations");
+        Map<String, Object> aggregationsMap = response.getAggregations();
 
         if (MapUtils.isNotEmpty(aggregationsMap)) {
             result.setAggregationMap(aggregationsMap);
         }
 
+        result.setPitId(response.getPitId());
+
         return result;
 
     }
 
 
-    private DirectIndexQueryResult getResultFromResponse(String responseString) throws IOException {
 
-        Map<String, LinkedHashMap> responseMap = AtlasType.fromJson(responseString, Map.class);
+    private boolean isPointInTimeQuery(SearchParams searchParams) {
+        return searchParams instanceof IndexSearchParams && ((IndexSearchParams) searchParams).getDsl() != null && ((IndexSearchParams) searchParams).getDsl().containsKey("pit");
+    }
+
+    @Override
+    public String openPointInTime(String keepAlive) throws AtlasBaseException {
+        Request request = new Request("POST", index + "/_pit");
+
+        request.addParameter("keep_alive", keepAlive);
+
+        try {
+            Response            response = lowLevelRestClient.performRequest(request);
+            Map<String, Object> body     = AtlasType.fromJson(EntityUtils.toString(response.getEntity()), Map.class);
+
+            return body != null ? (String) body.get("id") : null;
+        } catch (ResponseException rex) {
+            int statusCode = rex.getResponse().getStatusLine().getStatusCode();
 
-        return getResultFromResponse(responseMap);
+            if (statusCode == 404) {
+                LOG.warn(String.format("ES index with name %s not found", index));
+                throw new AtlasBaseException(INDEX_NOT_FOUND, index);
+            }
+
+            // points in time are not supported by the cluster; callers page without one
+            LOG.warn("Failed to open point in time on index {}: status={}", index, statusCode);
+
+            return null;
+        } catch (IOException e) {
+            LOG.error("Failed to open point in time on index {}: {}", index, e.getMessage());
+            throw new AtlasBaseException(AtlasErrorCode.INDEX_SEARCH_FAILED, e.getMessage());
+        }
     }
 
+    @Override
+    public void closePointInTime(String pitId) {
+        if (StringUtils.isEmpty(pitId)) {
+            return;
+        }
+
+        Request request = new Request("DELETE", "_pit");
 
+        request.setEntity(new NStringEntity(AtlasType.toJson(Collections.singletonMap("id", pitId)), ContentType.APPLICATION_JSON));
+
+        try {
+            lowLevelRestClient.performRequest(request);
+        } catch (IOException e) {
+            // the point in time expires after its keep-alive anyway
+            LOG.warn("Failed to close point in time on index {}: {}", index, e.getMessage());
+        }
+    }
 
     @Override
     public DirectIndexQueryResult<AtlasJanusVertex, AtlasJanusEdge> vertices(SearchParams searchParams) throws AtlasBaseException {
@@ -521,8 +582,12 @@ public class AtlasElasticsearchQuery implements AtlasIndexQuery<AtlasJanusVertex
 
         @Override
         public AtlasVertex<AtlasJanusVertex, AtlasJanusEdge> getVertex() {
-            long vertexId = LongEncoding.decode(hit.getId());
-            return graph.getVertex(String.valueOf(vertexId));
+            return graph.getVertex(getVertexId());
+        }
+
+        @Override
+        public String getVertexId() {
+            return String.valueOf(LongEncoding.decode(hit.getId()));
         }
 
         @Override
@@ -553,27 +618,27 @@ public class AtlasElasticsearchQuery implements AtlasIndexQuery<AtlasJanusVertex
 
 
     public final class ResultImplDirect implements AtlasIndexQuery.Result<AtlasJanusVertex, AtlasJanusEdge> {
-        private LinkedHashMap<String, Object> hit;
-        Map<String, LinkedHashMap> innerHitsMap;
+        private final AtlasElasticsearchResponseParser.SearchHit hit;
 
-        public ResultImplDirect(LinkedHashMap<String, Object> hit) {
+        public ResultImplDirect(AtlasElasticsearchResponseParser.SearchHit hit) {
             this.hit = hit;
-            if (hit.get("inner_hits") != null) {
-                innerHitsMap = AtlasType.fromJson(AtlasType.toJson(hit.get("inner_hits")), Map.class);
-            }
         }
 
         @Override
         public AtlasVertex<AtlasJanusVertex, AtlasJanusEdge> getVertex() {
-            long vertexId = LongEncoding.decode(String.valueOf(hit.get("_id")));
-            return graph.getVertex(String.valueOf(vertexId));
+            return graph.getVertex(getVertexId());
+        }
+
+        @Override
+        public String getVertexId() {
+            return String.valueOf(LongEncoding.decode(hit.getId()));
         }
 
         @Override
         public Set<String> getCollapseKeys() {
             Set<String> collapseKeys = new HashSet<>();
-            if (innerHitsMap != null) {
-                collapseKeys = innerHitsMap.keySet();
+            if (hit.getInnerHits() != null) {
+                collapseKeys = hit.getInnerHits().keySet();
             }
             return collapseKeys;
         }
@@ -581,15 +646,11 @@ public class AtlasElasticsearchQuery implements AtlasIndexQuery<AtlasJanusVertex
         @Override
         public DirectIndexQueryResult getCollapseVertices(String key) {
             DirectIndexQueryResult result = new DirectIndexQueryResult();
-            if (innerHitsMap != null) {
-                Map<String, LinkedHashMap> responseMap = AtlasType.fromJson(AtlasType.toJson(innerHitsMap.get(key)), Map.class);
-                Map<String, LinkedHashMap> hits_0 = AtlasType.fromJson(AtlasType.toJson(responseMap.get("hits")), Map.class);
-
-                Integer approximateCount = (Integer) hits_0.get("total").get("value");
-                result.setApproximateCount(approximateCount);
+            AtlasElasticsearchResponseParser.SearchHits innerHits = hit.getInnerHits() != null ? hit.getInnerHits().get(key) : null;
+            if (innerHits != null) {
+                result.setApproximateCount(innerHits.getTotal());
 
-                List<LinkedHashMap> hits_1 = AtlasType.fromJson(AtlasType.toJson(hits_0.get("hits")), List.class);
-                Stream<Result<AtlasJanusVertex, AtlasJanusEdge>> resultStream = hits_1.stream().map(ResultImplDirect::new);
+                Stream<Result<AtlasJanusVertex, AtlasJanusEdge>> resultStream = innerHits.getHits().stream().map(ResultImplDirect::new);
                 result.setIterator(resultStream.iterator());
 
                 return result;
@@ -599,27 +660,27 @@ public class AtlasElasticsearchQuery implements AtlasIndexQuery<AtlasJanusVertex
 
         @Override
         public double getScore() {
-            Object _score = hit.get("_score");
-            if (_score == null){
+            Double score = hit.getScore();
+            if (score == null){
                 return -1;
             }
-            return Double.parseDouble(String.valueOf(hit.get("_score")));
+            return score;
         }
 
         @Override
         public Map<String, List<String>> getHighLights() {
-            Object highlight = this.hit.get("highlight");
+            Map<String, List<String>> highlight = hit.getHighlight();
             if(Objects.nonNull(highlight)) {
-                return (Map<String, List<String>>) highlight;
+                return highlight;
             }
             return new HashMap<>();
         }
 
         @Override
         public ArrayList<Object> getSort() {
-            Object sort = this.hit.get("sort");
-            if (Objects.nonNull(sort) && sort instanceof List) {
-                return (ArrayList<Object>) sort;
+            ArrayList<Object> sort = hit.getSort();
+            if (Objects.nonNull(sort)) {
+                return sort;
             }
             return new ArrayList<>();
         }
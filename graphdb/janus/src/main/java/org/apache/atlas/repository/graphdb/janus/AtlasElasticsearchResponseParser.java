@@ -0,0 +1,320 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graphdb.janus;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming parser for Elasticsearch _search/_async_search responses.
+ *
+ * Reads only the parts of the response used by direct index queries (_id, _score, sort, highlight,
+ * inner_hits, hits.total and aggregations) into lightweight hit objects, skipping everything else
+ * (_source, _index, shard details) without materializing it.
+ */
+public final class AtlasElasticsearchResponseParser {
+    // same float handling as AtlasType.fromJson(), so that sort values and aggregations look unchanged to callers
+    private static final ObjectMapper MAPPER       = new ObjectMapper().configure(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS, true);
+    private static final JsonFactory  JSON_FACTORY = MAPPER.getFactory();
+
+    private static final String FIELD_RESPONSE     = "response";
+    private static final String FIELD_HITS         = "hits";
+    private static final String FIELD_TOTAL        = "total";
+    private static final String FIELD_VALUE        = "value";
+    private static final String FIELD_ID           = "_id";
+    private static final String FIELD_SCORE        = "_score";
+    private static final String FIELD_SORT         = "sort";
+    private static final String FIELD_HIGHLIGHT    = "highlight";
+    private static final String FIELD_INNER_HITS   = "inner_hits";
+    private static final String FIELD_AGGREGATIONS = "aggregations";
+    private static final String FIELD_PIT_ID       = "pit_id";
+
+    private AtlasElasticsearchResponseParser() {
+    }
+
+    /**
+     * Parses a _search response from the given stream; the stream is closed once parsing completes.
+     */
+    public static SearchResponse parse(InputStream inputStream) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            return parseSearchResponse(parser);
+        }
+    }
+
+    /**
+     * Parses a _search response held in a string.
+     */
+    public static SearchResponse parse(String response) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(response)) {
+            return parseSearchResponse(parser);
+        }
+    }
+
+    /**
+     * Parses an _async_search response, returning the search response nested under "response".
+     */
+    public static SearchResponse parseAsync(String response) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(response)) {
+            SearchResponse ret = new SearchResponse();
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return ret;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+
+                parser.nextToken();
+
+                if (FIELD_RESPONSE.equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                    ret = readSearchResponse(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            return ret;
+        }
+    }
+
+    private static SearchResponse parseSearchResponse(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return new SearchResponse();
+        }
+
+        return readSearchResponse(parser);
+    }
+
+    // parser is positioned at START_OBJECT of the response
+    private static SearchResponse readSearchResponse(JsonParser parser) throws IOException {
+        SearchResponse ret = new SearchResponse();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+
+            parser.nextToken();
+
+            if (FIELD_HITS.equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                ret.hits = readHits(parser);
+            } else if (FIELD_AGGREGATIONS.equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                ret.aggregations = parser.readValueAs(LinkedHashMap.class);
+            } else if (FIELD_PIT_ID.equals(field) && parser.currentToken() == JsonToken.VALUE_STRING) {
+                ret.pitId = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return ret;
+    }
+
+    // parser is positioned at START_OBJECT of "hits"
+    private static SearchHits readHits(JsonParser parser) throws IOException {
+        SearchHits ret = new SearchHits();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+
+            parser.nextToken();
+
+            if (FIELD_TOTAL.equals(field)) {
+                ret.total = readTotal(parser);
+            } else if (FIELD_HITS.equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                List<SearchHit> hits = new ArrayList<>();
+
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    hits.add(readHit(parser));
+                }
+
+                ret.hits = hits;
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return ret;
+    }
+
+    // "total" is either {"value": n, "relation": ".."} or, with rest_total_hits_as_int, a plain number
+    private static Integer readTotal(JsonParser parser) throws IOException {
+        Integer ret = null;
+
+        if (parser.currentToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+
+                parser.nextToken();
+
+                if (FIELD_VALUE.equals(field) && parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                    ret = parser.getIntValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } else if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+            ret = parser.getIntValue();
+        }
+
+        return ret;
+    }
+
+    // parser is positioned at START_OBJECT of a hit
+    private static SearchHit readHit(JsonParser parser) throws IOException {
+        SearchHit ret = new SearchHit();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+
+            parser.nextToken();
+
+            if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (field) {
+                case FIELD_ID:
+                    ret.id = parser.getText();
+                    break;
+
+                case FIELD_SCORE:
+                    ret.score = parser.getDoubleValue();
+                    break;
+
+                case FIELD_SORT:
+                    ret.sort = parser.readValueAs(ArrayList.class);
+                    break;
+
+                case FIELD_HIGHLIGHT:
+                    ret.highlight = parser.readValueAs(LinkedHashMap.class);
+                    break;
+
+                case FIELD_INNER_HITS:
+                    ret.innerHits = readInnerHits(parser);
+                    break;
+
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+
+        return ret;
+    }
+
+    // parser is positioned at START_OBJECT of "inner_hits": { "<name>": { "hits": {...} }, ... }
+    private static Map<String, SearchHits> readInnerHits(JsonParser parser) throws IOException {
+        Map<String, SearchHits> ret = new LinkedHashMap<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String     name      = parser.getCurrentName();
+            SearchHits innerHits = null;
+
+            parser.nextToken();
+
+            if (parser.currentToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+
+                    parser.nextToken();
+
+                    if (FIELD_HITS.equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                        innerHits = readHits(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+
+            ret.put(name, innerHits != null ? innerHits : new SearchHits());
+        }
+
+        return ret;
+    }
+
+    public static final class SearchResponse {
+        private SearchHits          hits;
+        private Map<String, Object> aggregations;
+        private String              pitId;
+
+        public SearchHits getHits() {
+            return hits;
+        }
+
+        public Map<String, Object> getAggregations() {
+            return aggregations;
+        }
+
+        public String getPitId() {
+            return pitId;
+        }
+    }
+
+    public static final class SearchHits {
+        private Integer         total;
+        private List<SearchHit> hits = Collections.emptyList();
+
+        public Integer getTotal() {
+            return total;
+        }
+
+        public List<SearchHit> getHits() {
+            return hits;
+        }
+    }
+
+    public static final class SearchHit {
+        private String                    id;
+        private Double                    score;
+        private ArrayList<Object>         sort;
+        private Map<String, List<String>> highlight;
+        private Map<String, SearchHits>   innerHits;
+
+        public String getId() {
+            return id;
+        }
+
+        public Double getScore() {
+            return score;
+        }
+
+        public ArrayList<Object> getSort() {
+            return sort;
+        }
+
+        public Map<String, List<String>> getHighlight() {
+            return highlight;
+        }
+
+        public Map<String, SearchHits> getInnerHits() {
+            return innerHits;
+        }
+    }
+}
@@ -30,6 +30,7 @@ import org.apache.atlas.groovy.GroovyExpression;
 import org.apache.atlas.model.discovery.SearchParams;
 import org.apache.atlas.model.instance.AtlasEntity;
 import org.apache.atlas.repository.graphdb.AtlasEdge;
+import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.AtlasGraphIndexClient;
 import org.apache.atlas.repository.graphdb.AtlasGraphManagement;
@@ -45,6 +46,7 @@ import org.apache.atlas.repository.graphdb.GremlinVersion;
 import org.apache.atlas.repository.graphdb.janus.query.AtlasJanusGraphQuery;
 import org.apache.atlas.repository.graphdb.utils.IteratorToIterableAdapter;
 import org.apache.atlas.type.AtlasType;
+import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.configuration.Configuration;
 import org.apache.http.HttpEntity;
 import org.apache.http.entity.ContentType;
@@ -71,6 +73,7 @@ import org.janusgraph.core.Cardinality;
 import org.janusgraph.core.JanusGraph;
 import org.janusgraph.core.JanusGraphFactory;
 import org.janusgraph.core.JanusGraphIndexQuery;
+import org.janusgraph.core.JanusGraphVertex;
 import org.janusgraph.core.PropertyKey;
 import org.janusgraph.core.SchemaViolationException;
 import org.janusgraph.core.schema.JanusGraphIndex;
@@ -86,9 +89,13 @@ import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -411,6 +418,67 @@ public class AtlasJanusGraph implements AtlasGraph<AtlasJanusVertex, AtlasJanusE
         return GraphDbObjectFactory.createVertex(this, vertex);
     }
 
+    @Override
+    public Map<String, AtlasVertex<AtlasJanusVertex, AtlasJanusEdge>> getVertices(Collection<String> vertexIds) {
+        Map<String, AtlasVertex<AtlasJanusVertex, AtlasJanusEdge>> ret = new LinkedHashMap<>();
+
+        if (CollectionUtils.isEmpty(vertexIds)) {
+            return ret;
+        }
+
+        Set<String>            uniqueIds     = new LinkedHashSet<>(vertexIds);
+        Iterator<Vertex>       it            = getGraph().vertices(uniqueIds.toArray());
+        Map<String, Vertex>    verticesById  = new HashMap<>(uniqueIds.size());
+        List<JanusGraphVertex> janusVertices = new ArrayList<>(uniqueIds.size());
+
+        while (it.hasNext()) {
+            Vertex vertex = it.next();
+
+            verticesById.put(String.valueOf(vertex.id()), vertex);
+
+            if (vertex instanceof JanusGraphVertex) {
+                janusVertices.add((JanusGraphVertex) vertex);
+            }
+        }
+
+        if (janusVertices.size() > 1) {
+            // load properties of all vertices in one backend multi-query; the results are
+            // held in the transaction's vertex cache, so later property reads don't hit the store
+            getGraph().multiQuery(janusVertices).properties();
+        }
+
+        for (String vertexId : uniqueIds) {
+            Vertex vertex = verticesById.get(vertexId);
+
+            if (vertex != null) {
+                ret.put(vertexId, GraphDbObjectFactory.createVertex(this, vertex));
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public void prefetchEdges(Collection<AtlasVertex<AtlasJanusVertex, AtlasJanusEdge>> vertices, AtlasEdgeDirection direction, String... edgeLabels) {
+        if (CollectionUtils.isEmpty(vertices) || edgeLabels == null || edgeLabels.length == 0) {
+            return;
+        }
+
+        Set<JanusGraphVertex> janusVertices = new LinkedHashSet<>(vertices.size());
+
+        for (AtlasVertex<AtlasJanusVertex, AtlasJanusEdge> vertex : vertices) {
+            Vertex wrapped = vertex != null ? vertex.getV().getWrappedElement() : null;
+
+            if (wrapped instanceof JanusGraphVertex) {
+                janusVertices.add((JanusGraphVertex) wrapped);
+            }
+        }
+
+        if (janusVertices.size() > 1) {
+            getGraph().multiQuery(janusVertices).direction(AtlasJanusObjectFactory.createDirection(direction)).labels(edgeLabels).edges();
+        }
+    }
+
     @Override
     public Iterable<AtlasVertex<AtlasJanusVertex, AtlasJanusEdge>> getVertices(String key, Object value) {
         AtlasGraphQuery<AtlasJanusVertex, AtlasJanusEdge> query = query();
@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graphdb.janus;
+
+import org.apache.atlas.repository.graphdb.janus.AtlasElasticsearchResponseParser.SearchHit;
+import org.apache.atlas.repository.graphdb.janus.AtlasElasticsearchResponseParser.SearchHits;
+import org.apache.atlas.repository.graphdb.janus.AtlasElasticsearchResponseParser.SearchResponse;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class AtlasElasticsearchResponseParserTest {
+    private static final String SEARCH_RESPONSE = "{" +
+            "\"took\":5,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1}," +
+            "\"hits\":{\"total\":{\"value\":2,\"relation\":\"eq\"},\"max_score\":1.5,\"hits\":[" +
+                "{\"_index\":\"janusgraph_vertex_index\",\"_id\":\"abc\",\"_score\":1.5,\"_source\":{\"name\":\"t1\",\"nested\":{\"a\":[1,2]}}," +
+                    "\"highlight\":{\"name\":[\"<em>t1</em>\"]},\"sort\":[\"t1\",10]," +
+                    "\"inner_hits\":{\"__typeName\":{\"hits\":{\"total\":{\"value\":7},\"hits\":[{\"_id\":\"def\",\"_score\":null}]}}}}," +
+                "{\"_index\":\"janusgraph_vertex_index\",\"_id\":\"xyz\",\"_score\":null}" +
+            "]}," +
+            "\"aggregations\":{\"group_by_typeName\":{\"buckets\":[{\"key\":\"Table\",\"doc_count\":2}]}}" +
+            "}";
+
+    @Test
+    public void testParseSearchResponse() throws Exception {
+        SearchResponse response = AtlasElasticsearchResponseParser.parse(new ByteArrayInputStream(SEARCH_RESPONSE.getBytes(StandardCharsets.UTF_8)));
+        SearchHits     hits     = response.getHits();
+
+        assertNotNull(hits);
+        assertEquals(hits.getTotal(), Integer.valueOf(2));
+        assertEquals(hits.getHits().size(), 2);
+
+        SearchHit first = hits.getHits().get(0);
+
+        assertEquals(first.getId(), "abc");
+        assertEquals(first.getScore(), Double.valueOf(1.5));
+        assertEquals(first.getHighlight(), Collections.singletonMap("name", Collections.singletonList("<em>t1</em>")));
+        assertEquals(first.getSort(), Arrays.asList("t1", 10));
+        assertEquals(first.getInnerHits().keySet(), Collections.singleton("__typeName"));
+
+        SearchHits innerHits = first.getInnerHits().get("__typeName");
+
+        assertEquals(innerHits.getTotal(), Integer.valueOf(7));
+        assertEquals(innerHits.getHits().size(), 1);
+        assertEquals(innerHits.getHits().get(0).getId(), "def");
+        assertNull(innerHits.getHits().get(0).getScore());
+
+        SearchHit second = hits.getHits().get(1);
+
+        assertEquals(second.getId(), "xyz");
+        assertNull(second.getScore());
+        assertNull(second.getSort());
+        assertNull(second.getInnerHits());
+
+        Map<String, Object> aggregations = response.getAggregations();
+
+        assertNotNull(aggregations);
+        assertTrue(aggregations.containsKey("group_by_typeName"));
+    }
+
+    @Test
+    public void testParseAsyncSearchResponse() throws Exception {
+        String asyncResponse = "{\"id\":\"FmRldE8\",\"is_partial\":false,\"is_running\":false,\"response\":" + SEARCH_RESPONSE + "}";
+
+        SearchResponse response = AtlasElasticsearchResponseParser.parseAsync(asyncResponse);
+
+        assertEquals(response.getHits().getTotal(), Integer.valueOf(2));
+        assertEquals(response.getHits().getHits().get(1).getId(), "xyz");
+        assertNotNull(response.getAggregations());
+    }
+
+    @Test
+    public void testParseResponseWithoutHits() throws Exception {
+        SearchResponse response = AtlasElasticsearchResponseParser.parse("{\"took\":1,\"timed_out\":false}");
+
+        assertNull(response.getHits());
+        assertNull(response.getAggregations());
+        assertNull(response.getPitId());
+    }
+
+    @Test
+    public void testParsePointInTimeResponse() throws Exception {
+        String pitResponse = "{\"pit_id\":\"46ToAwMDaWR5BXV1\",\"took\":2,\"hits\":{\"total\":{\"value\":1},\"hits\":[" +
+                "{\"_id\":\"abc\",\"_score\":null,\"sort\":[1700000000000,\"0c1e\",42]}]}}";
+
+        SearchResponse response = AtlasElasticsearchResponseParser.parse(pitResponse);
+
+        assertEquals(response.getPitId(), "46ToAwMDaWR5BXV1");
+        assertEquals(response.getHits().getHits().get(0).getSort(), Arrays.asList(1700000000000L, "0c1e", 42));
+    }
+}
@@ -39,6 +39,7 @@ import org.testng.annotations.Test;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -186,6 +187,28 @@ public class AtlasJanusDatabaseTest {
         assertEquals(value, loaded.getProperty(name, value.getClass()));
     }
 
+    @Test
+    public <V, E> void testGetVerticesByIds() throws Exception {
+        AtlasGraph<V, E> graph = getGraph();
+
+        AtlasVertex<V, E> v1 = graph.addVertex();
+        AtlasVertex<V, E> v2 = graph.addVertex();
+        v1.setProperty("name", "first");
+        v2.setProperty("name", "second");
+
+        String id1 = v1.getId().toString();
+        String id2 = v2.getId().toString();
+
+        Map<String, AtlasVertex<V, E>> vertices = graph.getVertices(Arrays.asList(id2, id1, id2));
+
+        assertEquals(vertices.size(), 2);
+        assertEquals(new ArrayList<>(vertices.keySet()), Arrays.asList(id2, id1));
+        assertEquals(vertices.get(id1).getProperty("name", String.class), "first");
+        assertEquals(vertices.get(id2).getProperty("name", String.class), "second");
+
+        assertTrue(graph.getVertices(Collections.<String>emptyList()).isEmpty());
+    }
+
     @Test
     public <V, E> void testMultiplicityOnePropertySupport() throws Exception {
 
@@ -50,6 +50,9 @@ public enum AtlasConfiguration {
     NOTIFICATION_SPLIT_MESSAGE_SEGMENTS_WAIT_TIME_SECONDS("atlas.notification.split.message.segments.wait.time.seconds", 15 * 60),
     NOTIFICATION_SPLIT_MESSAGE_BUFFER_PURGE_INTERVAL_SECONDS("atlas.notification.split.message.buffer.purge.interval.seconds", 5 * 60),
     NOTIFICATION_FIXED_BUFFER_ITEMS_INCREMENT_COUNT("atlas.notification.fixed.buffer.items.increment.count", 10),
+    NOTIFICATION_PRODUCER_ASYNC_ENABLED("atlas.notification.producer.async.enabled", false), // entity and relationship notifications: keyed by guid, sent without waiting for the broker
+    NOTIFICATION_PRODUCER_COMPRESSION_TYPE("atlas.notification.producer.compression.type", "lz4"), // for async producers, unless atlas.kafka.compression.type is set
+    NOTIFICATION_PRODUCER_LINGER_MS("atlas.notification.producer.linger.ms", 5), // for async producers, unless atlas.kafka.linger.ms is set
 
     NOTIFICATION_CREATE_SHELL_ENTITY_FOR_NON_EXISTING_REF("atlas.notification.consumer.create.shell.entity.for.non-existing.ref", true),
     REST_API_CREATE_SHELL_ENTITY_FOR_NON_EXISTING_REF("atlas.rest.create.shell.entity.for.non-existing.ref", false),
@@ -104,7 +107,10 @@ public enum AtlasConfiguration {
     INDEX_CLIENT_CONNECTION_TIMEOUT("atlas.index.client.connection.timeout.ms", 900000),
     INDEX_CLIENT_SOCKET_TIMEOUT("atlas.index.client.socket.timeout.ms", 900000),
     ENABLE_SEARCH_LOGGER("atlas.enable.search.logger", true),
-    SEARCH_LOGGER_MAX_THREADS("atlas.enable.search.logger.max.threads", 20),
+    SEARCH_LOGGER_QUEUE_SIZE("atlas.enable.search.logger.queue.size", 10000),
+    SEARCH_LOGGER_BATCH_SIZE("atlas.enable.search.logger.batch.size", 500),
+    SEARCH_LOGGER_BATCH_BYTES("atlas.enable.search.logger.batch.bytes", 5 * 1024 * 1024),
+    SEARCH_LOGGER_LINGER_MS("atlas.enable.search.logger.linger.ms", 1000),
 
     PERSONA_POLICY_ASSET_MAX_LIMIT("atlas.persona.policy.asset.maxlimit", 1000),
     ENABLE_KEYCLOAK_TOKEN_INTROSPECTION("atlas.canary.keycloak.token-introspection", false),
@@ -112,6 +118,25 @@ public enum AtlasConfiguration {
     HERACLES_API_SERVER_URL("atlas.heracles.api.service.url", "http://heracles-service.heracles.svc.cluster.local"),
 
     INDEXSEARCH_ASYNC_SEARCH_KEEP_ALIVE_TIME_IN_SECONDS("atlas.indexsearch.async.search.keep.alive.time.in.seconds", 300),
+    LINEAGE_ADJACENCY_CACHE_ENABLED("atlas.lineage.adjacency.cache.enabled", false),
+    LINEAGE_ADJACENCY_CACHE_MAX_ENTRIES("atlas.lineage.adjacency.cache.max.entries", 100000),
+    LINEAGE_ADJACENCY_CACHE_TTL_SECONDS("atlas.lineage.adjacency.cache.ttl.seconds", 600),
+    LINEAGE_COUNTS_ENABLED("atlas.lineage.counts.enabled", false),
+    POLICY_DELTA_DOWNLOAD_ENABLED("atlas.authorizer.policy.delta.download.enabled", true),
+    POLICY_DELTA_DOWNLOAD_MAX_CHANGES("atlas.authorizer.policy.delta.download.max.changes", 500),
+    POLICY_DELTA_DOWNLOAD_AUDIT_LAG_MS("atlas.authorizer.policy.delta.download.audit.lag.ms", 60000),
+    AUTHORIZER_DECISION_CACHE_ENABLED("atlas.authorizer.decision.cache.enabled", false),
+    AUTHORIZER_DECISION_CACHE_MAX_ENTRIES("atlas.authorizer.decision.cache.max.entries", 100000),
+    AUTHORIZER_DECISION_CACHE_TTL_SECONDS("atlas.authorizer.decision.cache.ttl.seconds", 60),
+    ENTITY_AUDIT_ES_ASYNC_ENABLED("atlas.entity.audit.es.async.enabled", false),
+    ENTITY_AUDIT_ES_QUEUE_SIZE("atlas.entity.audit.es.queue.size", 20000),
+    ENTITY_AUDIT_ES_QUEUE_MAX_BYTES("atlas.entity.audit.es.queue.max.bytes", 100L * 1024 * 1024),
+    ENTITY_AUDIT_ES_BATCH_SIZE("atlas.entity.audit.es.batch.size", 1000),
+    ENTITY_AUDIT_ES_BATCH_BYTES("atlas.entity.audit.es.batch.bytes", 5 * 1024 * 1024),
+    ENTITY_AUDIT_ES_LINGER_MS("atlas.entity.audit.es.linger.ms", 200),
+    ENTITY_AUDIT_ES_MAX_RETRIES("atlas.entity.audit.es.max.retries", 3),
+    ENTITY_AUDIT_ES_SPOOL_DIR("atlas.entity.audit.es.spool.dir", ""), // default: ${atlas.home}/spool/entity_audits
+    ENTITY_AUDIT_ES_SPOOL_MAX_BYTES("atlas.entity.audit.es.spool.max.bytes", 1024L * 1024 * 1024),
 
     ATLAS_MAINTENANCE_MODE("atlas.maintenance.mode", false);
 
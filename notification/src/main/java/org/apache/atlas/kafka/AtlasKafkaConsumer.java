@@ -28,7 +28,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
@@ -98,6 +100,33 @@ public class AtlasKafkaConsumer<T> extends AbstractNotificationConsumer<T> {
         }
     }
 
+    @Override
+    public void setRebalanceListener(ConsumerRebalanceListener listener) {
+        if (kafkaConsumer != null) {
+            // subscribing again replaces the subscription, now with the listener
+            kafkaConsumer.subscribe(kafkaConsumer.subscription(), listener);
+        }
+    }
+
+    @Override
+    public Set<TopicPartition> getAssignment() {
+        return kafkaConsumer != null ? kafkaConsumer.assignment() : null;
+    }
+
+    @Override
+    public void pause() {
+        if (kafkaConsumer != null) {
+            kafkaConsumer.pause(kafkaConsumer.assignment());
+        }
+    }
+
+    @Override
+    public void resume() {
+        if (kafkaConsumer != null) {
+            kafkaConsumer.resume(kafkaConsumer.paused());
+        }
+    }
+
     private List<AtlasKafkaMessage<T>> receive(long timeoutMilliSeconds, Map<TopicPartition, Long> lastCommittedPartitionOffset) {
         List<AtlasKafkaMessage<T>> messages = new ArrayList();
 
@@ -33,6 +33,7 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
@@ -44,6 +45,7 @@ import org.springframework.stereotype.Component;
 import javax.inject.Inject;
 import java.util.*;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.atlas.security.SecurityProperties.TRUSTSTORE_PASSWORD_KEY;
 import static org.apache.atlas.security.SecurityProperties.TLS_ENABLED;
@@ -56,6 +58,7 @@ import static org.apache.atlas.security.SecurityUtil.getPassword;
 @Order(4)
 public class KafkaNotification extends AbstractNotification implements Service {
     public static final Logger LOG = LoggerFactory.getLogger(KafkaNotification.class);
+    private static final Logger FAILED_LOG = LoggerFactory.getLogger("FAILED");
 
     public    static final String PROPERTY_PREFIX            = "atlas.kafka";
     public    static final String ATLAS_HOOK_TOPIC           = AtlasConfiguration.NOTIFICATION_HOOK_TOPIC_NAME.getString();
@@ -68,6 +71,7 @@ public class KafkaNotification extends AbstractNotification implements Service {
     private   static final String[] ATLAS_RELATIONSHIPS_CONSUMER_TOPICS = AtlasConfiguration.NOTIFICATION_RELATIONSHIPS_CONSUMER_TOPIC_NAMES.getStringArray(ATLAS_RELATIONSHIPS_TOPIC);
 
     private static final String DEFAULT_CONSUMER_CLOSED_ERROR_MESSAGE = "This consumer has already been closed.";
+    private static final int    MAX_IN_FLIGHT_FOR_IDEMPOTENCE         = 5; // most requests in flight an idempotent producer keeps ordered
 
     private static final Map<NotificationType, String> PRODUCER_TOPIC_MAP = new HashMap<NotificationType, String>() {
         {
@@ -89,6 +93,7 @@ public class KafkaNotification extends AbstractNotification implements Service {
     private final Long                                       pollTimeOutMs;
     private final Map<NotificationType, List<KafkaConsumer>> consumers = new HashMap<>();
     private final Map<NotificationType, KafkaProducer>       producers = new HashMap<>();
+    private final boolean                                    asyncProducerEnabled;
     private       String                                     consumerClosedErrorMsg;
 
     // ----- Constructors ----------------------------------------------------
@@ -110,6 +115,7 @@ public class KafkaNotification extends AbstractNotification implements Service {
 
         properties             = ConfigurationConverter.getProperties(kafkaConf);
         pollTimeOutMs          = kafkaConf.getLong("poll.timeout.ms", 1000);
+        asyncProducerEnabled   = AtlasConfiguration.NOTIFICATION_PRODUCER_ASYNC_ENABLED.getBoolean();
         consumerClosedErrorMsg = kafkaConf.getString("error.message.consumer_closed", DEFAULT_CONSUMER_CLOSED_ERROR_MESSAGE);
 
         //Override default configs
@@ -138,6 +144,8 @@ public class KafkaNotification extends AbstractNotification implements Service {
 
         KafkaUtils.setKafkaJAASProperties(applicationProperties, properties);
 
+        LOG.info("{}={}", AtlasConfiguration.NOTIFICATION_PRODUCER_ASYNC_ENABLED.getPropertyName(), asyncProducerEnabled);
+
         LOG.info("<== KafkaNotification()");
     }
 
@@ -147,8 +155,9 @@ public class KafkaNotification extends AbstractNotification implements Service {
 
         LOG.info("==> KafkaNotification()");
 
-        this.properties    = properties;
-        this.pollTimeOutMs = 1000L;
+        this.properties           = properties;
+        this.pollTimeOutMs        = 1000L;
+        this.asyncProducerEnabled = false;
 
         LOG.info("<== KafkaNotification()");
     }
@@ -263,9 +272,48 @@ public class KafkaNotification extends AbstractNotification implements Service {
     // ----- AbstractNotification --------------------------------------------
     @Override
     public void sendInternal(NotificationType notificationType, List<String> messages) throws NotificationException {
+        sendInternal(notificationType, messages, null);
+    }
+
+    @Override
+    public void sendInternal(NotificationType notificationType, List<String> messages, List<String> keys) throws NotificationException {
         KafkaProducer producer = getOrCreateProducer(notificationType);
 
-        sendInternalToProducer(producer, notificationType, messages);
+        if (isAsyncProducer(notificationType)) {
+            sendAsyncToProducer(producer, notificationType, messages, keys);
+        } else {
+            sendInternalToProducer(producer, notificationType, messages);
+        }
+    }
+
+    /**
+     * Sends the messages keyed by the given keys, so that messages with the same key go to the same partition in
+     * order, and returns without waiting for the broker. Messages that fail to be sent are logged, once all
+     * messages of the call complete, from the NotificationException they would have been thrown with.
+     */
+    @VisibleForTesting
+    AsyncSendResult sendAsyncToProducer(Producer p, NotificationType notificationType, List<String> messages, List<String> keys) {
+        String          topic  = PRODUCER_TOPIC_MAP.get(notificationType);
+        AsyncSendResult result = new AsyncSendResult(topic, messages.size());
+
+        for (int i = 0; i < messages.size(); i++) {
+            String         message  = messages.get(i);
+            String         key      = keys != null && keys.size() > i ? keys.get(i) : null;
+            ProducerRecord record   = new ProducerRecord(topic, key, message);
+            Callback       callback = result.getCallback(message);
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Sending message for topic {} with key {}: {}", topic, key, message);
+            }
+
+            try {
+                p.send(record, callback);
+            } catch (Exception e) {
+                callback.onCompletion(null, e);
+            }
+        }
+
+        return result;
     }
 
     @VisibleForTesting
@@ -357,7 +405,7 @@ public class KafkaNotification extends AbstractNotification implements Service {
                 ret = producers.get(notificationType);
 
                 if (ret == null) {
-                    ret = new KafkaProducer(properties);
+                    ret = new KafkaProducer(isAsyncProducer(notificationType) ? getAsyncProducerProperties() : properties);
 
                     producers.put(notificationType, ret);
                 }
@@ -369,6 +417,44 @@ public class KafkaNotification extends AbstractNotification implements Service {
         return ret;
     }
 
+    // hook messages are sent synchronously, as hooks retry or spool the messages of a failed send
+    private boolean isAsyncProducer(NotificationType notificationType) {
+        return asyncProducerEnabled && notificationType != NotificationType.HOOK;
+    }
+
+    /**
+     * Batches are compressed by Kafka, unless configured otherwise in atlas.kafka.* properties. Messages of an entity,
+     * sent with the same key, are to stay in order even when a batch is retried: so the producer is idempotent, unless
+     * configured otherwise or with acks or requests in flight it can't be idempotent with, in which case only one
+     * request is sent at a time.
+     */
+    @VisibleForTesting
+    Properties getAsyncProducerProperties() {
+        Properties ret = new Properties();
+
+        ret.putAll(properties);
+        ret.putIfAbsent(ProducerConfig.COMPRESSION_TYPE_CONFIG, AtlasConfiguration.NOTIFICATION_PRODUCER_COMPRESSION_TYPE.getString());
+        ret.putIfAbsent(ProducerConfig.LINGER_MS_CONFIG, AtlasConfiguration.NOTIFICATION_PRODUCER_LINGER_MS.getString());
+
+        if (!ret.containsKey(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG)) {
+            Object  acks            = ret.get(ProducerConfig.ACKS_CONFIG);
+            Object  maxInFlight     = ret.get(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION);
+            boolean canBeIdempotent = (acks == null || "all".equals(acks.toString()) || "-1".equals(acks.toString())) &&
+                                      (maxInFlight == null || Integer.parseInt(maxInFlight.toString().trim()) <= MAX_IN_FLIGHT_FOR_IDEMPOTENCE);
+
+            if (canBeIdempotent) {
+                ret.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+                ret.put(ProducerConfig.ACKS_CONFIG, "all");
+            } else {
+                ret.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, "1");
+            }
+        } else if (!Boolean.parseBoolean(ret.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG).toString())) {
+            ret.putIfAbsent(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, "1");
+        }
+
+        return ret;
+    }
+
     public static String[] trimAndPurge(String[] strings)  {
         List<String> ret = new ArrayList<>();
 
@@ -403,6 +489,57 @@ public class KafkaNotification extends AbstractNotification implements Service {
         }
     }
 
+    @VisibleForTesting
+    static class AsyncSendResult {
+        private final String        topic;
+        private final AtomicInteger pendingCount;
+        private final List<String>  failedMessages = new ArrayList<>();
+        private       Exception     lastFailureException;
+
+        AsyncSendResult(String topic, int messageCount) {
+            this.topic        = topic;
+            this.pendingCount = new AtomicInteger(messageCount);
+        }
+
+        Callback getCallback(String message) {
+            return (response, exception) -> {
+                if (exception != null) {
+                    synchronized (this) {
+                        lastFailureException = exception;
+
+                        failedMessages.add(message);
+                    }
+                } else if (LOG.isDebugEnabled()) {
+                    LOG.debug("Sent message for topic - {}, partition - {}, offset - {}", response.topic(), response.partition(), response.offset());
+                }
+
+                if (pendingCount.decrementAndGet() == 0) {
+                    onComplete();
+                }
+            };
+        }
+
+        boolean isComplete() {
+            return pendingCount.get() == 0;
+        }
+
+        synchronized List<String> getFailedMessages() {
+            return new ArrayList<>(failedMessages);
+        }
+
+        private synchronized void onComplete() {
+            if (lastFailureException != null) {
+                NotificationException excp = new NotificationException(lastFailureException, failedMessages);
+
+                LOG.error("Failed to send {} messages to topic {}", excp.getFailedMessages().size(), topic, excp);
+
+                for (String message : excp.getFailedMessages()) {
+                    FAILED_LOG.error("[DROPPED_NOTIFICATION] {}", message);
+                }
+            }
+        }
+    }
+
     // kafka-client doesn't have method to check if consumer is open, hence checking list topics and catching exception
     private boolean isKafkaConsumerOpen(KafkaConsumer consumer) {
         boolean ret = true;
@@ -23,6 +23,7 @@ import org.apache.atlas.model.notification.AtlasNotificationBaseMessage;
 import org.apache.atlas.model.notification.AtlasNotificationMessage;
 import org.apache.atlas.model.notification.AtlasNotificationStringMessage;
 import org.apache.atlas.model.notification.AtlasNotificationBaseMessage.CompressionKind;
+import org.apache.atlas.model.notification.EntityNotification.EntityNotificationV2;
 import org.apache.atlas.model.notification.MessageSource;
 import org.apache.atlas.type.AtlasType;
 import org.apache.atlas.model.notification.MessageVersion;
@@ -91,12 +92,21 @@ public abstract class AbstractNotification implements NotificationInterface {
     @Override
     public <T> void send(NotificationType type, List<T> messages, MessageSource source) throws NotificationException {
         List<String> strMessages = new ArrayList<>(messages.size());
+        List<String> keys        = new ArrayList<>(messages.size());
 
         for (int index = 0; index < messages.size(); index++) {
-            createNotificationMessages(messages.get(index), strMessages, source);
+            T      message = messages.get(index);
+            String key     = getMessageKey(message);
+
+            createNotificationMessages(message, strMessages, source);
+
+            // parts of a split message get the same key as the message
+            while (keys.size() < strMessages.size()) {
+                keys.add(key);
+            }
         }
 
-        sendInternal(type, strMessages);
+        sendInternal(type, strMessages, keys);
     }
 
     @Override
@@ -120,6 +130,19 @@ public abstract class AbstractNotification implements NotificationInterface {
      */
     public abstract void sendInternal(NotificationType type, List<String> messages) throws NotificationException;
 
+    /**
+     * Send the given messages, with the key of each; keys are ignored unless overridden.
+     *
+     * @param type      the message type
+     * @param messages  the array of messages to send
+     * @param keys      the key of each message, or null for messages with no key
+     *
+     * @throws NotificationException if an error occurs while sending
+     */
+    public void sendInternal(NotificationType type, List<String> messages, List<String> keys) throws NotificationException {
+        sendInternal(type, messages);
+    }
+
 
     // ----- utility methods -------------------------------------------------
 
@@ -129,6 +152,25 @@ public abstract class AbstractNotification implements NotificationInterface {
         return AtlasType.toV1Json(notificationMsg);
     }
 
+    /**
+     * Returns the guid of the entity, or relationship, an entity notification is about; null for other messages.
+     */
+    public static String getMessageKey(Object message) {
+        String ret = null;
+
+        if (message instanceof EntityNotificationV2) {
+            EntityNotificationV2 notification = (EntityNotificationV2) message;
+
+            if (notification.getEntity() != null) {
+                ret = notification.getEntity().getGuid();
+            } else if (notification.getRelationship() != null) {
+                ret = notification.getRelationship().getGuid();
+            }
+        }
+
+        return ret;
+    }
+
     private static String getHostAddress() {
         if (StringUtils.isEmpty(localHostAddress)) {
             try {
@@ -19,7 +19,9 @@ package org.apache.atlas.notification;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.atlas.kafka.AtlasKafkaMessage;
 
@@ -63,4 +65,31 @@ public interface NotificationConsumer<T> {
      * @return List containing kafka message and partionId and offset.
      */
     List<AtlasKafkaMessage<T>> receiveWithCheckedCommit(Map<TopicPartition, Long> lastCommittedPartitionOffset);
+
+    /**
+     * Sets the listener called, from within the receive calls, when partitions are revoked from or assigned to this
+     * consumer. To be called before the first receive call.
+     */
+    default void setRebalanceListener(ConsumerRebalanceListener listener) {
+    }
+
+    /**
+     * Returns the partitions currently assigned to this consumer, or null if not known.
+     */
+    default Set<TopicPartition> getAssignment() {
+        return null;
+    }
+
+    /**
+     * Stops receiving messages of the partitions currently assigned, while continuing to take part in the group;
+     * see resume().
+     */
+    default void pause() {
+    }
+
+    /**
+     * Resumes receiving messages of the partitions paused by pause().
+     */
+    default void resume() {
+    }
 }
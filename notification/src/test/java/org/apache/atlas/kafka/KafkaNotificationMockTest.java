@@ -23,16 +23,20 @@ import org.apache.atlas.notification.NotificationException;
 import org.apache.atlas.notification.NotificationInterface;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
 import org.mockito.Mockito;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +48,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
@@ -151,6 +156,96 @@ public class KafkaNotificationMockTest {
         }
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldSendKeyedMessagesWithoutWaiting() {
+        Properties configProperties = mock(Properties.class);
+        KafkaNotification kafkaNotification = new KafkaNotification(configProperties);
+
+        Producer producer = mock(Producer.class);
+        String topicName = kafkaNotification.getProducerTopicName(NotificationInterface.NotificationType.ENTITIES);
+        String message1 = "This is a test message1";
+        String message2 = "This is a test message2";
+        ProducerRecord expectedRecord1 = new ProducerRecord(topicName, "guid1", message1);
+        ProducerRecord expectedRecord2 = new ProducerRecord(topicName, null, message2);
+
+        kafkaNotification.sendAsyncToProducer(producer, NotificationInterface.NotificationType.ENTITIES,
+                Arrays.asList(message1, message2), Arrays.asList("guid1", null));
+
+        verify(producer).send(Mockito.eq(expectedRecord1), Mockito.any(Callback.class));
+        verify(producer).send(Mockito.eq(expectedRecord2), Mockito.any(Callback.class));
+        verify(producer, Mockito.never()).send(Mockito.any(ProducerRecord.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldCollectMessagesFailedToSendWithoutWaiting() {
+        KafkaNotification kafkaNotification = new KafkaNotification(new Properties());
+
+        Producer       producer  = mock(Producer.class);
+        List<Callback> callbacks = new ArrayList<>();
+        String         message1  = "This is a test message1";
+        String         message2  = "This is a test message2";
+        String         message3  = "This is a test message3";
+
+        when(producer.send(Mockito.any(ProducerRecord.class), Mockito.any(Callback.class))).thenAnswer(invocation -> {
+            ProducerRecord record = (ProducerRecord) invocation.getArguments()[0];
+
+            if (message3.equals(record.value())) {
+                throw new IllegalStateException("producer closed");
+            }
+
+            callbacks.add((Callback) invocation.getArguments()[1]);
+
+            return null;
+        });
+
+        KafkaNotification.AsyncSendResult result = kafkaNotification.sendAsyncToProducer(producer, NotificationInterface.NotificationType.ENTITIES,
+                Arrays.asList(message1, message2, message3), Arrays.asList("guid1", "guid2", "guid1"));
+
+        assertEquals(callbacks.size(), 2);
+        assertFalse(result.isComplete());
+        assertEquals(result.getFailedMessages(), Collections.singletonList(message3));
+
+        // the broker fails the first message and acknowledges the second
+        callbacks.get(0).onCompletion(null, new TimeoutException("expired"));
+
+        assertFalse(result.isComplete());
+
+        callbacks.get(1).onCompletion(new RecordMetadata(new TopicPartition("ATLAS_ENTITIES", 0), 0, 0, 0, Long.valueOf(0), 0, 0), null);
+
+        assertTrue(result.isComplete());
+        assertEquals(result.getFailedMessages(), Arrays.asList(message3, message1));
+    }
+
+    @Test
+    public void shouldKeepKeyedMessagesOrderedOnRetries() {
+        Properties asyncProperties = new KafkaNotification(new Properties()).getAsyncProducerProperties();
+
+        assertEquals(asyncProperties.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG), "true");
+        assertEquals(asyncProperties.get(ProducerConfig.ACKS_CONFIG), "all");
+
+        Properties properties = new Properties();
+
+        properties.put(ProducerConfig.ACKS_CONFIG, "1");
+
+        asyncProperties = new KafkaNotification(properties).getAsyncProducerProperties();
+
+        assertNull(asyncProperties.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+        assertEquals(asyncProperties.get(ProducerConfig.ACKS_CONFIG), "1");
+        assertEquals(asyncProperties.get(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION), "1");
+
+        properties = new Properties();
+
+        properties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "false");
+        properties.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, "2");
+
+        asyncProperties = new KafkaNotification(properties).getAsyncProducerProperties();
+
+        assertEquals(asyncProperties.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG), "false");
+        assertEquals(asyncProperties.get(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION), "2");
+    }
+
     class TestKafkaNotification extends KafkaNotification {
 
         private final AtlasKafkaConsumer consumer1;
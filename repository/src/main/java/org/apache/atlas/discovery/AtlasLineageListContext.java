@@ -6,6 +6,9 @@ import org.apache.atlas.repository.graphdb.AtlasEdge;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.type.AtlasTypeRegistry;
 import org.apache.commons.collections.Predicate;
+
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 public final class AtlasLineageListContext {
@@ -25,6 +28,11 @@ public final class AtlasLineageListContext {
     private boolean                             hasMoreUpdated;
     private Boolean                             immediateNeighbours;
 
+    // per-traversal memo, so that each node is resolved once
+    private final Map<String, AtlasVertex>      traversedVerticesById   = new HashMap<>();
+    private final Map<String, AtlasVertex>      traversedVerticesByGuid = new HashMap<>();
+    private final Map<String, Boolean>          isDatasetByTypeName     = new HashMap<>();
+
     public AtlasLineageListContext(LineageListRequest lineageListRequest, AtlasTypeRegistry typeRegistry) {
         this.guid = lineageListRequest.getGuid();
         this.size = lineageListRequest.getSize();
@@ -158,6 +166,10 @@ public final class AtlasLineageListContext {
         return true;
     }
 
+    protected boolean hasEdgeTraversalFilter() {
+        return edgeTraversalPredicate != null;
+    }
+
     protected boolean evaluateTraversalFilter(AtlasEdge edge) {
         if (edgeTraversalPredicate != null) {
             return edgeTraversalPredicate.evaluate(edge);
@@ -193,6 +205,27 @@ public final class AtlasLineageListContext {
         this.hasMoreUpdated = hasMoreUpdated;
     }
 
+    public void addTraversedVertex(String vertexId, String guid, AtlasVertex vertex) {
+        traversedVerticesById.put(vertexId, vertex);
+        traversedVerticesByGuid.put(guid, vertex);
+    }
+
+    public AtlasVertex getTraversedVertexById(String vertexId) {
+        return traversedVerticesById.get(vertexId);
+    }
+
+    public AtlasVertex getTraversedVertexByGuid(String guid) {
+        return traversedVerticesByGuid.get(guid);
+    }
+
+    public Boolean isDatasetType(String typeName) {
+        return isDatasetByTypeName.get(typeName);
+    }
+
+    public void setIsDatasetType(String typeName, boolean isDataset) {
+        isDatasetByTypeName.put(typeName, isDataset);
+    }
+
     public Boolean getImmediateNeighbours() {
         return immediateNeighbours;
     }
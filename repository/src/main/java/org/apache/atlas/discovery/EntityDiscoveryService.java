@@ -1013,6 +1013,39 @@ public class EntityDiscoveryService implements AtlasDiscoveryService {
         return ret;
     }
 
+    /**
+     * Returns a paginator over the entities matching the DSL of the given params, for internal searches that go
+     * through many results; pages are fetched with search_after on a point in time, see IndexSearchPaginator. The
+     * DSL should not set from/size; it is sorted on __timestamp and __guid unless it sets a sort.
+     */
+    public IndexSearchPaginator<AtlasEntityHeader> indexSearchPaginator(IndexSearchParams searchParams, int pageSize) throws AtlasBaseException {
+        RequestContext.get().setRelationAttrsForSearch(searchParams.getRelationAttributes());
+        RequestContext.get().setAllowDeletedRelationsIndexsearch(searchParams.isAllowDeletedRelations());
+
+        Set<String> resultAttributes = new HashSet<>();
+        if (CollectionUtils.isNotEmpty(searchParams.getAttributes())) {
+            resultAttributes.addAll(searchParams.getAttributes());
+        }
+
+        String          indexName      = getIndexName(searchParams);
+        AtlasIndexQuery indexQuery     = graph.elasticsearchQuery(indexName);
+        // persona/purpose searches run on filtered aliases, and page without a point in time
+        boolean         usePointInTime = StringUtils.isEmpty(searchParams.getPersona()) && StringUtils.isEmpty(searchParams.getPurpose());
+
+        return new IndexSearchPaginator<>(indexQuery, searchParams.getDsl(), pageSize, usePointInTime, results -> {
+            AtlasSearchResult      ret  = new AtlasSearchResult();
+            DirectIndexQueryResult page = new DirectIndexQueryResult();
+
+            ret.setSearchParameters(searchParams);
+            ret.setQueryType(AtlasQueryType.INDEX);
+            page.setIterator(results.iterator());
+
+            prepareSearchResult(ret, page, resultAttributes, false);
+
+            return ret.getEntities() != null ? ret.getEntities() : Collections.emptyList();
+        });
+    }
+
     @Override
     public SearchLogSearchResult searchLogs(SearchLogSearchParams searchParams) throws AtlasBaseException {
         SearchLogSearchResult ret = new SearchLogSearchResult();
@@ -1051,19 +1084,30 @@ public class EntityDiscoveryService implements AtlasDiscoveryService {
                 return;
             }
 
-            while (iterator.hasNext()) {
-                Result result = iterator.next();
-                AtlasVertex vertex = result.getVertex();
+            List<Result> results = IteratorUtils.toList(iterator);
+            Map<String, AtlasVertex> verticesById = getVerticesForResults(results);
+            List<Result> validResults = new ArrayList<>(results.size());
+            List<AtlasVertex> vertices = new ArrayList<>(results.size());
+
+            for (Result result : results) {
+                String vertexId = result.getVertexId();
+                AtlasVertex vertex = vertexId != null ? verticesById.get(vertexId) : result.getVertex();
 
                 if (vertex == null) {
                     LOG.warn("vertex in null");
                     continue;
                 }
 
-                AtlasEntityHeader header = entityRetriever.toAtlasEntityHeader(vertex, resultAttributes);
-                if(RequestContext.get().includeClassifications()){
-                    header.setClassifications(entityRetriever.getAllClassifications(vertex));
-                }
+                validResults.add(result);
+                vertices.add(vertex);
+            }
+
+            List<AtlasEntityHeader> headers = entityRetriever.toAtlasEntityHeaders(vertices, resultAttributes, RequestContext.get().includeClassifications());
+
+            for (int i = 0; i < validResults.size(); i++) {
+                Result result = validResults.get(i);
+                AtlasEntityHeader header = headers.get(i);
+
                 if (showSearchScore) {
                     ret.addEntityScore(header.getGuid(), result.getScore());
                 }
@@ -1113,6 +1157,26 @@ public class EntityDiscoveryService implements AtlasDiscoveryService {
         scrubSearchResults(ret, searchParams.getSuppressLogs());
     }
 
+    private Map<String, AtlasVertex> getVerticesForResults(List<Result> results) {
+        AtlasPerfMetrics.MetricRecorder metric = RequestContext.get().startMetricRecord("getVerticesForResults");
+
+        try {
+            Set<String> vertexIds = new LinkedHashSet<>(results.size());
+
+            for (Result result : results) {
+                String vertexId = result.getVertexId();
+
+                if (vertexId != null) {
+                    vertexIds.add(vertexId);
+                }
+            }
+
+            return vertexIds.isEmpty() ? Collections.emptyMap() : graph.getVertices(vertexIds);
+        } finally {
+            RequestContext.get().endMetricRecord(metric);
+        }
+    }
+
     private Map<String, Object> getMap(String key, Object value) {
         Map<String, Object> map = new HashMap<>();
         map.put(key, value);
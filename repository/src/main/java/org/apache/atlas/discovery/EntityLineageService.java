@@ -46,6 +46,7 @@ import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.repository.store.graph.v2.AtlasGraphUtilsV2;
 import org.apache.atlas.repository.store.graph.v2.EntityGraphRetriever;
+import org.apache.atlas.repository.store.graph.v2.LineageCountsUpdater;
 import org.apache.atlas.type.AtlasEntityType;
 import org.apache.atlas.type.AtlasTypeRegistry;
 import org.apache.atlas.type.AtlasTypeUtil;
@@ -82,8 +83,8 @@ import static org.apache.atlas.util.AtlasGremlinQueryProvider.AtlasGremlinQuery.
 public class EntityLineageService implements AtlasLineageService {
     private static final Logger LOG = LoggerFactory.getLogger(EntityLineageService.class);
 
-    private static final String PROCESS_INPUTS_EDGE = "__Process.inputs";
-    private static final String PROCESS_OUTPUTS_EDGE = "__Process.outputs";
+    private static final String PROCESS_INPUTS_EDGE = LineageAdjacencyCache.PROCESS_INPUTS_EDGE;
+    private static final String PROCESS_OUTPUTS_EDGE = LineageAdjacencyCache.PROCESS_OUTPUTS_EDGE;
     private static final String COLUMNS = "columns";
     private static final boolean LINEAGE_USING_GREMLIN = AtlasConfiguration.LINEAGE_USING_GREMLIN.getBoolean();
     private static final Integer DEFAULT_LINEAGE_MAX_NODE_COUNT       = 9000;
@@ -219,6 +220,25 @@ public class EntityLineageService implements AtlasLineageService {
         return !isProcess;
     }
 
+    // same checks as validateEntityTypeAndCheckIfDataSet(), memoized per type for the duration of a list traversal
+    private boolean validateEntityTypeAndCheckIfDataSet(AtlasVertex vertex, String guid, AtlasLineageListContext lineageListContext) throws AtlasBaseException {
+        String  typeName  = vertex.getProperty(Constants.TYPE_NAME_PROPERTY_KEY, String.class);
+        Boolean isDataSet = lineageListContext.isDatasetType(typeName);
+        if (isDataSet == null) {
+            AtlasEntityType entityType = atlasTypeRegistry.getEntityTypeByName(typeName);
+            if (entityType == null) {
+                throw new AtlasBaseException(AtlasErrorCode.TYPE_NAME_NOT_FOUND, typeName);
+            }
+            boolean isProcess = entityType.getTypeAndAllSuperTypes().contains(PROCESS_SUPER_TYPE);
+            isDataSet = !isProcess && entityType.getTypeAndAllSuperTypes().contains(DATA_SET_SUPER_TYPE);
+            if (!isProcess && !isDataSet) {
+                throw new AtlasBaseException(AtlasErrorCode.INVALID_LINEAGE_ENTITY_TYPE, guid, typeName);
+            }
+            lineageListContext.setIsDatasetType(typeName, isDataSet);
+        }
+        return isDataSet;
+    }
+
     private LineageOnDemandConstraints getLineageConstraints(String guid, LineageOnDemandBaseParams defaultParams) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("No lineage on-demand constraints provided for guid: {}, configuring with default values direction: {}, inputRelationsLimit: {}, outputRelationsLimit: {}, depth: {}",
@@ -462,17 +482,20 @@ public class EntityLineageService implements AtlasLineageService {
 
         Map<String, List<String>> lineageParentsForEntityMap = new HashMap<>();  // New map to track parent nodes
         Map<String, List<String>> lineageChildrenForEntityMap = new HashMap<>();  // New map to track parent nodes
+        List<AtlasVertex> resultVertices = new ArrayList<>();
+        List<Integer> resultLevels = new ArrayList<>();
 
-
-        AtlasVertex baseVertex = AtlasGraphUtilsV2.findByGuid(this.graph, baseGuid);
-        boolean isBaseNodeDataset = validateEntityTypeAndCheckIfDataSet(baseGuid);
+        AtlasVertex baseVertex = entityRetriever.getEntityVertex(baseGuid);
+        boolean isBaseNodeDataset = validateEntityTypeAndCheckIfDataSet(baseVertex, baseGuid, lineageListContext);
+        lineageListContext.addTraversedVertex(baseVertex.getIdForDisplay(), baseGuid, baseVertex);
         // Get the neighbors for the current node
         enqueueNeighbours(baseVertex, isBaseNodeDataset, lineageListContext, traversalQueue, visitedVertices, skippedVertices, lineageParentsForEntityMap, lineageChildrenForEntityMap);
         int currentDepth = 0;
         int currentLevel = isBaseNodeDataset? 0: 1;
 
         // Add the current node and its neighbors to the result
-        appendToResult(baseVertex, lineageListContext, ret, currentLevel);
+        resultVertices.add(baseVertex);
+        resultLevels.add(currentLevel);
 
         while (!traversalQueue.isEmpty() && !lineageListContext.isEntityLimitReached() && currentDepth < lineageListContext.getDepth()) {
             currentDepth++;
@@ -486,12 +509,13 @@ public class EntityLineageService implements AtlasLineageService {
                 if (lineageListContext.isEntityLimitReached())
                     break;
 
-                String currentGUID = traversalQueue.poll();
-                AtlasVertex currentVertex = AtlasGraphUtilsV2.findByGuid(this.graph, currentGUID);
+                String currentVertexId = traversalQueue.poll();
+                AtlasVertex currentVertex = lineageListContext.getTraversedVertexById(currentVertexId);
                 if (Objects.isNull(currentVertex))
-                    throw new AtlasBaseException("Found null vertex during lineage graph traversal for guid: " + currentGUID);
+                    throw new AtlasBaseException("Found null vertex during lineage graph traversal for vertex id: " + currentVertexId);
 
-                boolean isDataset = validateEntityTypeAndCheckIfDataSet(currentGUID);
+                String currentGUID = getGuid(currentVertex);
+                boolean isDataset = validateEntityTypeAndCheckIfDataSet(currentVertex, currentGUID, lineageListContext);
                 if (!lineageListContext.evaluateVertexFilter(currentVertex)) {
                     enqueueNeighbours(currentVertex, isDataset, lineageListContext, traversalQueue, visitedVertices, skippedVertices, lineageParentsForEntityMap, lineageChildrenForEntityMap);
                     continue;
@@ -507,7 +531,8 @@ public class EntityLineageService implements AtlasLineageService {
                 enqueueNeighbours(currentVertex, isDataset, lineageListContext, traversalQueue, visitedVertices, skippedVertices, lineageParentsForEntityMap, lineageChildrenForEntityMap);
 
                 // Add the current node and its neighbors to the result
-                appendToResult(currentVertex, lineageListContext, ret, currentLevel);
+                resultVertices.add(currentVertex);
+                resultLevels.add(currentLevel);
 
                 if (isLastEntityInLastDepth(lineageListContext.getDepth(), currentDepth, entitiesInCurrentDepth, i)) {
                     ret.setHasMore(false);
@@ -516,6 +541,8 @@ public class EntityLineageService implements AtlasLineageService {
             }
         }
 
+        appendToResult(resultVertices, resultLevels, lineageListContext, ret);
+
         if(lineageListContext.getImmediateNeighbours()){
             // update parents for each entity
             updateNeighbourNodesForEachEntity(lineageListContext, ret, lineageParentsForEntityMap, lineageChildrenForEntityMap);
@@ -532,6 +559,11 @@ public class EntityLineageService implements AtlasLineageService {
                                    AtlasLineageListContext lineageListContext, Queue<String> traversalQueue,
                                    Set<String> visitedVertices, Set<String> skippedVertices,
                                    Map<String, List<String>> lineageParentsForEntityMap, Map<String, List<String>> lineageChildrenForEntityMap) {
+        if (LineageAdjacencyCache.isEnabled() && !lineageListContext.hasEdgeTraversalFilter()) {
+            enqueueCachedNeighbours(currentVertex, isDataset, lineageListContext, traversalQueue, visitedVertices, skippedVertices, lineageParentsForEntityMap, lineageChildrenForEntityMap);
+            return;
+        }
+
         AtlasPerfMetrics.MetricRecorder traverseEdgesOnDemandGetEdges = RequestContext.get().startMetricRecord("traverseEdgesOnDemandGetEdges");
         Iterator<AtlasEdge> edges;
         if (isDataset)
@@ -556,7 +588,8 @@ public class EntityLineageService implements AtlasLineageService {
 
             if (!skippedVertices.contains(vertexGuid) && !visitedVertices.contains(vertexGuid)) {
                 visitedVertices.add(vertexGuid);
-                traversalQueue.add(vertexGuid);
+                traversalQueue.add(neighbourVertex.getIdForDisplay());
+                lineageListContext.addTraversedVertex(neighbourVertex.getIdForDisplay(), vertexGuid, neighbourVertex);
                 addEntitiesToCache(neighbourVertex);
             }
 
@@ -571,6 +604,58 @@ public class EntityLineageService implements AtlasLineageService {
         }
     }
 
+    // same as enqueueNeighbours(), but reads adjacency from LineageAdjacencyCache; only usable without an edge traversal filter
+    private void enqueueCachedNeighbours(AtlasVertex currentVertex, boolean isDataset,
+                                         AtlasLineageListContext lineageListContext, Queue<String> traversalQueue,
+                                         Set<String> visitedVertices, Set<String> skippedVertices,
+                                         Map<String, List<String>> lineageParentsForEntityMap, Map<String, List<String>> lineageChildrenForEntityMap) {
+        AtlasPerfMetrics.MetricRecorder metricRecorder = RequestContext.get().startMetricRecord("enqueueCachedNeighbours");
+        String edgeLabel;
+        if (isDataset)
+            edgeLabel = isInputDirection(lineageListContext) ? PROCESS_OUTPUTS_EDGE : PROCESS_INPUTS_EDGE;
+        else
+            edgeLabel = isInputDirection(lineageListContext) ? PROCESS_INPUTS_EDGE : PROCESS_OUTPUTS_EDGE;
+
+        List<LineageAdjacencyCache.AdjacentVertex> neighbours = LineageAdjacencyCache.getAdjacentVertices(currentVertex, isDataset ? IN : OUT, edgeLabel);
+
+        // vertices visited earlier have already passed the traversal filter; load only the new ones, in one call
+        List<String> newVertexIds = new ArrayList<>();
+        for (LineageAdjacencyCache.AdjacentVertex neighbour : neighbours) {
+            String vertexGuid = neighbour.getGuid();
+            if (StringUtils.isNotEmpty(vertexGuid) && !skippedVertices.contains(vertexGuid) && !visitedVertices.contains(vertexGuid))
+                newVertexIds.add(neighbour.getVertexId());
+        }
+        Map<String, AtlasVertex> newVertices = newVertexIds.isEmpty() ? Collections.emptyMap() : graph.getVertices(newVertexIds);
+
+        String currentGuid = getGuid(currentVertex);
+        for (LineageAdjacencyCache.AdjacentVertex neighbour : neighbours) {
+            String vertexGuid = neighbour.getGuid();
+            if (StringUtils.isEmpty(vertexGuid))
+                continue;
+
+            if (!skippedVertices.contains(vertexGuid) && !visitedVertices.contains(vertexGuid)) {
+                AtlasVertex neighbourVertex = newVertices.get(neighbour.getVertexId());
+                if (neighbourVertex == null || !lineageListContext.evaluateTraversalFilter(neighbourVertex))
+                    continue;
+
+                visitedVertices.add(vertexGuid);
+                traversalQueue.add(neighbour.getVertexId());
+                lineageListContext.addTraversedVertex(neighbour.getVertexId(), vertexGuid, neighbourVertex);
+                addEntitiesToCache(neighbourVertex);
+            }
+
+            if(lineageListContext.getImmediateNeighbours()){
+                lineageParentsForEntityMap
+                        .computeIfAbsent(vertexGuid, k -> new ArrayList<>())
+                        .add(currentGuid);
+                lineageChildrenForEntityMap
+                        .computeIfAbsent(currentGuid, k -> new ArrayList<>())
+                        .add(vertexGuid);
+            }
+        }
+        RequestContext.get().endMetricRecord(metricRecorder);
+    }
+
     private void updateNeighbourNodesForEachEntity(AtlasLineageListContext lineageListContext, AtlasLineageListInfo ret,
                                                    Map<String, List<String>> lineageParentsForEntityMap,
                                                    Map<String, List<String>> lineageChildrenForEntityMap) {
@@ -578,17 +663,19 @@ public class EntityLineageService implements AtlasLineageService {
         List<AtlasEntityHeader> entityList = ret.getEntities();
         if (entityList == null) return;
 
+        Map<String, Map<String, String>> neighbourDetailsByGuid = new HashMap<>();
         for (AtlasEntityHeader entity : entityList) {
             if (entity == null || entity.getGuid() == null) continue;
 
-            updateLineageForEntity(entity, lineageParentsForEntityMap, true, lineageListContext);
-            updateLineageForEntity(entity, lineageChildrenForEntityMap, false, lineageListContext);
+            updateLineageForEntity(entity, lineageParentsForEntityMap, true, lineageListContext, neighbourDetailsByGuid);
+            updateLineageForEntity(entity, lineageChildrenForEntityMap, false, lineageListContext, neighbourDetailsByGuid);
         }
         RequestContext.get().endMetricRecord(metric);
     }
 
     private void updateLineageForEntity(AtlasEntityHeader entity, Map<String, List<String>> lineageMap,
-                                        boolean isParentMap, AtlasLineageListContext lineageListContext) {
+                                        boolean isParentMap, AtlasLineageListContext lineageListContext,
+                                        Map<String, Map<String, String>> neighbourDetailsByGuid) {
         List<String> relatedProcessNodes = lineageMap.get(entity.getGuid());
         if (relatedProcessNodes == null) return;
 
@@ -600,9 +687,16 @@ public class EntityLineageService implements AtlasLineageService {
             if (subNodes == null) continue;
 
             for (String subNode : subNodes) {
-                AtlasVertex vertex = AtlasGraphUtilsV2.findByGuid(this.graph, subNode);
-                if (vertex != null && seenGuids.add(subNode)) {
-                    Map<String, String> details = fetchAttributes(vertex, FETCH_ENTITY_ATTRIBUTES);
+                if (seenGuids.contains(subNode)) continue;
+
+                Map<String, String> details = neighbourDetailsByGuid.computeIfAbsent(subNode, guid -> {
+                    AtlasVertex vertex = lineageListContext.getTraversedVertexByGuid(guid);
+                    if (vertex == null)
+                        vertex = AtlasGraphUtilsV2.findByGuid(this.graph, guid);
+                    return vertex != null ? fetchAttributes(vertex, FETCH_ENTITY_ATTRIBUTES) : null;
+                });
+                if (details != null) {
+                    seenGuids.add(subNode);
                     relatedDatasetNodes.add(details);
                 }
             }
@@ -623,11 +717,15 @@ public class EntityLineageService implements AtlasLineageService {
         }
     }
 
-    private void appendToResult(AtlasVertex currentVertex, AtlasLineageListContext lineageListContext,
-                                AtlasLineageListInfo ret, int currentLevel) throws AtlasBaseException {
-        AtlasEntityHeader entity = entityRetriever.toAtlasEntityHeader(currentVertex, lineageListContext.getAttributes());
-        entity.setDepth(currentLevel);
-        ret.getEntities().add(entity);
+    private void appendToResult(List<AtlasVertex> resultVertices, List<Integer> resultLevels, AtlasLineageListContext lineageListContext,
+                                AtlasLineageListInfo ret) throws AtlasBaseException {
+        List<AtlasEntityHeader> entities = entityRetriever.toAtlasEntityHeaders(resultVertices, lineageListContext.getAttributes());
+
+        for (int i = 0; i < entities.size(); i++) {
+            AtlasEntityHeader entity = entities.get(i);
+            entity.setDepth(resultLevels.get(i));
+            ret.getEntities().add(entity);
+        }
     }
 
     private static void addEntitiesToCache(AtlasVertex vertex) {
@@ -1051,10 +1149,16 @@ public class EntityLineageService implements AtlasLineageService {
 
     private void calculateRemainingVertexCounts(AtlasVertex currentVertex, boolean isInput, AtlasLineageInfo ret) {
         if (isInput) {
-            Long totalUpstreamVertexCount = getTotalUpstreamVertexCount(getGuid(currentVertex));
+            Long totalUpstreamVertexCount = LineageCountsUpdater.getUpstreamCount(currentVertex);
+            if (totalUpstreamVertexCount == null) {
+                totalUpstreamVertexCount = getTotalUpstreamVertexCount(getGuid(currentVertex));
+            }
             ret.calculateRemainingUpstreamVertexCount(totalUpstreamVertexCount);
         } else {
-            Long totalDownstreamVertexCount = getTotalDownstreamVertexCount(getGuid(currentVertex));
+            Long totalDownstreamVertexCount = LineageCountsUpdater.getDownstreamCount(currentVertex);
+            if (totalDownstreamVertexCount == null) {
+                totalDownstreamVertexCount = getTotalDownstreamVertexCount(getGuid(currentVertex));
+            }
             ret.calculateRemainingDownstreamVertexCount(totalDownstreamVertexCount);
         }
     }
@@ -1076,9 +1180,9 @@ public class EntityLineageService implements AtlasLineageService {
         return (Long) graph
                 .V()
                 .has("__guid", guid)
-                .outE("__Process.outputs").has("__state", "ACTIVE")
-                .inV().has("__state", "ACTIVE")
-                .inE("__Process.inputs").has("__state", "ACTIVE")
+                .inE("__Process.outputs").has("__state", "ACTIVE")
+                .outV().has("__state", "ACTIVE")
+                .outE("__Process.inputs").has("__state", "ACTIVE")
                 .inV()
                 .count()
                 .next();
@@ -0,0 +1,167 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.discovery.IndexSearchParams;
+import org.apache.atlas.repository.graphdb.AtlasIndexQuery;
+import org.apache.atlas.repository.graphdb.DirectIndexQueryResult;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.IteratorUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.atlas.repository.Constants.GUID_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.TIMESTAMP_PROPERTY_KEY;
+import static org.apache.atlas.repository.util.AtlasEntityUtils.mapOf;
+
+/**
+ * Pages through the results of an index search with search_after, on a point in time of the index when it supports
+ * one, instead of from/size: each page costs the same to ES however deep it is, and paging is not limited by
+ * max_result_window. Pages are fetched only when asked for, so that callers can process them in constant memory.
+ *
+ * Results are sorted by the sort of the DSL, by default on __timestamp and __guid. On a point in time ES breaks ties
+ * of the sort on its own; otherwise the sort must be unique for pages to neither skip nor repeat results.
+ *
+ * The point in time is released once the last page is fetched; callers that stop before should call close().
+ */
+public class IndexSearchPaginator<T> implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(IndexSearchPaginator.class);
+
+    private static final String PIT_KEEP_ALIVE = "1m";
+
+    private final AtlasIndexQuery     indexQuery;
+    private final Map<String, Object> dsl;
+    private final int                 pageSize;
+    private final PageMapper<T>       pageMapper;
+    private String                    pitId;
+    private List<Object>              searchAfter;
+    private boolean                   hasNext = true;
+
+    public IndexSearchPaginator(AtlasIndexQuery indexQuery, Map<String, Object> dsl, int pageSize, boolean usePointInTime, PageMapper<T> pageMapper) throws AtlasBaseException {
+        this.indexQuery = indexQuery;
+        this.dsl        = new HashMap<>(dsl);
+        this.pageSize   = pageSize;
+        this.pageMapper = pageMapper;
+        this.pitId      = usePointInTime ? indexQuery.openPointInTime(PIT_KEEP_ALIVE) : null;
+
+        this.dsl.remove("from");
+
+        if (!this.dsl.containsKey("sort")) {
+            List<Map> sortList = new ArrayList<>(2);
+
+            sortList.add(mapOf(TIMESTAMP_PROPERTY_KEY, mapOf("order", "asc")));
+            sortList.add(mapOf(GUID_PROPERTY_KEY, mapOf("order", "asc")));
+
+            this.dsl.put("sort", sortList);
+        }
+    }
+
+    /**
+     * Returns true if the results are paged on a point in time; false if the index does not support one, or once
+     * the paginator is closed.
+     */
+    public boolean isOnPointInTime() {
+        return pitId != null;
+    }
+
+    /**
+     * Returns false once the last page was fetched.
+     */
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    /**
+     * Fetches the next page; may be empty, or have fewer than pageSize items, when results are dropped by the mapper.
+     */
+    public List<T> next() throws AtlasBaseException {
+        if (!hasNext) {
+            return Collections.emptyList();
+        }
+
+        Map<String, Object> pageDsl = new HashMap<>(dsl);
+
+        pageDsl.put("size", pageSize);
+
+        if (pitId != null) {
+            Map<String, Object> pit = mapOf("id", pitId);
+
+            pit.put("keep_alive", PIT_KEEP_ALIVE);
+
+            pageDsl.put("pit", pit);
+        }
+
+        if (searchAfter != null) {
+            pageDsl.put("search_after", searchAfter);
+        }
+
+        IndexSearchParams searchParams = new IndexSearchParams();
+
+        searchParams.setDsl(pageDsl);
+
+        List<AtlasIndexQuery.Result> results;
+
+        try {
+            DirectIndexQueryResult indexQueryResult = indexQuery.vertices(searchParams);
+
+            results = indexQueryResult != null && indexQueryResult.getIterator() != null ? IteratorUtils.toList(indexQueryResult.getIterator()) : Collections.emptyList();
+
+            if (indexQueryResult != null && indexQueryResult.getPitId() != null) {
+                pitId = indexQueryResult.getPitId();
+            }
+        } catch (AtlasBaseException | RuntimeException e) {
+            close();
+
+            throw e;
+        }
+
+        searchAfter = results.isEmpty() ? null : results.get(results.size() - 1).getSort();
+
+        if (results.size() < pageSize || CollectionUtils.isEmpty(searchAfter)) {
+            if (results.size() == pageSize) {
+                LOG.warn("Index search results have no sort values to page with; stopped paging");
+            }
+
+            close();
+        }
+
+        return results.isEmpty() ? Collections.emptyList() : pageMapper.map(results);
+    }
+
+    @Override
+    public void close() {
+        hasNext = false;
+
+        if (pitId != null) {
+            indexQuery.closePointInTime(pitId);
+
+            pitId = null;
+        }
+    }
+
+    public interface PageMapper<T> {
+        List<T> map(List<AtlasIndexQuery.Result> results) throws AtlasBaseException;
+    }
+}
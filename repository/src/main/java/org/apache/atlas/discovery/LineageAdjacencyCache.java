@@ -0,0 +1,243 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.GraphTransactionInterceptor;
+import org.apache.atlas.repository.graphdb.AtlasEdge;
+import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.apache.atlas.repository.graph.GraphHelper.getGuid;
+import static org.apache.atlas.service.metrics.MetricUtils.getMeterRegistry;
+
+/**
+ * Process-wide cache of lineage adjacency lists, i.e. the vertices reachable from a vertex over
+ * __Process.inputs/__Process.outputs edges, keyed by vertex id, edge direction and edge label.
+ *
+ * Only ids and guids are cached, never graph elements, so that entries can be shared across
+ * transactions. Entries are bounded by count and age, and are invalidated whenever a lineage edge
+ * is created, updated or deleted; invalidation is repeated once the mutating transaction commits,
+ * so that a lineage read racing with the commit can't leave a stale entry behind. An entry loaded
+ * while its vertex is invalidated is not kept, as the load may have read the edges before the change.
+ *
+ * Disabled by default; see atlas.lineage.adjacency.cache.enabled.
+ */
+public final class LineageAdjacencyCache {
+    private static final Logger LOG = LoggerFactory.getLogger(LineageAdjacencyCache.class);
+
+    public static final String PROCESS_INPUTS_EDGE  = "__Process.inputs";
+    public static final String PROCESS_OUTPUTS_EDGE = "__Process.outputs";
+
+    private static final String               CACHE_NAME         = "lineage_adjacency_cache";
+    private static final int                  GENERATION_STRIPES = 1024;
+    private static final String[]             LINEAGE_LABELS     = { PROCESS_INPUTS_EDGE, PROCESS_OUTPUTS_EDGE };
+    private static final AtlasEdgeDirection[] DIRECTIONS         = { AtlasEdgeDirection.IN, AtlasEdgeDirection.OUT };
+    private static final boolean              ENABLED            = AtlasConfiguration.LINEAGE_ADJACENCY_CACHE_ENABLED.getBoolean();
+
+    private static final Cache<CachedVertexEdgesKey, List<AdjacentVertex>> CACHE                = ENABLED ? createCache() : null;
+    private static final ThreadLocal<Set<String>>                          pendingInvalidations = new ThreadLocal<>();
+
+    // bumped on every invalidation of a vertex, striped by vertex id
+    private static final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private LineageAdjacencyCache() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static boolean isLineageEdgeLabel(String edgeLabel) {
+        return PROCESS_INPUTS_EDGE.equals(edgeLabel) || PROCESS_OUTPUTS_EDGE.equals(edgeLabel);
+    }
+
+    /**
+     * Returns the vertices adjacent to the given vertex over edges with the given label, in edge order.
+     * When the cache is disabled the edges are read from the graph on every call.
+     */
+    public static List<AdjacentVertex> getAdjacentVertices(AtlasVertex vertex, AtlasEdgeDirection direction, String edgeLabel) {
+        if (!ENABLED) {
+            return loadAdjacentVertices(vertex, direction, edgeLabel);
+        }
+
+        String               vertexId = vertex.getIdForDisplay();
+        CachedVertexEdgesKey key      = new CachedVertexEdgesKey(vertexId, direction, edgeLabel);
+        List<AdjacentVertex> ret      = CACHE.getIfPresent(key);
+
+        if (ret == null) {
+            int  stripe     = getGenerationStripe(vertexId);
+            long generation = generations.get(stripe);
+
+            ret = loadAdjacentVertices(vertex, direction, edgeLabel);
+
+            CACHE.put(key, ret);
+
+            // the vertex was invalidated while loading, possibly before the put: drop the entry
+            if (generations.get(stripe) != generation) {
+                CACHE.invalidate(key);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Invalidates the adjacency of both ends of the given edge, if it is a lineage edge.
+     */
+    public static void invalidate(AtlasEdge edge) {
+        if (!ENABLED || edge == null || !isLineageEdgeLabel(edge.getLabel())) {
+            return;
+        }
+
+        List<String> vertexIds = new ArrayList<>(2);
+
+        vertexIds.add(edge.getOutVertex().getIdForDisplay());
+        vertexIds.add(edge.getInVertex().getIdForDisplay());
+
+        invalidate(vertexIds);
+    }
+
+    public static void invalidate(Collection<?> vertexIds) {
+        if (!ENABLED || CollectionUtils.isEmpty(vertexIds)) {
+            return;
+        }
+
+        Set<String> pending = pendingInvalidations.get();
+
+        if (pending == null) {
+            pending = new HashSet<>();
+
+            pendingInvalidations.set(pending);
+
+            new InvalidateOnCompletionHook();
+        }
+
+        for (Object vertexId : vertexIds) {
+            if (vertexId != null) {
+                String id = vertexId.toString();
+
+                pending.add(id);
+
+                invalidateVertex(id);
+            }
+        }
+    }
+
+    /**
+     * Repeats the invalidations of the current transaction once it commits; when it rolls back, the
+     * lineage edges are unchanged and the entries loaded since stay valid.
+     */
+    static void onTransactionComplete(boolean isSuccess) {
+        Set<String> pending = pendingInvalidations.get();
+
+        pendingInvalidations.remove();
+
+        if (pending != null && isSuccess) {
+            pending.forEach(LineageAdjacencyCache::invalidateVertex);
+        }
+    }
+
+    private static void invalidateVertex(String vertexId) {
+        generations.incrementAndGet(getGenerationStripe(vertexId));
+
+        for (String edgeLabel : LINEAGE_LABELS) {
+            for (AtlasEdgeDirection direction : DIRECTIONS) {
+                CACHE.invalidate(new CachedVertexEdgesKey(vertexId, direction, edgeLabel));
+            }
+        }
+    }
+
+    private static int getGenerationStripe(String vertexId) {
+        return (vertexId.hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
+    }
+
+    private static List<AdjacentVertex> loadAdjacentVertices(AtlasVertex vertex, AtlasEdgeDirection direction, String edgeLabel) {
+        List<AdjacentVertex> ret   = new ArrayList<>();
+        Iterator<AtlasEdge>  edges = vertex.getEdges(direction, edgeLabel).iterator();
+
+        while (edges.hasNext()) {
+            AtlasEdge   edge           = edges.next();
+            AtlasVertex adjacentVertex = direction == AtlasEdgeDirection.IN ? edge.getOutVertex() : edge.getInVertex();
+
+            if (adjacentVertex != null) {
+                ret.add(new AdjacentVertex(adjacentVertex.getIdForDisplay(), getGuid(adjacentVertex)));
+            }
+        }
+
+        return ret.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(ret);
+    }
+
+    private static Cache<CachedVertexEdgesKey, List<AdjacentVertex>> createCache() {
+        long maxEntries = AtlasConfiguration.LINEAGE_ADJACENCY_CACHE_MAX_ENTRIES.getLong();
+        long ttlSeconds = AtlasConfiguration.LINEAGE_ADJACENCY_CACHE_TTL_SECONDS.getLong();
+
+        Cache<CachedVertexEdgesKey, List<AdjacentVertex>> ret = CacheBuilder.newBuilder()
+                                                                            .maximumSize(maxEntries)
+                                                                            .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                                                                            .recordStats()
+                                                                            .build();
+
+        GuavaCacheMetrics.monitor(getMeterRegistry(), ret, CACHE_NAME);
+
+        LOG.info("Lineage adjacency cache enabled: maxEntries={}, ttlSeconds={}", maxEntries, ttlSeconds);
+
+        return ret;
+    }
+
+    public static final class AdjacentVertex {
+        private final String vertexId;
+        private final String guid;
+
+        AdjacentVertex(String vertexId, String guid) {
+            this.vertexId = vertexId;
+            this.guid     = guid;
+        }
+
+        public String getVertexId() {
+            return vertexId;
+        }
+
+        public String getGuid() {
+            return guid;
+        }
+    }
+
+    private static class InvalidateOnCompletionHook extends GraphTransactionInterceptor.PostTransactionHook {
+        @Override
+        public void onComplete(boolean isSuccess) {
+            onTransactionComplete(isSuccess);
+        }
+    }
+}
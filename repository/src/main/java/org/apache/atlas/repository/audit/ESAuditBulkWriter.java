@@ -0,0 +1,447 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.type.AtlasType;
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NStringEntity;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.atlas.service.metrics.MetricUtils.getMeterRegistry;
+
+/**
+ * Writes entity audits to ES in the background, so that requests do not wait for ES: audits are queued, up to
+ * atlas.entity.audit.es.queue.size of them and atlas.entity.audit.es.queue.max.bytes in all, and a flusher thread sends them in _bulk requests of up to
+ * atlas.entity.audit.es.batch.size audits or atlas.entity.audit.es.batch.bytes, waiting up to
+ * atlas.entity.audit.es.linger.ms for a batch to fill.
+ *
+ * Failed requests, and audits rejected by ES as too many requests, are retried with exponential backoff. Audits that
+ * still failed, or that found the queue full, are spooled to files, which are sent whenever the queue is idle;
+ * audits are dropped only if the spool is full or cannot be written. Audits rejected by ES for other reasons are
+ * dropped, as resending them would fail again.
+ *
+ * Each audit is a complete _bulk item, the action line and the document, as built on the request thread. The action
+ * line gives the id of the document, so that audits sent again - after a failed request, or from the spool - replace
+ * the copy written earlier.
+ */
+class ESAuditBulkWriter implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(ESAuditBulkWriter.class);
+
+    private static final String SPOOL_FILE_PREFIX   = "audits-";
+    private static final String SPOOL_FILE_SUFFIX   = ".bulk";
+    private static final long   RETRY_BASE_WAIT_MS  = 500;
+    private static final long   RETRY_MAX_WAIT_MS   = 30 * 1000;
+    private static final long   STOP_WAIT_MS        = 10 * 1000;
+    private static final int    SC_TOO_MANY_REQUESTS = 429;
+
+    private final RestClient            client;
+    private final String                endpoint;
+    private final BlockingQueue<String> queue;
+    private final long                  queueMaxBytes;
+    private final AtomicLong            queuedBytes = new AtomicLong();
+    private final int                   batchSize;
+    private final long                  batchBytes;
+    private final long                  lingerMs;
+    private final int                   maxRetries;
+    private final File                  spoolDir;
+    private final long                  spoolMaxBytes;
+    private final AtomicLong            spoolBytes = new AtomicLong();
+    private final AtomicLong            spoolSeq   = new AtomicLong();
+    private final Counter               droppedCounter;
+    private final Counter               spooledCounter;
+    private final Timer                 flushTimer;
+    private final Thread                flusher;
+    private volatile boolean            isStopped  = false;
+
+    ESAuditBulkWriter(RestClient client, String indexName) {
+        this.client        = client;
+        this.endpoint      = indexName + "/_bulk";
+        this.queue         = new ArrayBlockingQueue<>(AtlasConfiguration.ENTITY_AUDIT_ES_QUEUE_SIZE.getInt());
+        this.queueMaxBytes = AtlasConfiguration.ENTITY_AUDIT_ES_QUEUE_MAX_BYTES.getLong();
+        this.batchSize     = AtlasConfiguration.ENTITY_AUDIT_ES_BATCH_SIZE.getInt();
+        this.batchBytes    = AtlasConfiguration.ENTITY_AUDIT_ES_BATCH_BYTES.getLong();
+        this.lingerMs      = AtlasConfiguration.ENTITY_AUDIT_ES_LINGER_MS.getLong();
+        this.maxRetries    = AtlasConfiguration.ENTITY_AUDIT_ES_MAX_RETRIES.getInt();
+        this.spoolDir      = getSpoolDir(indexName);
+        this.spoolMaxBytes = AtlasConfiguration.ENTITY_AUDIT_ES_SPOOL_MAX_BYTES.getLong();
+
+        for (File file : getSpoolFiles()) {
+            spoolBytes.addAndGet(file.length());
+        }
+
+        Gauge.builder("entity_audit_queue_depth", queue, BlockingQueue::size)
+             .description("Number of entity audits waiting to be written to ES")
+             .register(getMeterRegistry());
+        Gauge.builder("entity_audit_queue_bytes", queuedBytes, AtomicLong::get)
+             .description("Size of entity audits waiting to be written to ES")
+             .register(getMeterRegistry());
+        Gauge.builder("entity_audit_spool_bytes", spoolBytes, AtomicLong::get)
+             .description("Size of entity audits spooled to files, to be written to ES")
+             .register(getMeterRegistry());
+
+        this.droppedCounter = Counter.builder("entity_audit_dropped_events")
+                                     .description("Number of entity audits dropped without being written to ES")
+                                     .register(getMeterRegistry());
+        this.spooledCounter = Counter.builder("entity_audit_spooled_events")
+                                     .description("Number of entity audits spooled to files")
+                                     .register(getMeterRegistry());
+        this.flushTimer     = Timer.builder("entity_audit_flush_latency")
+                                   .description("Time taken by _bulk requests writing entity audits to ES")
+                                   .register(getMeterRegistry());
+
+        this.flusher = new Thread(this, "entity-audit-es-flusher");
+
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+
+        LOG.info("ESAuditBulkWriter: queueSize={}, queueMaxBytes={}, batchSize={}, batchBytes={}, lingerMs={}, maxRetries={}, spoolDir={}, spooledBytes={}",
+                 queue.remainingCapacity(), queueMaxBytes, batchSize, batchBytes, lingerMs, maxRetries, spoolDir, spoolBytes.get());
+    }
+
+    /**
+     * Queues the given _bulk items; items that do not fit in the queue, by count or by size, are spooled.
+     */
+    void add(List<String> items) {
+        List<String> overflow = null;
+
+        for (String item : items) {
+            long itemBytes = item.length();
+
+            if (queuedBytes.addAndGet(itemBytes) > queueMaxBytes || !queue.offer(item)) {
+                queuedBytes.addAndGet(-itemBytes);
+
+                if (overflow == null) {
+                    overflow = new ArrayList<>();
+                }
+
+                overflow.add(item);
+            }
+        }
+
+        if (overflow != null) {
+            spool(overflow);
+        }
+    }
+
+    /**
+     * Writes the queued audits, waiting for a while, and spools those left.
+     */
+    void stop() {
+        isStopped = true;
+
+        try {
+            flusher.join(STOP_WAIT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (flusher.isAlive()) {
+            flusher.interrupt();
+        }
+
+        List<String> remaining = new ArrayList<>();
+
+        queue.drainTo(remaining);
+
+        for (String item : remaining) {
+            queuedBytes.addAndGet(-item.length());
+        }
+
+        if (!remaining.isEmpty()) {
+            LOG.warn("ESAuditBulkWriter stopped with {} entity audits queued; spooling them", remaining.size());
+
+            spool(remaining);
+        }
+    }
+
+    @Override
+    public void run() {
+        List<String> batch = new ArrayList<>(batchSize);
+
+        while (!isStopped || !queue.isEmpty()) {
+            try {
+                String item = queue.poll(lingerMs, TimeUnit.MILLISECONDS);
+
+                if (item == null) {
+                    if (!isStopped) {
+                        sendSpooled();
+                    }
+
+                    continue;
+                }
+
+                queuedBytes.addAndGet(-item.length());
+
+                long bytes    = item.length();
+                long deadline = System.currentTimeMillis() + lingerMs;
+
+                batch.add(item);
+
+                while (batch.size() < batchSize && bytes < batchBytes) {
+                    long waitMs = deadline - System.currentTimeMillis();
+
+                    item = waitMs > 0 ? queue.poll(waitMs, TimeUnit.MILLISECONDS) : queue.poll();
+
+                    if (item == null) {
+                        break;
+                    }
+
+                    batch.add(item);
+
+                    queuedBytes.addAndGet(-item.length());
+
+                    bytes += item.length();
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                LOG.warn("ESAuditBulkWriter interrupted");
+
+                break;
+            } catch (Throwable t) {
+                LOG.error("ESAuditBulkWriter: failed to write {} entity audits", batch.size(), t);
+
+                spool(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            spool(batch);
+        }
+    }
+
+    private void flush(List<String> items) throws InterruptedException {
+        List<String> pending = items;
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                pending = send(pending);
+            } catch (IOException e) {
+                LOG.warn("ESAuditBulkWriter: failed to write {} entity audits; attempt {}", pending.size(), attempt + 1, e);
+            }
+
+            if (pending.isEmpty() || attempt >= maxRetries || isStopped) {
+                break;
+            }
+
+            Thread.sleep(Math.min(RETRY_BASE_WAIT_MS << attempt, RETRY_MAX_WAIT_MS));
+        }
+
+        if (!pending.isEmpty()) {
+            spool(pending);
+        }
+    }
+
+    /**
+     * Sends the given items in a _bulk request; returns the items rejected as too many requests, to be retried.
+     */
+    private List<String> send(List<String> items) throws IOException {
+        StringBuilder body = new StringBuilder();
+
+        for (String item : items) {
+            body.append(item);
+        }
+
+        HttpEntity entity  = new NStringEntity(body.toString(), ContentType.APPLICATION_JSON);
+        Request    request = new Request("POST", endpoint);
+
+        request.setEntity(entity);
+
+        long     startTime = System.nanoTime();
+        Response response;
+
+        try {
+            response = client.performRequest(request);
+        } catch (ResponseException e) {
+            throw new IOException("_bulk request failed with status " + e.getResponse().getStatusLine().getStatusCode(), e);
+        } finally {
+            flushTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+
+        Map<String, Object> responseMap = AtlasType.fromJson(EntityUtils.toString(response.getEntity()), Map.class);
+
+        if (responseMap == null || !Boolean.TRUE.equals(responseMap.get("errors"))) {
+            return Collections.emptyList();
+        }
+
+        List<String>              ret         = new ArrayList<>();
+        List<Map<String, Object>> resultItems = (List<Map<String, Object>>) responseMap.get("items");
+
+        for (int i = 0; resultItems != null && i < resultItems.size() && i < items.size(); i++) {
+            Map<String, Object> resultIndex = (Map<String, Object>) resultItems.get(i).get("index");
+            Object              error       = resultIndex != null ? resultIndex.get("error") : null;
+
+            if (error != null) {
+                Object status = resultIndex.get("status");
+
+                if (status instanceof Number && ((Number) status).intValue() == SC_TOO_MANY_REQUESTS) {
+                    ret.add(items.get(i));
+                } else {
+                    LOG.error("ESAuditBulkWriter: dropping entity audit rejected by ES: {}", error);
+
+                    droppedCounter.increment();
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    // sends the oldest spooled file; stops at the first failure, to be tried again when the queue is idle next
+    private void sendSpooled() {
+        List<File> files = getSpoolFiles();
+
+        for (File file : files) {
+            if (isStopped || !queue.isEmpty()) {
+                break;
+            }
+
+            try {
+                List<String> items   = readSpoolFile(file);
+                List<String> pending = items.isEmpty() ? items : send(items);
+                long         length  = file.length();
+
+                if (!pending.isEmpty()) {
+                    break;
+                }
+
+                Files.delete(file.toPath());
+
+                spoolBytes.addAndGet(-length);
+
+                LOG.info("ESAuditBulkWriter: wrote {} spooled entity audits from {}", items.size(), file.getName());
+            } catch (IOException e) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("ESAuditBulkWriter: failed to write spooled entity audits from {}", file, e);
+                }
+
+                break;
+            }
+        }
+    }
+
+    private synchronized void spool(List<String> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        StringBuilder content = new StringBuilder();
+
+        for (String item : items) {
+            content.append(item);
+        }
+
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+
+        if (spoolBytes.get() + bytes.length > spoolMaxBytes) {
+            LOG.error("ESAuditBulkWriter: spool is full ({} bytes); dropping {} entity audits", spoolBytes.get(), items.size());
+
+            droppedCounter.increment(items.size());
+
+            return;
+        }
+
+        String fileName = SPOOL_FILE_PREFIX + System.currentTimeMillis() + "-" + StringUtils.leftPad(Long.toString(spoolSeq.incrementAndGet()), 10, '0');
+        File   tmpFile  = new File(spoolDir, fileName + ".tmp");
+        File   file     = new File(spoolDir, fileName + SPOOL_FILE_SUFFIX);
+
+        try {
+            if (!spoolDir.isDirectory() && !spoolDir.mkdirs() && !spoolDir.isDirectory()) {
+                throw new IOException("failed to create directory " + spoolDir);
+            }
+
+            // written to a temporary file first, for partially written files to never be sent
+            Files.write(tmpFile.toPath(), bytes);
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+            spoolBytes.addAndGet(bytes.length);
+
+            spooledCounter.increment(items.size());
+        } catch (IOException e) {
+            LOG.error("ESAuditBulkWriter: failed to spool {} entity audits to {}; dropping them", items.size(), file, e);
+
+            droppedCounter.increment(items.size());
+        }
+    }
+
+    private List<File> getSpoolFiles() {
+        File[] files = spoolDir.listFiles((dir, name) -> name.startsWith(SPOOL_FILE_PREFIX) && name.endsWith(SPOOL_FILE_SUFFIX));
+
+        if (files == null || files.length == 0) {
+            return Collections.emptyList();
+        }
+
+        // names are made of the time of spooling and a sequence number, so sort in the order spooled
+        Arrays.sort(files, (f1, f2) -> f1.getName().compareTo(f2.getName()));
+
+        return Arrays.asList(files);
+    }
+
+    // each item is an action line followed by a document line
+    private static List<String> readSpoolFile(File file) throws IOException {
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        List<String> ret   = new ArrayList<>(lines.size() / 2);
+
+        for (int i = 0; i + 1 < lines.size(); i += 2) {
+            ret.add(lines.get(i) + "\n" + lines.get(i + 1) + "\n");
+        }
+
+        return ret;
+    }
+
+    private static File getSpoolDir(String indexName) {
+        String spoolDir = AtlasConfiguration.ENTITY_AUDIT_ES_SPOOL_DIR.getString();
+
+        if (StringUtils.isEmpty(spoolDir)) {
+            String atlasHome = System.getProperty("atlas.home");
+
+            return new File(new File(StringUtils.isEmpty(atlasHome) ? "." : atlasHome, "spool"), indexName);
+        }
+
+        return new File(spoolDir);
+    }
+}
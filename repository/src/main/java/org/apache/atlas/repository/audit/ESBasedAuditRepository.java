@@ -84,7 +84,6 @@ public class ESBasedAuditRepository extends AbstractStorageBasedAuditRepository
     private static final String USER = "user";
     private static final String DETAIL = "detail";
     private static final String ENTITY = "entity";
-    private static final String bulkMetadata = String.format("{ \"index\" : { \"_index\" : \"%s\" } }%n", INDEX_NAME);
 
     /*
     *    created   → event creation time
@@ -93,6 +92,7 @@ public class ESBasedAuditRepository extends AbstractStorageBasedAuditRepository
     * */
 
     private RestClient lowLevelClient;
+    private ESAuditBulkWriter bulkWriter;
     private final Configuration configuration;
 
     @Inject
@@ -115,30 +115,19 @@ public class ESBasedAuditRepository extends AbstractStorageBasedAuditRepository
     public void putEventsV2(List<EntityAuditEventV2> events) throws AtlasBaseException {
         try {
             if (events != null && events.size() > 0) {
+                // built here, as the headers of the request are only available on its thread
+                List<String>      bulkItems = getBulkItems(events);
+                ESAuditBulkWriter writer    = bulkWriter;
 
-                Map<String, String> requestContextHeaders = RequestContext.get().getRequestContextHeaders();
-                String entityPayloadTemplate = getQueryTemplate(requestContextHeaders);
+                if (writer != null) {
+                    writer.add(bulkItems);
+
+                    return;
+                }
 
                 StringBuilder bulkRequestBody = new StringBuilder();
-                for (EntityAuditEventV2 event : events) {
-                    String created = String.format("%s", event.getTimestamp());
-                    String auditDetailPrefix = EntityAuditListenerV2.getV2AuditPrefix(event.getAction());
-                    String details = event.getDetails().substring(auditDetailPrefix.length());
-
-                    String bulkItem = MessageFormat.format(entityPayloadTemplate,
-                            event.getEntityId(),
-                            event.getAction(),
-                            details,
-                            event.getUser(),
-                            event.getEntityId() + ":" + event.getEntity().getUpdateTime().getTime(),
-                            event.getEntityQualifiedName(),
-                            event.getEntity().getTypeName(),
-                            created,
-                            "" + event.getEntity().getUpdateTime().getTime());
-
-                    bulkRequestBody.append(bulkMetadata);
+                for (String bulkItem : bulkItems) {
                     bulkRequestBody.append(bulkItem);
-                    bulkRequestBody.append("\n");
                 }
                 String endpoint = INDEX_NAME + "/_bulk";
                 HttpEntity entity = new NStringEntity(bulkRequestBody.toString(), ContentType.APPLICATION_JSON);
@@ -170,6 +159,48 @@ public class ESBasedAuditRepository extends AbstractStorageBasedAuditRepository
         }
     }
 
+    /**
+     * Returns the _bulk items, action and document lines, indexing the given events.
+     */
+    @VisibleForTesting
+    List<String> getBulkItems(List<EntityAuditEventV2> events) {
+        Map<String, String> requestContextHeaders = RequestContext.get().getRequestContextHeaders();
+        MessageFormat       entityPayloadFormat   = new MessageFormat(getQueryTemplate(requestContextHeaders));
+        List<String>        ret                   = new ArrayList<>(events.size());
+
+        for (EntityAuditEventV2 event : events) {
+            String created = String.format("%s", event.getTimestamp());
+            String auditDetailPrefix = EntityAuditListenerV2.getV2AuditPrefix(event.getAction());
+            String details = event.getDetails().substring(auditDetailPrefix.length());
+            String eventKey = event.getEntityId() + ":" + event.getEntity().getUpdateTime().getTime();
+
+            String bulkItem = entityPayloadFormat.format(new Object[] {
+                    event.getEntityId(),
+                    event.getAction(),
+                    details,
+                    event.getUser(),
+                    eventKey,
+                    event.getEntityQualifiedName(),
+                    event.getEntity().getTypeName(),
+                    created,
+                    "" + event.getEntity().getUpdateTime().getTime() });
+
+            ret.add(getBulkMetadata(UUID.randomUUID().toString()) + bulkItem + "\n");
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns the _bulk action line indexing the audit of the given id. Each audit is given its own id when it is
+     * queued, as a request can audit the same action on an entity many times with the same key, e.g. one
+     * CLASSIFICATION_ADD for each classification added; the id is part of the queued and spooled line, so audits
+     * written again, by the retries of the bulk writer or from its spool, are not duplicated.
+     */
+    static String getBulkMetadata(String auditId) {
+        return String.format("{ \"index\" : { \"_index\" : \"%s\", \"_id\" : \"%s\" } }%n", INDEX_NAME, auditId);
+    }
+
     private String getQueryTemplate(Map<String, String> requestContextHeaders) {
         StringBuilder template = new StringBuilder();
 
@@ -282,6 +313,10 @@ public class ESBasedAuditRepository extends AbstractStorageBasedAuditRepository
     @VisibleForTesting
     void startInternal() throws AtlasException {
         createSession();
+
+        if (AtlasConfiguration.ENTITY_AUDIT_ES_ASYNC_ENABLED.getBoolean() && bulkWriter == null) {
+            bulkWriter = new ESAuditBulkWriter(lowLevelClient, INDEX_NAME);
+        }
     }
 
     void createSession() throws AtlasException {
@@ -411,6 +446,10 @@ public class ESBasedAuditRepository extends AbstractStorageBasedAuditRepository
     public void stop() throws AtlasException {
         try {
             LOG.info("ESBasedAuditRepo - stop!");
+            if (bulkWriter != null) {
+                bulkWriter.stop();
+                bulkWriter = null;
+            }
             if (lowLevelClient != null) {
                 lowLevelClient.close();
                 lowLevelClient = null;
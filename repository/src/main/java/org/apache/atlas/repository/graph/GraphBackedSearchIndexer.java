@@ -427,6 +427,12 @@ public class GraphBackedSearchIndexer implements SearchIndexer, ActiveStateChang
             createPropertyKey(management, PROVENANCE_TYPE_KEY, Integer.class, SINGLE);
             createPropertyKey(management, HOME_ID_KEY, String.class, SINGLE);
 
+            createPropertyKey(management, LINEAGE_UPSTREAM_COUNT_PROPERTY_KEY, Long.class, SINGLE);
+            createPropertyKey(management, LINEAGE_DOWNSTREAM_COUNT_PROPERTY_KEY, Long.class, SINGLE);
+            createPropertyKey(management, LINEAGE_ACTIVE_INPUTS_COUNT_PROPERTY_KEY, Long.class, SINGLE);
+            createPropertyKey(management, LINEAGE_ACTIVE_OUTPUTS_COUNT_PROPERTY_KEY, Long.class, SINGLE);
+            createPropertyKey(management, LINEAGE_COUNTED_PROPERTY_KEY, Boolean.class, SINGLE);
+
             commit(management);
 
             LOG.info("Index creation for global keys complete.");
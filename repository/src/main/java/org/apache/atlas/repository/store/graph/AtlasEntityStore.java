@@ -361,6 +361,14 @@ public interface AtlasEntityStore {
 
     void repairHasLineage(AtlasHasLineageRequests requests) throws AtlasBaseException;
 
+    /**
+     * Recomputes the precomputed lineage counts of the given entities; datasets get their counts recomputed
+     * from scratch, processes get the counts of their datasets reconciled.
+     * @param guids guids of datasets and/or processes
+     * @throws AtlasBaseException
+     */
+    void repairLineageCounts(Set<String> guids) throws AtlasBaseException;
+
     void repairMeaningAttributeForTerms(List<String> termGuids) throws AtlasBaseException;
 
     void repairAccesscontrolAlias(String guid) throws AtlasBaseException;
@@ -22,6 +22,7 @@ import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.RequestContext;
+import org.apache.atlas.discovery.LineageAdjacencyCache;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.listener.EntityChangeListener;
 import org.apache.atlas.listener.EntityChangeListenerV2;
@@ -92,6 +93,9 @@ public class AtlasEntityChangeNotifier implements IAtlasEntityChangeNotifier {
 
     @Override
     public void onEntitiesMutated(EntityMutationResponse entityMutationResponse, boolean isImport) throws AtlasBaseException {
+        // ends of relationships mutated in this request, including lineage edges removed along with deleted entities
+        LineageAdjacencyCache.invalidate(RequestContext.get().getRelationshipEndToVertexIdMap().values());
+
         if (CollectionUtils.isEmpty(entityChangeListeners)) {
             return;
         }
@@ -1449,12 +1449,16 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
         try {
             final EntityMutationContext context = preCreateOrUpdate(entityStream, entityGraphMapper, isPartialUpdate);
 
+            // create and update access requests, verified together once all are known
+            List<AtlasEntityAccessRequest> accessRequests      = new ArrayList<>();
+            List<String>                   accessErrorMessages = new ArrayList<>();
+
             // Check if authorized to create entities
             if (!RequestContext.get().isImportInProgress() && !RequestContext.get().isSkipAuthorizationCheck()) {
                 for (AtlasEntity entity : context.getCreatedEntities()) {
                     if (!PreProcessor.skipInitialAuthCheckTypes.contains(entity.getTypeName())) {
-                        AtlasAuthorizationUtils.verifyAccess(new AtlasEntityAccessRequest(typeRegistry, AtlasPrivilege.ENTITY_CREATE, new AtlasEntityHeader(entity)),
-                                "create entity: type=", entity.getTypeName());
+                        accessRequests.add(new AtlasEntityAccessRequest(typeRegistry, AtlasPrivilege.ENTITY_CREATE, new AtlasEntityHeader(entity)));
+                        accessErrorMessages.add("create entity: type=" + entity.getTypeName());
                     }
                 }
             }
@@ -1504,29 +1508,51 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
 
                 // Check if authorized to update entities
                 if (!reqContext.isImportInProgress()) {
-                    for (AtlasEntity entity : context.getUpdatedEntities()) {
-                        AtlasEntityHeader entityHeaderWithClassifications = entityRetriever.toAtlasEntityHeaderWithClassifications(entity.getGuid());
-                        AtlasEntityHeader entityHeader = new AtlasEntityHeader(entity);
-
-                        if(CollectionUtils.isNotEmpty(entityHeaderWithClassifications.getClassifications())) {
-                            entityHeader.setClassifications(entityHeaderWithClassifications.getClassifications());
-                        }
+                    List<AtlasEntity> entitiesToAuthorize = new ArrayList<>();
 
+                    for (AtlasEntity entity : context.getUpdatedEntities()) {
                         AtlasEntity diffEntity = reqContext.getDifferentialEntity(entity.getGuid());
                         boolean skipAuthBaseConditions = diffEntity != null && MapUtils.isEmpty(diffEntity.getCustomAttributes()) && MapUtils.isEmpty(diffEntity.getBusinessAttributes()) && CollectionUtils.isEmpty(diffEntity.getClassifications()) && CollectionUtils.isEmpty(diffEntity.getLabels());
                         boolean skipAuthMeaningsUpdate = diffEntity != null && MapUtils.isNotEmpty(diffEntity.getRelationshipAttributes()) && diffEntity.getRelationshipAttributes().containsKey("meanings") && diffEntity.getRelationshipAttributes().size() == 1 && MapUtils.isEmpty(diffEntity.getAttributes());
                         boolean skipAuthStarredDetailsUpdate = diffEntity != null && MapUtils.isEmpty(diffEntity.getRelationshipAttributes()) && MapUtils.isNotEmpty(diffEntity.getAttributes()) && diffEntity.getAttributes().size() == 3 && diffEntity.getAttributes().containsKey(ATTR_STARRED_BY) && diffEntity.getAttributes().containsKey(ATTR_STARRED_COUNT) && diffEntity.getAttributes().containsKey(ATTR_STARRED_DETAILS_LIST);
                         if (skipAuthBaseConditions && (skipAuthMeaningsUpdate || skipAuthStarredDetailsUpdate)) {
                             //do nothing, only diff is relationshipAttributes.meanings or starred, allow update
-                        } else {
-                            AtlasAuthorizationUtils.verifyUpdateEntityAccess(typeRegistry, entityHeader,"update entity: type=" + entity.getTypeName());
+                        } else if (!SKIP_UPDATE_AUTH_CHECK_TYPES.contains(entity.getTypeName())) {
+                            entitiesToAuthorize.add(entity);
                         }
                     }
+
+                    if (!entitiesToAuthorize.isEmpty()) {
+                        List<AtlasVertex> vertices = new ArrayList<>(entitiesToAuthorize.size());
+
+                        for (AtlasEntity entity : entitiesToAuthorize) {
+                            vertices.add(context.getVertex(entity.getGuid()));
+                        }
+
+                        // policies need only the stored classifications, not the rest of the stored header
+                        graph.prefetchEdges(vertices, AtlasEdgeDirection.OUT, CLASSIFICATION_LABEL);
+                    }
+
+                    for (AtlasEntity entity : entitiesToAuthorize) {
+                        List<AtlasClassification> classifications = entityRetriever.getAllClassifications(context.getVertex(entity.getGuid()));
+                        AtlasEntityHeader         entityHeader    = new AtlasEntityHeader(entity);
+
+                        if (CollectionUtils.isNotEmpty(classifications)) {
+                            entityHeader.setClassifications(classifications);
+                        }
+
+                        accessRequests.add(new AtlasEntityAccessRequest(typeRegistry, AtlasPrivilege.ENTITY_UPDATE, entityHeader));
+                        accessErrorMessages.add("update entity: type=" + entity.getTypeName());
+                    }
                 }
 
                 reqContext.endMetricRecord(checkForUnchangedEntities);
             }
 
+            if (!accessRequests.isEmpty()) {
+                AtlasAuthorizationUtils.verifyAccess(accessRequests, accessErrorMessages);
+            }
+
             executePreProcessor(context);
 
             // Updating hierarchy after preprocessor is executed so that qualifiedName update during preprocessor is considered
@@ -2566,6 +2592,28 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
         RequestContext.get().endMetricRecord(metricRecorder);
     }
 
+    @Override
+    @GraphTransaction
+    public void repairLineageCounts(Set<String> guids) throws AtlasBaseException {
+        AtlasPerfMetrics.MetricRecorder metricRecorder = RequestContext.get().startMetricRecord("repairLineageCounts");
+
+        List<AtlasVertex> vertices = new ArrayList<>();
+
+        for (String guid : guids) {
+            AtlasVertex vertex = AtlasGraphUtilsV2.findByGuid(this.graph, guid);
+
+            if (vertex == null) {
+                LOG.warn("repairLineageCounts: skipping entity {}, as it was not found", guid);
+            } else {
+                vertices.add(vertex);
+            }
+        }
+
+        LineageCountsUpdater.repair(this.graph, vertices);
+
+        RequestContext.get().endMetricRecord(metricRecorder);
+    }
+
     private void repairHasLineageForAsset(AtlasHasLineageRequest request) {
         //only supports repairing scenario mentioned here - https://atlanhq.atlassian.net/browse/DG-128?focusedCommentId=20652
 
@@ -82,6 +82,7 @@ public class AtlasGraphUtilsV2 {
 
     private static boolean USE_INDEX_QUERY_TO_FIND_ENTITY_BY_UNIQUE_ATTRIBUTES = false;
     private static boolean USE_UNIQUE_INDEX_PROPERTY_TO_FIND_ENTITY = true;
+    private static final int MULTI_VALUE_QUERY_BATCH_SIZE = 500;
     private static String INDEX_SEARCH_PREFIX;
 
     static {
@@ -370,6 +371,79 @@ public class AtlasGraphUtilsV2 {
         return vertex;
     }
 
+    /**
+     * Finds the vertices of entities of the given type, or else of its sub-types, by the values of one of its unique
+     * string attributes, with one query per MULTI_VALUE_QUERY_BATCH_SIZE values; the equivalent of calling
+     * findByUniqueAttributes() for each value.
+     *
+     * @return attribute value to vertex; values not found are not in the map
+     */
+    public static Map<String, AtlasVertex> findByUniqueAttributeValues(AtlasGraph graph, AtlasEntityType entityType, AtlasAttribute attribute, Collection<String> values) {
+        MetricRecorder           metric         = RequestContext.get().startMetricRecord("findByUniqueAttributeValues");
+        Map<String, AtlasVertex> ret            = new HashMap<>(values.size());
+        String                   typeName       = entityType.getTypeName();
+        boolean                  checkSubTypes  = !entityType.getAllSubTypes().isEmpty() && !AtlasTypeRegistry.TYPENAMES_TO_SKIP_SUPER_TYPE_CHECK.contains(typeName);
+        boolean                  useUniqueIndex = USE_UNIQUE_INDEX_PROPERTY_TO_FIND_ENTITY && attribute.getVertexUniquePropertyName() != null;
+        String                   propertyName   = useUniqueIndex ? attribute.getVertexUniquePropertyName() : attribute.getVertexPropertyName();
+
+        findByPropertyValues(graph, ENTITY_TYPE_PROPERTY_KEY, typeName, propertyName, !useUniqueIndex, values, ret);
+
+        if (checkSubTypes && ret.size() < values.size()) {
+            List<String> notFound = new ArrayList<>(values.size() - ret.size());
+
+            for (String value : values) {
+                if (!ret.containsKey(value)) {
+                    notFound.add(value);
+                }
+            }
+
+            findByPropertyValues(graph, SUPER_TYPES_PROPERTY_KEY, typeName, propertyName, !useUniqueIndex, notFound, ret);
+        }
+
+        RequestContext.get().endMetricRecord(metric);
+
+        return ret;
+    }
+
+    // typePropertyKey is null to not restrict the type
+    private static void findByPropertyValues(AtlasGraph graph, String typePropertyKey, String typeName, String propertyName, boolean activeOnly,
+                                             Collection<String> values, Map<String, AtlasVertex> result) {
+        List<String> batch = new ArrayList<>(Math.min(values.size(), MULTI_VALUE_QUERY_BATCH_SIZE));
+
+        for (Iterator<String> iter = values.iterator(); iter.hasNext(); ) {
+            String value = iter.next();
+
+            if (value != null) {
+                batch.add(value);
+            }
+
+            if (batch.size() == MULTI_VALUE_QUERY_BATCH_SIZE || (!iter.hasNext() && !batch.isEmpty())) {
+                AtlasGraphQuery query = graph.query();
+
+                if (typePropertyKey != null) {
+                    query.has(typePropertyKey, typeName);
+                }
+
+                if (activeOnly) {
+                    query.has(STATE_PROPERTY_KEY, AtlasEntity.Status.ACTIVE.name());
+                }
+
+                query.in(propertyName, batch);
+
+                for (Iterator<AtlasVertex> results = query.vertices().iterator(); results.hasNext(); ) {
+                    AtlasVertex vertex        = results.next();
+                    String      propertyValue = vertex.getProperty(propertyName, String.class);
+
+                    if (propertyValue != null) {
+                        result.putIfAbsent(propertyValue, vertex);
+                    }
+                }
+
+                batch.clear();
+            }
+        }
+    }
+
     public static String findFirstDeletedDuringSpooledByQualifiedName(String qualifiedName, long timestamp) {
         return findFirstDeletedDuringSpooledByQualifiedName(getGraphInstance(), qualifiedName, timestamp);
     }
@@ -421,6 +495,53 @@ public class AtlasGraphUtilsV2 {
         return ret;
     }
 
+    public static Map<String, AtlasVertex> findByGuids(Collection<String> guids) {
+        return findByGuids(getGraphInstance(), guids);
+    }
+
+    /**
+     * Finds the vertices of the given guids, from the transaction's guid cache or else with one query per
+     * MULTI_VALUE_QUERY_BATCH_SIZE guids; vertices found are added to the cache. The equivalent of calling
+     * findByGuid() for each guid.
+     *
+     * @return guid to vertex; guids not found are not in the map
+     */
+    public static Map<String, AtlasVertex> findByGuids(AtlasGraph graph, Collection<String> guids) {
+        AtlasPerfMetrics.MetricRecorder metric   = RequestContext.get().startMetricRecord("findByGuids");
+        Map<String, AtlasVertex>        ret      = new HashMap<>(guids.size());
+        Set<String>                     notFound = new LinkedHashSet<>();
+
+        for (String guid : guids) {
+            if (guid == null || ret.containsKey(guid)) {
+                continue;
+            }
+
+            AtlasVertex vertex = GraphTransactionInterceptor.getVertexFromCache(guid);
+
+            if (vertex != null) {
+                ret.put(guid, vertex);
+            } else {
+                notFound.add(guid);
+            }
+        }
+
+        if (!notFound.isEmpty()) {
+            Map<String, AtlasVertex> vertices = new HashMap<>(notFound.size());
+
+            findByPropertyValues(graph, null, null, Constants.GUID_PROPERTY_KEY, false, notFound, vertices);
+
+            for (Map.Entry<String, AtlasVertex> entry : vertices.entrySet()) {
+                GraphTransactionInterceptor.addToVertexCache(entry.getKey(), entry.getValue());
+
+                ret.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        RequestContext.get().endMetricRecord(metric);
+
+        return ret;
+    }
+
     public static AtlasVertex findDeletedByGuid(AtlasGraph graph, String guid) {
         AtlasVertex ret = GraphTransactionInterceptor.getVertexFromCache(guid);
 
@@ -25,6 +25,7 @@ import org.apache.atlas.annotation.GraphTransaction;
 import org.apache.atlas.authorize.AtlasAuthorizationUtils;
 import org.apache.atlas.authorize.AtlasPrivilege;
 import org.apache.atlas.authorize.AtlasRelationshipAccessRequest;
+import org.apache.atlas.discovery.LineageAdjacencyCache;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.TypeCategory;
 import org.apache.atlas.model.instance.AtlasEntityHeader;
@@ -242,6 +243,9 @@ public class AtlasRelationshipStoreV2 implements AtlasRelationshipStore {
         }
         List<AtlasRelationship> ret = new ArrayList<>();
 
+        // look up the end vertices of all relationships together; getVertexFromEndPoint() then finds them in the guid cache
+        AtlasGraphUtilsV2.findByGuids(this.graph, getEndPointGuids(relationships));
+
         for (AtlasRelationship relationship : relationships) {
             AtlasVertex end1Vertex = getVertexFromEndPoint(relationship.getEnd1());
             AtlasVertex end2Vertex = getVertexFromEndPoint(relationship.getEnd2());
@@ -786,6 +790,20 @@ public class AtlasRelationshipStoreV2 implements AtlasRelationshipStore {
         return ret;
     }
 
+    private static Set<String> getEndPointGuids(List<AtlasRelationship> relationships) {
+        Set<String> ret = new HashSet<>();
+
+        for (AtlasRelationship relationship : relationships) {
+            for (AtlasObjectId endPoint : Arrays.asList(relationship.getEnd1(), relationship.getEnd2())) {
+                if (endPoint != null && StringUtils.isNotEmpty(endPoint.getGuid())) {
+                    ret.add(endPoint.getGuid());
+                }
+            }
+        }
+
+        return ret;
+    }
+
     private PropagateTags getRelationshipTagPropagation(AtlasVertex fromVertex, AtlasVertex toVertex, AtlasRelationship relationship) {
         AtlasRelationshipType   relationshipType = typeRegistry.getRelationshipTypeByName(relationship.getTypeName());
         AtlasRelationshipEndDef endDef1          = relationshipType.getRelationshipDef().getEndDef1();
@@ -939,6 +957,8 @@ public class AtlasRelationshipStoreV2 implements AtlasRelationshipStore {
         if (relationshipMutation.equals(RelationshipMutation.RELATIONSHIP_HARD_DELETE))
             relationship.setStatus(AtlasRelationship.Status.PURGED);
         AtlasRelationshipStoreV2.setEdgeVertexIdsInContext(edge);
+        LineageAdjacencyCache.invalidate(edge);
+        LineageCountsUpdater.onLineageEdgeMutated(relationshipMutation, edge);
         RequestContext.get().saveRelationshipsMutationContext(relationshipMutation.name(), relationship);
     }
 
@@ -10,6 +10,7 @@ import org.apache.atlas.model.instance.AtlasEntityHeader;
 import org.apache.atlas.repository.graph.GraphHelper;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.repository.store.graph.AtlasEntityStore;
+import org.apache.atlas.repository.store.graph.v2.preprocessor.PreProcessorUtils;
 import org.apache.atlas.service.redis.RedisService;
 import org.apache.atlas.type.AtlasEntityType;
 import org.apache.atlas.type.AtlasType;
@@ -374,39 +375,7 @@ public class DataMeshQNMigrationService implements MigrationService {
     }
 
     public static List<AtlasEntityHeader> indexSearchPaginated(Map<String, Object> dsl, Set<String> attributes, EntityDiscoveryService discovery) throws AtlasBaseException {
-        IndexSearchParams searchParams = new IndexSearchParams();
-        List<AtlasEntityHeader> ret = new ArrayList<>();
-
-        List<Map> sortList = new ArrayList<>(0);
-        sortList.add(mapOf("__timestamp", mapOf("order", "asc")));
-        sortList.add(mapOf("__guid", mapOf("order", "asc")));
-        dsl.put("sort", sortList);
-
-        int from = 0;
-        int size = 100;
-        boolean hasMore = true;
-        do {
-            dsl.put("from", from);
-            dsl.put("size", size);
-            searchParams.setDsl(dsl);
-
-            if (CollectionUtils.isNotEmpty(attributes)) {
-                searchParams.setAttributes(attributes);
-            }
-
-            List<AtlasEntityHeader> headers = discovery.directIndexSearch(searchParams).getEntities();
-
-            if (CollectionUtils.isNotEmpty(headers)) {
-                ret.addAll(headers);
-            } else {
-                hasMore = false;
-            }
-
-            from += size;
-
-        } while (hasMore);
-
-        return ret;
+        return PreProcessorUtils.indexSearchPaginated(dsl, attributes, discovery);
     }
 
     /**
@@ -56,6 +56,8 @@ import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.repository.store.graph.AtlasRelationshipStore;
 import org.apache.atlas.repository.store.graph.EntityGraphDiscoveryContext;
 import org.apache.atlas.repository.store.graph.v1.DeleteHandlerDelegate;
+import org.apache.atlas.repository.store.graph.v2.EntityGraphRetriever.ImpactedVerticesTraversal;
+import org.apache.atlas.repository.store.graph.v2.tasks.ClassificationPropagationCursor;
 import org.apache.atlas.repository.store.graph.v2.tasks.ClassificationTask;
 import org.apache.atlas.tasks.TaskManagement;
 import org.apache.atlas.type.AtlasArrayType;
@@ -3282,20 +3284,23 @@ public class EntityGraphMapper {
                 throw new AtlasBaseException(String.format("propagateClassification(entityGuid=%s, classificationVertexId=%s): classification vertex not found", entityGuid, classificationVertexId));
             }
 
+            ClassificationPropagationCursor cursor = ClassificationPropagationCursor.forCurrentTask(graph);
+
             /*
                 If restrictPropagateThroughLineage was false at past
                  then updated to true we need to delete the propagated
-                 classifications and then put the classifications as intended
+                 classifications and then put the classifications as intended.
+                 Already done if the task is resuming.
              */
 
             Boolean currentRestrictPropagationThroughLineage = AtlasGraphUtilsV2.getProperty(classificationVertex, CLASSIFICATION_VERTEX_RESTRICT_PROPAGATE_THROUGH_LINEAGE, Boolean.class);
 
             Boolean currentRestrictPropagationThroughHierarchy = AtlasGraphUtilsV2.getProperty(classificationVertex, CLASSIFICATION_VERTEX_RESTRICT_PROPAGATE_THROUGH_HIERARCHY, Boolean.class);
-            if (previousRestrictPropagationThroughLineage != null && currentRestrictPropagationThroughLineage != null && !previousRestrictPropagationThroughLineage && currentRestrictPropagationThroughLineage) {
+            if (!cursor.isResumed() && previousRestrictPropagationThroughLineage != null && currentRestrictPropagationThroughLineage != null && !previousRestrictPropagationThroughLineage && currentRestrictPropagationThroughLineage) {
                 deleteDelegate.getHandler().removeTagPropagation(classificationVertex);
             }
 
-            if (previousRestrictPropagationThroughHierarchy != null && currentRestrictPropagationThroughHierarchy != null && !previousRestrictPropagationThroughHierarchy && currentRestrictPropagationThroughHierarchy) {
+            if (!cursor.isResumed() && previousRestrictPropagationThroughHierarchy != null && currentRestrictPropagationThroughHierarchy != null && !previousRestrictPropagationThroughHierarchy && currentRestrictPropagationThroughHierarchy) {
                 deleteDelegate.getHandler().removeTagPropagation(classificationVertex);
             }
 
@@ -3303,15 +3308,22 @@ public class EntityGraphMapper {
 
             List<String> edgeLabelsToCheck = CLASSIFICATION_PROPAGATION_MODE_LABELS_MAP.get(propagationMode);
             Boolean toExclude = propagationMode == CLASSIFICATION_PROPAGATION_MODE_RESTRICT_LINEAGE ? true:false;
-            List<AtlasVertex> impactedVertices = entityRetriever.getIncludedImpactedVerticesV2(entityVertex, relationshipGuid, classificationVertexId, edgeLabelsToCheck,toExclude);
+            ImpactedVerticesTraversal traversal = entityRetriever.getImpactedVerticesTraversal(entityVertex, relationshipGuid, classificationVertexId, edgeLabelsToCheck, toExclude);
+
+            // the entity itself, which need not be the one the classification is attached to
+            List<String> ret = propagateClassificationToVertices(classificationVertex, Collections.singletonList(entityVertex));
+
+            ret.addAll(processClassificationPropagationAddition(traversal, classificationVertex, cursor));
+
+            cursor.clear();
 
-            if (CollectionUtils.isEmpty(impactedVertices)) {
+            if (ret.isEmpty()) {
                 LOG.debug("propagateClassification(entityGuid={}, classificationVertexId={}): found no entities to propagate the classification", entityGuid, classificationVertexId);
 
                 return null;
             }
 
-            return processClassificationPropagationAddition(impactedVertices, classificationVertex);
+            return ret;
         } catch (Exception e) {
             LOG.error("propagateClassification(entityGuid={}, classificationVertexId={}): error while propagating classification", entityGuid, classificationVertexId, e);
 
@@ -3319,42 +3331,42 @@ public class EntityGraphMapper {
         }
     }
 
-    public List<String> processClassificationPropagationAddition(List<AtlasVertex> verticesToPropagate, AtlasVertex classificationVertex) throws AtlasBaseException{
+    /**
+     * Propagates the classification to the vertices reached by the traversal, one level at a time, committing every
+     * CHUNK_SIZE vertices. The cursor is advanced in the transaction of each chunk, so that a re-queued task skips
+     * the chunks already committed.
+     */
+    public List<String> processClassificationPropagationAddition(ImpactedVerticesTraversal traversal, AtlasVertex classificationVertex,
+                                                                 ClassificationPropagationCursor cursor) throws AtlasBaseException {
         AtlasPerfMetrics.MetricRecorder classificationPropagationMetricRecorder = RequestContext.get().startMetricRecord("processClassificationPropagationAddition");
         List<String> propagatedEntitiesGuids = new ArrayList<>();
-        int impactedVerticesSize = verticesToPropagate.size();
-        int offset = 0;
-        int toIndex;
-        LOG.info(String.format("Total number of vertices to propagate: %d", impactedVerticesSize));
+        int totalVerticesCount = 0;
 
         try {
-            do {
-                toIndex = ((offset + CHUNK_SIZE > impactedVerticesSize) ? impactedVerticesSize : (offset + CHUNK_SIZE));
-                List<AtlasVertex> chunkedVerticesToPropagate = verticesToPropagate.subList(offset, toIndex);
+            for (List<String> verticesIdsAtLevel = traversal.nextLevel(); verticesIdsAtLevel != null; verticesIdsAtLevel = traversal.nextLevel()) {
+                int level     = traversal.getLevel();
+                int levelSize = verticesIdsAtLevel.size();
+                int offset    = cursor.getStartOffset(level, levelSize);
 
-                AtlasPerfMetrics.MetricRecorder metricRecorder  = RequestContext.get().startMetricRecord("lockObjectsAfterTraverse");
-                List<String> impactedVerticesGuidsToLock        = chunkedVerticesToPropagate.stream().map(x -> GraphHelper.getGuid(x)).collect(Collectors.toList());
-                GraphTransactionInterceptor.lockObjectAndReleasePostCommit(impactedVerticesGuidsToLock);
-                RequestContext.get().endMetricRecord(metricRecorder);
+                totalVerticesCount += levelSize;
 
-                AtlasClassification classification       = entityRetriever.toAtlasClassification(classificationVertex);
-                List<AtlasVertex>   entitiesPropagatedTo = deleteDelegate.getHandler().addTagPropagation(classificationVertex, chunkedVerticesToPropagate);
+                LOG.info("Level {}: {} vertices to propagate, starting at {}", level, levelSize, offset);
 
-                if (CollectionUtils.isEmpty(entitiesPropagatedTo)) {
-                    return null;
-                }
+                while (offset < levelSize) {
+                    int               toIndex                    = Math.min(offset + CHUNK_SIZE, levelSize);
+                    List<AtlasVertex> chunkedVerticesToPropagate = getVerticesInOrder(verticesIdsAtLevel.subList(offset, toIndex));
 
-                List<AtlasEntity>   propagatedEntitiesChunked       = updateClassificationText(classification, entitiesPropagatedTo);
-                List<String>        chunkedPropagatedEntitiesGuids  = propagatedEntitiesChunked.stream().map(x -> x.getGuid()).collect(Collectors.toList());
-                entityChangeNotifier.onClassificationsAddedToEntities(propagatedEntitiesChunked, Collections.singletonList(classification), false);
+                    propagatedEntitiesGuids.addAll(propagateClassificationToVertices(classificationVertex, chunkedVerticesToPropagate));
 
-                propagatedEntitiesGuids.addAll(chunkedPropagatedEntitiesGuids);
+                    offset = toIndex;
 
-                offset += CHUNK_SIZE;
+                    cursor.update(level, levelSize, offset);
 
-                transactionInterceptHelper.intercept();
+                    transactionInterceptHelper.intercept();
+                }
+            }
 
-            } while (offset < impactedVerticesSize);
+            LOG.info("Total number of vertices traversed to propagate: {}", totalVerticesCount);
         } catch (AtlasBaseException exception) {
             LOG.error("Error occurred while adding classification propagation for classification with propagation id {}", classificationVertex.getIdForDisplay());
             throw exception;
@@ -3362,8 +3374,46 @@ public class EntityGraphMapper {
             RequestContext.get().endMetricRecord(classificationPropagationMetricRecorder);
         }
 
-    return propagatedEntitiesGuids;
+        return propagatedEntitiesGuids;
+    }
 
+    private List<String> propagateClassificationToVertices(AtlasVertex classificationVertex, List<AtlasVertex> verticesToPropagate) throws AtlasBaseException {
+        if (verticesToPropagate.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        AtlasPerfMetrics.MetricRecorder metricRecorder  = RequestContext.get().startMetricRecord("lockObjectsAfterTraverse");
+        List<String> impactedVerticesGuidsToLock        = verticesToPropagate.stream().map(x -> GraphHelper.getGuid(x)).collect(Collectors.toList());
+        GraphTransactionInterceptor.lockObjectAndReleasePostCommit(impactedVerticesGuidsToLock);
+        RequestContext.get().endMetricRecord(metricRecorder);
+
+        AtlasClassification classification       = entityRetriever.toAtlasClassification(classificationVertex);
+        List<AtlasVertex>   entitiesPropagatedTo = deleteDelegate.getHandler().addTagPropagation(classificationVertex, verticesToPropagate);
+
+        if (CollectionUtils.isEmpty(entitiesPropagatedTo)) {
+            return new ArrayList<>();
+        }
+
+        List<AtlasEntity>   propagatedEntitiesChunked       = updateClassificationText(classification, entitiesPropagatedTo);
+        entityChangeNotifier.onClassificationsAddedToEntities(propagatedEntitiesChunked, Collections.singletonList(classification), false);
+
+        return propagatedEntitiesChunked.stream().map(x -> x.getGuid()).collect(Collectors.toList());
+    }
+
+    // vertices of the given ids that still exist, in the order of the ids
+    private List<AtlasVertex> getVerticesInOrder(List<String> vertexIds) {
+        Map<String, AtlasVertex> vertices = graph.getVertices(vertexIds);
+        List<AtlasVertex>        ret      = new ArrayList<>(vertices.size());
+
+        for (String vertexId : vertexIds) {
+            AtlasVertex vertex = vertices.get(vertexId);
+
+            if (vertex != null) {
+                ret.add(vertex);
+            }
+        }
+
+        return ret;
     }
 
     public void deleteClassification(String entityGuid, String classificationName, String associatedEntityGuid) throws AtlasBaseException {
@@ -4048,33 +4098,27 @@ public class EntityGraphMapper {
         List<String> propagatedVerticesIds = GraphHelper.getPropagatedVerticesIds(currentClassificationVertex);
         LOG.info("{} entity vertices have classification with id {} attached", propagatedVerticesIds.size(), classificationId);
 
-        List<String> verticesIdsToAddClassification =  new ArrayList<>();
-        List<String> propagatedVerticesIdWithoutEdge = entityRetriever.getImpactedVerticesIdsClassificationAttached(sourceEntityVertex , classificationId,
-                CLASSIFICATION_PROPAGATION_MODE_LABELS_MAP.get(propagationMode),toExclude, verticesIdsToAddClassification);
+        ClassificationPropagationCursor cursor    = ClassificationPropagationCursor.forCurrentTask(graph);
+        ImpactedVerticesTraversal       traversal = entityRetriever.getImpactedVerticesTraversal(isClassificationAttachedTo(sourceEntityVertex, classificationId) ? sourceEntityVertex : null,
+                                                                                                  null, classificationId, CLASSIFICATION_PROPAGATION_MODE_LABELS_MAP.get(propagationMode), toExclude);
 
-        LOG.info("To add classification with id {} to {} vertices", classificationId, verticesIdsToAddClassification.size());
+        //Add classification to the reachable vertices, level by level; vertices that already have it are skipped
+        List<String> propagatedEntitiesGuids = processClassificationPropagationAddition(traversal, currentClassificationVertex, cursor);
 
-        List<String> verticesIdsToRemove = (List<String>)CollectionUtils.subtract(propagatedVerticesIds, propagatedVerticesIdWithoutEdge);
+        LOG.info("Added classification with id {} to {} vertices", classificationId, propagatedEntitiesGuids.size());
 
-        List<AtlasVertex> verticesToRemove = verticesIdsToRemove.stream()
-                .map(x -> graph.getVertex(x))
-                .filter(vertex -> vertex != null)
-                .collect(Collectors.toList());
-
-        List<AtlasVertex> verticesToAddClassification  = verticesIdsToAddClassification.stream()
+        //Remove classifications from unreachable vertices
+        List<AtlasVertex> verticesToRemove = propagatedVerticesIds.stream()
+                .filter(x -> !traversal.isVisited(x))
                 .map(x -> graph.getVertex(x))
                 .filter(vertex -> vertex != null)
                 .collect(Collectors.toList());
 
-        //Remove classifications from unreachable vertices
-        processPropagatedClassificationDeletionFromVertices(verticesToRemove, currentClassificationVertex, classification);
-
-        //Add classification to the reachable vertices
-        if (CollectionUtils.isEmpty(verticesToAddClassification)) {
-            LOG.debug("propagateClassification(entityGuid={}, classificationVertexId={}): found no entities to propagate the classification", sourceEntityId, classificationId);
-            return;
+        if (CollectionUtils.isNotEmpty(verticesToRemove)) {
+            processPropagatedClassificationDeletionFromVertices(verticesToRemove, currentClassificationVertex, classification);
         }
-        processClassificationPropagationAddition(verticesToAddClassification, currentClassificationVertex);
+
+        cursor.clear();
 
         LOG.info("Completed refreshing propagation for classification with vertex id {} with classification name {} and source entity {}",classificationId,
                 classification.getTypeName(), classification.getEntityGuid());
@@ -4082,6 +4126,22 @@ public class EntityGraphMapper {
         RequestContext.get().endMetricRecord(classificationRefreshPropagationMetricRecorder);
     }
 
+    private static boolean isClassificationAttachedTo(AtlasVertex entityVertex, String classificationId) {
+        if (entityVertex == null) {
+            return false;
+        }
+
+        for (AtlasEdge classificationEdge : GraphHelper.getClassificationEdges(entityVertex)) {
+            AtlasVertex classificationVertex = classificationEdge.getInVertex();
+
+            if (classificationVertex != null && classificationId.equals(classificationVertex.getIdForDisplay())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     private void processClassificationDeleteOnlyPropagation(AtlasVertex currentClassificationVertex, String relationshipGuid) throws AtlasBaseException {
         String              classificationId                = currentClassificationVertex.getIdForDisplay();
         String              sourceEntityId                  = getClassificationEntityGuid(currentClassificationVertex);
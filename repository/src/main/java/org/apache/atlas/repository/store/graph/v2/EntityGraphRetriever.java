@@ -17,8 +17,11 @@
  */
 package org.apache.atlas.repository.store.graph.v2;
 
+import com.carrotsearch.hppc.LongHashSet;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.RequestContext;
@@ -79,6 +82,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -89,9 +93,11 @@ import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.apache.atlas.glossary.GlossaryUtils.TERM_ASSIGNMENT_ATTR_CONFIDENCE;
@@ -121,6 +127,7 @@ import static org.apache.atlas.repository.Constants.*;
 import static org.apache.atlas.repository.graph.GraphHelper.*;
 import static org.apache.atlas.repository.store.graph.v2.AtlasGraphUtilsV2.getIdFromVertex;
 import static org.apache.atlas.repository.store.graph.v2.AtlasGraphUtilsV2.isReference;
+import static org.apache.atlas.service.metrics.MetricUtils.getMeterRegistry;
 import static org.apache.atlas.type.AtlasStructType.AtlasAttribute.AtlasRelationshipEdgeDirection;
 import static org.apache.atlas.type.AtlasStructType.AtlasAttribute.AtlasRelationshipEdgeDirection.BOTH;
 import static org.apache.atlas.type.AtlasStructType.AtlasAttribute.AtlasRelationshipEdgeDirection.IN;
@@ -240,6 +247,32 @@ public class EntityGraphRetriever {
         return ret;
     }
 
+    public List<AtlasEntityHeader> toAtlasEntityHeaders(List<AtlasVertex> entityVertices, Set<String> attributes) throws AtlasBaseException {
+        return toAtlasEntityHeaders(entityVertices, attributes, false);
+    }
+
+    /**
+     * Maps a page of vertices to entity headers, in the order of the given vertices. Properties and the edges
+     * needed for the requested attributes are fetched for the whole page up front, so that building the headers
+     * is served from the transaction cache. The headers are built on the calling thread, as the vertices belong
+     * to its graph transaction, which is not safe to read from other threads.
+     */
+    public List<AtlasEntityHeader> toAtlasEntityHeaders(List<AtlasVertex> entityVertices, Set<String> attributes, boolean includeClassifications) throws AtlasBaseException {
+        AtlasPerfMetrics.MetricRecorder metricRecorder = RequestContext.get().startMetricRecord("toAtlasEntityHeaders");
+
+        try {
+            if (CollectionUtils.isEmpty(entityVertices)) {
+                return new ArrayList<>();
+            }
+
+            prefetchForEntityHeaders(entityVertices, attributes, includeClassifications);
+
+            return mapVerticesToAtlasEntityHeaders(entityVertices, attributes, includeClassifications);
+        } finally {
+            RequestContext.get().endMetricRecord(metricRecorder);
+        }
+    }
+
     public Map<String, Map<String, Object>> getBusinessMetadata(AtlasVertex entityVertex) throws AtlasBaseException {
         Map<String, Map<String, Object>>                         ret             = null;
         String                                                   entityTypeName  = getTypeName(entityVertex);
@@ -602,17 +635,6 @@ public class EntityGraphRetriever {
 
         return ret;
     }
-    public List<AtlasVertex> getIncludedImpactedVerticesV2(AtlasVertex entityVertex, String relationshipGuidToExclude, String classificationId, List<String> edgeLabelsToCheck,Boolean toExclude) {
-        List<String> vertexIds = new ArrayList<>();
-        traverseImpactedVerticesByLevel(entityVertex, relationshipGuidToExclude, classificationId, vertexIds, edgeLabelsToCheck,toExclude, null);
-
-        List<AtlasVertex> ret = vertexIds.stream().map(x -> graph.getVertex(x))
-                .filter(vertex -> vertex != null)
-                .collect(Collectors.toList());
-        ret.add(entityVertex);
-
-        return ret;
-    }
 
     public List<AtlasVertex> getImpactedVerticesV2(AtlasVertex entityVertex, String relationshipGuidToExclude, String classificationId) {
         List<AtlasVertex> ret = new ArrayList<>();
@@ -634,20 +656,7 @@ public class EntityGraphRetriever {
     public List<String> getImpactedVerticesIds(AtlasVertex entityVertex, String relationshipGuidToExclude, String classificationId, List<String> edgeLabelsToCheck,Boolean toExclude) {
         List<String> ret = new ArrayList<>();
 
-        traverseImpactedVerticesByLevel(entityVertex, relationshipGuidToExclude, classificationId, ret, edgeLabelsToCheck,toExclude, null);
-
-        return ret;
-    }
-
-    public List<String> getImpactedVerticesIdsClassificationAttached(AtlasVertex entityVertex, String classificationId, List<String> edgeLabelsToCheck,Boolean toExclude, List<String> verticesWithoutClassification) {
-        List<String> ret = new ArrayList<>();
-
-        GraphHelper.getClassificationEdges(entityVertex).forEach(classificationEdge -> {
-            AtlasVertex classificationVertex = classificationEdge.getInVertex();
-            if (classificationVertex != null && classificationId.equals(classificationVertex.getIdForDisplay())) {
-                traverseImpactedVerticesByLevel(entityVertex, null, classificationId, ret, edgeLabelsToCheck, toExclude, verticesWithoutClassification);
-            }
-        });
+        traverseImpactedVerticesByLevel(entityVertex, relationshipGuidToExclude, classificationId, ret, edgeLabelsToCheck,toExclude);
 
         return ret;
     }
@@ -751,84 +760,208 @@ public class EntityGraphRetriever {
     }
 
     private void traverseImpactedVerticesByLevel(final AtlasVertex entityVertexStart, final String relationshipGuidToExclude,
-                                          final String classificationId, final List<String> result, List<String> edgeLabelsToCheck,Boolean toExclude, List<String> verticesWithoutClassification) {
-        AtlasPerfMetrics.MetricRecorder metricRecorder                          = RequestContext.get().startMetricRecord("traverseImpactedVerticesByLevel");
-        Set<String>                 visitedVerticesIds                          = new HashSet<>();
-        Set<String>                 verticesAtCurrentLevel                      = new HashSet<>();
-        Set<String>                 traversedVerticesIds                        = new HashSet<>();
-        Set<String>                 verticesWithOutClassification               = new HashSet<>();
-        RequestContext              requestContext                              = RequestContext.get();
-        AtlasVertex                 classificationVertex                        = graph.getVertex(classificationId);
-        boolean                     storeVerticesWithoutClassification          = verticesWithoutClassification == null ? false : true;
-
-        final ThreadFactory threadFactory = new ThreadFactoryBuilder()
-                .setNameFormat("Tasks-BFS-%d")
-                .setDaemon(true)
-                .build();
-
-        ExecutorService executorService = Executors.newFixedThreadPool(AtlasConfiguration.GRAPH_TRAVERSAL_PARALLELISM.getInt(), threadFactory);
-
-        //Add Source vertex to level 1
-        if (entityVertexStart != null) {
-            verticesAtCurrentLevel.add(entityVertexStart.getIdForDisplay());
-        }
-        /*
-            Steps in each level:
-                1. Add vertices to Visited Vertices set
-                2. Then fetch adjacent vertices of that vertex using getAdjacentVerticesIds
-                3. Use future to fetch it later as it is a Blocking call,so we want to execute it asynchronously
-                4. Then fetch the result from futures
-                5. It will return the adjacent vertices of the current level
-            After processing current level:
-                1. Add the adjacent vertices of current level to verticesToVisitNextLevel
-                2. Clear the processed vertices of current level
-                3. After that insert verticesToVisitNextLevel into current level
-           Continue the steps until all vertices are processed by checking if verticesAtCurrentLevel is empty
-         */
+                                          final String classificationId, final List<String> result, List<String> edgeLabelsToCheck,Boolean toExclude) {
+        AtlasPerfMetrics.MetricRecorder metricRecorder = RequestContext.get().startMetricRecord("traverseImpactedVerticesByLevel");
+        ImpactedVerticesTraversal       traversal      = new ImpactedVerticesTraversal(entityVertexStart, relationshipGuidToExclude, classificationId, edgeLabelsToCheck, toExclude);
+
+        for (List<String> verticesAtLevel = traversal.nextLevel(); verticesAtLevel != null; verticesAtLevel = traversal.nextLevel()) {
+            result.addAll(verticesAtLevel);
+        }
+
+        RequestContext.get().endMetricRecord(metricRecorder);
+    }
+
+    /**
+     * Returns a level-by-level traversal of the vertices a classification propagates to from the given entity, for
+     * callers that process the impacted vertices level by level instead of collecting all of them first.
+     */
+    public ImpactedVerticesTraversal getImpactedVerticesTraversal(AtlasVertex entityVertex, String relationshipGuidToExclude, String classificationId,
+                                                                  List<String> edgeLabelsToCheck, Boolean toExclude) {
+        return new ImpactedVerticesTraversal(entityVertex, relationshipGuidToExclude, classificationId, edgeLabelsToCheck, toExclude);
+    }
+
+    private List<AtlasVertex> getVerticesForTraversal(List<String> vertexIds) {
+        if (vertexIds.size() == 1) {
+            AtlasVertex vertex = graph.getVertex(vertexIds.get(0));
+
+            return vertex != null ? Collections.singletonList(vertex) : Collections.emptyList();
+        }
+
+        Map<String, AtlasVertex> vertices = graph.getVertices(vertexIds);
+        List<AtlasVertex>        ret      = new ArrayList<>(vertices.size());
+
+        for (String vertexId : vertexIds) {
+            AtlasVertex vertex = vertices.get(vertexId);
+
+            if (vertex != null) {
+                ret.add(vertex);
+            }
+        }
+
+        return ret;
+    }
+
+    private List<List<String>> getAdjacentVerticesIdsInParallel(List<AtlasVertex> levelVertices, final String classificationId, final String relationshipGuidToExclude,
+                                                                List<String> edgeLabelsToCheck, Boolean toExclude, LongHashSet visitedVerticesIds, Set<String> deletedEdgeIds) {
+        int parallelism = Math.min(TraversalExecutorHolder.POOL_SIZE, levelVertices.size());
+
+        if (parallelism <= 1) {
+            return Collections.singletonList(getAdjacentVerticesIds(levelVertices, 0, levelVertices.size(), classificationId, relationshipGuidToExclude,
+                                                                    edgeLabelsToCheck, toExclude, visitedVerticesIds, deletedEdgeIds));
+        }
+
+        int                                   chunkSize = (levelVertices.size() + parallelism - 1) / parallelism;
+        List<CompletableFuture<List<String>>> futures   = new ArrayList<>(parallelism);
+
+        for (int fromIndex = 0; fromIndex < levelVertices.size(); fromIndex += chunkSize) {
+            final int from = fromIndex;
+            final int to   = Math.min(fromIndex + chunkSize, levelVertices.size());
+
+            try {
+                futures.add(CompletableFuture.supplyAsync(() -> getAdjacentVerticesIds(levelVertices, from, to, classificationId, relationshipGuidToExclude,
+                                                                                       edgeLabelsToCheck, toExclude, visitedVerticesIds, deletedEdgeIds),
+                                                          TraversalExecutorHolder.EXECUTOR));
+            } catch (RejectedExecutionException e) {
+                // pool is saturated; expand this chunk on the calling thread
+                futures.add(CompletableFuture.completedFuture(getAdjacentVerticesIds(levelVertices, from, to, classificationId, relationshipGuidToExclude,
+                                                                                     edgeLabelsToCheck, toExclude, visitedVerticesIds, deletedEdgeIds)));
+            }
+        }
+
+        List<List<String>> ret = new ArrayList<>(futures.size());
+
         try {
-            while (!verticesAtCurrentLevel.isEmpty()) {
-                Set<String> verticesToVisitNextLevel = new HashSet<>();
-                List<CompletableFuture<Set<String>>> futures = verticesAtCurrentLevel.stream()
-                        .map(t -> {
-                            AtlasVertex entityVertex = graph.getVertex(t);
-                            visitedVerticesIds.add(entityVertex.getIdForDisplay());
-                            // If we want to store vertices without classification attached
-                            // Check if vertices has classification attached or not using function isClassificationAttached
-
-                            if(storeVerticesWithoutClassification && !GraphHelper.isClassificationAttached(entityVertex, classificationVertex)) {
-                                verticesWithOutClassification.add(entityVertex.getIdForDisplay());
-                            }
+            for (CompletableFuture<List<String>> future : futures) {
+                ret.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+
+        return ret;
+    }
 
-                            return CompletableFuture.supplyAsync(() -> getAdjacentVerticesIds(entityVertex, classificationId,
-                                    relationshipGuidToExclude, edgeLabelsToCheck,toExclude, visitedVerticesIds), executorService);
-                        }).collect(Collectors.toList());
+    private List<String> getAdjacentVerticesIds(List<AtlasVertex> entityVertices, int fromIndex, int toIndex, final String classificationId, final String relationshipGuidToExclude,
+                                                List<String> edgeLabelsToCheck, Boolean toExclude, LongHashSet visitedVerticesIds, Set<String> deletedEdgeIds) {
+        List<String> ret = new ArrayList<>();
 
-                futures.stream().map(CompletableFuture::join).forEach(x -> {
-                    verticesToVisitNextLevel.addAll(x);
-                    traversedVerticesIds.addAll(x);
-                });
+        for (int i = fromIndex; i < toIndex; i++) {
+            Set<String> adjacentVerticesIds = getAdjacentVerticesIds(entityVertices.get(i), classificationId, relationshipGuidToExclude,
+                                                                     edgeLabelsToCheck, toExclude, visitedVerticesIds, deletedEdgeIds);
 
-                verticesAtCurrentLevel.clear();
-                verticesAtCurrentLevel.addAll(verticesToVisitNextLevel);
+            if (adjacentVerticesIds != null) {
+                ret.addAll(adjacentVerticesIds);
             }
-        } finally {
-            executorService.shutdown();
         }
-        result.addAll(traversedVerticesIds);
 
-        if(storeVerticesWithoutClassification)
-            verticesWithoutClassification.addAll(verticesWithOutClassification);
+        return ret;
+    }
 
-        requestContext.endMetricRecord(metricRecorder);
+    private static long toLongVertexId(String vertexId) {
+        return Long.parseLong(vertexId);
+    }
+
+    /**
+     * Breadth-first traversal of tag propagation edges from an entity, one level per nextLevel() call.
+     *
+     * Steps in each level:
+     *   1. Fetch the vertices of the current level in a single multi-get
+     *   2. Split them into chunks, and fetch adjacent vertices of each chunk on the shared traversal pool
+     *   3. Merge the adjacent vertices of all chunks on the calling thread: the ones not visited yet are marked
+     *      visited and make up the next level
+     * The visited set is only updated on the calling thread, between levels; workers only read it, to skip
+     * already visited vertices early.
+     */
+    public final class ImpactedVerticesTraversal {
+        private final String       relationshipGuidToExclude;
+        private final String       classificationId;
+        private final List<String> edgeLabelsToCheck;
+        private final Boolean      toExclude;
+        private final Set<String>  deletedEdgeIds;
+        private final LongHashSet  visitedVerticesIds = new LongHashSet();
+        private List<String>       verticesAtCurrentLevel = new ArrayList<>();
+        private int                level = 0;
+
+        private ImpactedVerticesTraversal(AtlasVertex entityVertexStart, String relationshipGuidToExclude, String classificationId,
+                                          List<String> edgeLabelsToCheck, Boolean toExclude) {
+            RequestContext requestContext = RequestContext.get();
+
+            this.relationshipGuidToExclude = relationshipGuidToExclude;
+            this.classificationId          = classificationId;
+            this.edgeLabelsToCheck         = edgeLabelsToCheck;
+            this.toExclude                 = toExclude;
+            this.deletedEdgeIds            = requestContext.getCurrentTask() != null ? requestContext.getDeletedEdgesIds() : null;
+
+            //Add Source vertex to level 0
+            if (entityVertexStart != null) {
+                verticesAtCurrentLevel.add(entityVertexStart.getIdForDisplay());
+                visitedVerticesIds.add(toLongVertexId(entityVertexStart.getIdForDisplay()));
+            }
+        }
+
+        /**
+         * Expands the current level, and returns the ids of the vertices first reached at the next level, in vertex id
+         * order; returns null once there are no more vertices to reach.
+         */
+        public List<String> nextLevel() {
+            if (verticesAtCurrentLevel.isEmpty()) {
+                return null;
+            }
+
+            TraversalExecutorHolder.LEVEL_SIZE.record(verticesAtCurrentLevel.size());
+
+            List<AtlasVertex> levelVertices = getVerticesForTraversal(verticesAtCurrentLevel);
+
+            List<String> verticesToVisitNextLevel = new ArrayList<>();
+
+            for (List<String> adjacentVerticesIds : getAdjacentVerticesIdsInParallel(levelVertices, classificationId, relationshipGuidToExclude,
+                                                                                     edgeLabelsToCheck, toExclude, visitedVerticesIds, deletedEdgeIds)) {
+                for (String adjacentVertexId : adjacentVerticesIds) {
+                    if (visitedVerticesIds.add(toLongVertexId(adjacentVertexId))) {
+                        verticesToVisitNextLevel.add(adjacentVertexId);
+                    }
+                }
+            }
+
+            // stable order, so that a level can be processed in chunks and resumed by offset
+            verticesToVisitNextLevel.sort(Comparator.comparingLong(EntityGraphRetriever::toLongVertexId));
+
+            verticesAtCurrentLevel = verticesToVisitNextLevel;
+
+            if (verticesToVisitNextLevel.isEmpty()) {
+                return null;
+            }
+
+            level++;
+
+            return Collections.unmodifiableList(verticesToVisitNextLevel);
+        }
+
+        /**
+         * Number of the level last returned by nextLevel(), starting from 1; 0 before the first call.
+         */
+        public int getLevel() {
+            return level;
+        }
+
+        /**
+         * Returns true if the given vertex has been reached so far, including the vertex the traversal started from.
+         */
+        public boolean isVisited(String vertexId) {
+            return visitedVerticesIds.contains(toLongVertexId(vertexId));
+        }
     }
 
     private Set<String> getAdjacentVerticesIds(AtlasVertex entityVertex,final String classificationId, final String relationshipGuidToExclude
-            ,List<String> edgeLabelsToCheck,Boolean toExclude, Set<String> visitedVerticesIds) {
+            ,List<String> edgeLabelsToCheck,Boolean toExclude, LongHashSet visitedVerticesIds, Set<String> deletedEdgeIds) {
 
         AtlasEntityType         entityType          = typeRegistry.getEntityTypeByName(getTypeName(entityVertex));
         String[]                tagPropagationEdges = entityType != null ? entityType.getTagPropagationEdgesArray() : null;
         Set<String>             ret                 = new HashSet<>();
-        RequestContext          requestContext      = RequestContext.get();
 
         if (tagPropagationEdges == null) {
             return null;
@@ -853,7 +986,7 @@ public class EntityGraphRetriever {
         while (propagationEdges.hasNext()) {
             AtlasEdge propagationEdge = propagationEdges.next();
 
-            if (getEdgeStatus(propagationEdge) != ACTIVE && !(requestContext.getCurrentTask() != null && requestContext.getDeletedEdgesIds().contains(propagationEdge.getIdForDisplay())) ) {
+            if (getEdgeStatus(propagationEdge) != ACTIVE && !(deletedEdgeIds != null && deletedEdgeIds.contains(propagationEdge.getIdForDisplay())) ) {
                 continue;
             }
 
@@ -888,7 +1021,7 @@ public class EntityGraphRetriever {
             AtlasVertex adjacentVertex             = getOtherVertex(propagationEdge, entityVertex);
             String      adjacentVertexIdForDisplay = adjacentVertex.getIdForDisplay();
 
-            if (!visitedVerticesIds.contains(adjacentVertexIdForDisplay)) {
+            if (!visitedVerticesIds.contains(toLongVertexId(adjacentVertexIdForDisplay))) {
                 ret.add(adjacentVertexIdForDisplay);
             }
         }
@@ -1092,6 +1225,101 @@ public class EntityGraphRetriever {
         return ret;
     }
 
+    private List<AtlasEntityHeader> mapVerticesToAtlasEntityHeaders(List<AtlasVertex> entityVertices, Set<String> attributes, boolean includeClassifications) throws AtlasBaseException {
+        List<AtlasEntityHeader> ret = new ArrayList<>(entityVertices.size());
+
+        for (AtlasVertex entityVertex : entityVertices) {
+            AtlasEntityHeader header = toAtlasEntityHeader(entityVertex, attributes);
+
+            if (header != null && includeClassifications) {
+                header.setClassifications(getAllClassifications(entityVertex));
+            }
+
+            ret.add(header);
+        }
+
+        return ret;
+    }
+
+    private void prefetchForEntityHeaders(List<AtlasVertex> entityVertices, Set<String> attributes, boolean includeClassifications) {
+        AtlasPerfMetrics.MetricRecorder metricRecorder = RequestContext.get().startMetricRecord("prefetchForEntityHeaders");
+
+        try {
+            List<AtlasVertex> vertices  = new ArrayList<>(entityVertices.size());
+            List<String>      vertexIds = new ArrayList<>(entityVertices.size());
+
+            for (AtlasVertex entityVertex : entityVertices) {
+                if (entityVertex != null) {
+                    vertices.add(entityVertex);
+                    vertexIds.add(entityVertex.getIdForDisplay());
+                }
+            }
+
+            if (vertices.size() < 2) {
+                return;
+            }
+
+            // single multi-get of vertex properties; vertices already loaded in this transaction are served from its cache
+            graph.getVertices(vertexIds);
+
+            Set<String> typeNames  = new HashSet<>();
+            Set<String> edgeLabels = new HashSet<>();
+
+            for (AtlasVertex vertex : vertices) {
+                typeNames.add(getTypeName(vertex));
+            }
+
+            for (String typeName : typeNames) {
+                AtlasEntityType entityType = typeRegistry.getEntityTypeByName(typeName);
+
+                if (entityType == null) {
+                    continue;
+                }
+
+                for (AtlasAttribute headerAttribute : entityType.getHeaderAttributes().values()) {
+                    addReferenceEdgeLabel(headerAttribute, edgeLabels);
+                }
+
+                if (CollectionUtils.isNotEmpty(attributes)) {
+                    for (String attrName : attributes) {
+                        AtlasAttribute attribute = entityType.getAttribute(attrName);
+
+                        if (attribute == null) {
+                            attrName  = toNonQualifiedName(attrName);
+                            attribute = entityType.getAttribute(attrName);
+
+                            if (attribute == null) {
+                                attribute = entityType.getRelationshipAttribute(attrName, null);
+                            }
+                        }
+
+                        addReferenceEdgeLabel(attribute, edgeLabels);
+                    }
+                }
+            }
+
+            if (!edgeLabels.isEmpty()) {
+                graph.prefetchEdges(vertices, AtlasEdgeDirection.BOTH, edgeLabels.toArray(new String[0]));
+            }
+
+            if (includeClassifications) {
+                graph.prefetchEdges(vertices, AtlasEdgeDirection.OUT, CLASSIFICATION_LABEL);
+            }
+
+            if (RequestContext.get().includeMeanings()) {
+                graph.prefetchEdges(vertices, AtlasEdgeDirection.IN, TERM_ASSIGNMENT_LABEL);
+            }
+        } finally {
+            RequestContext.get().endMetricRecord(metricRecorder);
+        }
+    }
+
+    private static void addReferenceEdgeLabel(AtlasAttribute attribute, Set<String> edgeLabels) {
+        if (attribute != null && attribute.isObjectRef() && !attribute.getAttributeDef().isSoftReferenced() && attribute.getRelationshipEdgeLabel() != null) {
+            edgeLabels.add(attribute.getRelationshipEdgeLabel());
+        }
+    }
+
     private String toNonQualifiedName(String attrName) {
         String ret;
         if (attrName.contains(".")) {
@@ -2056,4 +2284,33 @@ public class EntityGraphRetriever {
     private boolean isInactiveEdge(Object element, boolean ignoreInactive) {
         return ignoreInactive && element instanceof AtlasEdge && getStatus((AtlasEdge) element) != AtlasEntity.Status.ACTIVE;
     }
+
+    /**
+     * Shared pool for expanding tag propagation traversal levels; created on first use.
+     */
+    private static final class TraversalExecutorHolder {
+        private static final int QUEUE_CAPACITY = 10000;
+
+        static final int                 POOL_SIZE  = Math.max(1, AtlasConfiguration.GRAPH_TRAVERSAL_PARALLELISM.getInt());
+        static final ThreadPoolExecutor  EXECUTOR   = createExecutor();
+        static final DistributionSummary LEVEL_SIZE = DistributionSummary.builder("tag_propagation_traversal_level_size")
+                                                                         .description("Number of vertices in a level of tag propagation traversal")
+                                                                         .register(getMeterRegistry());
+
+        private static ThreadPoolExecutor createExecutor() {
+            ThreadPoolExecutor ret = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(QUEUE_CAPACITY),
+                                                            new ThreadFactoryBuilder().setNameFormat("Tasks-BFS-%d").setDaemon(true).build());
+
+            ret.allowCoreThreadTimeOut(true);
+
+            Gauge.builder("tag_propagation_traversal_queue_depth", ret, executor -> executor.getQueue().size())
+                 .description("Number of tag propagation traversal chunks waiting for a thread")
+                 .register(getMeterRegistry());
+            Gauge.builder("tag_propagation_traversal_active_threads", ret, ThreadPoolExecutor::getActiveCount)
+                 .description("Number of threads expanding tag propagation traversal chunks")
+                 .register(getMeterRegistry());
+
+            return ret;
+        }
+    }
 }
@@ -32,6 +32,9 @@ import org.apache.atlas.type.AtlasTypeUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 
@@ -53,11 +56,13 @@ public class IDBasedEntityResolver implements EntityResolver {
 
         EntityStream entityStream = context.getEntityStream();
 
-        Map<String, String> referencedGuids = context.getReferencedGuids();
+        Map<String, String>      referencedGuids = context.getReferencedGuids();
+        Map<String, AtlasVertex> vertices        = AtlasGraphUtilsV2.findByGuids(this.graph, getAssignedGuids(referencedGuids.keySet()));
+
         for (Map.Entry<String, String> element : referencedGuids.entrySet()) {
             String guid = element.getKey();
             boolean isAssignedGuid = AtlasTypeUtil.isAssignedGuid(guid);
-            AtlasVertex vertex = isAssignedGuid ? AtlasGraphUtilsV2.findByGuid(this.graph, guid) : null;
+            AtlasVertex vertex = isAssignedGuid ? vertices.get(guid) : null;
 
             if (vertex == null && !RequestContext.get().isImportInProgress()) { // if not found in the store, look if the entity is present in the stream
                 AtlasEntity entity = entityStream.getByGuid(guid);
@@ -88,4 +93,16 @@ public class IDBasedEntityResolver implements EntityResolver {
 
         return context;
     }
+
+    private static List<String> getAssignedGuids(Collection<String> guids) {
+        List<String> ret = new ArrayList<>(guids.size());
+
+        for (String guid : guids) {
+            if (AtlasTypeUtil.isAssignedGuid(guid)) {
+                ret.add(guid);
+            }
+        }
+
+        return ret;
+    }
 }
\ No newline at end of file
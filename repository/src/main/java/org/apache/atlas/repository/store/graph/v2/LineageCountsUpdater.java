@@ -0,0 +1,484 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2;
+
+import com.google.common.util.concurrent.Striped;
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.GraphTransactionInterceptor;
+import org.apache.atlas.RequestContext;
+import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.repository.graphdb.AtlasEdge;
+import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
+import org.apache.atlas.repository.graphdb.AtlasElement;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.repository.store.graph.v2.AtlasRelationshipStoreV2.RelationshipMutation;
+import org.apache.atlas.utils.AtlasPerfMetrics.MetricRecorder;
+import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import static org.apache.atlas.model.instance.AtlasEntity.Status.ACTIVE;
+import static org.apache.atlas.repository.Constants.LINEAGE_ACTIVE_INPUTS_COUNT_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.LINEAGE_ACTIVE_OUTPUTS_COUNT_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.LINEAGE_COUNTED_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.LINEAGE_DOWNSTREAM_COUNT_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.LINEAGE_UPSTREAM_COUNT_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.PROCESS_EDGE_LABELS;
+import static org.apache.atlas.repository.Constants.PROCESS_INPUTS;
+import static org.apache.atlas.repository.Constants.PROCESS_OUTPUTS;
+import static org.apache.atlas.repository.graph.GraphHelper.getStateAsString;
+
+/**
+ * Maintains precomputed one-hop lineage counts on datasets, so that lineage requests can read them instead of
+ * running a two-hop count traversal:
+ *   downstream(dataset) = sum of active outputs of the active processes reading the dataset over active inputs edges
+ *   upstream(dataset)   = sum of active inputs of the active processes writing the dataset over active outputs edges
+ *
+ * Each process records the input/output counts last applied to its datasets, and each lineage edge records
+ * whether it is included in the count of its dataset; so a dataset's count is always the sum of the applied
+ * counts of its processes over the counted edges. Lineage edge mutations mark the process for reconciliation,
+ * which runs in a separate transaction once the mutating transaction commits, and is discarded if it rolls back.
+ * Datasets without counts (created before this was enabled) are initialized when first reconciled.
+ *
+ * Counts are updated with read-modify-write, so reconciliations lock the processes and datasets they update for
+ * the length of their transaction, and read them only once the locks are held. The locks are local to this server:
+ * reconciliations on different servers updating the same dataset at once can still leave its count off, as can
+ * reconciliations that failed; repair() recomputes counts from scratch.
+ *
+ * Disabled by default; see atlas.lineage.counts.enabled.
+ */
+public final class LineageCountsUpdater {
+    private static final Logger LOG = LoggerFactory.getLogger(LineageCountsUpdater.class);
+
+    private static final boolean ENABLED           = AtlasConfiguration.LINEAGE_COUNTS_ENABLED.getBoolean();
+    private static final int     LOCK_STRIPES      = 1024;
+    private static final int     MAX_LOCK_ATTEMPTS = 3;
+
+    private static final Striped<Lock> vertexLocks = Striped.lock(LOCK_STRIPES);
+
+    private static final ThreadLocal<PendingUpdates> pendingUpdates = new ThreadLocal<>();
+
+    private LineageCountsUpdater() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Returns the precomputed upstream count of the given dataset, or null if counts are disabled or not yet
+     * computed for it.
+     */
+    public static Long getUpstreamCount(AtlasVertex datasetVertex) {
+        return ENABLED ? datasetVertex.getProperty(LINEAGE_UPSTREAM_COUNT_PROPERTY_KEY, Long.class) : null;
+    }
+
+    /**
+     * Returns the precomputed downstream count of the given dataset, or null if counts are disabled or not yet
+     * computed for it.
+     */
+    public static Long getDownstreamCount(AtlasVertex datasetVertex) {
+        return ENABLED ? datasetVertex.getProperty(LINEAGE_DOWNSTREAM_COUNT_PROPERTY_KEY, Long.class) : null;
+    }
+
+    /**
+     * Records a create/update/restore/delete of the given edge, if it is a lineage edge, for reconciliation once
+     * the current transaction completes.
+     */
+    public static void onLineageEdgeMutated(RelationshipMutation mutation, AtlasEdge edge) {
+        if (!ENABLED || edge == null || !isLineageEdgeLabel(edge.getLabel())) {
+            return;
+        }
+
+        PendingUpdates pending = pendingUpdates.get();
+
+        if (pending == null) {
+            pending = new PendingUpdates();
+
+            pendingUpdates.set(pending);
+
+            new UpdateOnCompletionHook();
+        }
+
+        pending.add(mutation, edge);
+    }
+
+    /**
+     * Recomputes the lineage counts of the given vertices, in the current transaction: processes are reconciled
+     * along with the processes of their datasets, and the counts of datasets are recomputed from scratch.
+     */
+    public static void repair(AtlasGraph graph, Collection<AtlasVertex> vertices) {
+        Map<String, AtlasVertex> processes = new LinkedHashMap<>();
+        Map<String, AtlasVertex> datasets  = new LinkedHashMap<>();
+
+        for (AtlasVertex vertex : vertices) {
+            for (String edgeLabel : PROCESS_EDGE_LABELS) {
+                for (AtlasEdge edge : getEdges(vertex, AtlasEdgeDirection.OUT, edgeLabel)) {
+                    processes.put(vertex.getIdForDisplay(), vertex);
+
+                    AtlasVertex datasetVertex = edge.getInVertex();
+
+                    datasets.put(datasetVertex.getIdForDisplay(), datasetVertex);
+                }
+
+                for (AtlasEdge edge : getEdges(vertex, AtlasEdgeDirection.IN, edgeLabel)) {
+                    AtlasVertex processVertex = edge.getOutVertex();
+
+                    processes.put(processVertex.getIdForDisplay(), processVertex);
+                    datasets.put(vertex.getIdForDisplay(), vertex);
+                }
+            }
+        }
+
+        CountDeltas deltas = new CountDeltas();
+
+        for (AtlasVertex processVertex : processes.values()) {
+            reconcileProcess(processVertex, deltas);
+        }
+
+        // other datasets of the reconciled processes get the deltas, while the requested ones are recomputed
+        deltas.apply(graph);
+
+        for (AtlasVertex datasetVertex : datasets.values()) {
+            initializeDataset(datasetVertex);
+        }
+
+        LOG.info("Repaired lineage counts: processes={}, datasets={}", processes.size(), datasets.size());
+    }
+
+    /**
+     * Reconciles the pending processes in a transaction of its own, holding the locks of the processes and of their
+     * datasets. The vertices to lock are found first, and the transaction is restarted once they are locked, so that
+     * counts are read after the updates that held the locks earlier have committed; should the processes have got
+     * datasets meanwhile, the locks are taken again including them, a few times at most.
+     */
+    static void applyPendingUpdates(AtlasGraph graph, PendingUpdates pending) {
+        MetricRecorder metric = RequestContext.get().startMetricRecord("updateLineageCounts");
+
+        try {
+            Set<String> vertexIds = getVertexIdsToLock(graph, pending);
+
+            for (int attempt = 1; ; attempt++) {
+                graph.rollback();
+
+                List<Lock> locks = lock(vertexIds);
+
+                try {
+                    Set<String> currentVertexIds = getVertexIdsToLock(graph, pending);
+
+                    if (!vertexIds.containsAll(currentVertexIds) && attempt < MAX_LOCK_ATTEMPTS) {
+                        vertexIds.addAll(currentVertexIds);
+
+                        continue;
+                    }
+
+                    updateCounts(graph, pending);
+
+                    graph.commit();
+                } finally {
+                    unlock(locks);
+                }
+
+                break;
+            }
+        } catch (Throwable t) {
+            LOG.error("Failed to update lineage counts for processes {}; run lineage count repair to fix them", pending.processIds, t);
+
+            graph.rollback();
+        } finally {
+            RequestContext.get().endMetricRecord(metric);
+        }
+    }
+
+    private static void updateCounts(AtlasGraph graph, PendingUpdates pending) {
+        CountDeltas deltas = new CountDeltas();
+
+        for (PurgedEdge purgedEdge : pending.purgedEdges.values()) {
+            deltas.add(purgedEdge.datasetVertexId, purgedEdge.countKey, purgedEdge.delta);
+        }
+
+        for (String processId : pending.processIds) {
+            AtlasVertex processVertex = graph.getVertex(processId);
+
+            if (processVertex != null) {
+                reconcileProcess(processVertex, deltas);
+            }
+        }
+
+        deltas.apply(graph);
+    }
+
+    private static Set<String> getVertexIdsToLock(AtlasGraph graph, PendingUpdates pending) {
+        Set<String> ret = new HashSet<>(pending.processIds);
+
+        for (PurgedEdge purgedEdge : pending.purgedEdges.values()) {
+            ret.add(purgedEdge.datasetVertexId);
+        }
+
+        for (String processId : pending.processIds) {
+            AtlasVertex processVertex = graph.getVertex(processId);
+
+            if (processVertex != null) {
+                for (String edgeLabel : PROCESS_EDGE_LABELS) {
+                    for (AtlasEdge edge : getEdges(processVertex, AtlasEdgeDirection.OUT, edgeLabel)) {
+                        ret.add(edge.getInVertex().getIdForDisplay());
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    // striped locks are returned in a fixed order, so that updates locking overlapping vertices can't deadlock
+    private static List<Lock> lock(Set<String> vertexIds) {
+        List<Lock> ret = new ArrayList<>();
+
+        for (Lock lock : vertexLocks.bulkGet(vertexIds)) {
+            lock.lock();
+
+            ret.add(lock);
+        }
+
+        return ret;
+    }
+
+    private static void unlock(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    private static void reconcileProcess(AtlasVertex processVertex, CountDeltas deltas) {
+        boolean         isProcessActive = isActive(processVertex);
+        List<AtlasEdge> inputEdges      = getEdges(processVertex, AtlasEdgeDirection.OUT, PROCESS_INPUTS);
+        List<AtlasEdge> outputEdges     = getEdges(processVertex, AtlasEdgeDirection.OUT, PROCESS_OUTPUTS);
+        long            activeInputs    = isProcessActive ? countActive(inputEdges) : 0;
+        long            activeOutputs   = isProcessActive ? countActive(outputEdges) : 0;
+
+        // datasets without counts are initialized first, from the counts last applied by their processes
+        initializeDatasetsIfMissing(inputEdges);
+        initializeDatasetsIfMissing(outputEdges);
+
+        long appliedInputs  = getLong(processVertex, LINEAGE_ACTIVE_INPUTS_COUNT_PROPERTY_KEY);
+        long appliedOutputs = getLong(processVertex, LINEAGE_ACTIVE_OUTPUTS_COUNT_PROPERTY_KEY);
+
+        // datasets read by the process count its outputs downstream, datasets written by it count its inputs upstream
+        addDeltas(inputEdges, LINEAGE_DOWNSTREAM_COUNT_PROPERTY_KEY, isProcessActive, activeOutputs, appliedOutputs, deltas);
+        addDeltas(outputEdges, LINEAGE_UPSTREAM_COUNT_PROPERTY_KEY, isProcessActive, activeInputs, appliedInputs, deltas);
+
+        processVertex.setProperty(LINEAGE_ACTIVE_INPUTS_COUNT_PROPERTY_KEY, activeInputs);
+        processVertex.setProperty(LINEAGE_ACTIVE_OUTPUTS_COUNT_PROPERTY_KEY, activeOutputs);
+    }
+
+    private static void addDeltas(List<AtlasEdge> edges, String countKey, boolean isProcessActive, long activeCount, long appliedCount, CountDeltas deltas) {
+        for (AtlasEdge edge : edges) {
+            boolean wasCounted = isCounted(edge);
+            boolean isCounted  = isProcessActive && isActive(edge);
+            long    delta      = (isCounted ? activeCount : 0) - (wasCounted ? appliedCount : 0);
+
+            if (wasCounted != isCounted) {
+                edge.setProperty(LINEAGE_COUNTED_PROPERTY_KEY, isCounted);
+            }
+
+            if (delta != 0) {
+                deltas.add(edge.getInVertex().getIdForDisplay(), countKey, delta);
+            }
+        }
+    }
+
+    private static void initializeDatasetsIfMissing(List<AtlasEdge> edges) {
+        for (AtlasEdge edge : edges) {
+            AtlasVertex datasetVertex = edge.getInVertex();
+
+            if (datasetVertex.getProperty(LINEAGE_DOWNSTREAM_COUNT_PROPERTY_KEY, Long.class) == null) {
+                initializeDataset(datasetVertex);
+            }
+        }
+    }
+
+    private static void initializeDataset(AtlasVertex datasetVertex) {
+        long upstream   = sumAppliedCounts(datasetVertex, PROCESS_OUTPUTS, LINEAGE_ACTIVE_INPUTS_COUNT_PROPERTY_KEY);
+        long downstream = sumAppliedCounts(datasetVertex, PROCESS_INPUTS, LINEAGE_ACTIVE_OUTPUTS_COUNT_PROPERTY_KEY);
+
+        datasetVertex.setProperty(LINEAGE_UPSTREAM_COUNT_PROPERTY_KEY, upstream);
+        datasetVertex.setProperty(LINEAGE_DOWNSTREAM_COUNT_PROPERTY_KEY, downstream);
+    }
+
+    private static long sumAppliedCounts(AtlasVertex datasetVertex, String edgeLabel, String appliedCountKey) {
+        long ret = 0;
+
+        for (AtlasEdge edge : getEdges(datasetVertex, AtlasEdgeDirection.IN, edgeLabel)) {
+            AtlasVertex processVertex = edge.getOutVertex();
+            boolean     isCounted     = isActive(edge) && isActive(processVertex);
+
+            if (isCounted) {
+                Long appliedCount = processVertex.getProperty(appliedCountKey, Long.class);
+
+                if (appliedCount == null) { // process not reconciled yet: its current counts become its applied counts
+                    processVertex.setProperty(LINEAGE_ACTIVE_INPUTS_COUNT_PROPERTY_KEY, countActive(getEdges(processVertex, AtlasEdgeDirection.OUT, PROCESS_INPUTS)));
+                    processVertex.setProperty(LINEAGE_ACTIVE_OUTPUTS_COUNT_PROPERTY_KEY, countActive(getEdges(processVertex, AtlasEdgeDirection.OUT, PROCESS_OUTPUTS)));
+
+                    appliedCount = processVertex.getProperty(appliedCountKey, Long.class);
+                }
+
+                ret += appliedCount;
+            }
+
+            if (isCounted != isCounted(edge)) {
+                edge.setProperty(LINEAGE_COUNTED_PROPERTY_KEY, isCounted);
+            }
+        }
+
+        return ret;
+    }
+
+    private static List<AtlasEdge> getEdges(AtlasVertex vertex, AtlasEdgeDirection direction, String edgeLabel) {
+        List<AtlasEdge>     ret   = new ArrayList<>();
+        Iterable<AtlasEdge> edges = vertex.getEdges(direction, edgeLabel);
+
+        edges.forEach(ret::add);
+
+        return ret;
+    }
+
+    private static long countActive(List<AtlasEdge> edges) {
+        long ret = 0;
+
+        for (AtlasEdge edge : edges) {
+            if (isActive(edge)) {
+                ret++;
+            }
+        }
+
+        return ret;
+    }
+
+    private static boolean isLineageEdgeLabel(String edgeLabel) {
+        return PROCESS_INPUTS.equals(edgeLabel) || PROCESS_OUTPUTS.equals(edgeLabel);
+    }
+
+    private static boolean isActive(AtlasElement element) {
+        return ACTIVE.name().equals(getStateAsString(element));
+    }
+
+    private static boolean isCounted(AtlasEdge edge) {
+        return Boolean.TRUE.equals(edge.getProperty(LINEAGE_COUNTED_PROPERTY_KEY, Boolean.class));
+    }
+
+    private static long getLong(AtlasElement element, String propertyKey) {
+        Long ret = element.getProperty(propertyKey, Long.class);
+
+        return ret != null ? ret : 0L;
+    }
+
+    static class PendingUpdates {
+        final Set<String>             processIds  = new LinkedHashSet<>();
+        final Map<String, PurgedEdge> purgedEdges = new HashMap<>();
+
+        void add(RelationshipMutation mutation, AtlasEdge edge) {
+            AtlasVertex processVertex = edge.getOutVertex();
+            AtlasVertex datasetVertex = edge.getInVertex();
+
+            if (processVertex != null) {
+                processIds.add(processVertex.getIdForDisplay());
+            }
+
+            // a purged edge is gone by the time of reconciliation, so take its contribution out of the dataset now
+            if (mutation == RelationshipMutation.RELATIONSHIP_HARD_DELETE && processVertex != null && datasetVertex != null && isCounted(edge)) {
+                boolean isInputsEdge = PROCESS_INPUTS.equals(edge.getLabel());
+                String  countKey     = isInputsEdge ? LINEAGE_DOWNSTREAM_COUNT_PROPERTY_KEY : LINEAGE_UPSTREAM_COUNT_PROPERTY_KEY;
+                long    appliedCount = getLong(processVertex, isInputsEdge ? LINEAGE_ACTIVE_OUTPUTS_COUNT_PROPERTY_KEY : LINEAGE_ACTIVE_INPUTS_COUNT_PROPERTY_KEY);
+
+                purgedEdges.put(edge.getIdForDisplay(), new PurgedEdge(datasetVertex.getIdForDisplay(), countKey, -appliedCount));
+            }
+        }
+    }
+
+    private static class PurgedEdge {
+        final String datasetVertexId;
+        final String countKey;
+        final long   delta;
+
+        PurgedEdge(String datasetVertexId, String countKey, long delta) {
+            this.datasetVertexId = datasetVertexId;
+            this.countKey        = countKey;
+            this.delta           = delta;
+        }
+    }
+
+    // count changes accumulated per dataset vertex id and count property, applied once all processes are reconciled
+    private static class CountDeltas {
+        private final Map<String, Map<String, Long>> deltas = new LinkedHashMap<>();
+
+        void add(String datasetVertexId, String countKey, long delta) {
+            deltas.computeIfAbsent(datasetVertexId, k -> new HashMap<>()).merge(countKey, delta, Long::sum);
+        }
+
+        void apply(AtlasGraph graph) {
+            Set<String> missingVertexIds = new HashSet<>();
+
+            for (Map.Entry<String, Map<String, Long>> entry : deltas.entrySet()) {
+                AtlasVertex datasetVertex = graph.getVertex(entry.getKey());
+
+                if (datasetVertex == null) {
+                    missingVertexIds.add(entry.getKey());
+
+                    continue;
+                }
+
+                for (Map.Entry<String, Long> delta : entry.getValue().entrySet()) {
+                    if (delta.getValue() != 0) {
+                        long count = getLong(datasetVertex, delta.getKey()) + delta.getValue();
+
+                        datasetVertex.setProperty(delta.getKey(), Math.max(count, 0L));
+                    }
+                }
+            }
+
+            if (CollectionUtils.isNotEmpty(missingVertexIds) && LOG.isDebugEnabled()) {
+                LOG.debug("Skipped lineage count updates of removed datasets {}", missingVertexIds);
+            }
+        }
+    }
+
+    private static class UpdateOnCompletionHook extends GraphTransactionInterceptor.PostTransactionHook {
+        @Override
+        public void onComplete(boolean isSuccess) {
+            PendingUpdates pending = pendingUpdates.get();
+
+            pendingUpdates.remove();
+
+            if (isSuccess && pending != null) {
+                applyPendingUpdates(AtlasGraphProvider.getGraphInstance(), pending);
+            }
+        }
+    }
+}
@@ -22,16 +22,21 @@ import org.apache.atlas.RequestContext;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.TypeCategory;
 import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.typedef.AtlasBaseTypeDef;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.repository.store.graph.EntityGraphDiscoveryContext;
 import org.apache.atlas.repository.store.graph.EntityResolver;
 import org.apache.atlas.type.AtlasEntityType;
+import org.apache.atlas.type.AtlasStructType.AtlasAttribute;
 import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.commons.collections.MapUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -57,17 +62,12 @@ public class UniqAttrBasedEntityResolver implements EntityResolver {
         //Resolve attribute references
         List<AtlasObjectId> resolvedReferences = new ArrayList<>();
 
-        Map<AtlasObjectId, String> referencedByUniqAttribs = context.getReferencedByUniqAttribs();
-        for (Map.Entry<AtlasObjectId, String> element : referencedByUniqAttribs.entrySet()) {
-            AtlasObjectId objId = element.getKey();
-            //query in graph repo that given unique attribute - check for deleted also?
-            AtlasEntityType entityType = typeRegistry.getEntityTypeByName(objId.getTypeName());
-
-            if (entityType == null) {
-                throw new AtlasBaseException(element.getValue(), AtlasErrorCode.TYPE_NAME_INVALID, TypeCategory.ENTITY.name(), objId.getTypeName());
-            }
+        Map<AtlasObjectId, String>      referencedByUniqAttribs = context.getReferencedByUniqAttribs();
+        Map<AtlasObjectId, AtlasVertex> vertices                = findVertices(referencedByUniqAttribs);
 
-            AtlasVertex vertex = AtlasGraphUtilsV2.findByUniqueAttributes(this.graph, entityType, objId.getUniqueAttributes());
+        for (Map.Entry<AtlasObjectId, String> element : referencedByUniqAttribs.entrySet()) {
+            AtlasObjectId objId  = element.getKey();
+            AtlasVertex   vertex = vertices.get(objId);
 
             if (vertex == null && RequestContext.get().isCreateShellEntityForNonExistingReference()) {
                 vertex = entityGraphMapper.createShellEntityVertex(objId, context);
@@ -83,4 +83,84 @@ public class UniqAttrBasedEntityResolver implements EntityResolver {
 
         return context;
     }
+
+    /**
+     * Finds the vertices of the given references. References by a single unique string attribute, typically
+     * qualifiedName, are looked up together, with one query per entity type and attribute; others one by one.
+     */
+    Map<AtlasObjectId, AtlasVertex> findVertices(Map<AtlasObjectId, String> referencedByUniqAttribs) throws AtlasBaseException {
+        Map<AtlasObjectId, AtlasVertex> ret    = new HashMap<>(referencedByUniqAttribs.size());
+        Map<String, ReferenceGroup>     groups = new LinkedHashMap<>();
+
+        for (Map.Entry<AtlasObjectId, String> element : referencedByUniqAttribs.entrySet()) {
+            AtlasObjectId objId = element.getKey();
+            //query in graph repo that given unique attribute - check for deleted also?
+            AtlasEntityType entityType = typeRegistry.getEntityTypeByName(objId.getTypeName());
+
+            if (entityType == null) {
+                throw new AtlasBaseException(element.getValue(), AtlasErrorCode.TYPE_NAME_INVALID, TypeCategory.ENTITY.name(), objId.getTypeName());
+            }
+
+            AtlasAttribute attribute = getGroupableAttribute(entityType, objId.getUniqueAttributes());
+
+            if (attribute != null) {
+                groups.computeIfAbsent(entityType.getTypeName() + ":" + attribute.getName(), k -> new ReferenceGroup(entityType, attribute)).add(objId);
+            } else {
+                AtlasVertex vertex = AtlasGraphUtilsV2.findByUniqueAttributes(this.graph, entityType, objId.getUniqueAttributes());
+
+                if (vertex != null) {
+                    ret.put(objId, vertex);
+                }
+            }
+        }
+
+        for (ReferenceGroup group : groups.values()) {
+            Map<String, AtlasVertex> vertices = AtlasGraphUtilsV2.findByUniqueAttributeValues(this.graph, group.entityType, group.attribute, group.objIdsByValue.keySet());
+
+            for (Map.Entry<String, List<AtlasObjectId>> entry : group.objIdsByValue.entrySet()) {
+                AtlasVertex vertex = vertices.get(entry.getKey());
+
+                if (vertex != null) {
+                    for (AtlasObjectId objId : entry.getValue()) {
+                        ret.put(objId, vertex);
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    // the attribute the reference is by, if it is by a single unique attribute of type string
+    private static AtlasAttribute getGroupableAttribute(AtlasEntityType entityType, Map<String, Object> uniqueAttributes) {
+        if (MapUtils.size(uniqueAttributes) != 1) {
+            return null;
+        }
+
+        Map.Entry<String, Object> entry     = uniqueAttributes.entrySet().iterator().next();
+        AtlasAttribute            attribute = entityType.getUniqAttributes() != null ? entityType.getUniqAttributes().get(entry.getKey()) : null;
+
+        if (attribute == null || !(entry.getValue() instanceof String) || !AtlasBaseTypeDef.ATLAS_TYPE_STRING.equals(attribute.getTypeName())) {
+            return null;
+        }
+
+        return attribute;
+    }
+
+    private static class ReferenceGroup {
+        private final AtlasEntityType                  entityType;
+        private final AtlasAttribute                   attribute;
+        private final Map<String, List<AtlasObjectId>> objIdsByValue = new LinkedHashMap<>();
+
+        ReferenceGroup(AtlasEntityType entityType, AtlasAttribute attribute) {
+            this.entityType = entityType;
+            this.attribute  = attribute;
+        }
+
+        void add(AtlasObjectId objId) {
+            String value = (String) objId.getUniqueAttributes().get(attribute.getName());
+
+            objIdsByValue.computeIfAbsent(value, k -> new ArrayList<>()).add(objId);
+        }
+    }
 }
@@ -2,6 +2,7 @@ package org.apache.atlas.repository.store.graph.v2.preprocessor;
 
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.discovery.EntityDiscoveryService;
+import org.apache.atlas.discovery.IndexSearchPaginator;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.discovery.IndexSearchParams;
 import org.apache.atlas.model.instance.AtlasEntity;
@@ -32,6 +33,8 @@ public class PreProcessorUtils {
 
     private static final char[] invalidNameChars = {'@'};
 
+    private static final int INDEX_SEARCH_PAGE_SIZE = 100;
+
     //Glossary models constants
     public static final String ANCHOR            = "anchor";
     public static final String CATEGORY_TERMS    = "terms";
@@ -150,9 +153,23 @@ public class PreProcessorUtils {
     }
 
     public static List<AtlasEntityHeader> indexSearchPaginated(Map<String, Object> dsl, Set<String> attributes, EntityDiscoveryService discovery) throws AtlasBaseException {
-        IndexSearchParams searchParams = new IndexSearchParams();
         List<AtlasEntityHeader> ret = new ArrayList<>();
 
+        try (IndexSearchPaginator<AtlasEntityHeader> paginator = indexSearchPaginator(dsl, attributes, discovery)) {
+            while (paginator.hasNext()) {
+                ret.addAll(paginator.next());
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns a paginator over the entities matching the given DSL, for callers that can process them page by page.
+     */
+    public static IndexSearchPaginator<AtlasEntityHeader> indexSearchPaginator(Map<String, Object> dsl, Set<String> attributes, EntityDiscoveryService discovery) throws AtlasBaseException {
+        IndexSearchParams searchParams = new IndexSearchParams();
+
         if (CollectionUtils.isNotEmpty(attributes)) {
             searchParams.setAttributes(attributes);
         }
@@ -162,27 +179,9 @@ public class PreProcessorUtils {
         sortList.add(mapOf("__guid", mapOf("order", "asc")));
         dsl.put("sort", sortList);
 
-        int from = 0;
-        int size = 100;
-        boolean hasMore = true;
-        do {
-            dsl.put("from", from);
-            dsl.put("size", size);
-            searchParams.setDsl(dsl);
+        searchParams.setDsl(dsl);
 
-            List<AtlasEntityHeader> headers = discovery.directIndexSearch(searchParams).getEntities();
-
-            if (CollectionUtils.isNotEmpty(headers)) {
-                ret.addAll(headers);
-            } else {
-                hasMore = false;
-            }
-
-            from += size;
-
-        } while (hasMore);
-
-        return ret;
+        return discovery.indexSearchPaginator(searchParams, INDEX_SEARCH_PAGE_SIZE);
     }
 
     public static void verifyDuplicateAssetByName(String typeName, String assetName, EntityDiscoveryService discovery, String errorMessage) throws AtlasBaseException {
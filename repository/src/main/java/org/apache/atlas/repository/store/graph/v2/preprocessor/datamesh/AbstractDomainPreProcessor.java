@@ -24,6 +24,7 @@ import org.apache.atlas.authorize.AtlasAuthorizationUtils;
 import org.apache.atlas.authorize.AtlasEntityAccessRequest;
 import org.apache.atlas.authorize.AtlasPrivilege;
 import org.apache.atlas.discovery.EntityDiscoveryService;
+import org.apache.atlas.discovery.IndexSearchPaginator;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.instance.AtlasEntity;
 import org.apache.atlas.model.instance.AtlasEntityHeader;
@@ -125,45 +126,52 @@ public abstract class AbstractDomainPreProcessor implements PreProcessor {
                 return;
             }
 
-            List<AtlasEntityHeader> policies = getPolicies(updatedPolicyResources.keySet());
-            LOG.info("Found {} policies to update", policies.size());
+            int policyCount = 0;
 
-            if (CollectionUtils.isNotEmpty(policies)) {
-                for (AtlasEntityHeader policy : policies) {
-                    LOG.info("Updating Policy {}", policy.getGuid());
-                    AtlasVertex policyVertex = entityRetriever.getEntityVertex(policy.getGuid());
+            try (IndexSearchPaginator<AtlasEntityHeader> paginator = getPolicies(updatedPolicyResources.keySet())) {
+                while (paginator.hasNext()) {
+                    List<AtlasEntityHeader> policies = getNextPage(paginator, "getPolicies");
 
-                    AtlasEntity policyEntity = entityRetriever.toAtlasEntity(policyVertex);
+                    policyCount += policies.size();
 
-                    if (policyEntity.hasRelationshipAttribute(REL_ATTR_ACCESS_CONTROL) && policyEntity.getRelationshipAttribute(REL_ATTR_ACCESS_CONTROL) != null) {
-                        AtlasObjectId accessControlObjId = (AtlasObjectId) policyEntity.getRelationshipAttribute(REL_ATTR_ACCESS_CONTROL);
-                        AtlasVertex accessControl = entityRetriever.getEntityVertex(accessControlObjId.getGuid());
-                        context.getDiscoveryContext().addResolvedGuid(GraphHelper.getGuid(accessControl), accessControl);
-                    }
+                    for (AtlasEntityHeader policy : policies) {
+                        LOG.info("Updating Policy {}", policy.getGuid());
+                        AtlasVertex policyVertex = entityRetriever.getEntityVertex(policy.getGuid());
+
+                        AtlasEntity policyEntity = entityRetriever.toAtlasEntity(policyVertex);
+
+                        if (policyEntity.hasRelationshipAttribute(REL_ATTR_ACCESS_CONTROL) && policyEntity.getRelationshipAttribute(REL_ATTR_ACCESS_CONTROL) != null) {
+                            AtlasObjectId accessControlObjId = (AtlasObjectId) policyEntity.getRelationshipAttribute(REL_ATTR_ACCESS_CONTROL);
+                            AtlasVertex accessControl = entityRetriever.getEntityVertex(accessControlObjId.getGuid());
+                            context.getDiscoveryContext().addResolvedGuid(GraphHelper.getGuid(accessControl), accessControl);
+                        }
 
-                    List<String> policyResources = (List<String>) policyEntity.getAttribute(ATTR_POLICY_RESOURCES);
+                        List<String> policyResources = (List<String>) policyEntity.getAttribute(ATTR_POLICY_RESOURCES);
 
-                    List<String> updatedPolicyResourcesList = new ArrayList<>();
+                        List<String> updatedPolicyResourcesList = new ArrayList<>();
 
-                    for (String resource : policyResources) {
-                        if (updatedPolicyResources.containsKey(resource)) {
-                            updatedPolicyResourcesList.add(updatedPolicyResources.get(resource));
-                        } else {
-                            updatedPolicyResourcesList.add(resource);
+                        for (String resource : policyResources) {
+                            if (updatedPolicyResources.containsKey(resource)) {
+                                updatedPolicyResourcesList.add(updatedPolicyResources.get(resource));
+                            } else {
+                                updatedPolicyResourcesList.add(resource);
+                            }
                         }
-                    }
-                    Map<String, Object> updatedAttributes = new HashMap<>();
-                    updatedAttributes.put(ATTR_POLICY_RESOURCES, updatedPolicyResourcesList);
+                        Map<String, Object> updatedAttributes = new HashMap<>();
+                        updatedAttributes.put(ATTR_POLICY_RESOURCES, updatedPolicyResourcesList);
 
-                    //policyVertex.removeProperty(ATTR_POLICY_RESOURCES);
-                    policyEntity.setAttribute(ATTR_POLICY_RESOURCES, updatedPolicyResourcesList);
+                        //policyVertex.removeProperty(ATTR_POLICY_RESOURCES);
+                        policyEntity.setAttribute(ATTR_POLICY_RESOURCES, updatedPolicyResourcesList);
 
-                    context.addUpdated(policyEntity.getGuid(), policyEntity, entityType, policyVertex);
-                    recordUpdatedChildEntities(policyVertex, updatedAttributes);
-                    this.preProcessor.processAttributes(policyEntity, context, EntityMutations.EntityOperation.UPDATE);
+                        context.addUpdated(policyEntity.getGuid(), policyEntity, entityType, policyVertex);
+                        recordUpdatedChildEntities(policyVertex, updatedAttributes);
+                        this.preProcessor.processAttributes(policyEntity, context, EntityMutations.EntityOperation.UPDATE);
+                    }
                 }
             }
 
+            LOG.info("Updated {} policies", policyCount);
+
         } finally {
             RequestContext.get().endMetricRecord(metricRecorder);
         }
@@ -177,44 +185,44 @@ public abstract class AbstractDomainPreProcessor implements PreProcessor {
                 return;
             }
 
-            List<AtlasEntityHeader> assets = getStakeholderTitlesAndStakeholders(updatedDomainQualifiedNames.keySet());
-
-            if (CollectionUtils.isNotEmpty(assets)) {
-                for (AtlasEntityHeader asset : assets) {
-                    AtlasVertex vertex = entityRetrieverNoRelations.getEntityVertex(asset.getGuid());
-                    AtlasEntity entity = entityRetrieverNoRelations.toAtlasEntity(vertex);
-                    Map<String, Object> updatedAttributes = new HashMap<>();
-                    AtlasEntityType entityType = null;
+            try (IndexSearchPaginator<AtlasEntityHeader> paginator = getStakeholderTitlesAndStakeholders(updatedDomainQualifiedNames.keySet())) {
+                while (paginator.hasNext()) {
+                    for (AtlasEntityHeader asset : getNextPage(paginator, "getStakeholderTitlesAndStakeholders")) {
+                        AtlasVertex vertex = entityRetrieverNoRelations.getEntityVertex(asset.getGuid());
+                        AtlasEntity entity = entityRetrieverNoRelations.toAtlasEntity(vertex);
+                        Map<String, Object> updatedAttributes = new HashMap<>();
+                        AtlasEntityType entityType = null;
 
-                    if (entity.getTypeName().equals(STAKEHOLDER_ENTITY_TYPE)) {
-                        entityType = typeRegistry.getEntityTypeByName(STAKEHOLDER_ENTITY_TYPE);
+                        if (entity.getTypeName().equals(STAKEHOLDER_ENTITY_TYPE)) {
+                            entityType = typeRegistry.getEntityTypeByName(STAKEHOLDER_ENTITY_TYPE);
 
-                        String currentDomainQualifiedName = (String) asset.getAttribute(ATTR_DOMAIN_QUALIFIED_NAME);
+                            String currentDomainQualifiedName = (String) asset.getAttribute(ATTR_DOMAIN_QUALIFIED_NAME);
 
-                        entity.setAttribute(ATTR_DOMAIN_QUALIFIED_NAME, updatedDomainQualifiedNames.get(currentDomainQualifiedName));
-                        updatedAttributes.put(ATTR_DOMAIN_QUALIFIED_NAME, updatedDomainQualifiedNames.get(currentDomainQualifiedName));
+                            entity.setAttribute(ATTR_DOMAIN_QUALIFIED_NAME, updatedDomainQualifiedNames.get(currentDomainQualifiedName));
+                            updatedAttributes.put(ATTR_DOMAIN_QUALIFIED_NAME, updatedDomainQualifiedNames.get(currentDomainQualifiedName));
 
-                    } else if (entity.getTypeName().equals(STAKEHOLDER_TITLE_ENTITY_TYPE)) {
-                        entityType = typeRegistry.getEntityTypeByName(STAKEHOLDER_TITLE_ENTITY_TYPE);
+                        } else if (entity.getTypeName().equals(STAKEHOLDER_TITLE_ENTITY_TYPE)) {
+                            entityType = typeRegistry.getEntityTypeByName(STAKEHOLDER_TITLE_ENTITY_TYPE);
 
-                        List<String> currentDomainQualifiedNames = getListAttribute(asset, ATTR_DOMAIN_QUALIFIED_NAMES);
+                            List<String> currentDomainQualifiedNames = getListAttribute(asset, ATTR_DOMAIN_QUALIFIED_NAMES);
 
-                        List<String> newDomainQualifiedNames = new ArrayList<>();
+                            List<String> newDomainQualifiedNames = new ArrayList<>();
 
-                        for (String qualifiedName : currentDomainQualifiedNames) {
-                            if (updatedDomainQualifiedNames.containsKey(qualifiedName)) {
-                                newDomainQualifiedNames.add(updatedDomainQualifiedNames.get(qualifiedName));
-                            } else {
-                                newDomainQualifiedNames.add(qualifiedName);
+                            for (String qualifiedName : currentDomainQualifiedNames) {
+                                if (updatedDomainQualifiedNames.containsKey(qualifiedName)) {
+                                    newDomainQualifiedNames.add(updatedDomainQualifiedNames.get(qualifiedName));
+                                } else {
+                                    newDomainQualifiedNames.add(qualifiedName);
+                                }
                             }
+
+                            entity.setAttribute(ATTR_DOMAIN_QUALIFIED_NAMES, newDomainQualifiedNames);
+                            updatedAttributes.put(ATTR_DOMAIN_QUALIFIED_NAMES, newDomainQualifiedNames);
                         }
 
-                        entity.setAttribute(ATTR_DOMAIN_QUALIFIED_NAMES, newDomainQualifiedNames);
-                        updatedAttributes.put(ATTR_DOMAIN_QUALIFIED_NAMES, newDomainQualifiedNames);
+                        context.addUpdated(entity.getGuid(), entity, entityType, vertex);
+                        recordUpdatedChildEntities(vertex, updatedAttributes);
                     }
-
-                    context.addUpdated(entity.getGuid(), entity, entityType, vertex);
-                    recordUpdatedChildEntities(vertex, updatedAttributes);
                 }
             }
 
@@ -266,46 +274,46 @@ public abstract class AbstractDomainPreProcessor implements PreProcessor {
         }
     }
 
-    protected List<AtlasEntityHeader> getPolicies(Set<String> resources) throws AtlasBaseException {
-        AtlasPerfMetrics.MetricRecorder metricRecorder = RequestContext.get().startMetricRecord("getPolicies");
+    // the searches run as their pages are fetched, so are recorded per page under the metric of the search
+    private static List<AtlasEntityHeader> getNextPage(IndexSearchPaginator<AtlasEntityHeader> paginator, String metricName) throws AtlasBaseException {
+        AtlasPerfMetrics.MetricRecorder metricRecorder = RequestContext.get().startMetricRecord(metricName);
         try {
-            List<Map<String, Object>> mustClauseList = new ArrayList<>();
-            mustClauseList.add(mapOf("term", mapOf("__typeName.keyword", POLICY_ENTITY_TYPE)));
-            mustClauseList.add(mapOf("term", mapOf("__state", "ACTIVE")));
-            mustClauseList.add(mapOf("terms", mapOf("policyResources", resources)));
-
-            Map<String, Object> bool = new HashMap<>();
-            bool.put("must", mustClauseList);
-
-            Map<String, Object> dsl = mapOf("query", mapOf("bool", bool));
-
-            return indexSearchPaginated(dsl, POLICY_ATTRIBUTES_FOR_SEARCH, discovery);
+            return paginator.next();
         } finally {
             RequestContext.get().endMetricRecord(metricRecorder);
         }
     }
 
-    protected List<AtlasEntityHeader> getStakeholderTitlesAndStakeholders(Set<String> qualifiedNames) throws AtlasBaseException {
-        AtlasPerfMetrics.MetricRecorder metricRecorder = RequestContext.get().startMetricRecord("getStakeholderTitlesAndStakeholders");
-        try {
-            List<Map<String, Object>> mustClauseList = new ArrayList<>();
-            mustClauseList.add(mapOf("terms", mapOf("__typeName.keyword", Arrays.asList(STAKEHOLDER_ENTITY_TYPE, STAKEHOLDER_TITLE_ENTITY_TYPE))));
+    protected IndexSearchPaginator<AtlasEntityHeader> getPolicies(Set<String> resources) throws AtlasBaseException {
+        List<Map<String, Object>> mustClauseList = new ArrayList<>();
+        mustClauseList.add(mapOf("term", mapOf("__typeName.keyword", POLICY_ENTITY_TYPE)));
+        mustClauseList.add(mapOf("term", mapOf("__state", "ACTIVE")));
+        mustClauseList.add(mapOf("terms", mapOf("policyResources", resources)));
 
-            List<Map<String, Object>> shouldClauseList = new ArrayList<>();
-            shouldClauseList.add(mapOf("terms", mapOf("stakeholderTitleDomainQualifiedNames", qualifiedNames)));
-            shouldClauseList.add(mapOf("terms", mapOf("stakeholderDomainQualifiedName", qualifiedNames)));
+        Map<String, Object> bool = new HashMap<>();
+        bool.put("must", mustClauseList);
 
-            mustClauseList.add(mapOf("bool", mapOf("should", shouldClauseList)));
+        Map<String, Object> dsl = mapOf("query", mapOf("bool", bool));
 
-            Map<String, Object> bool = new HashMap<>();
-            bool.put("must", mustClauseList);
+        return indexSearchPaginator(dsl, POLICY_ATTRIBUTES_FOR_SEARCH, discovery);
+    }
 
-            Map<String, Object> dsl = mapOf("query", mapOf("bool", bool));
+    protected IndexSearchPaginator<AtlasEntityHeader> getStakeholderTitlesAndStakeholders(Set<String> qualifiedNames) throws AtlasBaseException {
+        List<Map<String, Object>> mustClauseList = new ArrayList<>();
+        mustClauseList.add(mapOf("terms", mapOf("__typeName.keyword", Arrays.asList(STAKEHOLDER_ENTITY_TYPE, STAKEHOLDER_TITLE_ENTITY_TYPE))));
 
-            return indexSearchPaginated(dsl, STAKEHOLDER_ATTRIBUTES_FOR_SEARCH, discovery);
-        } finally {
-            RequestContext.get().endMetricRecord(metricRecorder);
-        }
+        List<Map<String, Object>> shouldClauseList = new ArrayList<>();
+        shouldClauseList.add(mapOf("terms", mapOf("stakeholderTitleDomainQualifiedNames", qualifiedNames)));
+        shouldClauseList.add(mapOf("terms", mapOf("stakeholderDomainQualifiedName", qualifiedNames)));
+
+        mustClauseList.add(mapOf("bool", mapOf("should", shouldClauseList)));
+
+        Map<String, Object> bool = new HashMap<>();
+        bool.put("must", mustClauseList);
+
+        Map<String, Object> dsl = mapOf("query", mapOf("bool", bool));
+
+        return indexSearchPaginator(dsl, STAKEHOLDER_ATTRIBUTES_FOR_SEARCH, discovery);
     }
 
     /**
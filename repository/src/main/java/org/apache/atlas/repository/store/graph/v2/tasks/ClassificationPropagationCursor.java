@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2.tasks;
+
+import org.apache.atlas.RequestContext;
+import org.apache.atlas.model.tasks.AtlasTask;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.repository.store.graph.v2.AtlasGraphUtilsV2;
+import org.apache.atlas.type.AtlasType;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.apache.atlas.repository.Constants.TASK_GUID;
+import static org.apache.atlas.repository.Constants.TASK_PROPAGATION_CURSOR;
+
+/**
+ * Progress of a classification propagation task through its level-by-level traversal: the level being processed
+ * and how many of its vertices are done. It is kept on the task vertex and committed along with each propagated
+ * chunk, so that a task re-queued after a restart skips the levels and chunks it already completed.
+ *
+ * Levels are re-traversed on resume, but not re-propagated. If the level being processed has a different size on
+ * resume, the graph changed in between and the level is processed again from its start; propagation skips
+ * vertices that already have the classification.
+ */
+public class ClassificationPropagationCursor {
+    private static final Logger LOG = LoggerFactory.getLogger(ClassificationPropagationCursor.class);
+
+    private static final String KEY_LEVEL      = "level";
+    private static final String KEY_LEVEL_SIZE = "levelSize";
+    private static final String KEY_OFFSET     = "offset";
+
+    private final AtlasGraph graph;
+    private final String     taskGuid;
+    private final String     taskVertexId;
+    private int              level;
+    private int              levelSize;
+    private int              offset;
+
+    private ClassificationPropagationCursor(AtlasGraph graph, String taskGuid, AtlasVertex taskVertex) {
+        this.graph        = graph;
+        this.taskGuid     = taskGuid;
+        this.taskVertexId = taskVertex != null ? taskVertex.getIdForDisplay() : null;
+
+        String cursorJson = taskVertex != null ? taskVertex.getProperty(TASK_PROPAGATION_CURSOR, String.class) : null;
+
+        if (StringUtils.isNotEmpty(cursorJson)) {
+            Map<String, Object> cursor = AtlasType.fromJson(cursorJson, Map.class);
+
+            this.level     = getInt(cursor, KEY_LEVEL);
+            this.levelSize = getInt(cursor, KEY_LEVEL_SIZE);
+            this.offset    = getInt(cursor, KEY_OFFSET);
+
+            LOG.info("Task {}: resuming classification propagation at level {}, offset {}/{}", taskGuid, level, offset, levelSize);
+        }
+    }
+
+    /**
+     * Returns the cursor of the task being run by this thread; when not running a task, returns a cursor that
+     * starts from the beginning and records nothing.
+     */
+    public static ClassificationPropagationCursor forCurrentTask(AtlasGraph graph) {
+        AtlasTask   task       = RequestContext.get().getCurrentTask();
+        AtlasVertex taskVertex = null;
+
+        if (task != null) {
+            Iterator<AtlasVertex> results = graph.query().has(TASK_GUID, task.getGuid()).vertices().iterator();
+
+            taskVertex = results.hasNext() ? results.next() : null;
+        }
+
+        return new ClassificationPropagationCursor(graph, task != null ? task.getGuid() : null, taskVertex);
+    }
+
+    /**
+     * Returns true if the task already propagated to some vertices before it was re-queued.
+     */
+    public boolean isResumed() {
+        return level > 0;
+    }
+
+    /**
+     * Returns the offset at which processing of the given level should start: the level size for levels completed
+     * earlier, the recorded offset for the level in progress, and 0 otherwise.
+     */
+    public int getStartOffset(int level, int levelSize) {
+        if (level < this.level) {
+            return levelSize;
+        }
+
+        if (level == this.level) {
+            if (levelSize == this.levelSize) {
+                return Math.min(offset, levelSize);
+            }
+
+            LOG.info("Task {}: level {} has {} vertices, {} when last processed; processing it from the start", taskGuid, level, levelSize, this.levelSize);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Records that the first offset vertices of the given level are done; written to the task vertex in the current
+     * transaction, to be committed along with the propagation of those vertices.
+     */
+    public void update(int level, int levelSize, int offset) {
+        this.level     = level;
+        this.levelSize = levelSize;
+        this.offset    = offset;
+
+        AtlasVertex taskVertex = getTaskVertex();
+
+        if (taskVertex != null) {
+            Map<String, Object> cursor = new HashMap<>();
+
+            cursor.put(KEY_LEVEL, level);
+            cursor.put(KEY_LEVEL_SIZE, levelSize);
+            cursor.put(KEY_OFFSET, offset);
+
+            AtlasGraphUtilsV2.setEncodedProperty(taskVertex, TASK_PROPAGATION_CURSOR, AtlasType.toJson(cursor));
+        }
+    }
+
+    /**
+     * Removes the cursor from the task vertex, once the propagation is complete.
+     */
+    public void clear() {
+        AtlasVertex taskVertex = getTaskVertex();
+
+        if (taskVertex != null && taskVertex.getProperty(TASK_PROPAGATION_CURSOR, String.class) != null) {
+            taskVertex.removeProperty(TASK_PROPAGATION_CURSOR);
+        }
+
+        this.level     = 0;
+        this.levelSize = 0;
+        this.offset    = 0;
+    }
+
+    // looked up by id on every use, as the vertex is used across the commits of each chunk
+    private AtlasVertex getTaskVertex() {
+        return taskVertexId != null ? graph.getVertex(taskVertexId) : null;
+    }
+
+    private static int getInt(Map<String, Object> cursor, String key) {
+        Object value = cursor.get(key);
+
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+}
@@ -17,6 +17,9 @@
  */
 package org.apache.atlas.searchlog;
 
+import com.google.common.annotations.VisibleForTesting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
 import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.model.searchlog.SearchRequestLogData;
@@ -41,10 +44,13 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.apache.atlas.repository.audit.ESBasedAuditRepository.getHttpHosts;
+import static org.apache.atlas.service.metrics.MetricUtils.getMeterRegistry;
 
 @Component
 public class ESSearchLogger implements SearchLogger, Service {
@@ -52,44 +58,106 @@ public class ESSearchLogger implements SearchLogger, Service {
 
     public static final String INDEX_NAME          = "search_logs";
     public static final String MAPPINGS_FILE_NAME  = "es-search-logs-mappings.json";
-    public static final String ENDPOINT_CREATE_DOC = INDEX_NAME + "/_doc";
+    public static final String ENDPOINT_BULK       = INDEX_NAME + "/_bulk";
+
+    private static final String BULK_METADATA = "{\"index\":{}}\n";
+
+    private final long    batchBytes    = AtlasConfiguration.SEARCH_LOGGER_BATCH_BYTES.getLong();
+    private final Counter failedCounter = Counter.builder("search_log_failed_events")
+                                                 .description("Number of search logs that failed to be written to ES")
+                                                 .register(getMeterRegistry());
+    private final Timer   flushTimer    = Timer.builder("search_log_flush_latency")
+                                               .description("Time taken by _bulk requests writing search logs to ES")
+                                               .register(getMeterRegistry());
 
     private RestClient lowLevelClient;
 
+    public ESSearchLogger() {
+    }
+
+    @VisibleForTesting
+    ESSearchLogger(RestClient lowLevelClient) {
+        this.lowLevelClient = lowLevelClient;
+    }
+
     @Override
     public void log(SearchRequestLogData searchRequestLogData) {
-        try {
-            searchRequestLogData.setCreatedAt(System.currentTimeMillis());
+        log(Collections.singletonList(searchRequestLogData));
+    }
+
+    /**
+     * Writes the given search logs in _bulk requests of up to atlas.enable.search.logger.batch.bytes each.
+     */
+    @Override
+    public void log(List<SearchRequestLogData> searchRequestsLogData) {
+        StringBuilder bulkRequestBody = new StringBuilder();
+        int           count           = 0;
+
+        for (SearchRequestLogData searchRequestLogData : searchRequestsLogData) {
+            if (searchRequestLogData.getCreatedAt() == 0) {
+                searchRequestLogData.setCreatedAt(System.currentTimeMillis());
+            }
+
+            String doc = AtlasType.toJson(searchRequestLogData);
+
+            if (count > 0 && bulkRequestBody.length() + BULK_METADATA.length() + doc.length() + 1 > batchBytes) {
+                writeBulk(bulkRequestBody.toString(), count);
+
+                bulkRequestBody.setLength(0);
+                count = 0;
+            }
+
+            bulkRequestBody.append(BULK_METADATA).append(doc).append('\n');
+            count++;
+        }
+
+        if (count > 0) {
+            writeBulk(bulkRequestBody.toString(), count);
+        }
+    }
 
-            HttpEntity entity = new NStringEntity(AtlasType.toJson(searchRequestLogData), ContentType.APPLICATION_JSON);
+    private void writeBulk(String bulkRequestBody, int count) {
+        long startTime = System.nanoTime();
+
+        try {
+            HttpEntity entity = new NStringEntity(bulkRequestBody, ContentType.APPLICATION_JSON);
 
-            Request request = new Request("POST", ENDPOINT_CREATE_DOC);
+            Request request = new Request("POST", ENDPOINT_BULK);
             request.setEntity(entity);
 
             Response response = lowLevelClient.performRequest(request);
             int responseCode = response.getStatusLine().getStatusCode();
 
-            if (responseCode != 200 && responseCode != 201) {
-                String responseString = EntityUtils.toString(response.getEntity());
-                Map<String, Object> responseMap = AtlasType.fromJson(responseString, Map.class);
-                if ((boolean) responseMap.get("errors")) {
-                    List<String> errors = new ArrayList<>();
-                    List<Map<String, Object>> resultItems = (List<Map<String, Object>>) responseMap.get("items");
-                    for (Map<String, Object> resultItem : resultItems) {
-                        if (resultItem.get("index") != null) {
-                            Map<String, Object> resultIndex = (Map<String, Object>) resultItem.get("index");
-                            if (resultIndex.get("error") != null) {
-                                errors.add(resultIndex.get("error").toString());
-                            }
+            if (responseCode != 200) {
+                throw new AtlasException("Unexpected response status " + responseCode);
+            }
+
+            String responseString = EntityUtils.toString(response.getEntity());
+            Map<String, Object> responseMap = AtlasType.fromJson(responseString, Map.class);
+            if (responseMap != null && Boolean.TRUE.equals(responseMap.get("errors"))) {
+                List<String> errors = new ArrayList<>();
+                List<Map<String, Object>> resultItems = (List<Map<String, Object>>) responseMap.get("items");
+                for (Map<String, Object> resultItem : resultItems) {
+                    if (resultItem.get("index") != null) {
+                        Map<String, Object> resultIndex = (Map<String, Object>) resultItem.get("index");
+                        if (resultIndex.get("error") != null) {
+                            errors.add(resultIndex.get("error").toString());
                         }
                     }
-                    throw new AtlasException(errors.toString());
                 }
-                throw new Exception();
-            }
 
+                if (!errors.isEmpty()) {
+                    failedCounter.increment(errors.size());
+
+                    LOG.error("Unable to push {} of {} search logs to ES: {}", errors.size(), count, errors.get(0));
+                }
+            }
         } catch (Exception e) {
-            LOG.error("Unable to push search log to ES: {}", e.getMessage());
+            failedCounter.increment(count);
+
+            LOG.error("Unable to push {} search logs to ES: {}", count, e.getMessage());
+        } finally {
+            flushTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
         }
     }
 
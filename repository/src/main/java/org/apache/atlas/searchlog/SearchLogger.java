@@ -20,7 +20,15 @@ package org.apache.atlas.searchlog;
 
 import org.apache.atlas.model.searchlog.SearchRequestLogData;
 
+import java.util.List;
+
 public interface SearchLogger {
 
     void log(SearchRequestLogData searchRequestData);
+
+    default void log(List<SearchRequestLogData> searchRequestsData) {
+        for (SearchRequestLogData searchRequestData : searchRequestsData) {
+            log(searchRequestData);
+        }
+    }
 }
\ No newline at end of file
@@ -10,17 +10,21 @@ public class SearchLoggingConsumer implements Runnable {
     private static final Logger LOG = LoggerFactory.getLogger(SearchLoggingConsumer.class);
 
     private final List<SearchLogger> esSearchLoggers;
-    private final SearchRequestLogData searchRequestLogData;
+    private final List<SearchRequestLogData> searchRequestsLogData;
 
-    public SearchLoggingConsumer(List<SearchLogger> esSearchLoggers, SearchRequestLogData searchRequestLogData) {
+    public SearchLoggingConsumer(List<SearchLogger> esSearchLoggers, List<SearchRequestLogData> searchRequestsLogData) {
         this.esSearchLoggers = esSearchLoggers;
-        this.searchRequestLogData = searchRequestLogData;
+        this.searchRequestsLogData = searchRequestsLogData;
     }
 
     @Override
     public void run() {
         for (SearchLogger esSearchLogger : esSearchLoggers) {
-            esSearchLogger.log(searchRequestLogData);
+            try {
+                esSearchLogger.log(searchRequestsLogData);
+            } catch (Exception e) {
+                LOG.error("{}: failed to log {} searches", esSearchLogger.getClass().getSimpleName(), searchRequestsLogData.size(), e);
+            }
         }
     }
 }
\ No newline at end of file
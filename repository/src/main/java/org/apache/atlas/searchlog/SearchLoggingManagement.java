@@ -17,41 +17,114 @@
  */
 package org.apache.atlas.searchlog;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
-import org.apache.atlas.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.model.searchlog.SearchRequestLogData;
-import org.apache.atlas.type.AtlasType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+import static org.apache.atlas.service.metrics.MetricUtils.getMeterRegistry;
+
+/**
+ * Ships search logs from a bounded queue, on a single flusher thread, in batches of up to
+ * atlas.enable.search.logger.batch.size searches, waiting up to atlas.enable.search.logger.linger.ms for a batch to
+ * fill; loggers split each batch further by size, see ESSearchLogger. Searches logged while the queue is full are
+ * dropped, so that slow loggers never hold up searches or grow the heap.
+ */
 @Component
 public class SearchLoggingManagement {
     private static final Logger LOG = LoggerFactory.getLogger(SearchLoggingManagement.class);
 
-    private final List<SearchLogger> esSearchLoggers;
-    private final ExecutorService executorService;
+    private final List<SearchLogger>                  esSearchLoggers;
+    private final BlockingQueue<SearchRequestLogData> queue;
+    private final int                                 batchSize;
+    private final long                                lingerMs;
+    private final Counter                             droppedCounter;
+    private final Thread                              flusher;
+    private volatile boolean                          isStopped = false;
 
     @Inject
     public SearchLoggingManagement(List<SearchLogger> esSearchLoggers) {
-        this.esSearchLoggers        = esSearchLoggers;
-
-        this.executorService = Executors.newFixedThreadPool(AtlasConfiguration.SEARCH_LOGGER_MAX_THREADS.getInt(),
-                new ThreadFactoryBuilder()
-                    .setDaemon(true)
-                    .setNameFormat("atlas-search-logger-%d")
-                    .build()
-        );
+        this.esSearchLoggers = esSearchLoggers;
+        this.queue           = new ArrayBlockingQueue<>(AtlasConfiguration.SEARCH_LOGGER_QUEUE_SIZE.getInt());
+        this.batchSize       = AtlasConfiguration.SEARCH_LOGGER_BATCH_SIZE.getInt();
+        this.lingerMs        = AtlasConfiguration.SEARCH_LOGGER_LINGER_MS.getLong();
+
+        Gauge.builder("search_log_queue_depth", queue, BlockingQueue::size)
+             .description("Number of search logs waiting to be shipped")
+             .register(getMeterRegistry());
+
+        this.droppedCounter = Counter.builder("search_log_dropped_events")
+                                     .description("Number of search logs dropped as the queue was full")
+                                     .register(getMeterRegistry());
+
+        this.flusher = new Thread(this::flushLoop, "atlas-search-logger");
+
+        this.flusher.setDaemon(true);
+        this.flusher.start();
     }
 
     public void log(SearchRequestLogData searchRequestLogData) {
-        SearchLoggingConsumer loggerConsumer = new SearchLoggingConsumer(esSearchLoggers, searchRequestLogData);
-        this.executorService.submit(loggerConsumer);
+        searchRequestLogData.setCreatedAt(System.currentTimeMillis());
+
+        if (!queue.offer(searchRequestLogData)) {
+            droppedCounter.increment();
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Search log queue is full; dropped search log of user {}", searchRequestLogData.getUserName());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        isStopped = true;
+
+        flusher.interrupt();
+    }
+
+    private void flushLoop() {
+        List<SearchRequestLogData> batch = new ArrayList<>(batchSize);
+
+        while (!isStopped) {
+            try {
+                SearchRequestLogData searchRequestLogData = queue.take();
+                long                 deadline             = System.currentTimeMillis() + lingerMs;
+
+                batch.add(searchRequestLogData);
+
+                while (batch.size() < batchSize) {
+                    long waitMs = deadline - System.currentTimeMillis();
+
+                    searchRequestLogData = waitMs > 0 ? queue.poll(waitMs, TimeUnit.MILLISECONDS) : queue.poll();
+
+                    if (searchRequestLogData == null) {
+                        break;
+                    }
+
+                    batch.add(searchRequestLogData);
+                }
+            } catch (InterruptedException e) {
+                queue.drainTo(batch, batchSize - batch.size());
+
+                isStopped = true;
+            }
+
+            if (!batch.isEmpty()) {
+                new SearchLoggingConsumer(esSearchLoggers, new ArrayList<>(batch)).run();
+
+                batch.clear();
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -20,6 +20,7 @@ package org.apache.atlas.tasks;
 import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.RequestContext;
 import org.apache.atlas.annotation.GraphTransaction;
+import org.apache.atlas.discovery.IndexSearchPaginator;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.discovery.IndexSearchParams;
 import org.apache.atlas.model.tasks.AtlasTask;
@@ -341,13 +342,9 @@ public class TaskRegistry {
     }
 
     public List<AtlasTask> getTasksForReQueueIndexSearch() {
-        DirectIndexQueryResult indexQueryResult = null;
         List<AtlasTask> ret = new ArrayList<>();
 
-        int size = 1000;
-        int from = 0;
-
-        IndexSearchParams indexSearchParams = new IndexSearchParams();
+        int size = Math.min(1000, queueSize);
 
         List statusClauseList = new ArrayList();
         statusClauseList.add(mapOf("match", mapOf(TASK_STATUS, AtlasTask.Status.IN_PROGRESS.toString())));
@@ -355,62 +352,54 @@ public class TaskRegistry {
 
         Map<String, Object> dsl = mapOf("query", mapOf("bool", mapOf("should", statusClauseList)));
         dsl.put("sort", Collections.singletonList(mapOf(Constants.TASK_CREATED_TIME, mapOf("order", "asc"))));
-        dsl.put("size", size);
-        int totalFetched = 0;
-        while (true) {
-            int fetched = 0;
-            try {
-                if (totalFetched + size > queueSize) {
-                    size = queueSize - totalFetched;
-                }
-
-                dsl.put("from", from);
-                dsl.put("size", size);
 
-                indexSearchParams.setDsl(dsl);
+        int totalFetched = 0;
 
-                AtlasIndexQuery indexQuery = graph.elasticsearchQuery(Constants.VERTEX_INDEX, indexSearchParams);
+        try (IndexSearchPaginator<AtlasIndexQuery.Result> paginator = getTasksPaginator(dsl, size)) {
+            while (paginator.hasNext() && totalFetched < queueSize) {
+                for (AtlasIndexQuery.Result result : paginator.next()) {
+                    if (totalFetched >= queueSize) {
+                        break;
+                    }
 
-                try {
-                    indexQueryResult = indexQuery.vertices(indexSearchParams);
-                } catch (AtlasBaseException e) {
-                    LOG.error("Failed to fetch pending/in-progress task vertices to re-que");
-                    e.printStackTrace();
-                    break;
-                }
+                    AtlasVertex vertex = result.getVertex();
 
-                if (indexQueryResult != null) {
-                    Iterator<AtlasIndexQuery.Result> iterator = indexQueryResult.getIterator();
-
-                    while (iterator.hasNext()) {
-                        AtlasVertex vertex = iterator.next().getVertex();
-
-                        if (vertex != null) {
-                            AtlasTask atlasTask = toAtlasTask(vertex);
-                            if (atlasTask.getStatus().equals(AtlasTask.Status.PENDING) ||
-                                    atlasTask.getStatus().equals(AtlasTask.Status.IN_PROGRESS) ){
-                                LOG.info(String.format("Fetched task from index search: %s", atlasTask.toString()));
-                                ret.add(atlasTask);
-                            }
-                            else {
-                                LOG.warn(String.format("There is a mismatch on tasks status between ES and Cassandra for guid: %s", atlasTask.getGuid()));
-                            }
-                        } else {
-                            LOG.warn("Null vertex while re-queuing tasks at index {}", fetched);
+                    if (vertex != null) {
+                        AtlasTask atlasTask = toAtlasTask(vertex);
+                        if (atlasTask.getStatus().equals(AtlasTask.Status.PENDING) ||
+                                atlasTask.getStatus().equals(AtlasTask.Status.IN_PROGRESS) ){
+                            LOG.info(String.format("Fetched task from index search: %s", atlasTask.toString()));
+                            ret.add(atlasTask);
                         }
-
-                        fetched++;
+                        else {
+                            LOG.warn(String.format("There is a mismatch on tasks status between ES and Cassandra for guid: %s", atlasTask.getGuid()));
+                        }
+                    } else {
+                        LOG.warn("Null vertex while re-queuing tasks at index {}", totalFetched);
                     }
-                }
 
-                totalFetched += fetched;
-                from += size;
-                if (fetched < size || totalFetched >= queueSize) {
-                    break;
+                    totalFetched++;
                 }
-            } catch (Exception e){
-                break;
             }
+        } catch (AtlasBaseException e) {
+            LOG.error("Failed to fetch pending/in-progress task vertices to re-que", e);
+        } catch (Exception e) {
+            LOG.error("Failed to re-queue tasks fetched from index search", e);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Task vertices have no field to break ties on the creation time with, as their guid is not indexed for sorting:
+     * only the tie-breaker of a point in time keeps pages from skipping tasks created in the same millisecond. So
+     * without a point in time all the tasks to re-queue are fetched in a single page.
+     */
+    private IndexSearchPaginator<AtlasIndexQuery.Result> getTasksPaginator(Map<String, Object> dsl, int pageSize) throws AtlasBaseException {
+        IndexSearchPaginator<AtlasIndexQuery.Result> ret = new IndexSearchPaginator<>(graph.elasticsearchQuery(Constants.VERTEX_INDEX, new IndexSearchParams()), dsl, pageSize, true, results -> results);
+
+        if (!ret.isOnPointInTime()) {
+            ret = new IndexSearchPaginator<>(graph.elasticsearchQuery(Constants.VERTEX_INDEX, new IndexSearchParams()), dsl, queueSize, false, results -> results);
         }
 
         return ret;
@@ -0,0 +1,200 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas;
+
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Measures heap bytes allocated per request by RequestContext: a read-only request, which only looks up the
+ * request collections, and a write request, which records an update, a header and a relationship mutation.
+ * Also measures RequestContext create/clear throughput of many threads at once, which contend on the
+ * active request registry. Run it on an earlier commit to compare.
+ *
+ * Not run by default; run with
+ *   mvn test -pl repository -Dtest=RequestContextBenchmark -Datlas.benchmark.request.context=true
+ * and optionally -Datlas.benchmark.request.context.requests=1000000 -Datlas.benchmark.request.context.threads=64
+ */
+public class RequestContextBenchmark {
+    private static final Logger LOG = LoggerFactory.getLogger(RequestContextBenchmark.class);
+
+    private static final String ENABLED_PROPERTY  = "atlas.benchmark.request.context";
+    private static final String REQUESTS_PROPERTY = "atlas.benchmark.request.context.requests";
+    private static final String THREADS_PROPERTY  = "atlas.benchmark.request.context.threads";
+    private static final String GUID              = "guid-1";
+
+    private com.sun.management.ThreadMXBean threadBean;
+    private int                             requests;
+    private int                             threads;
+
+    @BeforeClass
+    public void setup() {
+        if (!Boolean.getBoolean(ENABLED_PROPERTY)) {
+            throw new SkipException("request context benchmark is disabled; set -D" + ENABLED_PROPERTY + "=true to run it");
+        }
+
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            throw new SkipException("this JVM does not report per-thread allocation");
+        }
+
+        threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        requests   = Integer.getInteger(REQUESTS_PROPERTY, 1000000);
+        threads    = Integer.getInteger(THREADS_PROPERTY, 64);
+    }
+
+    @Test
+    public void benchmarkReadRequestAllocation() {
+        run("read", this::readRequest);
+    }
+
+    @Test
+    public void benchmarkWriteRequestAllocation() {
+        run("write", this::writeRequest);
+    }
+
+    @Test
+    public void benchmarkConcurrentCreateClearThroughput() throws Exception {
+        int             requestsPerThread = Math.max(requests / threads, 1);
+        ExecutorService executor          = Executors.newFixedThreadPool(threads);
+        int             activeRequests    = RequestContext.getActiveRequestsCount();
+
+        try {
+            runConcurrently(executor, requestsPerThread); // warm-up
+
+            long start = System.nanoTime();
+
+            runConcurrently(executor, requestsPerThread);
+
+            double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+
+            assertEquals(RequestContext.getActiveRequestsCount(), activeRequests);
+
+            LOG.info("request context create/clear: threads={}, requests={}, requestsPerSecond={}",
+                     threads, requestsPerThread * (long) threads, (long) (requestsPerThread * (long) threads / seconds));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void runConcurrently(ExecutorService executor, int requestsPerThread) throws Exception {
+        CyclicBarrier   start   = new CyclicBarrier(threads);
+        List<Future<?>> futures = new ArrayList<>(threads);
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+
+                for (int i = 0; i < requestsPerThread; i++) {
+                    RequestContext.get();
+                    RequestContext.clear();
+                }
+
+                return null;
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private void run(String name, Runnable request) {
+        for (int i = 0; i < requests; i++) { // warm-up
+            request.run();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long gcCount  = getGcCount();
+        long bytes    = threadBean.getThreadAllocatedBytes(threadId);
+        long start    = System.nanoTime();
+
+        for (int i = 0; i < requests; i++) {
+            request.run();
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+
+        bytes   = threadBean.getThreadAllocatedBytes(threadId) - bytes;
+        gcCount = getGcCount() - gcCount;
+
+        LOG.info("request context {} requests: requests={}, bytesPerRequest={}, nanosPerRequest={}, gcCount={}",
+                 name, requests, bytes / requests, elapsedNanos / requests, gcCount);
+    }
+
+    private void readRequest() {
+        RequestContext context = RequestContext.get();
+
+        try {
+            context.getEntity(GUID);
+            context.getCachedEntityHeader(GUID);
+            context.getDifferentialEntity(GUID);
+            context.isUpdatedEntity(GUID);
+            context.isDeletedEntity(GUID);
+            context.getUpdatedEntities().isEmpty();
+            context.getDeletedEntities().isEmpty();
+            context.getAddedPropagations().isEmpty();
+            context.getRemovedPropagations().isEmpty();
+            context.getRequestContextHeaders().isEmpty();
+            context.getDifferentialEntities().isEmpty();
+            context.getQueuedTasks().isEmpty();
+            context.getRelationshipMutationMap().isEmpty();
+        } finally {
+            RequestContext.clear();
+        }
+    }
+
+    private void writeRequest() {
+        RequestContext    context = RequestContext.get();
+        AtlasEntityHeader header  = new AtlasEntityHeader("Table");
+
+        header.setGuid(GUID);
+
+        try {
+            context.recordEntityUpdate(header);
+            context.addRequestContextHeader("x-atlan-route", "benchmark");
+            context.saveRelationshipsMutationContext("RELATIONSHIP_CREATE", null);
+        } finally {
+            RequestContext.clear();
+        }
+    }
+
+    private static long getGcCount() {
+        long ret = 0;
+
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ret += Math.max(gcBean.getCollectionCount(), 0);
+        }
+
+        return ret;
+    }
+}
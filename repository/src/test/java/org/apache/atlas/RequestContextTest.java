@@ -0,0 +1,397 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas;
+
+import org.apache.atlas.model.instance.AtlasClassification;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.model.instance.AtlasRelationship;
+import org.apache.atlas.model.tasks.AtlasTask;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class RequestContextTest {
+    private static final String GUID = "guid-1";
+
+    @BeforeMethod
+    @AfterMethod
+    public void clearContext() {
+        RequestContext.clear();
+    }
+
+    @Test
+    public void readsOfFreshContextReturnEmptyReadOnlyViews() {
+        RequestContext context = RequestContext.get();
+
+        assertReadOnlyEmpty(context.getUpdatedEntities());
+        assertReadOnlyEmpty(context.getDeletedEntities());
+        assertReadOnlyEmpty(context.getRestoredEntities());
+        assertReadOnlyEmpty(context.getDifferentialEntities());
+        assertReadOnlyEmpty(context.getQueuedTasks());
+        assertReadOnlyEmpty(context.getAddedPropagations());
+        assertReadOnlyEmpty(context.getRemovedPropagations());
+        assertReadOnlyEmpty(context.getRequestContextHeaders());
+        assertReadOnlyEmpty(context.getDifferentialEntitiesMap());
+        assertReadOnlyEmpty(context.getRelationshipMutationMap());
+    }
+
+    @Test
+    public void readsOfFreshContextDoNotCreateCollections() {
+        RequestContext context = RequestContext.get();
+
+        // repeated reads keep handing out the shared empty instances, so nothing was created by the first read
+        assertSame(context.getAddedPropagations(), Collections.emptyMap());
+        assertSame(context.getAddedPropagations(), Collections.emptyMap());
+        assertSame(context.getRemovedPropagations(), Collections.emptyMap());
+        assertSame(context.getRequestContextHeaders(), Collections.emptyMap());
+        assertSame(context.getDifferentialEntitiesMap(), Collections.emptyMap());
+        assertSame(context.getRelationshipMutationMap(), Collections.emptyMap());
+        assertSame(context.getQueuedTasks(), Collections.emptyList());
+
+        assertNull(context.getEntity(GUID));
+        assertNull(context.getEntityWithExtInfo(GUID));
+        assertNull(context.getCachedEntityHeader(GUID));
+        assertNull(context.getDifferentialEntity(GUID));
+        assertFalse(context.isUpdatedEntity(GUID));
+        assertFalse(context.isDeletedEntity(GUID));
+        assertFalse(context.isRestoredEntity(GUID));
+        assertFalse(context.checkIfEntityIsForCustomAttributeUpdate(GUID));
+        assertFalse(context.checkIfEntityIsForBusinessAttributeUpdate(GUID));
+
+        assertSame(context.getAddedPropagations(), Collections.emptyMap());
+    }
+
+    @Test
+    public void writesAreVisibleThroughReads() {
+        RequestContext      context        = RequestContext.get();
+        AtlasClassification classification = new AtlasClassification("tag");
+        AtlasRelationship   relationship   = new AtlasRelationship("relationship");
+        AtlasTask           task           = new AtlasTask();
+
+        context.recordEntityUpdate(header(GUID));
+        context.recordEntityDelete(header("guid-2"));
+        context.recordEntityRestore(header("guid-3"));
+        context.cacheDifferentialEntity(entity(GUID));
+        context.recordAddedPropagation(GUID, classification);
+        context.recordAddedPropagation(GUID, classification);
+        context.recordRemovedPropagation(GUID, classification);
+        context.addRequestContextHeader("x-atlan-route", "test");
+        context.queueTask(task);
+        context.saveRelationshipsMutationContext("RELATIONSHIP_CREATE", relationship);
+
+        assertTrue(context.isUpdatedEntity(GUID));
+        assertTrue(context.isDeletedEntity("guid-2"));
+        assertTrue(context.isRestoredEntity("guid-3"));
+        assertEquals(context.getUpdatedEntities().size(), 1);
+        assertEquals(context.getDeletedEntities().size(), 1);
+        assertEquals(context.getRestoredEntities().size(), 1);
+        assertEquals(context.getDifferentialEntities().size(), 1);
+        assertEquals(context.getDifferentialEntity(GUID).getGuid(), GUID);
+        assertEquals(context.getAddedPropagations().get(GUID).size(), 2);
+        assertEquals(context.getRemovedPropagations().get(GUID).size(), 1);
+        assertEquals(context.getRequestContextHeaders().get("x-atlan-route"), "test");
+        assertEquals(context.getQueuedTasks(), Collections.singletonList(task));
+        assertEquals(context.getRelationshipMutationMap().get("RELATIONSHIP_CREATE"), Collections.singleton(relationship));
+    }
+
+    @Test
+    public void valuesReadAfterFirstWriteAreLiveViews() {
+        RequestContext context = RequestContext.get();
+
+        context.recordEntityUpdate(header(GUID));
+        context.recordEntityDelete(header(GUID));
+        context.recordEntityRestore(header(GUID));
+
+        Collection<AtlasEntityHeader> updated  = context.getUpdatedEntities();
+        Collection<AtlasEntityHeader> deleted  = context.getDeletedEntities();
+        Collection<AtlasEntityHeader> restored = context.getRestoredEntities();
+
+        context.recordEntityUpdate(header("guid-2"));
+        context.recordEntityDelete(header("guid-2"));
+        context.recordEntityRestore(header("guid-2"));
+
+        assertEquals(updated.size(), 2);
+        assertEquals(deleted.size(), 2);
+        assertEquals(restored.size(), 2);
+
+        context.clearCache();
+
+        assertTrue(updated.isEmpty());
+        assertTrue(deleted.isEmpty());
+        assertTrue(restored.isEmpty());
+    }
+
+    @Test
+    public void relationshipsAreGroupedByEvent() {
+        RequestContext    context = RequestContext.get();
+        AtlasRelationship first   = new AtlasRelationship("relationship");
+        AtlasRelationship second  = new AtlasRelationship("relationship");
+
+        context.saveRelationshipsMutationContext("RELATIONSHIP_CREATE", first);
+        context.saveRelationshipsMutationContext("RELATIONSHIP_CREATE", second);
+        context.saveRelationshipsMutationContext("RELATIONSHIP_HARD_DELETE", first);
+
+        Map<String, Set<AtlasRelationship>> mutations = context.getRelationshipMutationMap();
+
+        assertEquals(mutations.size(), 2);
+        assertEquals(mutations.get("RELATIONSHIP_CREATE").size(), 2);
+        assertEquals(mutations.get("RELATIONSHIP_HARD_DELETE").size(), 1);
+
+        context.clearMutationContext("RELATIONSHIP_CREATE");
+
+        assertEquals(mutations.keySet(), Collections.singleton("RELATIONSHIP_HARD_DELETE"));
+    }
+
+    @Test
+    public void clearMutationContextOfFreshContextIsNoOp() {
+        RequestContext context = RequestContext.get();
+
+        context.clearMutationContext("RELATIONSHIP_CREATE");
+        context.clearAddedPropagations();
+        context.clearRemovePropagations();
+        context.clearEntityCache();
+
+        assertSame(context.getRelationshipMutationMap(), Collections.emptyMap());
+        assertSame(context.getAddedPropagations(), Collections.emptyMap());
+    }
+
+    @Test
+    public void clearCacheOfFreshContext() {
+        RequestContext context = RequestContext.get();
+
+        context.clearCache();
+
+        assertTrue(context.getUpdatedEntities().isEmpty());
+        assertTrue(context.getQueuedTasks().isEmpty());
+        assertTrue(context.getRelationshipMutationMap().isEmpty());
+        assertTrue(context.getRequestContextHeaders().isEmpty());
+    }
+
+    @Test
+    public void clearCacheEmptiesCreatedCollections() {
+        RequestContext context = RequestContext.get();
+
+        context.recordEntityUpdate(header(GUID));
+        context.recordEntityDelete(header(GUID));
+        context.recordEntityRestore(header(GUID));
+        context.cache(entity(GUID));
+        context.cacheDifferentialEntity(entity(GUID));
+        context.recordEntityToSkip("guid-2");
+        context.recordEntityWithCustomAttributeUpdate(GUID);
+        context.recordEntityWithBusinessAttributeUpdate(GUID);
+        context.recordAddedPropagation(GUID, new AtlasClassification("tag"));
+        context.recordRemovedPropagation(GUID, new AtlasClassification("tag"));
+        context.addRequestContextHeader("x-atlan-route", "test");
+        context.queueTask(new AtlasTask());
+        context.saveRelationshipsMutationContext("RELATIONSHIP_CREATE", new AtlasRelationship("relationship"));
+        context.addToDeletedEdgesIds("edge-1");
+        context.addProcessGuidIds(GUID);
+
+        context.clearCache();
+
+        assertFalse(context.isUpdatedEntity(GUID));
+        assertFalse(context.isDeletedEntity(GUID));
+        assertFalse(context.isRestoredEntity(GUID));
+        assertNull(context.getEntity(GUID));
+        assertNull(context.getDifferentialEntity(GUID));
+        assertFalse(context.checkIfEntityIsForCustomAttributeUpdate(GUID));
+        assertFalse(context.checkIfEntityIsForBusinessAttributeUpdate(GUID));
+        assertTrue(context.getUpdatedEntities().isEmpty());
+        assertTrue(context.getDeletedEntities().isEmpty());
+        assertTrue(context.getRestoredEntities().isEmpty());
+        assertTrue(context.getDifferentialEntities().isEmpty());
+        assertTrue(context.getAddedPropagations().isEmpty());
+        assertTrue(context.getRemovedPropagations().isEmpty());
+        assertTrue(context.getRequestContextHeaders().isEmpty());
+        assertTrue(context.getQueuedTasks().isEmpty());
+        assertTrue(context.getRelationshipMutationMap().isEmpty());
+        assertTrue(context.getDeletedEdgesIds().isEmpty());
+        assertTrue(context.getProcessGuidIds().isEmpty());
+
+        // a skipped entity no longer blocks update tracking
+        context.recordEntityUpdate(header("guid-2"));
+
+        assertTrue(context.isUpdatedEntity("guid-2"));
+    }
+
+    @Test
+    public void clearStartsNextRequestWithFreshContext() {
+        RequestContext context = RequestContext.get();
+
+        context.addRequestContextHeader("x-atlan-route", "test");
+
+        RequestContext.clear();
+
+        RequestContext next = RequestContext.get();
+
+        assertNotSame(next, context);
+        assertTrue(next.getRequestContextHeaders().isEmpty());
+    }
+
+    @Test
+    public void activeRequestsCountStaysConsistentAcrossThreads() throws Exception {
+        final int       threadCount = 64;
+        final int       iterations  = 1000;
+        ExecutorService executor    = Executors.newFixedThreadPool(threadCount);
+        CyclicBarrier   allCreated  = new CyclicBarrier(threadCount + 1);
+        CyclicBarrier   allChecked  = new CyclicBarrier(threadCount + 1);
+        int             baseline    = RequestContext.getActiveRequestsCount();
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int t = 0; t < threadCount; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < iterations; i++) {
+                        RequestContext.get();
+                        RequestContext.get(); // same context, counted once
+                        RequestContext.clear();
+                        RequestContext.clear(); // no context, nothing to remove
+                    }
+
+                    RequestContext.get();
+                    allCreated.await(30, TimeUnit.SECONDS);
+                    allChecked.await(30, TimeUnit.SECONDS);
+                    RequestContext.clear();
+
+                    return null;
+                }));
+            }
+
+            allCreated.await(30, TimeUnit.SECONDS);
+
+            assertEquals(RequestContext.getActiveRequestsCount(), baseline + threadCount);
+
+            allChecked.await(30, TimeUnit.SECONDS);
+
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(RequestContext.getActiveRequestsCount(), baseline);
+    }
+
+    @Test
+    public void earliestActiveRequestTimeIsOldestActiveRequest() throws Exception {
+        // requests left active by other tests, if any, are older than the ones created here
+        long            others   = RequestContext.getActiveRequestsCount() > 0 ? RequestContext.earliestActiveRequestTime() : Long.MAX_VALUE;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch  release  = new CountDownLatch(1);
+
+        try {
+            CountDownLatch created = new CountDownLatch(1);
+            Future<Long>   older   = executor.submit(() -> {
+                long ret = RequestContext.get().getRequestTime();
+
+                created.countDown();
+                release.await(30, TimeUnit.SECONDS);
+                RequestContext.clear();
+
+                return ret;
+            });
+
+            assertTrue(created.await(30, TimeUnit.SECONDS));
+
+            Thread.sleep(10);
+
+            long newer     = RequestContext.get().getRequestTime();
+            long olderTime = RequestContext.earliestActiveRequestTime();
+
+            assertTrue(olderTime < newer);
+
+            release.countDown();
+
+            assertEquals(olderTime, Math.min(others, older.get(30, TimeUnit.SECONDS)));
+            assertEquals(RequestContext.earliestActiveRequestTime(), Math.min(others, newer));
+
+            RequestContext.clear();
+
+            if (others == Long.MAX_VALUE) {
+                // no active request: current time
+                assertTrue(RequestContext.earliestActiveRequestTime() >= newer);
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void assertReadOnlyEmpty(Collection<?> collection) {
+        assertTrue(collection.isEmpty());
+
+        try {
+            collection.add(null);
+
+            fail("expected a read-only collection");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void assertReadOnlyEmpty(Map<?, ?> map) {
+        assertTrue(map.isEmpty());
+
+        try {
+            ((Map<Object, Object>) map).put(GUID, null);
+
+            fail("expected a read-only map");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    private static AtlasEntityHeader header(String guid) {
+        AtlasEntityHeader ret = new AtlasEntityHeader("Table");
+
+        ret.setGuid(guid);
+
+        return ret;
+    }
+
+    private static AtlasEntity entity(String guid) {
+        AtlasEntity ret = new AtlasEntity("Table");
+
+        ret.setGuid(guid);
+
+        return ret;
+    }
+}
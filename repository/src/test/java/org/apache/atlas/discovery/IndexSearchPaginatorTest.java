@@ -0,0 +1,196 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.discovery.IndexSearchParams;
+import org.apache.atlas.repository.graphdb.AtlasIndexQuery;
+import org.apache.atlas.repository.graphdb.DirectIndexQueryResult;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import static org.apache.atlas.repository.Constants.GUID_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.TIMESTAMP_PROPERTY_KEY;
+import static org.apache.atlas.repository.util.AtlasEntityUtils.mapOf;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class IndexSearchPaginatorTest {
+    private final List<Map>     dsls  = new ArrayList<>();
+    private final Queue<Object> pages = new LinkedList<>();
+
+    private AtlasIndexQuery indexQuery;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        indexQuery = mock(AtlasIndexQuery.class);
+
+        dsls.clear();
+        pages.clear();
+
+        when(indexQuery.vertices(any(IndexSearchParams.class))).thenAnswer(invocation -> {
+            dsls.add(((IndexSearchParams) invocation.getArguments()[0]).getDsl());
+
+            Object page = pages.poll();
+
+            if (page instanceof AtlasBaseException) {
+                throw (AtlasBaseException) page;
+            }
+
+            return page;
+        });
+    }
+
+    @Test
+    public void testPagesOnPointInTime() throws Exception {
+        when(indexQuery.openPointInTime(anyString())).thenReturn("pit1");
+
+        pages.add(page("pit2", 1, 2));
+        pages.add(page("pit2", 3));
+
+        IndexSearchPaginator<AtlasIndexQuery.Result> paginator = new IndexSearchPaginator<>(indexQuery, mapOf("from", 20), 2, true, results -> results);
+
+        assertTrue(paginator.isOnPointInTime());
+        assertEquals(paginator.next().size(), 2);
+        assertTrue(paginator.hasNext());
+
+        Map firstDsl = dsls.get(0);
+
+        assertEquals(firstDsl.get("size"), 2);
+        assertEquals(((Map) firstDsl.get("pit")).get("id"), "pit1");
+        assertFalse(firstDsl.containsKey("search_after"));
+        assertFalse(firstDsl.containsKey("from"));
+        assertEquals(firstDsl.get("sort"), Arrays.asList(mapOf(TIMESTAMP_PROPERTY_KEY, mapOf("order", "asc")), mapOf(GUID_PROPERTY_KEY, mapOf("order", "asc"))));
+
+        assertEquals(paginator.next().size(), 1);
+        assertFalse(paginator.hasNext());
+
+        Map secondDsl = dsls.get(1);
+
+        assertEquals(((Map) secondDsl.get("pit")).get("id"), "pit2");
+        assertEquals(secondDsl.get("search_after"), Collections.singletonList(2L));
+
+        verify(indexQuery, times(1)).closePointInTime("pit2");
+        assertTrue(paginator.next().isEmpty());
+        assertEquals(dsls.size(), 2);
+    }
+
+    @Test
+    public void testPagesWithoutPointInTime() throws Exception {
+        when(indexQuery.openPointInTime(anyString())).thenReturn(null);
+
+        pages.add(page(null, 1, 2));
+        pages.add(page(null));
+
+        List<Map> sort = Collections.singletonList(mapOf("__task_createdTime", mapOf("order", "asc")));
+        Map<String, Object> dsl = new HashMap<>();
+
+        dsl.put("sort", sort);
+
+        IndexSearchPaginator<AtlasIndexQuery.Result> paginator = new IndexSearchPaginator<>(indexQuery, dsl, 2, true, results -> results);
+
+        assertFalse(paginator.isOnPointInTime());
+        assertEquals(paginator.next().size(), 2);
+        assertTrue(paginator.next().isEmpty());
+        assertFalse(paginator.hasNext());
+
+        for (Map pageDsl : dsls) {
+            assertFalse(pageDsl.containsKey("pit"));
+            assertEquals(pageDsl.get("sort"), sort);
+        }
+
+        assertNull(dsls.get(0).get("search_after"));
+        assertEquals(dsls.get(1).get("search_after"), Collections.singletonList(2L));
+        verify(indexQuery, never()).closePointInTime(anyString());
+    }
+
+    @Test
+    public void testClosesPointInTimeOnException() throws Exception {
+        when(indexQuery.openPointInTime(anyString())).thenReturn("pit1");
+
+        pages.add(new AtlasBaseException("search failed"));
+
+        IndexSearchPaginator<AtlasIndexQuery.Result> paginator = new IndexSearchPaginator<>(indexQuery, new HashMap<>(), 2, true, results -> results);
+
+        try {
+            paginator.next();
+
+            fail("expected the search failure to be rethrown");
+        } catch (AtlasBaseException e) {
+            assertEquals(e.getMessage(), "search failed");
+        }
+
+        assertFalse(paginator.hasNext());
+        assertFalse(paginator.isOnPointInTime());
+        verify(indexQuery, times(1)).closePointInTime("pit1");
+    }
+
+    @Test
+    public void testCloseReleasesPointInTimeOnce() throws Exception {
+        when(indexQuery.openPointInTime(anyString())).thenReturn("pit1");
+
+        pages.add(page("pit1", 1, 2));
+
+        IndexSearchPaginator<AtlasIndexQuery.Result> paginator = new IndexSearchPaginator<>(indexQuery, new HashMap<>(), 2, true, results -> results);
+
+        paginator.next();
+        paginator.close();
+        paginator.close();
+
+        assertFalse(paginator.hasNext());
+        verify(indexQuery, times(1)).closePointInTime("pit1");
+    }
+
+    private static DirectIndexQueryResult page(String pitId, long... sortValues) {
+        List<AtlasIndexQuery.Result> results = new ArrayList<>();
+
+        for (long sortValue : sortValues) {
+            AtlasIndexQuery.Result result = mock(AtlasIndexQuery.Result.class);
+
+            when(result.getSort()).thenReturn(new ArrayList<>(Collections.singletonList(sortValue)));
+
+            results.add(result);
+        }
+
+        DirectIndexQueryResult ret = new DirectIndexQueryResult();
+
+        ret.setIterator(results.iterator());
+        ret.setPitId(pitId);
+
+        return ret;
+    }
+}
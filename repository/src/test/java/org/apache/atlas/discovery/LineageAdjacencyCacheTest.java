@@ -0,0 +1,167 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.discovery.LineageAdjacencyCache.AdjacentVertex;
+import org.apache.atlas.repository.graphdb.AtlasEdge;
+import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.atlas.discovery.LineageAdjacencyCache.PROCESS_INPUTS_EDGE;
+import static org.apache.atlas.repository.Constants.GUID_PROPERTY_KEY;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class LineageAdjacencyCacheTest {
+    @BeforeClass
+    public void setup() throws Exception {
+        // read once, when the cache class is loaded
+        ApplicationProperties.get().setProperty(AtlasConfiguration.LINEAGE_ADJACENCY_CACHE_ENABLED.getPropertyName(), true);
+
+        assertTrue(LineageAdjacencyCache.isEnabled());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        LineageAdjacencyCache.onTransactionComplete(false);
+    }
+
+    @Test
+    public void testReusesCachedAdjacency() {
+        AtomicInteger loads   = new AtomicInteger();
+        AtlasVertex   process = process("hit", loads, null);
+
+        assertGuids(getInputs(process), "hit-in1", "hit-in2");
+        assertGuids(getInputs(process), "hit-in1", "hit-in2");
+        assertEquals(loads.get(), 1);
+    }
+
+    @Test
+    public void testInvalidatesOnCommit() {
+        AtomicInteger loads   = new AtomicInteger();
+        AtlasVertex   process = process("commit", loads, null);
+
+        getInputs(process);
+
+        LineageAdjacencyCache.invalidate(lineageEdge(process, vertex("commit-in1")));
+
+        getInputs(process);
+        assertEquals(loads.get(), 2);
+
+        // a read racing with the commit caches the edges as of before it
+        getInputs(process);
+        assertEquals(loads.get(), 2);
+
+        LineageAdjacencyCache.onTransactionComplete(true);
+
+        getInputs(process);
+        assertEquals(loads.get(), 3);
+    }
+
+    @Test
+    public void testKeepsEntriesOnRollback() {
+        AtomicInteger loads   = new AtomicInteger();
+        AtlasVertex   process = process("rollback", loads, null);
+
+        LineageAdjacencyCache.invalidate(Collections.singletonList("rollback"));
+
+        getInputs(process);
+
+        LineageAdjacencyCache.onTransactionComplete(false);
+
+        getInputs(process);
+        assertEquals(loads.get(), 1);
+    }
+
+    @Test
+    public void testDropsEntryLoadedDuringInvalidation() {
+        AtomicInteger loads   = new AtomicInteger();
+        AtlasVertex   process = process("race", loads, () -> LineageAdjacencyCache.invalidate(Collections.singletonList("race")));
+
+        assertGuids(getInputs(process), "race-in1", "race-in2");
+
+        getInputs(process);
+        assertEquals(loads.get(), 2);
+
+        getInputs(process);
+        assertEquals(loads.get(), 2);
+    }
+
+    private static List<AdjacentVertex> getInputs(AtlasVertex process) {
+        return LineageAdjacencyCache.getAdjacentVertices(process, AtlasEdgeDirection.OUT, PROCESS_INPUTS_EDGE);
+    }
+
+    // onFirstLoad runs while the edges of the first load are read
+    private static AtlasVertex process(String id, AtomicInteger loads, Runnable onFirstLoad) {
+        AtlasVertex     ret   = vertex(id);
+        List<AtlasEdge> edges = new ArrayList<>();
+
+        edges.add(lineageEdge(ret, vertex(id + "-in1")));
+        edges.add(lineageEdge(ret, vertex(id + "-in2")));
+
+        when(ret.getEdges(AtlasEdgeDirection.OUT, PROCESS_INPUTS_EDGE)).thenAnswer(invocation -> {
+            if (loads.incrementAndGet() == 1 && onFirstLoad != null) {
+                onFirstLoad.run();
+            }
+
+            return edges;
+        });
+
+        return ret;
+    }
+
+    private static AtlasVertex vertex(String id) {
+        AtlasVertex ret = mock(AtlasVertex.class);
+
+        when(ret.getId()).thenReturn(id);
+        when(ret.getIdForDisplay()).thenReturn(id);
+        when(ret.getProperty(GUID_PROPERTY_KEY, String.class)).thenReturn(id);
+
+        return ret;
+    }
+
+    private static AtlasEdge lineageEdge(AtlasVertex process, AtlasVertex dataset) {
+        AtlasEdge ret = mock(AtlasEdge.class);
+
+        when(ret.getLabel()).thenReturn(PROCESS_INPUTS_EDGE);
+        when(ret.getOutVertex()).thenReturn(process);
+        when(ret.getInVertex()).thenReturn(dataset);
+
+        return ret;
+    }
+
+    private static void assertGuids(List<AdjacentVertex> adjacentVertices, String... guids) {
+        assertEquals(adjacentVertices.size(), guids.length);
+
+        for (int i = 0; i < guids.length; i++) {
+            assertEquals(adjacentVertices.get(i).getGuid(), guids[i]);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.BasicTestSetup;
+import org.apache.atlas.RequestContext;
+import org.apache.atlas.TestModules;
+import org.apache.atlas.model.lineage.AtlasLineageListInfo;
+import org.apache.atlas.model.lineage.LineageListRequest;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Measures nodes/second of the lineage list traversal over a synthetic lineage graph: a binary tree of
+ * datasets, each dataset feeding one process that writes two child datasets.
+ *
+ * Not run by default, as building the graph takes a while; run with
+ *   mvn test -pl repository -Dtest=LineageListTraversalBenchmark -Datlas.benchmark.lineage.list=true
+ * and optionally -Datlas.benchmark.lineage.list.nodes=100000 -Datlas.benchmark.lineage.list.iterations=5
+ */
+@Guice(modules = TestModules.TestOnlyModule.class)
+public class LineageListTraversalBenchmark extends BasicTestSetup {
+    private static final Logger LOG = LoggerFactory.getLogger(LineageListTraversalBenchmark.class);
+
+    private static final String ENABLED_PROPERTY    = "atlas.benchmark.lineage.list";
+    private static final String NODES_PROPERTY      = "atlas.benchmark.lineage.list.nodes";
+    private static final String ITERATIONS_PROPERTY = "atlas.benchmark.lineage.list.iterations";
+    private static final String DATASET_TYPE        = "DataSet";
+    private static final String PROCESS_TYPE        = "Process";
+    private static final int    COMMIT_BATCH_SIZE   = 5000;
+
+    @Inject
+    private AtlasLineageService lineageService;
+
+    private String rootGuid;
+    private int    nodeCount;
+    private int    datasetCount;
+
+    @BeforeClass
+    public void setup() throws Exception {
+        if (!Boolean.getBoolean(ENABLED_PROPERTY)) {
+            throw new SkipException("lineage list benchmark is disabled; set -D" + ENABLED_PROPERTY + "=true to run it");
+        }
+
+        super.initialize();
+
+        setupTestData();
+
+        rootGuid = createLineageTree(Integer.getInteger(NODES_PROPERTY, 100000));
+    }
+
+    @Test
+    public void benchmarkLineageListTraversal() throws Exception {
+        int iterations = Integer.getInteger(ITERATIONS_PROPERTY, 5);
+
+        runTraversal(); // warm-up
+
+        long totalNanos = 0;
+
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+
+            AtlasLineageListInfo result = runTraversal();
+
+            totalNanos += System.nanoTime() - start;
+
+            assertEquals(result.getEntities().size(), nodeCount);
+        }
+
+        double seconds = totalNanos / 1_000_000_000d;
+
+        LOG.info("lineage list traversal: nodes={}, iterations={}, avgMs={}, nodesPerSecond={}",
+                 nodeCount, iterations, (long) (seconds * 1000 / iterations), (long) (nodeCount * (long) iterations / seconds));
+    }
+
+    private AtlasLineageListInfo runTraversal() throws Exception {
+        LineageListRequest request = new LineageListRequest();
+
+        request.setGuid(rootGuid);
+        request.setSize(nodeCount);
+        request.setFrom(0);
+        request.setDepth(nodeCount);
+        request.setDirection(LineageListRequest.LineageDirection.OUTPUT);
+        request.setAttributes(new HashSet<>());
+        request.setRelationAttributes(new HashSet<>());
+
+        RequestContext.clear();
+
+        try {
+            return lineageService.getLineageListInfoOnDemand(rootGuid, request);
+        } finally {
+            RequestContext.clear();
+        }
+    }
+
+    // dataset i is read by process i, which writes datasets 2i+1 and 2i+2
+    private String createLineageTree(int targetNodeCount) {
+        AtlasGraph        graph    = AtlasGraphProvider.getGraphInstance();
+        List<AtlasVertex> datasets = new ArrayList<>();
+        int               pending  = 0;
+
+        datasetCount = (targetNodeCount + 1) / 3 * 2 + 1;
+
+        for (int i = 0; i < datasetCount; i++) {
+            datasets.add(createVertex(graph, DATASET_TYPE));
+        }
+
+        nodeCount = datasetCount;
+
+        for (int i = 0; 2 * i + 2 < datasetCount; i++) {
+            AtlasVertex process = createVertex(graph, PROCESS_TYPE);
+
+            graph.addEdge(process, datasets.get(i), LineageAdjacencyCache.PROCESS_INPUTS_EDGE).setProperty(Constants.STATE_PROPERTY_KEY, "ACTIVE");
+            graph.addEdge(process, datasets.get(2 * i + 1), LineageAdjacencyCache.PROCESS_OUTPUTS_EDGE).setProperty(Constants.STATE_PROPERTY_KEY, "ACTIVE");
+            graph.addEdge(process, datasets.get(2 * i + 2), LineageAdjacencyCache.PROCESS_OUTPUTS_EDGE).setProperty(Constants.STATE_PROPERTY_KEY, "ACTIVE");
+
+            nodeCount++;
+
+            if (++pending == COMMIT_BATCH_SIZE) {
+                graph.commit();
+
+                pending = 0;
+            }
+        }
+
+        graph.commit();
+
+        LOG.info("created synthetic lineage graph: datasets={}, nodes={}", datasetCount, nodeCount);
+
+        return datasets.get(0).getProperty(Constants.GUID_PROPERTY_KEY, String.class);
+    }
+
+    private static AtlasVertex createVertex(AtlasGraph graph, String typeName) {
+        AtlasVertex ret  = graph.addVertex();
+        String      guid = UUID.randomUUID().toString();
+
+        ret.setProperty(Constants.ENTITY_TYPE_PROPERTY_KEY, typeName);
+        ret.setProperty(Constants.TYPE_NAME_PROPERTY_KEY, typeName);
+        ret.setProperty(Constants.GUID_PROPERTY_KEY, guid);
+        ret.setProperty(Constants.STATE_PROPERTY_KEY, "ACTIVE");
+        ret.setProperty(Constants.QUALIFIED_NAME, typeName + "://" + guid);
+        ret.setProperty(Constants.NAME, typeName + "-" + guid);
+
+        return ret;
+    }
+}
@@ -0,0 +1,314 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.model.audit.EntityAuditEventV2;
+import org.apache.atlas.model.audit.EntityAuditEventV2.EntityAuditActionV2;
+import org.apache.atlas.model.instance.AtlasClassification;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.type.AtlasType;
+import org.apache.commons.configuration.Configuration;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NStringEntity;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+
+import static org.apache.atlas.AtlasConfiguration.ENTITY_AUDIT_ES_LINGER_MS;
+import static org.apache.atlas.AtlasConfiguration.ENTITY_AUDIT_ES_MAX_RETRIES;
+import static org.apache.atlas.AtlasConfiguration.ENTITY_AUDIT_ES_QUEUE_MAX_BYTES;
+import static org.apache.atlas.AtlasConfiguration.ENTITY_AUDIT_ES_SPOOL_DIR;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ESAuditBulkWriterTest {
+    private static final String       INDEX_NAME = "entity_audits";
+    private static final String       OK         = "{\"errors\":false,\"items\":[]}";
+    private static final ObjectMapper MAPPER     = new ObjectMapper();
+    private static final long         WAIT_MS    = 10 * 1000;
+    private static final String[]     PROPERTIES = { ENTITY_AUDIT_ES_LINGER_MS.getPropertyName(), ENTITY_AUDIT_ES_MAX_RETRIES.getPropertyName(),
+                                                 ENTITY_AUDIT_ES_QUEUE_MAX_BYTES.getPropertyName(), ENTITY_AUDIT_ES_SPOOL_DIR.getPropertyName() };
+
+    private final List<String>  bodies    = Collections.synchronizedList(new ArrayList<>());
+    private final Queue<Object> responses = new ConcurrentLinkedQueue<>();
+
+    private File              spoolDir;
+    private RestClient        client;
+    private ESAuditBulkWriter writer;
+    private volatile boolean  isAvailable;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        spoolDir    = Files.createTempDirectory("audit-spool").toFile();
+        client      = mock(RestClient.class);
+        isAvailable = true;
+
+        Response okResponse = response(OK);
+
+        bodies.clear();
+        responses.clear();
+
+        when(client.performRequest(any(Request.class))).thenAnswer(invocation -> {
+            Request request = (Request) invocation.getArguments()[0];
+
+            bodies.add(EntityUtils.toString(request.getEntity()));
+
+            Object response = responses.poll();
+
+            if (response == null) {
+                response = isAvailable ? okResponse : new IOException("ES is not available");
+            }
+
+            if (response instanceof IOException) {
+                throw (IOException) response;
+            }
+
+            return response;
+        });
+
+        Configuration properties = ApplicationProperties.get();
+
+        properties.setProperty(ENTITY_AUDIT_ES_LINGER_MS.getPropertyName(), 10);
+        properties.setProperty(ENTITY_AUDIT_ES_MAX_RETRIES.getPropertyName(), 3);
+        properties.setProperty(ENTITY_AUDIT_ES_SPOOL_DIR.getPropertyName(), spoolDir.getAbsolutePath());
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        if (writer != null) {
+            writer.stop();
+
+            writer = null;
+        }
+
+        for (String property : PROPERTIES) {
+            ApplicationProperties.get().clearProperty(property);
+        }
+
+        for (File file : spoolDir.listFiles()) {
+            Files.delete(file.toPath());
+        }
+
+        Files.delete(spoolDir.toPath());
+    }
+
+    @Test
+    public void writesQueuedAuditsInBulk() throws Exception {
+        List<String> items = getItems(3);
+
+        writer = new ESAuditBulkWriter(client, INDEX_NAME);
+
+        writer.add(items);
+
+        waitFor(() -> bodies.size() == 1);
+
+        assertEquals(bodies.get(0), String.join("", items));
+        assertEquals(getSpoolFiles().size(), 0);
+    }
+
+    @Test
+    public void retriesAuditsRejectedAsTooManyRequests() throws Exception {
+        List<String> items = getItems(3);
+
+        responses.add(response("{\"errors\":true,\"items\":[{\"index\":{\"status\":201}}," +
+                               "{\"index\":{\"status\":429,\"error\":{\"type\":\"es_rejected_execution_exception\"}}}," +
+                               "{\"index\":{\"status\":201}}]}"));
+
+        writer = new ESAuditBulkWriter(client, INDEX_NAME);
+
+        writer.add(items);
+
+        waitFor(() -> bodies.size() == 2);
+
+        assertEquals(bodies.get(0), String.join("", items));
+        assertEquals(bodies.get(1), items.get(1));
+        assertEquals(getSpoolFiles().size(), 0);
+    }
+
+    @Test
+    public void spoolsFailedAuditsAndWritesThemLater() throws Exception {
+        List<String> items = getItems(2);
+
+        ApplicationProperties.get().setProperty(ENTITY_AUDIT_ES_MAX_RETRIES.getPropertyName(), 0);
+
+        isAvailable = false;
+        writer      = new ESAuditBulkWriter(client, INDEX_NAME);
+
+        writer.add(items);
+
+        waitFor(() -> getSpoolFiles().size() == 1 && bodies.size() > 1);
+
+        assertEquals(new String(Files.readAllBytes(getSpoolFiles().get(0).toPath()), StandardCharsets.UTF_8), String.join("", items));
+
+        isAvailable = true;
+
+        waitFor(() -> getSpoolFiles().isEmpty());
+
+        for (String body : bodies) {
+            assertEquals(body, String.join("", items));
+        }
+    }
+
+    @Test
+    public void spoolsAuditsBeyondQueueBytes() throws Exception {
+        List<String> items = getItems(2);
+
+        ApplicationProperties.get().setProperty(ENTITY_AUDIT_ES_QUEUE_MAX_BYTES.getPropertyName(), items.get(0).length() - 1);
+
+        isAvailable = false;
+        writer      = new ESAuditBulkWriter(client, INDEX_NAME);
+
+        writer.add(items);
+
+        assertEquals(getSpoolFiles().size(), 1);
+
+        isAvailable = true;
+
+        waitFor(() -> getSpoolFiles().isEmpty());
+
+        assertEquals(bodies.get(bodies.size() - 1), String.join("", items));
+    }
+
+    @Test
+    public void actionLineGivesIdOfAudit() {
+        String actionLine = ESBasedAuditRepository.getBulkMetadata("audit1");
+
+        assertEquals(actionLine.trim(), "{ \"index\" : { \"_index\" : \"entity_audits\", \"_id\" : \"audit1\" } }");
+    }
+
+    @Test
+    public void indexesAuditOfEachClassificationOfAnEntity() throws Exception {
+        AtlasEntity entity = new AtlasEntity("hive_table");
+
+        entity.setGuid("guid1");
+        entity.setUpdateTime(new Date(1000));
+
+        List<EntityAuditEventV2> events = Arrays.asList(getClassificationAddEvent(entity, "PII"), getClassificationAddEvent(entity, "PHI"));
+        List<String>             items  = new ESBasedAuditRepository(ApplicationProperties.get()).getBulkItems(events);
+
+        // the audit of the second classification is rejected once, to be written again with the same id
+        responses.add(response("{\"errors\":true,\"items\":[{\"index\":{\"status\":201}}," +
+                               "{\"index\":{\"status\":429,\"error\":{\"type\":\"es_rejected_execution_exception\"}}}]}"));
+
+        writer = new ESAuditBulkWriter(client, INDEX_NAME);
+
+        writer.add(items);
+
+        waitFor(() -> bodies.size() == 2);
+
+        Map<String, JsonNode> documents = new HashMap<>();
+
+        for (String body : bodies) {
+            String[] lines = body.split("\n");
+
+            for (int i = 0; i + 1 < lines.length; i += 2) {
+                String id = MAPPER.readTree(lines[i]).get("index").get("_id").asText();
+
+                documents.put(id, MAPPER.readTree(lines[i + 1]));
+            }
+        }
+
+        assertEquals(documents.size(), 2);
+
+        Set<String> classifications = new HashSet<>();
+
+        for (JsonNode document : documents.values()) {
+            assertEquals(document.get("entityId").asText(), "guid1");
+            assertEquals(document.get("action").asText(), EntityAuditActionV2.CLASSIFICATION_ADD.toString());
+
+            classifications.add(document.get("detail").get("typeName").asText());
+        }
+
+        assertEquals(classifications, new HashSet<>(Arrays.asList("PII", "PHI")));
+    }
+
+    private static EntityAuditEventV2 getClassificationAddEvent(AtlasEntity entity, String classificationName) {
+        EntityAuditEventV2 ret = new EntityAuditEventV2();
+
+        ret.setEntityId(entity.getGuid());
+        ret.setTimestamp(entity.getUpdateTime().getTime());
+        ret.setUser("admin");
+        ret.setAction(EntityAuditActionV2.CLASSIFICATION_ADD);
+        ret.setDetails(EntityAuditListenerV2.getV2AuditPrefix(EntityAuditActionV2.CLASSIFICATION_ADD) + AtlasType.toJson(new AtlasClassification(classificationName)));
+        ret.setEntityQualifiedName(AtlasType.toJson("db.t1"));
+        ret.setEntity(entity);
+
+        return ret;
+    }
+
+    private static List<String> getItems(int count) {
+        List<String> ret = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            ret.add("{\"index\":{\"_id\":\"" + i + "\"}}\n{\"entityId\":\"guid" + i + "\"}\n");
+        }
+
+        return ret;
+    }
+
+    private static Response response(String body) {
+        Response ret = mock(Response.class);
+
+        when(ret.getEntity()).thenReturn(new NStringEntity(body, ContentType.APPLICATION_JSON));
+
+        return ret;
+    }
+
+    private List<File> getSpoolFiles() {
+        File[] files = spoolDir.listFiles((dir, name) -> name.endsWith(".bulk"));
+
+        return files != null ? Arrays.asList(files) : Collections.emptyList();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2;
+
+import org.apache.atlas.BasicTestSetup;
+import org.apache.atlas.GraphTransactionInterceptor;
+import org.apache.atlas.TestModules;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+@Guice(modules = TestModules.TestOnlyModule.class)
+public class AtlasGraphUtilsV2Test extends BasicTestSetup {
+    @Inject
+    AtlasGraph graph;
+
+    private final List<String> guids = new ArrayList<>();
+
+    @BeforeClass
+    public void setup() throws Exception {
+        super.initialize();
+
+        setupTestData();
+
+        for (int i = 0; i < 3; i++) {
+            for (AtlasEntityHeader header : createDummyEntity("findByGuids" + i, HIVE_TABLE_TYPE).getCreatedEntities()) {
+                guids.add(header.getGuid());
+            }
+        }
+    }
+
+    @Test
+    public void testFindByGuids() {
+        String unknownGuid = UUID.randomUUID().toString();
+
+        GraphTransactionInterceptor.clearCache();
+
+        List<String> toFind = new ArrayList<>(guids);
+
+        toFind.add(unknownGuid);
+        toFind.add(guids.get(0));
+        toFind.add(null);
+
+        Map<String, AtlasVertex> vertices = AtlasGraphUtilsV2.findByGuids(graph, toFind);
+
+        assertEquals(vertices.size(), guids.size());
+        assertFalse(vertices.containsKey(unknownGuid));
+
+        for (String guid : guids) {
+            AtlasVertex vertex = vertices.get(guid);
+
+            assertNotNull(vertex);
+            assertEquals(vertex.getId(), AtlasGraphUtilsV2.findByGuid(graph, guid).getId());
+            assertSame(GraphTransactionInterceptor.getVertexFromCache(guid), vertex);
+        }
+    }
+
+    @Test
+    public void testFindByGuidsUsesCache() {
+        GraphTransactionInterceptor.clearCache();
+
+        AtlasVertex cached = AtlasGraphUtilsV2.findByGuid(graph, guids.get(0));
+
+        Map<String, AtlasVertex> vertices = AtlasGraphUtilsV2.findByGuids(graph, Arrays.asList(guids.get(0), guids.get(1)));
+
+        assertSame(vertices.get(guids.get(0)), cached);
+        assertNotNull(vertices.get(guids.get(1)));
+        assertTrue(AtlasGraphUtilsV2.findByGuids(graph, new ArrayList<>()).isEmpty());
+    }
+}
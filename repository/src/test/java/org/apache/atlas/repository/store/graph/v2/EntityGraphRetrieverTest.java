@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2;
+
+import org.apache.atlas.BasicTestSetup;
+import org.apache.atlas.TestModules;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.apache.atlas.repository.Constants.ENTITY_TYPE_PROPERTY_KEY;
+import static org.apache.atlas.repository.graph.GraphHelper.getTypeName;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Guice(modules = TestModules.TestOnlyModule.class)
+public class EntityGraphRetrieverTest extends BasicTestSetup {
+    @Inject
+    AtlasGraph graph;
+
+    private EntityGraphRetriever entityRetriever;
+
+    @BeforeClass
+    public void setup() throws Exception {
+        super.initialize();
+
+        setupTestData();
+
+        for (int i = 0; i < 25; i++) {
+            if (i % 2 == 0) {
+                createDummyEntity("toAtlasEntityHeaders" + i, HIVE_TABLE_TYPE, PII_CLASSIFICATION);
+            } else {
+                createDummyEntity("toAtlasEntityHeaders" + i, HIVE_TABLE_TYPE);
+            }
+        }
+
+        entityRetriever = new EntityGraphRetriever(graph, typeRegistry);
+    }
+
+    @Test
+    public void testToAtlasEntityHeadersMatchesSingleVertex() throws Exception {
+        List<AtlasVertex> vertices = new ArrayList<>();
+
+        for (AtlasVertex vertex : (Iterable<AtlasVertex>) graph.query().has(ENTITY_TYPE_PROPERTY_KEY, HIVE_TABLE_TYPE).vertices()) {
+            vertices.add(vertex);
+        }
+
+        assertTrue(vertices.size() > 25);
+
+        Set<String> attributes = new HashSet<>(Arrays.asList("owner", "db", "columns", "createTime"));
+
+        assertHeadersMatchSingleVertex(vertices, attributes, false);
+        assertHeadersMatchSingleVertex(vertices, attributes, true);
+        assertHeadersMatchSingleVertex(vertices.subList(0, 1), null, true);
+        assertTrue(entityRetriever.toAtlasEntityHeaders(new ArrayList<>(), attributes, true).isEmpty());
+    }
+
+    @Test
+    public void testImpactedVerticesByLevelMatchesTraversal() {
+        List<String> lineageLabels = Arrays.asList("__Process.inputs", "__Process.outputs");
+        boolean      anyImpacted   = false;
+
+        for (AtlasVertex vertex : (Iterable<AtlasVertex>) graph.query().vertices()) {
+            if (getTypeName(vertex) == null) {
+                continue;
+            }
+
+            for (Boolean toExclude : Arrays.asList(false, true)) {
+                List<String> edgeLabelsToCheck = toExclude ? lineageLabels : null;
+                Set<String>  expected          = new HashSet<>();
+
+                for (AtlasVertex impactedVertex : entityRetriever.getImpactedVerticesV2(vertex, null, null, edgeLabelsToCheck, toExclude)) {
+                    expected.add(impactedVertex.getIdForDisplay());
+                }
+
+                List<String> impactedVerticesIds = entityRetriever.getImpactedVerticesIds(vertex, null, null, edgeLabelsToCheck, toExclude);
+
+                assertEquals(impactedVerticesIds.size(), expected.size(), vertex.getIdForDisplay());
+                assertEquals(new HashSet<>(impactedVerticesIds), expected, vertex.getIdForDisplay());
+
+                anyImpacted |= !expected.isEmpty();
+            }
+        }
+
+        assertTrue(anyImpacted);
+    }
+
+    private void assertHeadersMatchSingleVertex(List<AtlasVertex> vertices, Set<String> attributes, boolean includeClassifications) throws Exception {
+        List<AtlasEntityHeader> headers = entityRetriever.toAtlasEntityHeaders(vertices, attributes, includeClassifications);
+
+        assertEquals(headers.size(), vertices.size());
+
+        for (int i = 0; i < vertices.size(); i++) {
+            AtlasEntityHeader expected = entityRetriever.toAtlasEntityHeader(vertices.get(i), attributes);
+
+            if (includeClassifications) {
+                expected.setClassifications(entityRetriever.getAllClassifications(vertices.get(i)));
+            }
+
+            assertEquals(headers.get(i), expected);
+            assertEquals(headers.get(i).getAttributes(), expected.getAttributes());
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2;
+
+import org.apache.atlas.repository.graphdb.AtlasEdge;
+import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
+import org.apache.atlas.repository.graphdb.AtlasElement;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.repository.store.graph.v2.AtlasRelationshipStoreV2.RelationshipMutation;
+import org.apache.atlas.repository.store.graph.v2.LineageCountsUpdater.PendingUpdates;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.atlas.repository.Constants.LINEAGE_DOWNSTREAM_COUNT_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.LINEAGE_UPSTREAM_COUNT_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.PROCESS_INPUTS;
+import static org.apache.atlas.repository.Constants.PROCESS_OUTPUTS;
+import static org.apache.atlas.repository.Constants.STATE_PROPERTY_KEY;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+public class LineageCountsUpdaterTest {
+    private static final String ACTIVE  = "ACTIVE";
+    private static final String DELETED = "DELETED";
+
+    private Map<String, AtlasVertex> vertices;
+    private List<AtlasEdge>          edges;
+    private AtlasGraph               graph;
+    private int                      nextEdgeId;
+
+    @BeforeMethod
+    public void setup() {
+        vertices   = new HashMap<>();
+        edges      = new ArrayList<>();
+        graph      = mock(AtlasGraph.class);
+        nextEdgeId = 0;
+
+        when(graph.getVertex(anyString())).thenAnswer(invocation -> vertices.get((String) invocation.getArguments()[0]));
+    }
+
+    @Test
+    public void initializesDatasetsFromTheirProcesses() {
+        AtlasVertex process = vertex("p1");
+        AtlasVertex input   = vertex("in1");
+        AtlasVertex output1 = vertex("out1");
+        AtlasVertex output2 = vertex("out2");
+
+        update(RelationshipMutation.RELATIONSHIP_CREATE, edge(process, PROCESS_INPUTS, input), edge(process, PROCESS_OUTPUTS, output1), edge(process, PROCESS_OUTPUTS, output2));
+
+        assertCounts(input, 0, 2);
+        assertCounts(output1, 1, 0);
+        assertCounts(output2, 1, 0);
+    }
+
+    @Test
+    public void appliesDeltasOfProcessesSharingDatasets() {
+        AtlasVertex process1 = vertex("p1");
+        AtlasVertex process2 = vertex("p2");
+        AtlasVertex input    = vertex("in1");
+        AtlasVertex output1  = vertex("out1");
+        AtlasVertex output2  = vertex("out2");
+
+        update(RelationshipMutation.RELATIONSHIP_CREATE, edge(process1, PROCESS_INPUTS, input), edge(process1, PROCESS_OUTPUTS, output1));
+        update(RelationshipMutation.RELATIONSHIP_CREATE, edge(process2, PROCESS_INPUTS, input), edge(process2, PROCESS_OUTPUTS, output1));
+
+        assertCounts(input, 0, 2);
+        assertCounts(output1, 2, 0);
+
+        update(RelationshipMutation.RELATIONSHIP_CREATE, edge(process1, PROCESS_OUTPUTS, output2));
+
+        assertCounts(input, 0, 3);
+        assertCounts(output1, 2, 0);
+        assertCounts(output2, 1, 0);
+
+        update(RelationshipMutation.RELATIONSHIP_CREATE, edge(process2, PROCESS_INPUTS, vertex("in2")));
+
+        assertCounts(input, 0, 3);
+        assertCounts(output1, 3, 0);
+        assertCounts(vertices.get("in2"), 0, 1);
+    }
+
+    @Test
+    public void softDeleteAndRestoreOfEdgeUpdateCounts() {
+        AtlasVertex process = vertex("p1");
+        AtlasVertex input   = vertex("in1");
+        AtlasVertex output1 = vertex("out1");
+        AtlasEdge   edge    = edge(process, PROCESS_OUTPUTS, vertex("out2"));
+
+        update(RelationshipMutation.RELATIONSHIP_CREATE, edge(process, PROCESS_INPUTS, input), edge(process, PROCESS_OUTPUTS, output1), edge);
+
+        setState(edge, DELETED);
+        update(RelationshipMutation.RELATIONSHIP_SOFT_DELETE, edge);
+
+        assertCounts(input, 0, 1);
+        assertCounts(output1, 1, 0);
+        assertCounts(vertices.get("out2"), 0, 0);
+
+        setState(edge, ACTIVE);
+        update(RelationshipMutation.RELATIONSHIP_RESTORE, edge);
+
+        assertCounts(input, 0, 2);
+        assertCounts(output1, 1, 0);
+        assertCounts(vertices.get("out2"), 1, 0);
+    }
+
+    @Test
+    public void softDeleteAndRestoreOfProcessUpdateCounts() {
+        AtlasVertex process = vertex("p1");
+        AtlasVertex input   = vertex("in1");
+        AtlasVertex output  = vertex("out1");
+        AtlasEdge   inEdge  = edge(process, PROCESS_INPUTS, input);
+        AtlasEdge   outEdge = edge(process, PROCESS_OUTPUTS, output);
+
+        update(RelationshipMutation.RELATIONSHIP_CREATE, inEdge, outEdge);
+
+        setState(process, DELETED);
+        setState(inEdge, DELETED);
+        setState(outEdge, DELETED);
+        update(RelationshipMutation.RELATIONSHIP_SOFT_DELETE, inEdge, outEdge);
+
+        assertCounts(input, 0, 0);
+        assertCounts(output, 0, 0);
+
+        setState(process, ACTIVE);
+        setState(inEdge, ACTIVE);
+        setState(outEdge, ACTIVE);
+        update(RelationshipMutation.RELATIONSHIP_RESTORE, inEdge, outEdge);
+
+        assertCounts(input, 0, 1);
+        assertCounts(output, 1, 0);
+    }
+
+    @Test
+    public void purgeOfEdgeTakesItsContributionOut() {
+        AtlasVertex process = vertex("p1");
+        AtlasVertex input   = vertex("in1");
+        AtlasVertex output1 = vertex("out1");
+        AtlasVertex output2 = vertex("out2");
+        AtlasEdge   edge    = edge(process, PROCESS_OUTPUTS, output2);
+
+        update(RelationshipMutation.RELATIONSHIP_CREATE, edge(process, PROCESS_INPUTS, input), edge(process, PROCESS_OUTPUTS, output1), edge);
+
+        PendingUpdates pending = new PendingUpdates();
+
+        pending.add(RelationshipMutation.RELATIONSHIP_HARD_DELETE, edge);
+        edges.remove(edge);
+
+        LineageCountsUpdater.applyPendingUpdates(graph, pending);
+
+        assertCounts(input, 0, 1);
+        assertCounts(output1, 1, 0);
+        assertCounts(output2, 0, 0);
+    }
+
+    @Test
+    public void repairRecomputesCounts() {
+        AtlasVertex process = vertex("p1");
+        AtlasVertex input   = vertex("in1");
+        AtlasVertex output  = vertex("out1");
+
+        update(RelationshipMutation.RELATIONSHIP_CREATE, edge(process, PROCESS_INPUTS, input), edge(process, PROCESS_OUTPUTS, output));
+
+        input.setProperty(LINEAGE_DOWNSTREAM_COUNT_PROPERTY_KEY, 5L);
+        output.setProperty(LINEAGE_UPSTREAM_COUNT_PROPERTY_KEY, 0L);
+
+        LineageCountsUpdater.repair(graph, Arrays.asList(input, output));
+
+        assertCounts(input, 0, 1);
+        assertCounts(output, 1, 0);
+    }
+
+    private void update(RelationshipMutation mutation, AtlasEdge... mutatedEdges) {
+        PendingUpdates pending = new PendingUpdates();
+
+        for (AtlasEdge edge : mutatedEdges) {
+            pending.add(mutation, edge);
+        }
+
+        LineageCountsUpdater.applyPendingUpdates(graph, pending);
+    }
+
+    private static void assertCounts(AtlasVertex dataset, long upstream, long downstream) {
+        assertEquals(dataset.getProperty(LINEAGE_UPSTREAM_COUNT_PROPERTY_KEY, Long.class), Long.valueOf(upstream), "upstream count of " + dataset.getIdForDisplay());
+        assertEquals(dataset.getProperty(LINEAGE_DOWNSTREAM_COUNT_PROPERTY_KEY, Long.class), Long.valueOf(downstream), "downstream count of " + dataset.getIdForDisplay());
+    }
+
+    private static void setState(AtlasElement element, String state) {
+        element.setProperty(STATE_PROPERTY_KEY, state);
+    }
+
+    private AtlasVertex vertex(String id) {
+        AtlasVertex ret = mock(AtlasVertex.class);
+
+        stubProperties(ret, id);
+
+        when(ret.getEdges(any(AtlasEdgeDirection.class), anyString())).thenAnswer(invocation -> {
+            AtlasEdgeDirection direction = (AtlasEdgeDirection) invocation.getArguments()[0];
+            String             label     = (String) invocation.getArguments()[1];
+            List<AtlasEdge>    edgesOf   = new ArrayList<>();
+
+            for (AtlasEdge edge : edges) {
+                AtlasVertex end = direction == AtlasEdgeDirection.OUT ? edge.getOutVertex() : edge.getInVertex();
+
+                if (end == ret && label.equals(edge.getLabel())) {
+                    edgesOf.add(edge);
+                }
+            }
+
+            return edgesOf;
+        });
+
+        vertices.put(id, ret);
+
+        return ret;
+    }
+
+    private AtlasEdge edge(AtlasVertex process, String label, AtlasVertex dataset) {
+        AtlasEdge ret = mock(AtlasEdge.class);
+
+        stubProperties(ret, "e" + nextEdgeId++);
+
+        when(ret.getLabel()).thenReturn(label);
+        when(ret.getOutVertex()).thenReturn(process);
+        when(ret.getInVertex()).thenReturn(dataset);
+
+        edges.add(ret);
+
+        return ret;
+    }
+
+    private static void stubProperties(AtlasElement element, String id) {
+        Map<String, Object> properties = new HashMap<>();
+
+        properties.put(STATE_PROPERTY_KEY, ACTIVE);
+
+        when(element.getIdForDisplay()).thenReturn(id);
+        when(element.getProperty(anyString(), any(Class.class))).thenAnswer(invocation -> properties.get((String) invocation.getArguments()[0]));
+
+        doAnswer(invocation -> properties.put((String) invocation.getArguments()[0], invocation.getArguments()[1])).when(element).setProperty(anyString(), any());
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2;
+
+import org.apache.atlas.BasicTestSetup;
+import org.apache.atlas.TestModules;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.type.AtlasEntityType;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.apache.atlas.repository.Constants.QUALIFIED_NAME;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+@Guice(modules = TestModules.TestOnlyModule.class)
+public class UniqAttrBasedEntityResolverTest extends BasicTestSetup {
+    private static final String DATASET_TYPE = "DataSet";
+    private static final String TABLE_PREFIX = "uniqAttrResolver";
+    private static final int    TABLE_COUNT  = 5;
+
+    @Inject
+    AtlasGraph graph;
+
+    private UniqAttrBasedEntityResolver resolver;
+
+    @BeforeClass
+    public void setup() throws Exception {
+        super.initialize();
+
+        setupTestData();
+
+        for (int i = 0; i < TABLE_COUNT; i++) {
+            createDummyEntity(TABLE_PREFIX + i, HIVE_TABLE_TYPE);
+        }
+
+        resolver = new UniqAttrBasedEntityResolver(graph, typeRegistry, null);
+    }
+
+    @Test
+    public void testFindVerticesMatchesFindByUniqueAttributes() throws Exception {
+        Map<AtlasObjectId, String> references = new LinkedHashMap<>();
+
+        for (int i = 0; i < TABLE_COUNT; i++) {
+            references.put(new AtlasObjectId(HIVE_TABLE_TYPE, QUALIFIED_NAME, TABLE_PREFIX + i), null);
+        }
+
+        // sub-type fallback: the tables are found by their super-type
+        references.put(new AtlasObjectId(DATASET_TYPE, QUALIFIED_NAME, TABLE_PREFIX + 0), null);
+
+        // duplicate values, within a type and across types
+        references.put(new AtlasObjectId("-1", HIVE_TABLE_TYPE, uniqueAttributes(QUALIFIED_NAME, TABLE_PREFIX + 1)), null);
+        references.put(new AtlasObjectId("-2", HIVE_TABLE_TYPE, uniqueAttributes(QUALIFIED_NAME, TABLE_PREFIX + 1)), null);
+        references.put(new AtlasObjectId(DATASET_TYPE, QUALIFIED_NAME, TABLE_PREFIX + 1), null);
+
+        // multi-attribute reference, resolved on its own
+        Map<String, Object> multiAttributes = uniqueAttributes(QUALIFIED_NAME, TABLE_PREFIX + 2);
+
+        multiAttributes.put("name", TABLE_PREFIX + 2);
+
+        references.put(new AtlasObjectId(HIVE_TABLE_TYPE, multiAttributes), null);
+
+        references.put(new AtlasObjectId(HIVE_TABLE_TYPE, QUALIFIED_NAME, "missing"), null);
+        references.put(new AtlasObjectId(DATASET_TYPE, QUALIFIED_NAME, "missing"), null);
+
+        Map<AtlasObjectId, AtlasVertex> vertices = assertMatchesFindByUniqueAttributes(references);
+
+        assertEquals(vertices.size(), references.size() - 2);
+        assertEquals(getId(vertices.get(new AtlasObjectId("-1", HIVE_TABLE_TYPE))), getId(vertices.get(new AtlasObjectId("-2", HIVE_TABLE_TYPE))));
+    }
+
+    @Test
+    public void testFindVerticesSkipsSubTypesOfSkippedTypes() throws Exception {
+        Map<AtlasObjectId, String> references = new LinkedHashMap<>();
+
+        references.put(new AtlasObjectId(DATASET_TYPE, QUALIFIED_NAME, TABLE_PREFIX + 0), null);
+        references.put(new AtlasObjectId(HIVE_TABLE_TYPE, QUALIFIED_NAME, TABLE_PREFIX + 0), null);
+
+        AtlasTypeRegistry.TYPENAMES_TO_SKIP_SUPER_TYPE_CHECK.add(DATASET_TYPE);
+
+        try {
+            Map<AtlasObjectId, AtlasVertex> vertices = assertMatchesFindByUniqueAttributes(references);
+
+            assertNull(vertices.get(new AtlasObjectId(DATASET_TYPE, QUALIFIED_NAME, TABLE_PREFIX + 0)));
+            assertNotNull(vertices.get(new AtlasObjectId(HIVE_TABLE_TYPE, QUALIFIED_NAME, TABLE_PREFIX + 0)));
+        } finally {
+            AtlasTypeRegistry.TYPENAMES_TO_SKIP_SUPER_TYPE_CHECK.remove(DATASET_TYPE);
+        }
+    }
+
+    @Test
+    public void testFindVerticesOverMultipleQueryBatches() throws Exception {
+        Map<AtlasObjectId, String> references = new LinkedHashMap<>();
+
+        for (int i = 0; i < 1200; i++) {
+            references.put(new AtlasObjectId(HIVE_TABLE_TYPE, QUALIFIED_NAME, "missing" + i), null);
+        }
+
+        for (int i = 0; i < TABLE_COUNT; i++) {
+            references.put(new AtlasObjectId(HIVE_TABLE_TYPE, QUALIFIED_NAME, TABLE_PREFIX + i), null);
+            references.put(new AtlasObjectId(DATASET_TYPE, QUALIFIED_NAME, TABLE_PREFIX + i), null);
+        }
+
+        Map<AtlasObjectId, AtlasVertex> vertices = assertMatchesFindByUniqueAttributes(references);
+
+        assertEquals(vertices.size(), TABLE_COUNT * 2);
+    }
+
+    private Map<AtlasObjectId, AtlasVertex> assertMatchesFindByUniqueAttributes(Map<AtlasObjectId, String> references) throws Exception {
+        Map<AtlasObjectId, AtlasVertex> ret = resolver.findVertices(references);
+
+        for (AtlasObjectId objId : references.keySet()) {
+            AtlasEntityType entityType = typeRegistry.getEntityTypeByName(objId.getTypeName());
+            AtlasVertex     expected   = AtlasGraphUtilsV2.findByUniqueAttributes(graph, entityType, objId.getUniqueAttributes());
+
+            assertEquals(getId(ret.get(objId)), getId(expected), objId.toString());
+        }
+
+        return ret;
+    }
+
+    private static Map<String, Object> uniqueAttributes(String attrName, Object attrValue) {
+        Map<String, Object> ret = new HashMap<>();
+
+        ret.put(attrName, attrValue);
+
+        return ret;
+    }
+
+    private static Object getId(AtlasVertex vertex) {
+        return vertex != null ? vertex.getId() : null;
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.searchlog;
+
+import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.model.searchlog.SearchRequestLogData;
+import org.apache.atlas.type.AtlasType;
+import org.apache.http.StatusLine;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NStringEntity;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.apache.atlas.AtlasConfiguration.SEARCH_LOGGER_BATCH_BYTES;
+import static org.apache.atlas.searchlog.SearchLoggingManagementTest.searchLog;
+import static org.apache.atlas.service.metrics.MetricUtils.getMeterRegistry;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ESSearchLoggerTest {
+    private static final String BULK_METADATA = "{\"index\":{}}\n";
+    private static final String OK            = "{\"errors\":false,\"items\":[]}";
+
+    private final List<String>  bodies    = new ArrayList<>();
+    private final Queue<Object> responses = new ConcurrentLinkedQueue<>();
+
+    private RestClient client;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        Response okResponse = response(OK);
+
+        client = mock(RestClient.class);
+
+        bodies.clear();
+        responses.clear();
+
+        when(client.performRequest(any(Request.class))).thenAnswer(invocation -> {
+            Request request = (Request) invocation.getArguments()[0];
+
+            assertEquals(request.getEndpoint(), ESSearchLogger.ENDPOINT_BULK);
+
+            bodies.add(EntityUtils.toString(request.getEntity()));
+
+            Object response = responses.poll();
+
+            if (response instanceof IOException) {
+                throw (IOException) response;
+            }
+
+            return response != null ? response : okResponse;
+        });
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        ApplicationProperties.get().clearProperty(SEARCH_LOGGER_BATCH_BYTES.getPropertyName());
+    }
+
+    @Test
+    public void splitsBatchLargerThanBulkLimit() throws Exception {
+        List<SearchRequestLogData> searchLogs = getSearchLogs(5);
+
+        // room for two search logs in each _bulk request
+        setBatchBytes(getBulkItem(searchLogs.get(0)).length() * 2);
+
+        new ESSearchLogger(client).log(searchLogs);
+
+        assertEquals(bodies.size(), 3);
+        assertEquals(bodies.get(0), getBulkItem(searchLogs.get(0)) + getBulkItem(searchLogs.get(1)));
+        assertEquals(bodies.get(1), getBulkItem(searchLogs.get(2)) + getBulkItem(searchLogs.get(3)));
+        assertEquals(bodies.get(2), getBulkItem(searchLogs.get(4)));
+    }
+
+    @Test
+    public void writesSearchLogLargerThanBulkLimitAlone() throws Exception {
+        List<SearchRequestLogData> searchLogs = getSearchLogs(3);
+
+        setBatchBytes(10);
+
+        new ESSearchLogger(client).log(searchLogs);
+
+        assertEquals(bodies.size(), 3);
+
+        for (int i = 0; i < searchLogs.size(); i++) {
+            assertEquals(bodies.get(i), getBulkItem(searchLogs.get(i)));
+        }
+    }
+
+    @Test
+    public void writesBatchInOneRequestWithinBulkLimit() throws Exception {
+        List<SearchRequestLogData> searchLogs = getSearchLogs(5);
+        StringBuilder              expected   = new StringBuilder();
+
+        for (SearchRequestLogData searchLog : searchLogs) {
+            expected.append(getBulkItem(searchLog));
+        }
+
+        setBatchBytes(expected.length());
+
+        new ESSearchLogger(client).log(searchLogs);
+
+        assertEquals(bodies, Arrays.asList(expected.toString()));
+    }
+
+    @Test
+    public void countsSearchLogsFailedToBeWritten() throws Exception {
+        List<SearchRequestLogData> searchLogs = getSearchLogs(4);
+        double                     failed     = getFailedCount();
+        long                       flushes    = getFlushCount();
+
+        setBatchBytes(getBulkItem(searchLogs.get(0)).length() * 2);
+
+        responses.add(response("{\"errors\":true,\"items\":[{\"index\":{\"status\":201}}," +
+                               "{\"index\":{\"status\":400,\"error\":{\"type\":\"mapper_parsing_exception\"}}}]}"));
+        responses.add(new IOException("ES is not available"));
+
+        new ESSearchLogger(client).log(searchLogs);
+
+        assertEquals(bodies.size(), 2);
+        assertEquals(getFailedCount() - failed, 3.0);
+        assertEquals(getFlushCount() - flushes, 2);
+    }
+
+    private static List<SearchRequestLogData> getSearchLogs(int count) {
+        List<SearchRequestLogData> ret = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            SearchRequestLogData searchLog = searchLog(i);
+
+            searchLog.setCreatedAt(1000 + i);
+
+            ret.add(searchLog);
+        }
+
+        return ret;
+    }
+
+    private static String getBulkItem(SearchRequestLogData searchLog) {
+        return BULK_METADATA + AtlasType.toJson(searchLog) + "\n";
+    }
+
+    private static void setBatchBytes(long batchBytes) throws Exception {
+        ApplicationProperties.get().setProperty(SEARCH_LOGGER_BATCH_BYTES.getPropertyName(), batchBytes);
+    }
+
+    private static double getFailedCount() {
+        return getMeterRegistry().counter("search_log_failed_events").count();
+    }
+
+    private static long getFlushCount() {
+        return getMeterRegistry().timer("search_log_flush_latency").count();
+    }
+
+    private static Response response(String body) {
+        Response   ret        = mock(Response.class);
+        StatusLine statusLine = mock(StatusLine.class);
+
+        when(statusLine.getStatusCode()).thenReturn(200);
+        when(ret.getStatusLine()).thenReturn(statusLine);
+        when(ret.getEntity()).thenReturn(new NStringEntity(body, ContentType.APPLICATION_JSON));
+
+        return ret;
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.searchlog;
+
+import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.model.searchlog.SearchRequestLogData;
+import org.apache.commons.configuration.Configuration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.apache.atlas.AtlasConfiguration.SEARCH_LOGGER_BATCH_SIZE;
+import static org.apache.atlas.AtlasConfiguration.SEARCH_LOGGER_LINGER_MS;
+import static org.apache.atlas.AtlasConfiguration.SEARCH_LOGGER_QUEUE_SIZE;
+import static org.apache.atlas.service.metrics.MetricUtils.getMeterRegistry;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class SearchLoggingManagementTest {
+    private static final long     WAIT_MS    = 10 * 1000;
+    private static final String[] PROPERTIES = { SEARCH_LOGGER_QUEUE_SIZE.getPropertyName(), SEARCH_LOGGER_BATCH_SIZE.getPropertyName(),
+                                                 SEARCH_LOGGER_LINGER_MS.getPropertyName() };
+
+    private SearchLoggingManagement management;
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        if (management != null) {
+            management.stop();
+
+            management = null;
+        }
+
+        for (String property : PROPERTIES) {
+            ApplicationProperties.get().clearProperty(property);
+        }
+    }
+
+    @Test
+    public void dropsSearchLogsWhileQueueIsFull() throws Exception {
+        setProperties(2, 1, 0);
+
+        RecordingLogger logger  = new RecordingLogger(true);
+        double          dropped = getDroppedCount();
+
+        management = new SearchLoggingManagement(Collections.singletonList(logger));
+
+        // the first search is taken by the flusher, which is then held up by the logger
+        management.log(searchLog(0));
+
+        assertTrue(logger.entered.await(WAIT_MS, TimeUnit.MILLISECONDS));
+
+        for (int i = 1; i < 6; i++) {
+            management.log(searchLog(i));
+        }
+
+        assertEquals(getDroppedCount() - dropped, 3.0);
+
+        logger.release.countDown();
+
+        waitFor(() -> logger.getUserNames().size() == 3);
+
+        assertEquals(logger.getUserNames(), Arrays.asList("user0", "user1", "user2"));
+        assertEquals(getDroppedCount() - dropped, 3.0);
+
+        for (List<SearchRequestLogData> batch : logger.batches) {
+            assertTrue(batch.get(0).getCreatedAt() > 0);
+        }
+    }
+
+    @Test
+    public void flushesWhenBatchIsFull() throws Exception {
+        setProperties(100, 3, 60 * 1000);
+
+        RecordingLogger logger = new RecordingLogger(false);
+
+        management = new SearchLoggingManagement(Collections.singletonList(logger));
+
+        for (int i = 0; i < 4; i++) {
+            management.log(searchLog(i));
+        }
+
+        waitFor(() -> logger.batches.size() == 1);
+
+        assertEquals(logger.getUserNames(), Arrays.asList("user0", "user1", "user2"));
+
+        // the fourth search waits for the batch to fill or to linger out; stopping flushes it
+        Thread.sleep(100);
+
+        assertEquals(logger.batches.size(), 1);
+
+        management.stop();
+
+        waitFor(() -> logger.batches.size() == 2);
+
+        assertEquals(logger.batches.get(1).size(), 1);
+        assertEquals(logger.getUserNames(), Arrays.asList("user0", "user1", "user2", "user3"));
+    }
+
+    @Test
+    public void flushesAfterLinger() throws Exception {
+        long lingerMs = 300;
+
+        setProperties(100, 100, lingerMs);
+
+        RecordingLogger logger = new RecordingLogger(false);
+
+        management = new SearchLoggingManagement(Collections.singletonList(logger));
+
+        long startTime = System.nanoTime();
+
+        management.log(searchLog(0));
+        management.log(searchLog(1));
+
+        waitFor(() -> logger.batches.size() == 1);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) >= lingerMs);
+        assertEquals(logger.batches.get(0).size(), 2);
+    }
+
+    @Test
+    public void logsBatchToEachLogger() throws Exception {
+        setProperties(100, 2, 60 * 1000);
+
+        RecordingLogger failing = new RecordingLogger(false) {
+            @Override
+            public void log(List<SearchRequestLogData> searchRequestsData) {
+                super.log(searchRequestsData);
+
+                throw new IllegalStateException("ES is not available");
+            }
+        };
+        RecordingLogger logger  = new RecordingLogger(false);
+
+        management = new SearchLoggingManagement(Arrays.asList(failing, logger));
+
+        management.log(searchLog(0));
+        management.log(searchLog(1));
+
+        waitFor(() -> logger.batches.size() == 1);
+
+        assertEquals(failing.getUserNames(), Arrays.asList("user0", "user1"));
+        assertEquals(logger.getUserNames(), Arrays.asList("user0", "user1"));
+    }
+
+    static SearchRequestLogData searchLog(int i) {
+        return new SearchRequestLogData(Collections.singletonMap("size", i), null, null, "search" + i, null, null,
+                                        null, null, null, "user" + i, null, null,
+                                        null, null, null, null, null, null, null, null, null, null,
+                                        true, false, 1, 10, 1000);
+    }
+
+    private static void setProperties(int queueSize, int batchSize, long lingerMs) throws Exception {
+        Configuration properties = ApplicationProperties.get();
+
+        properties.setProperty(SEARCH_LOGGER_QUEUE_SIZE.getPropertyName(), queueSize);
+        properties.setProperty(SEARCH_LOGGER_BATCH_SIZE.getPropertyName(), batchSize);
+        properties.setProperty(SEARCH_LOGGER_LINGER_MS.getPropertyName(), lingerMs);
+    }
+
+    private static double getDroppedCount() {
+        return getMeterRegistry().counter("search_log_dropped_events").count();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static class RecordingLogger implements SearchLogger {
+        private final List<List<SearchRequestLogData>> batches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch                   entered = new CountDownLatch(1);
+        private final CountDownLatch                   release;
+
+        RecordingLogger(boolean isHeldUp) {
+            this.release = new CountDownLatch(isHeldUp ? 1 : 0);
+        }
+
+        @Override
+        public void log(SearchRequestLogData searchRequestData) {
+            log(Collections.singletonList(searchRequestData));
+        }
+
+        @Override
+        public void log(List<SearchRequestLogData> searchRequestsData) {
+            batches.add(new ArrayList<>(searchRequestsData));
+
+            entered.countDown();
+
+            try {
+                release.await(WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        List<String> getUserNames() {
+            return batches.stream().flatMap(List::stream).map(SearchRequestLogData::getUserName).collect(Collectors.toList());
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.atlas.model.instance.AtlasEntity.AtlasEntityWithExtInfo;
 import org.apache.atlas.model.tasks.AtlasTask;
 import org.apache.atlas.service.metrics.MetricsRegistry;
 import org.apache.atlas.utils.AtlasPerfMetrics;
+import org.apache.atlas.utils.AtlasPerfMetrics.MetricId;
 import org.apache.atlas.utils.AtlasPerfMetrics.MetricRecorder;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
@@ -31,6 +32,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import static org.apache.atlas.model.instance.AtlasObjectId.KEY_GUID;
 
@@ -40,37 +43,39 @@ public class RequestContext {
     private static final Logger LOG = LoggerFactory.getLogger(RequestContext.class);
 
     private static final ThreadLocal<RequestContext> CURRENT_CONTEXT = new ThreadLocal<>();
-    private static final Set<RequestContext>         ACTIVE_REQUESTS = new HashSet<>();
+    private static final Set<RequestContext>         ACTIVE_REQUESTS = ConcurrentHashMap.newKeySet(); // no global lock: every request adds and removes itself
+    private static final LongAdder                   ACTIVE_REQUESTS_COUNT = new LongAdder();
     private static final boolean                     isMetricsEnabled = METRICS.isDebugEnabled();
 
+    // collections below are created when first needed, as most requests, like searches, need few of them
     private final long                                   requestTime          = System.currentTimeMillis();
-    private final Map<String, AtlasEntityHeader>         updatedEntities      = new HashMap<>();
-    private final Map<String, AtlasEntityHeader>         deletedEntities      = new HashMap<>();
-    private final Map<String, AtlasEntityHeader>         restoreEntities      = new HashMap<>();
-    private final Map<String, AtlasEntity>               entityCache          = new HashMap<>();
-    private final Map<String, AtlasEntityHeader>         entityHeaderCache    = new HashMap<>();
-    private final Map<String, AtlasEntityWithExtInfo>    entityExtInfoCache   = new HashMap<>();
-    private final Map<String, AtlasEntity>               diffEntityCache      = new HashMap<>();
-    private final Map<String, List<AtlasClassification>> addedPropagations    = new HashMap<>();
-    private final Map<String, List<AtlasClassification>> removedPropagations  = new HashMap<>();
-    private final Map<String, String>                    requestContextHeaders= new HashMap<>();
-    private final Set<String>                            deletedEdgesIds      = new HashSet<>();
-    private final Set<String>                            processGuidIds      = new HashSet<>();
+    private Map<String, AtlasEntityHeader>               updatedEntities      = null;
+    private Map<String, AtlasEntityHeader>               deletedEntities      = null;
+    private Map<String, AtlasEntityHeader>               restoreEntities      = null;
+    private Map<String, AtlasEntity>                     entityCache          = null;
+    private Map<String, AtlasEntityHeader>               entityHeaderCache    = null;
+    private Map<String, AtlasEntityWithExtInfo>          entityExtInfoCache   = null;
+    private Map<String, AtlasEntity>                     diffEntityCache      = null;
+    private Map<String, List<AtlasClassification>>       addedPropagations    = null;
+    private Map<String, List<AtlasClassification>>       removedPropagations  = null;
+    private Map<String, String>                          requestContextHeaders= null;
+    private Set<String>                                  deletedEdgesIds      = null;
+    private Set<String>                                  processGuidIds       = null;
 
     private final AtlasPerfMetrics metrics = isMetricsEnabled ? new AtlasPerfMetrics() : null;
-    private final List<AtlasPerfMetrics.Metric> applicationMetrics = new ArrayList<>();
+    private List<AtlasPerfMetrics.Metric> applicationMetrics = null;
     private List<EntityGuidPair> entityGuidInRequest = null;
-    private final Set<String> entitiesToSkipUpdate = new HashSet<>();
-    private final Set<String> onlyCAUpdateEntities = new HashSet<>();
-    private final Set<String> onlyBAUpdateEntities = new HashSet<>();
-    private final List<AtlasTask> queuedTasks = new ArrayList<>();
-    private final Set<String> relationAttrsForSearch = new HashSet<>();
+    private Set<String> entitiesToSkipUpdate = null;
+    private Set<String> onlyCAUpdateEntities = null;
+    private Set<String> onlyBAUpdateEntities = null;
+    private List<AtlasTask> queuedTasks = null;
+    private Set<String> relationAttrsForSearch = null;
 
     private static String USERNAME = "";
-    private final Map<String, List<Object>> removedElementsMap = new HashMap<>();
-    private final Map<String, List<Object>> newElementsCreatedMap = new HashMap<>();
+    private Map<String, List<Object>> removedElementsMap = null;
+    private Map<String, List<Object>> newElementsCreatedMap = null;
 
-    private final Map<String, Set<AtlasRelationship>> relationshipMutationMap = new HashMap<>();
+    private Map<String, Set<AtlasRelationship>> relationshipMutationMap = null;
 
     private String user;
     private Set<String> userGroups;
@@ -93,17 +98,17 @@ public class RequestContext {
     private String      currentTypePatchAction = "";
     private AtlasTask   currentTask;
     private String traceId;
-    private final Map<AtlasObjectId, Object> relationshipEndToVertexIdMap = new HashMap<>();
+    private Map<AtlasObjectId, Object> relationshipEndToVertexIdMap = null;
     private boolean     allowDuplicateDisplayName;
     private MetricsRegistry metricsRegistry;
     private boolean skipAuthorizationCheck = false;
-    private Set<String> deletedEdgesIdsForResetHasLineage = new HashSet<>(0);
+    private Set<String> deletedEdgesIdsForResetHasLineage = null;
     private String requestUri;
     private boolean cacheEnabled;
 
     private boolean delayTagNotifications = false;
-    private Map<AtlasClassification, Collection<Object>> deletedClassificationAndVertices = new HashMap<>();
-    private Map<AtlasClassification, Collection<Object>> addedClassificationAndVertices = new HashMap<>();
+    private Map<AtlasClassification, Collection<Object>> deletedClassificationAndVertices = null;
+    private Map<AtlasClassification, Collection<Object>> addedClassificationAndVertices = null;
 
 
     private RequestContext() {
@@ -118,9 +123,8 @@ public class RequestContext {
             ret = new RequestContext();
             CURRENT_CONTEXT.set(ret);
 
-            synchronized (ACTIVE_REQUESTS) {
-                ACTIVE_REQUESTS.add(ret);
-            }
+            ACTIVE_REQUESTS.add(ret);
+            ACTIVE_REQUESTS_COUNT.increment();
         }
 
         return ret;
@@ -132,8 +136,8 @@ public class RequestContext {
         if (instance != null) {
             instance.clearCache();
 
-            synchronized (ACTIVE_REQUESTS) {
-                ACTIVE_REQUESTS.remove(instance);
+            if (ACTIVE_REQUESTS.remove(instance)) {
+                ACTIVE_REQUESTS_COUNT.decrement();
             }
         }
 
@@ -141,32 +145,32 @@ public class RequestContext {
     }
 
     public void clearCache() {
-        this.updatedEntities.clear();
-        this.deletedEntities.clear();
-        this.entityCache.clear();
-        this.entityHeaderCache.clear();
-        this.entityExtInfoCache.clear();
-        this.diffEntityCache.clear();
-        this.addedPropagations.clear();
-        this.removedPropagations.clear();
-        this.entitiesToSkipUpdate.clear();
-        this.onlyCAUpdateEntities.clear();
-        this.onlyBAUpdateEntities.clear();
-        this.relationAttrsForSearch.clear();
-        this.queuedTasks.clear();
-        this.newElementsCreatedMap.clear();
-        this.removedElementsMap.clear();
-        this.deletedEdgesIds.clear();
-        this.processGuidIds.clear();
-        this.deletedEdgesIdsForResetHasLineage.clear();
-        this.requestContextHeaders.clear();
-        this.relationshipEndToVertexIdMap.clear();
-        this.relationshipMutationMap.clear();
+        clear(this.updatedEntities);
+        clear(this.deletedEntities);
+        clear(this.entityCache);
+        clear(this.entityHeaderCache);
+        clear(this.entityExtInfoCache);
+        clear(this.diffEntityCache);
+        clear(this.addedPropagations);
+        clear(this.removedPropagations);
+        clear(this.entitiesToSkipUpdate);
+        clear(this.onlyCAUpdateEntities);
+        clear(this.onlyBAUpdateEntities);
+        clear(this.relationAttrsForSearch);
+        clear(this.queuedTasks);
+        clear(this.newElementsCreatedMap);
+        clear(this.removedElementsMap);
+        clear(this.deletedEdgesIds);
+        clear(this.processGuidIds);
+        clear(this.deletedEdgesIdsForResetHasLineage);
+        clear(this.requestContextHeaders);
+        clear(this.relationshipEndToVertexIdMap);
+        clear(this.relationshipMutationMap);
         this.currentTask = null;
         this.skipAuthorizationCheck = false;
         this.delayTagNotifications = false;
-        deletedClassificationAndVertices.clear();
-        addedClassificationAndVertices.clear();
+        clear(deletedClassificationAndVertices);
+        clear(addedClassificationAndVertices);
 
         if (metrics != null && !metrics.isEmpty()) {
             METRICS.debug(metrics.toString());
@@ -189,28 +193,44 @@ public class RequestContext {
     }
 
     public void addApplicationMetrics(AtlasPerfMetrics.Metric metric) {
+        if (this.applicationMetrics == null) {
+            this.applicationMetrics = new ArrayList<>();
+        }
+
         this.applicationMetrics.add(metric);
     }
 
     public void clearEntityCache() {
-        this.entityCache.clear();
+        clear(this.entityCache);
     }
 
     public Set<String> getRelationAttrsForSearch() {
+        if (relationAttrsForSearch == null) {
+            relationAttrsForSearch = new HashSet<>();
+        }
+
         return relationAttrsForSearch;
     }
 
     public void setRelationAttrsForSearch(Set<String> relationAttrsForSearch) {
         if (CollectionUtils.isNotEmpty(relationAttrsForSearch)){
-            this.relationAttrsForSearch.addAll(relationAttrsForSearch);
+            getRelationAttrsForSearch().addAll(relationAttrsForSearch);
         }
     }
 
     public Map<String, List<Object>> getRemovedElementsMap() {
+        if (removedElementsMap == null) {
+            removedElementsMap = new HashMap<>();
+        }
+
         return removedElementsMap;
     }
 
     public Map<String, List<Object>> getNewElementsCreatedMap() {
+        if (newElementsCreatedMap == null) {
+            newElementsCreatedMap = new HashMap<>();
+        }
+
         return newElementsCreatedMap;
     }
 
@@ -352,44 +372,64 @@ public class RequestContext {
     }
 
     public void recordEntityUpdate(AtlasEntityHeader entity) {
-        if (entity != null && entity.getGuid() != null && ! entitiesToSkipUpdate.contains(entity.getGuid())) {
-            updatedEntities.put(entity.getGuid(), entity);
+        if (entity != null && entity.getGuid() != null && !contains(entitiesToSkipUpdate, entity.getGuid())) {
+            recordEntityUpdateForNonRelationshipAttributes(entity);
         }
     }
 
     public void recordEntityUpdateForNonRelationshipAttributes(AtlasEntityHeader entity) {
         if (entity != null && entity.getGuid() != null) {
+            if (updatedEntities == null) {
+                updatedEntities = new HashMap<>();
+            }
+
             updatedEntities.put(entity.getGuid(), entity);
         }
     }
     public void recordEntityToSkip(String guid) {
         if(! StringUtils.isEmpty(guid)) {
+            if (entitiesToSkipUpdate == null) {
+                entitiesToSkipUpdate = new HashSet<>();
+            }
+
             entitiesToSkipUpdate.add(guid);
         }
     }
 
     public void recordEntityWithCustomAttributeUpdate(String guid) {
         if(! StringUtils.isEmpty(guid)) {
+            if (onlyCAUpdateEntities == null) {
+                onlyCAUpdateEntities = new HashSet<>();
+            }
+
             onlyCAUpdateEntities.add(guid);
         }
     }
 
     public void recordEntityWithBusinessAttributeUpdate(String guid) {
         if(! StringUtils.isEmpty(guid)) {
+            if (onlyBAUpdateEntities == null) {
+                onlyBAUpdateEntities = new HashSet<>();
+            }
+
             onlyBAUpdateEntities.add(guid);
         }
     }
 
     public boolean checkIfEntityIsForCustomAttributeUpdate(String guid) {
-        return StringUtils.isNotEmpty(guid) && onlyCAUpdateEntities.contains(guid);
+        return StringUtils.isNotEmpty(guid) && contains(onlyCAUpdateEntities, guid);
     }
 
     public boolean checkIfEntityIsForBusinessAttributeUpdate(String guid) {
-        return StringUtils.isNotEmpty(guid) && onlyBAUpdateEntities.contains(guid);
+        return StringUtils.isNotEmpty(guid) && contains(onlyBAUpdateEntities, guid);
     }
 
     public void recordEntityDelete(AtlasEntityHeader entity) {
         if (entity != null && entity.getGuid() != null) {
+            if (deletedEntities == null) {
+                deletedEntities = new HashMap<>();
+            }
+
             deletedEntities.put(entity.getGuid(), entity);
         }
     }
@@ -397,21 +437,22 @@ public class RequestContext {
     public void recordEntityRestore(AtlasEntityHeader entity) {
         if (entity != null && entity.getGuid() != null) {
             entity.setStatus(AtlasEntity.Status.ACTIVE);
+
+            if (restoreEntities == null) {
+                restoreEntities = new HashMap<>();
+            }
+
             restoreEntities.put(entity.getGuid(), entity);
         }
     }
 
     public void recordAddedPropagation(String guid, AtlasClassification classification) {
         if (StringUtils.isNotEmpty(guid) && classification != null) {
-            List<AtlasClassification> classifications = addedPropagations.get(guid);
-
-            if (classifications == null) {
-                classifications = new ArrayList<>();
+            if (addedPropagations == null) {
+                addedPropagations = new HashMap<>();
             }
 
-            classifications.add(classification);
-
-            addedPropagations.put(guid, classifications);
+            addedPropagations.computeIfAbsent(guid, k -> new ArrayList<>()).add(classification);
         }
     }
 
@@ -424,6 +465,10 @@ public class RequestContext {
     }
 
     public Map<AtlasClassification, Collection<Object>> getDeletedClassificationAndVertices() {
+        if (deletedClassificationAndVertices == null) {
+            deletedClassificationAndVertices = new HashMap<>();
+        }
+
         return deletedClassificationAndVertices;
     }
 
@@ -432,10 +477,14 @@ public class RequestContext {
     }
 
     public void addDeletedClassificationAndVertices(AtlasClassification classification, Collection<Object> vertices) {
-        this.deletedClassificationAndVertices.put(classification, vertices);
+        getDeletedClassificationAndVertices().put(classification, vertices);
     }
 
     public Map<AtlasClassification, Collection<Object>> getAddedClassificationAndVertices() {
+        if (addedClassificationAndVertices == null) {
+            addedClassificationAndVertices = new HashMap<>();
+        }
+
         return addedClassificationAndVertices;
     }
 
@@ -444,31 +493,43 @@ public class RequestContext {
     }
 
     public void addAddedClassificationAndVertices(AtlasClassification classification, Collection<Object> vertices) {
-        this.addedClassificationAndVertices.put(classification, vertices);
+        getAddedClassificationAndVertices().put(classification, vertices);
     }
 
     public void addToDeletedEdgesIds(String edgeId) {
-        deletedEdgesIds.add(edgeId);
+        getDeletedEdgesIds().add(edgeId);
     }
 
     public Set<String> getDeletedEdgesIds() {
+        if (deletedEdgesIds == null) {
+            deletedEdgesIds = new HashSet<>();
+        }
+
         return deletedEdgesIds;
     }
 
     public void addToDeletedEdgesIdsForResetHasLineage(String edgeId) {
-        deletedEdgesIdsForResetHasLineage.add(edgeId);
+        getDeletedEdgesIdsForResetHasLineage().add(edgeId);
     }
 
     public Set<String> getDeletedEdgesIdsForResetHasLineage() {
+        if (deletedEdgesIdsForResetHasLineage == null) {
+            deletedEdgesIdsForResetHasLineage = new HashSet<>(0);
+        }
+
         return deletedEdgesIdsForResetHasLineage;
     }
 
     public Set<String> getProcessGuidIds() {
+        if (processGuidIds == null) {
+            processGuidIds = new HashSet<>();
+        }
+
         return processGuidIds;
     }
 
     public void addProcessGuidIds(String guid) {
-        processGuidIds.add(guid);
+        getProcessGuidIds().add(guid);
     }
 
 
@@ -481,7 +542,7 @@ public class RequestContext {
     }
 
     public static int getActiveRequestsCount() {
-        return ACTIVE_REQUESTS.size();
+        return ACTIVE_REQUESTS_COUNT.intValue();
     }
 
     public boolean isSkipAuthorizationCheck() {
@@ -495,11 +556,10 @@ public class RequestContext {
     public static long earliestActiveRequestTime() {
         long ret = System.currentTimeMillis();
 
-        synchronized (ACTIVE_REQUESTS) {
-            for (RequestContext context : ACTIVE_REQUESTS) {
-                if (ret > context.getRequestTime()) {
-                    ret = context.getRequestTime();
-                }
+        // computed only when asked for; requests starting or ending meanwhile may or may not be seen
+        for (RequestContext context : ACTIVE_REQUESTS) {
+            if (ret > context.getRequestTime()) {
+                ret = context.getRequestTime();
             }
         }
 
@@ -508,24 +568,20 @@ public class RequestContext {
 
     public void recordRemovedPropagation(String guid, AtlasClassification classification) {
         if (StringUtils.isNotEmpty(guid) && classification != null) {
-            List<AtlasClassification> classifications = removedPropagations.get(guid);
-
-            if (classifications == null) {
-                classifications = new ArrayList<>();
+            if (removedPropagations == null) {
+                removedPropagations = new HashMap<>();
             }
 
-            classifications.add(classification);
-
-            removedPropagations.put(guid, classifications);
+            removedPropagations.computeIfAbsent(guid, k -> new ArrayList<>()).add(classification);
         }
     }
 
     public Map<String, List<AtlasClassification>> getAddedPropagations() {
-        return addedPropagations;
+        return addedPropagations != null ? addedPropagations : Collections.emptyMap();
     }
 
     public Map<String, List<AtlasClassification>> getRemovedPropagations() {
-        return removedPropagations;
+        return removedPropagations != null ? removedPropagations : Collections.emptyMap();
     }
 
     /**
@@ -534,25 +590,42 @@ public class RequestContext {
      */
     public void cache(AtlasEntityWithExtInfo entity) {
         if (entity != null && entity.getEntity() != null && entity.getEntity().getGuid() != null) {
+            if (entityExtInfoCache == null) {
+                entityExtInfoCache = new HashMap<>();
+            }
+
             entityExtInfoCache.put(entity.getEntity().getGuid(), entity);
-            entityCache.put(entity.getEntity().getGuid(), entity.getEntity());
+
+            cache(entity.getEntity());
         }
     }
 
     public void cache(AtlasEntity entity) {
         if (entity != null && entity.getGuid() != null) {
+            if (entityCache == null) {
+                entityCache = new HashMap<>();
+            }
+
             entityCache.put(entity.getGuid(), entity);
         }
     }
 
     public void cacheDifferentialEntity(AtlasEntity entity) {
         if (entity != null && entity.getGuid() != null) {
+            if (diffEntityCache == null) {
+                diffEntityCache = new HashMap<>();
+            }
+
             diffEntityCache.put(entity.getGuid(), entity);
         }
     }
 
     public void setEntityHeaderCache(AtlasEntityHeader headerCache){
         if(headerCache != null && headerCache.getGuid() != null){
+            if (entityHeaderCache == null) {
+                entityHeaderCache = new HashMap<>();
+            }
+
             entityHeaderCache.put(headerCache.getGuid(), headerCache);
         }
     }
@@ -561,35 +634,37 @@ public class RequestContext {
         if(guid == null){
             return null;
         }
-        return entityHeaderCache.get(guid);
+        return get(entityHeaderCache, guid);
     }
 
     public AtlasEntity getDifferentialEntity(String guid) {
-        return diffEntityCache.get(guid);
+        return get(diffEntityCache, guid);
     }
 
-    public Collection<AtlasEntity> getDifferentialEntities() { return diffEntityCache.values(); }
+    public Collection<AtlasEntity> getDifferentialEntities() { return getDifferentialEntitiesMap().values(); }
 
-    public Map<String,AtlasEntity> getDifferentialEntitiesMap() { return diffEntityCache; }
+    public Map<String,AtlasEntity> getDifferentialEntitiesMap() {
+        return diffEntityCache != null ? diffEntityCache : Collections.emptyMap();
+    }
 
     public Collection<AtlasEntityHeader> getUpdatedEntities() {
-        return updatedEntities.values();
+        return updatedEntities != null ? updatedEntities.values() : Collections.emptyList();
     }
 
     public Collection<AtlasEntityHeader> getDeletedEntities() {
-        return deletedEntities.values();
+        return deletedEntities != null ? deletedEntities.values() : Collections.emptyList();
     }
 
     public void clearRemovePropagations() {
-        removedPropagations.clear();
+        clear(removedPropagations);
     }
 
     public void clearAddedPropagations() {
-        addedPropagations.clear();
+        clear(addedPropagations);
     }
 
     public Collection<AtlasEntityHeader> getRestoredEntities() {
-        return restoreEntities.values();
+        return restoreEntities != null ? restoreEntities.values() : Collections.emptyList();
     }
 
     /**
@@ -600,11 +675,11 @@ public class RequestContext {
      * @return Either the instance or null if it is not in the cache.
      */
     public AtlasEntityWithExtInfo getEntityWithExtInfo(String guid) {
-        return entityExtInfoCache.get(guid);
+        return get(entityExtInfoCache, guid);
     }
 
     public AtlasEntity getEntity(String guid) {
-        return entityCache.get(guid);
+        return get(entityCache, guid);
     }
 
     public long getRequestTime() {
@@ -612,29 +687,38 @@ public class RequestContext {
     }
 
     public boolean isUpdatedEntity(String guid) {
-        return updatedEntities.containsKey(guid);
+        return updatedEntities != null && updatedEntities.containsKey(guid);
     }
 
     public boolean isDeletedEntity(String guid) {
-        return deletedEntities.containsKey(guid);
+        return deletedEntities != null && deletedEntities.containsKey(guid);
     }
 
     public boolean isRestoredEntity(String guid) {
-        return restoreEntities.containsKey(guid);
+        return restoreEntities != null && restoreEntities.containsKey(guid);
     }
 
     public void addRequestContextHeader(String headerName, String headerValue) {
         if (StringUtils.isNotEmpty(headerName)) {
+            if (requestContextHeaders == null) {
+                requestContextHeaders = new HashMap<>();
+            }
+
             requestContextHeaders.put(headerName, headerValue);
         }
     }
 
     public Map<String, String> getRequestContextHeaders() {
-        return requestContextHeaders;
+        return requestContextHeaders != null ? requestContextHeaders : Collections.emptyMap();
     }
 
     public MetricRecorder startMetricRecord(String name) { return metrics != null ? metrics.getMetricRecorder(name) : null; }
 
+    public MetricRecorder startMetricRecord(MetricId metricId) { return metrics != null ? metrics.getMetricRecorder(metricId) : null; }
+
+    // the qualified id is looked up only when metrics are recorded
+    public MetricRecorder startMetricRecord(MetricId metricId, String qualifier) { return metrics != null ? metrics.getMetricRecorder(metricId.with(qualifier)) : null; }
+
     public void endMetricRecord(MetricRecorder recorder) {
         if (metrics != null && recorder != null) {
             metrics.recordMetric(recorder);
@@ -670,11 +754,15 @@ public class RequestContext {
     }
 
     public void queueTask(AtlasTask task) {
-        queuedTasks.add(task);
+        if (this.queuedTasks == null) {
+            this.queuedTasks = new ArrayList<>();
+        }
+
+        this.queuedTasks.add(task);
     }
 
     public List<AtlasTask> getQueuedTasks() {
-        return this.queuedTasks;
+        return this.queuedTasks != null ? this.queuedTasks : Collections.emptyList();
     }
 
     public String getTraceId() {
@@ -768,24 +856,52 @@ public class RequestContext {
     }
 
     public void addRelationshipEndToVertexIdMapping(AtlasObjectId atlasObjectId, Object vertexId) {
-        this.relationshipEndToVertexIdMap.put(atlasObjectId, vertexId);
+        getRelationshipEndToVertexIdMap().put(atlasObjectId, vertexId);
     }
 
     public Map<AtlasObjectId, Object> getRelationshipEndToVertexIdMap() {
+        if (this.relationshipEndToVertexIdMap == null) {
+            this.relationshipEndToVertexIdMap = new HashMap<>();
+        }
+
         return this.relationshipEndToVertexIdMap;
     }
 
     public void saveRelationshipsMutationContext(String event, AtlasRelationship relationship) {
-        Set<AtlasRelationship> deletedRelationships = this.relationshipMutationMap.getOrDefault(event, new HashSet<>());
-        deletedRelationships.add(relationship);
-        this.relationshipMutationMap.put(event, deletedRelationships);
+        if (this.relationshipMutationMap == null) {
+            this.relationshipMutationMap = new HashMap<>();
+        }
+
+        this.relationshipMutationMap.computeIfAbsent(event, k -> new HashSet<>()).add(relationship);
     }
 
     public void clearMutationContext(String event) {
-        this.relationshipMutationMap.remove(event);
+        if (this.relationshipMutationMap != null) {
+            this.relationshipMutationMap.remove(event);
+        }
     }
 
     public Map<String, Set<AtlasRelationship>> getRelationshipMutationMap() {
-        return relationshipMutationMap;
+        return relationshipMutationMap != null ? relationshipMutationMap : Collections.emptyMap();
+    }
+
+    private static void clear(Collection<?> collection) {
+        if (collection != null) {
+            collection.clear();
+        }
+    }
+
+    private static void clear(Map<?, ?> map) {
+        if (map != null) {
+            map.clear();
+        }
+    }
+
+    private static boolean contains(Set<String> set, String value) {
+        return set != null && set.contains(value);
+    }
+
+    private static <V> V get(Map<String, V> map, String key) {
+        return map != null ? map.get(key) : null;
     }
 }
\ No newline at end of file
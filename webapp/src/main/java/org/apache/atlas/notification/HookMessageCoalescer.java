@@ -0,0 +1,393 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.notification;
+
+import org.apache.atlas.kafka.AtlasKafkaMessage;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.notification.HookNotification;
+import org.apache.atlas.model.notification.HookNotification.EntityCreateRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityUpdateRequestV2;
+import org.apache.atlas.type.AtlasType;
+import org.apache.atlas.type.AtlasTypeUtil;
+import org.apache.commons.collections.MapUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Collects consecutive hook messages that create or fully update entities, and merges them into one message, so
+ * that their entities are created or updated in a single transaction instead of one per message.
+ *
+ * Messages are merged only if they are from the same topic partition, of the same type and from the same user, and
+ * only up to maxEntities entities; the collected messages are due for processing once maxEntities is reached, or
+ * maxWaitMs after the first was collected. Entities with the same type and qualifiedName, or else the same guid, are
+ * merged into one, with the attributes of later messages overriding those of earlier ones; references to the guids
+ * of merged entities are updated to the guid kept. Unassigned guids are unique only within a message, so those an
+ * earlier message already used are first renamed; see renameUnassignedGuids().
+ *
+ * The merged message has the offset of the last collected message, so that committing it commits all of them.
+ */
+class HookMessageCoalescer {
+    private static final String ATTRIBUTE_QUALIFIED_NAME = "qualifiedName";
+    private static final String KEY_GUID                 = "guid";
+
+    private final int                                       maxEntities;
+    private final long                                      maxWaitMs;
+    private final ReferenceUpdater                          referenceUpdater;
+    private final List<AtlasKafkaMessage<HookNotification>> pending = new ArrayList<>();
+    private       int                                       pendingEntityCount;
+    private       long                                      firstPendingAt;
+
+    HookMessageCoalescer(int maxEntities, long maxWaitMs, ReferenceUpdater referenceUpdater) {
+        this.maxEntities      = maxEntities;
+        this.maxWaitMs        = maxWaitMs;
+        this.referenceUpdater = referenceUpdater;
+    }
+
+    /**
+     * Returns true if the message can be merged with the messages collected so far.
+     */
+    boolean canAdd(AtlasKafkaMessage<HookNotification> kafkaMsg) {
+        AtlasEntitiesWithExtInfo entities = getEntities(kafkaMsg.getMessage());
+
+        if (entities == null || pendingEntityCount + getEntityCount(entities) > maxEntities) {
+            return false;
+        }
+
+        if (pending.isEmpty()) {
+            return true;
+        }
+
+        AtlasKafkaMessage<HookNotification> first = pending.get(0);
+
+        return first.getTopicPartition().equals(kafkaMsg.getTopicPartition()) &&
+               first.getMessage().getType() == kafkaMsg.getMessage().getType() &&
+               Objects.equals(first.getMessage().getUser(), kafkaMsg.getMessage().getUser());
+    }
+
+    void add(AtlasKafkaMessage<HookNotification> kafkaMsg) {
+        if (pending.isEmpty()) {
+            firstPendingAt = System.currentTimeMillis();
+        }
+
+        pending.add(kafkaMsg);
+
+        pendingEntityCount += getEntityCount(getEntities(kafkaMsg.getMessage()));
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Returns true if the collected messages should be processed now.
+     */
+    boolean isDue() {
+        return !pending.isEmpty() && (pendingEntityCount >= maxEntities || System.currentTimeMillis() - firstPendingAt >= maxWaitMs);
+    }
+
+    /**
+     * Returns the collected messages, and starts collecting anew.
+     */
+    List<AtlasKafkaMessage<HookNotification>> drain() {
+        List<AtlasKafkaMessage<HookNotification>> ret = new ArrayList<>(pending);
+
+        pending.clear();
+
+        pendingEntityCount = 0;
+
+        return ret;
+    }
+
+    /**
+     * Merges the given messages, collected by this coalescer, into one; the messages are left unchanged.
+     */
+    AtlasKafkaMessage<HookNotification> merge(List<AtlasKafkaMessage<HookNotification>> messages) {
+        AtlasKafkaMessage<HookNotification> last                = messages.get(messages.size() - 1);
+        EntityMerger                        merger              = new EntityMerger();
+        Set<String>                         usedUnassignedGuids = new HashSet<>();
+
+        for (AtlasKafkaMessage<HookNotification> kafkaMsg : messages) {
+            // merged from a copy, as the messages are processed one by one if the merged message fails
+            AtlasEntitiesWithExtInfo entities = AtlasType.fromJson(AtlasType.toJson(getEntities(kafkaMsg.getMessage())), AtlasEntitiesWithExtInfo.class);
+
+            renameUnassignedGuids(entities, usedUnassignedGuids);
+
+            if (entities.getEntities() != null) {
+                for (AtlasEntity entity : entities.getEntities()) {
+                    merger.add(entity, false);
+                }
+            }
+
+            if (entities.getReferredEntities() != null) {
+                for (AtlasEntity entity : entities.getReferredEntities().values()) {
+                    merger.add(entity, true);
+                }
+            }
+        }
+
+        AtlasEntitiesWithExtInfo merged = merger.getMerged();
+        HookNotification         message;
+
+        if (last.getMessage().getType() == HookNotification.HookNotificationType.ENTITY_CREATE_V2) {
+            message = new EntityCreateRequestV2(last.getMessage().getUser(), merged);
+        } else {
+            message = new EntityUpdateRequestV2(last.getMessage().getUser(), merged);
+        }
+
+        return new AtlasKafkaMessage<>(message, last.getOffset(), last.getTopic(), last.getPartition(), last.getMsgCreated(), last.getSpooled());
+    }
+
+    /**
+     * Unassigned guids are unique only within a message: renames those of the given message that an earlier message
+     * already used, and the references to them, to unused unassigned guids; then adds its guids to usedGuids.
+     */
+    static void renameUnassignedGuids(AtlasEntitiesWithExtInfo entities, Set<String> usedGuids) {
+        List<AtlasEntity> allEntities = new ArrayList<>();
+
+        if (entities.getEntities() != null) {
+            allEntities.addAll(entities.getEntities());
+        }
+
+        if (entities.getReferredEntities() != null) {
+            allEntities.addAll(entities.getReferredEntities().values());
+        }
+
+        Set<String> messageGuids = new HashSet<>();
+
+        for (AtlasEntity entity : allEntities) {
+            if (AtlasTypeUtil.isUnAssignedGuid(entity.getGuid())) {
+                messageGuids.add(entity.getGuid());
+            }
+        }
+
+        Map<String, String> renames = new HashMap<>();
+        int                 nextId  = 1;
+
+        for (String guid : messageGuids) {
+            if (usedGuids.contains(guid)) {
+                String renamed;
+
+                do {
+                    renamed = "-" + nextId++;
+                } while (usedGuids.contains(renamed) || messageGuids.contains(renamed) || renames.containsValue(renamed));
+
+                renames.put(guid, renamed);
+            }
+        }
+
+        if (!renames.isEmpty()) {
+            for (AtlasEntity entity : allEntities) {
+                String renamed = renames.get(entity.getGuid());
+
+                if (renamed != null) {
+                    entity.setGuid(renamed);
+                }
+
+                renameReferences(entity.getAttributes(), renames);
+                renameReferences(entity.getRelationshipAttributes(), renames);
+            }
+
+            if (entities.getReferredEntities() != null) { // re-keyed by the renamed guids
+                Map<String, AtlasEntity> referredEntities = new HashMap<>();
+
+                for (AtlasEntity entity : entities.getReferredEntities().values()) {
+                    referredEntities.put(entity.getGuid(), entity);
+                }
+
+                entities.setReferredEntities(referredEntities);
+            }
+        }
+
+        for (String guid : messageGuids) {
+            usedGuids.add(renames.getOrDefault(guid, guid));
+        }
+    }
+
+    // object references are AtlasObjectIds, or maps with a guid after the messages are copied through json
+    private static void renameReferences(Object value, Map<String, String> renames) {
+        if (value instanceof AtlasObjectId) {
+            AtlasObjectId objId   = (AtlasObjectId) value;
+            String        renamed = objId.getGuid() != null ? renames.get(objId.getGuid()) : null;
+
+            if (renamed != null) {
+                objId.setGuid(renamed);
+            }
+        } else if (value instanceof Map) {
+            Map    map  = (Map) value;
+            Object guid = map.get(KEY_GUID);
+
+            if (guid instanceof String) {
+                if (renames.containsKey(guid)) {
+                    map.put(KEY_GUID, renames.get(guid));
+                }
+            } else {
+                for (Object mapValue : map.values()) {
+                    renameReferences(mapValue, renames);
+                }
+            }
+        } else if (value instanceof Collection) {
+            for (Object element : (Collection) value) {
+                renameReferences(element, renames);
+            }
+        }
+    }
+
+    private static AtlasEntitiesWithExtInfo getEntities(HookNotification message) {
+        if (message != null && message.getType() != null) {
+            switch (message.getType()) {
+                case ENTITY_CREATE_V2:
+                    return ((EntityCreateRequestV2) message).getEntities();
+
+                case ENTITY_FULL_UPDATE_V2:
+                    return ((EntityUpdateRequestV2) message).getEntities();
+            }
+        }
+
+        return null;
+    }
+
+    private static int getEntityCount(AtlasEntitiesWithExtInfo entities) {
+        int ret = entities.getEntities() != null ? entities.getEntities().size() : 0;
+
+        if (entities.getReferredEntities() != null) {
+            ret += entities.getReferredEntities().size();
+        }
+
+        return ret;
+    }
+
+    private class EntityMerger {
+        private final List<AtlasEntity>        entities      = new ArrayList<>();
+        private final Map<String, AtlasEntity> entitiesByKey = new HashMap<>();
+        private final Set<AtlasEntity>         referred      = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Map<String, String>      guidRewrites  = new HashMap<>();
+
+        void add(AtlasEntity entity, boolean isReferred) {
+            String      key      = getKey(entity);
+            AtlasEntity existing = key != null ? entitiesByKey.get(key) : null;
+
+            if (existing == null) {
+                if (key != null) {
+                    entitiesByKey.put(key, entity);
+                }
+
+                if (isReferred) {
+                    referred.add(entity);
+                }
+
+                entities.add(entity);
+
+                return;
+            }
+
+            mergeInto(existing, entity);
+
+            if (!isReferred) {
+                referred.remove(existing);
+            }
+
+            String keptGuid = existing.getGuid();
+            String guid     = entity.getGuid();
+
+            if (!AtlasTypeUtil.isAssignedGuid(keptGuid) && AtlasTypeUtil.isAssignedGuid(guid)) { // keep the assigned guid
+                for (Map.Entry<String, String> entry : guidRewrites.entrySet()) {
+                    if (keptGuid.equals(entry.getValue())) {
+                        entry.setValue(guid);
+                    }
+                }
+
+                guidRewrites.put(keptGuid, guid);
+
+                existing.setGuid(guid);
+            } else if (guid != null && !guid.equals(keptGuid)) {
+                guidRewrites.put(guid, keptGuid);
+            }
+        }
+
+        AtlasEntitiesWithExtInfo getMerged() {
+            AtlasEntitiesWithExtInfo ret = new AtlasEntitiesWithExtInfo();
+
+            referenceUpdater.updateReferences(entities, guidRewrites);
+
+            for (AtlasEntity entity : entities) {
+                if (referred.contains(entity)) {
+                    ret.addReferredEntity(entity);
+                } else {
+                    ret.addEntity(entity);
+                }
+            }
+
+            return ret;
+        }
+
+        private String getKey(AtlasEntity entity) {
+            Object qualifiedName = entity.getAttribute(ATTRIBUTE_QUALIFIED_NAME);
+
+            if (qualifiedName != null) {
+                return entity.getTypeName() + ":" + qualifiedName;
+            }
+
+            return entity.getGuid();
+        }
+
+        private void mergeInto(AtlasEntity existing, AtlasEntity entity) {
+            if (MapUtils.isNotEmpty(entity.getAttributes())) {
+                for (Map.Entry<String, Object> entry : entity.getAttributes().entrySet()) {
+                    existing.setAttribute(entry.getKey(), entry.getValue());
+                }
+            }
+
+            if (MapUtils.isNotEmpty(entity.getRelationshipAttributes())) {
+                for (Map.Entry<String, Object> entry : entity.getRelationshipAttributes().entrySet()) {
+                    existing.setRelationshipAttribute(entry.getKey(), entry.getValue());
+                }
+            }
+
+            if (entity.getClassifications() != null) {
+                existing.setClassifications(entity.getClassifications());
+            }
+
+            if (entity.getLabels() != null) {
+                existing.setLabels(entity.getLabels());
+            }
+
+            if (entity.getCustomAttributes() != null) {
+                existing.setCustomAttributes(entity.getCustomAttributes());
+            }
+
+            if (entity.getBusinessAttributes() != null) {
+                existing.setBusinessAttributes(entity.getBusinessAttributes());
+            }
+        }
+    }
+
+    interface ReferenceUpdater {
+        void updateReferences(List<AtlasEntity> entities, Map<String, String> guidRewrites);
+    }
+}
@@ -0,0 +1,495 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.notification;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.atlas.kafka.AtlasKafkaMessage;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.notification.HookNotification;
+import org.apache.atlas.model.notification.HookNotification.EntityCreateRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityDeleteRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityPartialUpdateRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityUpdateRequestV2;
+import org.apache.atlas.v1.model.instance.Referenceable;
+import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityCreateRequest;
+import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityDeleteRequest;
+import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityPartialUpdateRequest;
+import org.apache.commons.collections.MapUtils;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processes hook messages received by one consumer on a pool of worker lanes, instead of one after another on the
+ * consumer thread. Each lane is a single thread; messages are assigned to lanes by the qualifiedName, or else the
+ * guid, of the entities they mutate, so that messages for the same entity are processed in the order received.
+ * Messages with no such entity are assigned by their topic partition. A message with entities in several lanes, like
+ * a table with its columns, is a barrier across those lanes: it is processed once the messages queued before it in
+ * each of them are, and the messages queued after it in each of them wait for it. As messages are submitted from
+ * one thread, barriers are queued in the same order in every lane, so they can't wait on each other.
+ *
+ * Messages may complete out of order, so the offset to commit for a partition is its low-water mark: the lowest
+ * offset still in flight, or the offset after the last one received when none is. Offsets are read from the
+ * consumer thread, as Kafka consumers are not thread-safe; see getOffsetsToCommit().
+ *
+ * At most maxInFlight messages are queued or being processed at any time; see awaitCapacity() and trySubmit().
+ *
+ * When partitions are revoked from the consumer, the queued messages of those partitions are skipped and those being
+ * processed are waited for, so that the new owner of the partitions doesn't process them at the same time; see
+ * revoke().
+ */
+class HookMessagePipeline {
+    private static final Logger LOG = LoggerFactory.getLogger(HookMessagePipeline.class);
+
+    private static final String ATTRIBUTE_QUALIFIED_NAME = "qualifiedName";
+
+    private final ExecutorService[]                    lanes;
+    private final Semaphore                            capacity;
+    private final MessageHandler                       handler;
+    private final Map<TopicPartition, PartitionOffsets> partitionOffsets = new HashMap<>();
+
+    HookMessagePipeline(String name, int numLanes, int maxInFlight, MessageHandler handler) {
+        this.lanes    = new ExecutorService[numLanes];
+        this.capacity = new Semaphore(maxInFlight);
+        this.handler  = handler;
+
+        for (int i = 0; i < numLanes; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat(name + " lane-" + i).setDaemon(true).build());
+        }
+
+        LOG.info("{}: processing hook messages on {} lanes, with at most {} messages in flight", name, numLanes, maxInFlight);
+    }
+
+    /**
+     * Waits until another message can be submitted; returns false if none could be within the given time.
+     */
+    boolean awaitCapacity(long timeoutMs) throws InterruptedException {
+        if (capacity.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+            capacity.release();
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Queues the message on the lanes of its entities; blocks while maxInFlight messages are in flight.
+     */
+    void submit(AtlasKafkaMessage<HookNotification> kafkaMsg) throws InterruptedException {
+        capacity.acquire();
+
+        queue(kafkaMsg);
+    }
+
+    /**
+     * Queues the message on the lanes of its entities, unless maxInFlight messages are in flight; returns whether
+     * the message was queued.
+     */
+    boolean trySubmit(AtlasKafkaMessage<HookNotification> kafkaMsg) {
+        if (!capacity.tryAcquire()) {
+            return false;
+        }
+
+        queue(kafkaMsg);
+
+        return true;
+    }
+
+    /**
+     * Returns, for each partition whose low-water mark advanced since the last call, the offset to commit.
+     */
+    synchronized Map<TopicPartition, Long> getOffsetsToCommit() {
+        Map<TopicPartition, Long> ret = new HashMap<>();
+
+        for (Map.Entry<TopicPartition, PartitionOffsets> entry : partitionOffsets.entrySet()) {
+            PartitionOffsets offsets      = entry.getValue();
+            long             commitOffset = offsets.inFlight.isEmpty() ? offsets.nextOffset : offsets.inFlight.first();
+
+            if (commitOffset > offsets.committedOffset) {
+                offsets.committedOffset = commitOffset;
+
+                ret.put(entry.getKey(), commitOffset);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Stops processing messages of the given partitions, as they are revoked from the consumer: their queued messages
+     * are skipped, and those being processed are waited for up to the given time. Returns, for each of the partitions
+     * whose low-water mark advanced since it was last committed, the offset to commit; the partitions are no longer
+     * tracked after this call.
+     */
+    synchronized Map<TopicPartition, Long> revoke(Collection<TopicPartition> partitions, long timeoutMs) throws InterruptedException {
+        Map<TopicPartition, PartitionOffsets> revoked = new HashMap<>();
+
+        for (TopicPartition partition : partitions) {
+            PartitionOffsets offsets = partitionOffsets.remove(partition);
+
+            if (offsets != null) {
+                offsets.isRevoked = true;
+
+                revoked.put(partition, offsets);
+            }
+        }
+
+        Map<TopicPartition, Long> ret       = new HashMap<>();
+        long                      waitUntil = System.currentTimeMillis() + timeoutMs;
+
+        for (Map.Entry<TopicPartition, PartitionOffsets> entry : revoked.entrySet()) {
+            PartitionOffsets offsets = entry.getValue();
+
+            while (offsets.processingCount > 0) {
+                long remainingMs = waitUntil - System.currentTimeMillis();
+
+                if (remainingMs <= 0) {
+                    LOG.warn("Timed out waiting for {} hook messages of revoked partition {} to complete", offsets.processingCount, entry.getKey());
+
+                    break;
+                }
+
+                wait(remainingMs);
+            }
+
+            long commitOffset = offsets.inFlight.isEmpty() ? offsets.nextOffset : offsets.inFlight.first();
+
+            if (commitOffset > offsets.committedOffset) {
+                ret.put(entry.getKey(), commitOffset);
+            }
+        }
+
+        return ret;
+    }
+
+    synchronized int getInFlightCount() {
+        int ret = 0;
+
+        for (PartitionOffsets offsets : partitionOffsets.values()) {
+            ret += offsets.inFlight.size();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Stops accepting messages, and waits up to the given time for those in flight to complete.
+     */
+    void shutdown(long timeoutMs) {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+
+        long waitUntil = System.currentTimeMillis() + timeoutMs;
+
+        try {
+            for (ExecutorService lane : lanes) {
+                long remainingMs = waitUntil - System.currentTimeMillis();
+
+                if (remainingMs <= 0 || !lane.awaitTermination(remainingMs, TimeUnit.MILLISECONDS)) {
+                    LOG.warn("Timed out waiting for hook messages in flight to complete; {} will be received again", getInFlightCount());
+
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            LOG.warn("Interrupted while waiting for hook messages in flight to complete");
+
+            Thread.currentThread().interrupt();
+        }
+
+        for (ExecutorService lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    private void queue(AtlasKafkaMessage<HookNotification> kafkaMsg) {
+        PartitionOffsets offsets  = onSubmit(kafkaMsg);
+        int[]            msgLanes = getLanes(kafkaMsg);
+
+        if (msgLanes.length == 1) {
+            try {
+                lanes[msgLanes[0]].submit(() -> process(kafkaMsg, offsets));
+            } catch (RuntimeException excp) {
+                onComplete(kafkaMsg, offsets, false);
+
+                throw excp;
+            }
+        } else {
+            submitBarrier(kafkaMsg, offsets, msgLanes);
+        }
+    }
+
+    /**
+     * Processes the message on the first of the given lanes, once each of the other lanes reached it; the other lanes
+     * wait until it is processed.
+     */
+    private void submitBarrier(AtlasKafkaMessage<HookNotification> kafkaMsg, PartitionOffsets offsets, int[] msgLanes) {
+        CountDownLatch arrived = new CountDownLatch(msgLanes.length - 1);
+        CountDownLatch done    = new CountDownLatch(1);
+
+        try {
+            for (int i = 1; i < msgLanes.length; i++) {
+                lanes[msgLanes[i]].submit(() -> {
+                    arrived.countDown();
+
+                    try {
+                        done.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            lanes[msgLanes[0]].submit(() -> {
+                try {
+                    arrived.await();
+                } catch (InterruptedException e) {
+                    done.countDown();
+                    onComplete(kafkaMsg, offsets, false);
+
+                    Thread.currentThread().interrupt();
+
+                    return;
+                }
+
+                try {
+                    process(kafkaMsg, offsets);
+                } finally {
+                    done.countDown();
+                }
+            });
+        } catch (RuntimeException excp) {
+            done.countDown();
+            onComplete(kafkaMsg, offsets, false);
+
+            throw excp;
+        }
+    }
+
+    private void process(AtlasKafkaMessage<HookNotification> kafkaMsg, PartitionOffsets offsets) {
+        boolean isStarted = false;
+
+        try {
+            isStarted = onStart(offsets);
+
+            if (isStarted) {
+                handler.handle(kafkaMsg);
+            } else if (LOG.isDebugEnabled()) {
+                LOG.debug("Skipping message of revoked partition: topic={}, partition={}, offset={}", kafkaMsg.getTopic(), kafkaMsg.getPartition(), kafkaMsg.getOffset());
+            }
+        } catch (Throwable t) {
+            LOG.warn("Exception handling message: topic={}, partition={}, offset={}", kafkaMsg.getTopic(), kafkaMsg.getPartition(), kafkaMsg.getOffset(), t);
+        } finally {
+            onComplete(kafkaMsg, offsets, isStarted);
+        }
+    }
+
+    private synchronized PartitionOffsets onSubmit(AtlasKafkaMessage<HookNotification> kafkaMsg) {
+        PartitionOffsets offsets = partitionOffsets.computeIfAbsent(kafkaMsg.getTopicPartition(), tp -> new PartitionOffsets(kafkaMsg.getOffset()));
+
+        offsets.inFlight.add(kafkaMsg.getOffset());
+
+        // offsets can go back when a partition is re-assigned; the committed offset is left as is, Kafka already has it
+        offsets.nextOffset = Math.max(offsets.nextOffset, kafkaMsg.getOffset() + 1);
+
+        return offsets;
+    }
+
+    // returns false if the partition of the message was revoked since it was queued
+    private synchronized boolean onStart(PartitionOffsets offsets) {
+        if (offsets.isRevoked) {
+            return false;
+        }
+
+        offsets.processingCount++;
+
+        return true;
+    }
+
+    private void onComplete(AtlasKafkaMessage<HookNotification> kafkaMsg, PartitionOffsets offsets, boolean isStarted) {
+        synchronized (this) {
+            // messages skipped as their partition was revoked stay in flight, for the offset to commit to not pass them
+            if (isStarted || !offsets.isRevoked) {
+                offsets.inFlight.remove(kafkaMsg.getOffset());
+            }
+
+            if (isStarted) {
+                offsets.processingCount--;
+
+                notifyAll();
+            }
+        }
+
+        capacity.release();
+    }
+
+    // distinct lanes of the entities of the message, in ascending order
+    private int[] getLanes(AtlasKafkaMessage<HookNotification> kafkaMsg) {
+        Set<String> keys = getEntityKeys(kafkaMsg.getMessage());
+
+        if (keys.isEmpty()) {
+            return new int[] { getLane(kafkaMsg.getTopicPartition().toString()) };
+        }
+
+        TreeSet<Integer> ret = new TreeSet<>();
+
+        for (String key : keys) {
+            ret.add(getLane(key));
+        }
+
+        return ret.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int getLane(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % lanes.length;
+    }
+
+    /**
+     * Returns the qualifiedName, or else the guid, of each entity the message mutates, including referred entities.
+     */
+    static Set<String> getEntityKeys(HookNotification message) {
+        Set<String> ret = new LinkedHashSet<>();
+
+        if (message == null || message.getType() == null) {
+            return ret;
+        }
+
+        switch (message.getType()) {
+            case ENTITY_CREATE:
+            case ENTITY_FULL_UPDATE: {
+                List<Referenceable> entities = ((EntityCreateRequest) message).getEntities();
+
+                if (entities != null) {
+                    for (Referenceable entity : entities) {
+                        Object qualifiedName = entity.get(ATTRIBUTE_QUALIFIED_NAME);
+
+                        addKey(ret, qualifiedName != null ? qualifiedName.toString() : (entity.getId() != null ? entity.getId()._getId() : null));
+                    }
+                }
+            }
+            break;
+
+            case ENTITY_PARTIAL_UPDATE:
+                addKey(ret, ((EntityPartialUpdateRequest) message).getAttributeValue());
+            break;
+
+            case ENTITY_DELETE:
+                addKey(ret, ((EntityDeleteRequest) message).getAttributeValue());
+            break;
+
+            case ENTITY_CREATE_V2:
+            case ENTITY_FULL_UPDATE_V2: {
+                AtlasEntity.AtlasEntitiesWithExtInfo entities = message instanceof EntityCreateRequestV2 ? ((EntityCreateRequestV2) message).getEntities()
+                                                                                                         : ((EntityUpdateRequestV2) message).getEntities();
+
+                if (entities != null) {
+                    if (entities.getEntities() != null) {
+                        for (AtlasEntity entity : entities.getEntities()) {
+                            addKey(ret, getEntityKey(entity));
+                        }
+                    }
+
+                    if (entities.getReferredEntities() != null) {
+                        for (AtlasEntity entity : entities.getReferredEntities().values()) {
+                            addKey(ret, getEntityKey(entity));
+                        }
+                    }
+                }
+            }
+            break;
+
+            case ENTITY_PARTIAL_UPDATE_V2:
+                addKey(ret, getEntityKey(((EntityPartialUpdateRequestV2) message).getEntityId()));
+            break;
+
+            case ENTITY_DELETE_V2: {
+                List<AtlasObjectId> entities = ((EntityDeleteRequestV2) message).getEntities();
+
+                if (entities != null) {
+                    for (AtlasObjectId objectId : entities) {
+                        addKey(ret, getEntityKey(objectId));
+                    }
+                }
+            }
+            break;
+        }
+
+        return ret;
+    }
+
+    private static void addKey(Set<String> keys, String key) {
+        if (key != null) {
+            keys.add(key);
+        }
+    }
+
+    private static String getEntityKey(AtlasEntity entity) {
+        Object qualifiedName = entity.getAttribute(ATTRIBUTE_QUALIFIED_NAME);
+
+        return qualifiedName != null ? qualifiedName.toString() : entity.getGuid();
+    }
+
+    private static String getEntityKey(AtlasObjectId objectId) {
+        if (objectId == null) {
+            return null;
+        }
+
+        if (MapUtils.isNotEmpty(objectId.getUniqueAttributes())) {
+            Object qualifiedName = objectId.getUniqueAttributes().get(ATTRIBUTE_QUALIFIED_NAME);
+
+            if (qualifiedName != null) {
+                return qualifiedName.toString();
+            }
+        }
+
+        return objectId.getGuid();
+    }
+
+    interface MessageHandler {
+        void handle(AtlasKafkaMessage<HookNotification> kafkaMsg) throws Exception;
+    }
+
+    private static class PartitionOffsets {
+        private final TreeSet<Long> inFlight = new TreeSet<>();
+        private       long          nextOffset;
+        private       long          committedOffset;
+        private       int           processingCount;
+        private       boolean       isRevoked;
+
+        PartitionOffsets(long firstOffset) {
+            this.nextOffset      = firstOffset;
+            this.committedOffset = firstOffset;
+        }
+    }
+}
@@ -68,6 +68,7 @@ import org.apache.commons.collections.MapUtils;
 import org.apache.commons.collections4.map.PassiveExpiringMap;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.lang.StringUtils;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -83,9 +84,11 @@ import org.springframework.stereotype.Component;
 
 import javax.inject.Inject;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -138,6 +141,10 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
     public static final String CONSUMER_MAX_RETRY_INTERVAL       = "atlas.notification.consumer.max.retry.interval";
     public static final String CONSUMER_COMMIT_BATCH_SIZE        = "atlas.notification.consumer.commit.batch.size";
     public static final String CONSUMER_DISABLED                 = "atlas.notification.consumer.disabled";
+    public static final String CONSUMER_PIPELINE_LANES           = "atlas.notification.hook.consumer.pipeline.lanes";
+    public static final String CONSUMER_PIPELINE_MAX_IN_FLIGHT   = "atlas.notification.hook.consumer.pipeline.max.in.flight";
+    public static final String CONSUMER_COALESCE_MAX_ENTITIES    = "atlas.notification.hook.consumer.coalesce.max.entities";
+    public static final String CONSUMER_COALESCE_MAX_WAIT_MS     = "atlas.notification.hook.consumer.coalesce.max.wait.ms";
 
 
     public static final String CONSUMER_SKIP_HIVE_COLUMN_LINEAGE_HIVE_20633                  = "atlas.notification.consumer.skip.hive_column_lineage.hive-20633";
@@ -170,6 +177,10 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
     private final int                           minWaitDuration;
     private final int                           maxWaitDuration;
     private final int                           commitBatchSize;
+    private final int                           pipelineLanes;
+    private final int                           pipelineMaxInFlight;
+    private final int                           coalesceMaxEntities;
+    private final int                           coalesceMaxWaitMs;
     private final boolean                       skipHiveColumnLineageHive20633;
     private final int                           skipHiveColumnLineageHive20633InputsThreshold;
     private final boolean                       updateHiveProcessNameWithQualifiedName;
@@ -222,6 +233,14 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         minWaitDuration       = applicationProperties.getInt(CONSUMER_MIN_RETRY_INTERVAL, consumerRetryInterval); // 500 ms  by default
         maxWaitDuration       = applicationProperties.getInt(CONSUMER_MAX_RETRY_INTERVAL, minWaitDuration * 60);  //  30 sec by default
         commitBatchSize       = applicationProperties.getInt(CONSUMER_COMMIT_BATCH_SIZE, 50);
+        pipelineLanes         = applicationProperties.getInt(CONSUMER_PIPELINE_LANES, 0); // 0: messages are processed on the consumer thread
+        pipelineMaxInFlight   = applicationProperties.getInt(CONSUMER_PIPELINE_MAX_IN_FLIGHT, pipelineLanes * 10);
+        coalesceMaxWaitMs     = applicationProperties.getInt(CONSUMER_COALESCE_MAX_WAIT_MS, 500);
+
+        int coalesceEntities = applicationProperties.getInt(CONSUMER_COALESCE_MAX_ENTITIES, 0); // 0: messages are not coalesced
+
+        // larger batches would be split by commitBatchSize anyway
+        coalesceMaxEntities = commitBatchSize > 0 ? Math.min(coalesceEntities, commitBatchSize) : coalesceEntities;
 
         skipHiveColumnLineageHive20633                = applicationProperties.getBoolean(CONSUMER_SKIP_HIVE_COLUMN_LINEAGE_HIVE_20633, false);
         skipHiveColumnLineageHive20633InputsThreshold = applicationProperties.getInt(CONSUMER_SKIP_HIVE_COLUMN_LINEAGE_HIVE_20633_INPUTS_THRESHOLD, 15); // skip if avg # of inputs is > 15
@@ -233,7 +252,7 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
 
         int authnCacheTtlSeconds = applicationProperties.getInt(CONSUMER_AUTHORIZE_AUTHN_CACHE_TTL_SECONDS, 300);
 
-        authnCache = (authorizeUsingMessageUser && authnCacheTtlSeconds > 0) ? new PassiveExpiringMap<>(authnCacheTtlSeconds * 1000) : null;
+        authnCache = (authorizeUsingMessageUser && authnCacheTtlSeconds > 0) ? Collections.synchronizedMap(new PassiveExpiringMap<String, Authentication>(authnCacheTtlSeconds * 1000)) : null;
 
         String[] patternHiveTablesToIgnore = applicationProperties.getStringArray(CONSUMER_PREPROCESS_HIVE_TABLE_IGNORE_PATTERN);
         String[] patternHiveTablesToPrune  = applicationProperties.getStringArray(CONSUMER_PREPROCESS_HIVE_TABLE_PRUNE_PATTERN);
@@ -265,7 +284,8 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         }
 
         if (!hiveTablesToIgnore.isEmpty() || !hiveTablesToPrune.isEmpty()) {
-            hiveTablesCache = new LruCache<>(applicationProperties.getInt(CONSUMER_PREPROCESS_HIVE_TABLE_CACHE_SIZE, 10000), 0);
+            // shared by the lanes of consumer pipelines; LruCache is access-ordered, so even get() changes it
+            hiveTablesCache = Collections.synchronizedMap(new LruCache<>(applicationProperties.getInt(CONSUMER_PREPROCESS_HIVE_TABLE_CACHE_SIZE, 10000), 0));
         } else {
             hiveTablesCache = Collections.emptyMap();
         }
@@ -322,6 +342,10 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         LOG.info("{}={}", CONSUMER_PREPROCESS_RDBMS_TYPES_REMOVE_OWNEDREF_ATTRS, rdbmsTypesRemoveOwnedRefAttrs);
         LOG.info("{}={}", CONSUMER_PREPROCESS_S3_V2_DIRECTORY_PRUNE_OBJECT_PREFIX, s3V2DirectoryPruneObjectPrefix);
         LOG.info("{}={}", CONSUMER_COMMIT_BATCH_SIZE, commitBatchSize);
+        LOG.info("{}={}", CONSUMER_PIPELINE_LANES, pipelineLanes);
+        LOG.info("{}={}", CONSUMER_PIPELINE_MAX_IN_FLIGHT, pipelineMaxInFlight);
+        LOG.info("{}={}", CONSUMER_COALESCE_MAX_ENTITIES, coalesceMaxEntities);
+        LOG.info("{}={}", CONSUMER_COALESCE_MAX_WAIT_MS, coalesceMaxWaitMs);
         LOG.info("{}={}", CONSUMER_DISABLED, consumerDisabled);
     }
 
@@ -506,7 +530,7 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
             }
         }
 
-        private void setWaitDurations() {
+        private synchronized void setWaitDurations() {
             long timeSinceLastWait = (lastWaitAt == 0) ? 0 : System.currentTimeMillis() - lastWaitAt;
 
             lastWaitAt = System.currentTimeMillis();
@@ -528,6 +552,12 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         private final AtomicBoolean                          shouldRun      = new AtomicBoolean(false);
         private final List<String>                           failedMessages = new ArrayList<>();
         private final AdaptiveWaiter                         adaptiveWaiter = new AdaptiveWaiter(minWaitDuration, maxWaitDuration, minWaitDuration);
+        private       HookMessagePipeline                    pipeline;
+        private       HookMessageCoalescer                   coalescer;
+
+        // received messages the lanes of the pipeline didn't take yet
+        private final Deque<AtlasKafkaMessage<HookNotification>> pendingMessages = new ArrayDeque<>();
+        private       boolean                                    isPaused;
 
         public HookConsumer(NotificationConsumer<HookNotification> consumer) {
             super("atlas-hook-consumer-thread", false);
@@ -545,13 +575,62 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
                 return;
             }
 
+            if (pipelineLanes > 0) {
+                pipeline = new HookMessagePipeline(getName(), pipelineLanes, Math.max(pipelineMaxInFlight, 1), this::handleMessage);
+
+                consumer.setRebalanceListener(new PipelineRebalanceListener());
+
+                if (coalesceMaxEntities > 0) {
+                    LOG.warn("{} is ignored, as messages are processed on lanes: {}={}", CONSUMER_COALESCE_MAX_ENTITIES, CONSUMER_PIPELINE_LANES, pipelineLanes);
+                }
+            } else if (coalesceMaxEntities > 0) {
+                coalescer = new HookMessageCoalescer(coalesceMaxEntities, coalesceMaxWaitMs, NotificationHookConsumer.this::updateProcessedEntityReferences);
+            }
+
             try {
                 while (shouldRun.get()) {
                     try {
+                        if (pipeline != null) {
+                            commitCompleted();
+
+                            if (!submitPending()) {
+                                // no more messages are received until the lanes take those pending, but the consumer
+                                // keeps polling, to stay in the group instead of having its partitions revoked
+                                consumer.pause();
+
+                                isPaused = true;
+
+                                if (pipeline.awaitCapacity(consumerRetryInterval)) {
+                                    submitPending();
+                                }
+                            } else if (isPaused) {
+                                consumer.resume();
+
+                                isPaused = false;
+                            } else if (!pipeline.awaitCapacity(consumerRetryInterval)) {
+                                // poll only once messages can be taken; until then, keep committing completed ones
+                                continue;
+                            }
+                        }
+
                         List<AtlasKafkaMessage<HookNotification>> messages = consumer.receiveWithCheckedCommit(lastCommittedPartitionOffset);
 
                         for (AtlasKafkaMessage<HookNotification> msg : messages) {
-                            handleMessage(msg);
+                            if (pipeline != null) {
+                                pendingMessages.add(msg);
+                            } else if (coalescer != null) {
+                                coalesce(msg);
+                            } else {
+                                handleMessage(msg);
+                            }
+                        }
+
+                        if (pipeline != null) {
+                            submitPending();
+                        }
+
+                        if (coalescer != null && coalescer.isDue()) {
+                            handleCoalesced();
                         }
                     } catch (IllegalStateException ex) {
                         adaptiveWaiter.pause(ex);
@@ -566,6 +645,17 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
                     }
                 }
             } finally {
+                // messages still being coalesced are not committed, and will be received again
+                if (pipeline != null) {
+                    pipeline.shutdown(maxWaitDuration);
+
+                    try {
+                        commitCompleted();
+                    } catch (Exception e) {
+                        LOG.warn("Failed to commit offsets of completed messages", e);
+                    }
+                }
+
                 if (consumer != null) {
                     LOG.info("closing NotificationConsumer");
 
@@ -576,8 +666,50 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
             }
         }
 
+        private void coalesce(AtlasKafkaMessage<HookNotification> kafkaMsg) throws AtlasServiceException, AtlasException {
+            if (!coalescer.canAdd(kafkaMsg)) {
+                handleCoalesced();
+            }
+
+            if (coalescer.canAdd(kafkaMsg)) {
+                coalescer.add(kafkaMsg);
+            } else {
+                handleMessage(kafkaMsg);
+            }
+        }
+
+        private void handleCoalesced() throws AtlasServiceException, AtlasException {
+            List<AtlasKafkaMessage<HookNotification>> messages = coalescer.drain();
+
+            if (messages.size() == 1) {
+                handleMessage(messages.get(0));
+            } else if (messages.size() > 1) {
+                AtlasKafkaMessage<HookNotification> merged = null;
+
+                try {
+                    merged = coalescer.merge(messages);
+                } catch (Exception e) {
+                    LOG.warn("Failed to merge {} messages; processing them one by one", messages.size(), e);
+                }
+
+                if (merged == null || !handleMessage(merged, true)) {
+                    for (AtlasKafkaMessage<HookNotification> msg : messages) {
+                        handleMessage(msg);
+                    }
+                }
+            }
+        }
+
         @VisibleForTesting
         void handleMessage(AtlasKafkaMessage<HookNotification> kafkaMsg) throws AtlasServiceException, AtlasException {
+            handleMessage(kafkaMsg, false);
+        }
+
+        /**
+         * Returns false if a coalesced message failed after all retries; its messages are then not committed, nor
+         * recorded as failed, for them to be processed one by one.
+         */
+        private boolean handleMessage(AtlasKafkaMessage<HookNotification> kafkaMsg, boolean isCoalesced) throws AtlasServiceException, AtlasException {
             AtlasPerfTracer  perf           = null;
             HookNotification message        = kafkaMsg.getMessage();
             String           messageUser    = message.getUser();
@@ -625,7 +757,7 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
 
                 if (isEmptyMessage(kafkaMsg)) {
                     commit(kafkaMsg);
-                    return;
+                    return true;
                 }
 
                 // Used for intermediate conversions during create and update
@@ -801,19 +933,27 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
                         RequestContext.get().resetEntityGuidUpdates();
                         exceptionClassName = e.getClass().getSimpleName();
 
-                        if (numRetries == (maxRetries - 1)) {
+                        if (numRetries == (maxRetries - 1) && isCoalesced) {
+                            LOG.warn("Max retries exceeded for coalesced message at offset {}; processing its messages one by one", kafkaMsg.getOffset(), e);
+
+                            stats.isFailedMsg = true;
+
+                            return false;
+                        } else if (numRetries == (maxRetries - 1)) {
                             String strMessage = AbstractNotification.getMessageJson(message);
 
                             LOG.warn("Max retries exceeded for message {}", strMessage, e);
 
                             stats.isFailedMsg = true;
 
-                            failedMessages.add(strMessage);
+                            synchronized (failedMessages) {
+                                failedMessages.add(strMessage);
 
-                            if (failedMessages.size() >= failedMsgCacheSize) {
-                                recordFailedMessages();
+                                if (failedMessages.size() >= failedMsgCacheSize) {
+                                    recordFailedMessages();
+                                }
                             }
-                            return;
+                            return true;
                         } else if (e instanceof org.apache.atlas.repository.graphdb.AtlasSchemaViolationException) {
                             LOG.warn("{}: Continuing: {}", exceptionClassName, e.getMessage());
                         } else if (exceptionClassName.equals(EXCEPTION_CLASS_NAME_JANUSGRAPH_EXCEPTION)
@@ -839,6 +979,8 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
                 }
 
                 commit(kafkaMsg);
+
+                return true;
             } finally {
                 AtlasPerfTracer.log(perf);
 
@@ -917,22 +1059,91 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         }
 
         private void recordFailedMessages() {
-            //logging failed messages
-            for (String message : failedMessages) {
-                FAILED_LOG.error("[DROPPED_NOTIFICATION] {}", message);
-            }
+            synchronized (failedMessages) {
+                //logging failed messages
+                for (String message : failedMessages) {
+                    FAILED_LOG.error("[DROPPED_NOTIFICATION] {}", message);
+                }
 
-            failedMessages.clear();
+                failedMessages.clear();
+            }
         }
 
         private void commit(AtlasKafkaMessage<HookNotification> kafkaMessage) {
             recordFailedMessages();
 
+            // with a pipeline, offsets are committed by the consumer thread, once all earlier messages completed
+            if (pipeline != null) {
+                return;
+            }
+
             long commitOffset = kafkaMessage.getOffset() + 1;
             lastCommittedPartitionOffset.put(kafkaMessage.getTopicPartition(), commitOffset);
             consumer.commit(kafkaMessage.getTopicPartition(), commitOffset);
         }
 
+        private void commitCompleted() {
+            Set<TopicPartition> assignment = consumer.getAssignment();
+
+            for (Map.Entry<TopicPartition, Long> entry : pipeline.getOffsetsToCommit().entrySet()) {
+                // the partition was revoked without the listener being called, and is committed by its new owner
+                if (assignment != null && !assignment.contains(entry.getKey())) {
+                    LOG.warn("Not committing offset {} of partition {}, as it is no longer assigned", entry.getValue(), entry.getKey());
+
+                    continue;
+                }
+
+                lastCommittedPartitionOffset.put(entry.getKey(), entry.getValue());
+                consumer.commit(entry.getKey(), entry.getValue());
+            }
+        }
+
+        /**
+         * Submits pending messages, in the order received, to the pipeline while it can take them without blocking;
+         * returns whether all were submitted.
+         */
+        private boolean submitPending() {
+            while (!pendingMessages.isEmpty()) {
+                if (!pipeline.trySubmit(pendingMessages.peek())) {
+                    return false;
+                }
+
+                pendingMessages.poll();
+            }
+
+            return true;
+        }
+
+        /**
+         * Before partitions are revoked, drops their pending messages, waits for those being processed, and commits
+         * the offsets of those completed, so that the new owner of the partitions continues from there.
+         */
+        private class PipelineRebalanceListener implements ConsumerRebalanceListener {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                Set<TopicPartition> revoked = new HashSet<>(partitions);
+
+                pendingMessages.removeIf(msg -> revoked.contains(msg.getTopicPartition()));
+
+                try {
+                    for (Map.Entry<TopicPartition, Long> entry : pipeline.revoke(revoked, maxWaitDuration).entrySet()) {
+                        lastCommittedPartitionOffset.put(entry.getKey(), entry.getValue());
+                        consumer.commit(entry.getKey(), entry.getValue());
+                    }
+                } catch (InterruptedException e) {
+                    LOG.warn("Interrupted while waiting for hook messages of revoked partitions {} to complete", revoked);
+
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    LOG.warn("Failed to commit offsets of revoked partitions {}", revoked, e);
+                }
+            }
+
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            }
+        }
+
         boolean serverAvailable(Timer timer) {
             try {
                 while (serviceState.getState() != ServiceState.ServiceStateValue.ACTIVE) {
@@ -17,10 +17,12 @@
  */
 package org.apache.atlas.web.rest;
 
+import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.RequestContext;
 import org.apache.atlas.annotation.Timed;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.audit.AuditSearchParams;
+import org.apache.atlas.model.audit.EntityAuditEventV2;
 import org.apache.atlas.model.audit.EntityAuditSearchResult;
 import org.apache.atlas.model.instance.AtlasEntity;
 import org.apache.atlas.plugin.util.KeycloakUserStore;
@@ -32,6 +34,7 @@ import org.apache.atlas.repository.audit.ESBasedAuditRepository;
 import org.apache.atlas.repository.store.graph.AtlasEntityStore;
 import org.apache.atlas.repository.store.graph.v2.AtlasEntityStream;
 import org.apache.atlas.utils.AtlasPerfMetrics;
+import org.apache.atlas.utils.AtlasPerfMetrics.MetricId;
 import org.apache.atlas.utils.AtlasPerfTracer;
 import org.apache.atlas.web.util.Servlets;
 import org.apache.commons.collections.CollectionUtils;
@@ -52,9 +55,12 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.apache.atlas.policytransformer.CachePolicyTransformerImpl.ATTR_SERVICE_LAST_SYNC;
 import static org.apache.atlas.repository.Constants.PERSONA_ENTITY_TYPE;
@@ -73,6 +79,9 @@ public class AuthREST {
     private static final Logger LOG      = LoggerFactory.getLogger(AuthREST.class);
     private static final Logger PERF_LOG = AtlasPerfTracer.getPerfLogger("rest.AuthREST");
 
+    private static final MetricId METRIC_UPDATE_LAST_SYNC   = MetricId.of("AuthRest.updateLastSync.{}");
+    private static final MetricId METRIC_GET_POLICY_CHANGES = MetricId.of("AuthRest.getPolicyChanges.{}");
+
     private CachePolicyTransformerImpl policyTransformer;
     private ESBasedAuditRepository auditRepository;
     private AtlasEntityStore entityStore;
@@ -152,11 +161,30 @@ public class AuthREST {
                 perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "AuthREST.downloadPolicies(serviceName="+serviceName+", pluginId="+pluginId+", lastUpdatedTime="+lastUpdatedTime+")");
             }
 
-            if (!isPolicyUpdated(serviceName, lastUpdatedTime)) {
+            Date                     nextUpdateTime = getNextPolicyUpdateTime(System.currentTimeMillis(), AtlasConfiguration.POLICY_DELTA_DOWNLOAD_AUDIT_LAG_MS.getLong());
+            List<EntityAuditEventV2> policyChanges  = getPolicyChanges(serviceName, lastUpdatedTime);
+
+            if (policyChanges != null && policyChanges.isEmpty()) {
                 return null;
             }
 
-            ServicePolicies ret = policyTransformer.getPolicies(serviceName, pluginId, lastUpdatedTime);
+            ServicePolicies ret = null;
+
+            if (isPolicyDeltaApplicable(lastUpdatedTime, policyChanges)) {
+                ret = getPolicyDeltas(serviceName, pluginId, policyChanges, nextUpdateTime);
+            }
+
+            if (ret == null) {
+                ret = policyTransformer.getPolicies(serviceName, pluginId, lastUpdatedTime);
+
+                if (ret != null) {
+                    ret.setPolicyUpdateTime(nextUpdateTime);
+
+                    if (ret.getTagPolicies() != null) {
+                        ret.getTagPolicies().setPolicyUpdateTime(nextUpdateTime);
+                    }
+                }
+            }
 
             updateLastSync(serviceName);
 
@@ -167,7 +195,7 @@ public class AuthREST {
     }
 
     private void updateLastSync(String serviceName) {
-        AtlasPerfMetrics.MetricRecorder recorder = RequestContext.get().startMetricRecord("AuthRest.updateLastSync." + serviceName);
+        AtlasPerfMetrics.MetricRecorder recorder = RequestContext.get().startMetricRecord(METRIC_UPDATE_LAST_SYNC, serviceName);
 
         try {
             if (policyTransformer.getService() != null) {
@@ -184,16 +212,60 @@ public class AuthREST {
         }
     }
 
-    private boolean isPolicyUpdated(String serviceName, long lastUpdatedTime) {
-        AtlasPerfMetrics.MetricRecorder recorder = RequestContext.get().startMetricRecord("AuthRest.isPolicyUpdated." + serviceName);
+    /**
+     * The time the plugin is to send back as lastUpdatedTime in its next download. Audits become searchable a while
+     * after their timestamp - after the index refresh, or later still when written asynchronously - so the next
+     * download searches from auditLagMs before now, and may get changes again that were already sent; applying them
+     * again is harmless, as each changed policy is sent as a delete of all it was transformed into and a create of
+     * what it is transformed into now.
+     */
+    static Date getNextPolicyUpdateTime(long now, long auditLagMs) {
+        return new Date(Math.max(now - auditLagMs, 0));
+    }
+
+    /**
+     * Returns the audit events of the policies, personas and purposes changed since the given time, up to one more
+     * than the number of changes sent as policy deltas; null if the audits could not be searched.
+     */
+    private List<EntityAuditEventV2> getPolicyChanges(String serviceName, long lastUpdatedTime) {
+        AtlasPerfMetrics.MetricRecorder recorder = RequestContext.get().startMetricRecord(METRIC_GET_POLICY_CHANGES, serviceName);
+
+        AuditSearchParams parameters = new AuditSearchParams();
+
+        parameters.setDsl(getPolicyChangesDsl(lastUpdatedTime, AtlasConfiguration.POLICY_DELTA_DOWNLOAD_MAX_CHANGES.getInt()));
+
+        try {
+            EntityAuditSearchResult result = auditRepository.searchEvents(parameters.getQueryString());
+
+            if (result == null || CollectionUtils.isEmpty(result.getEntityAudits())) {
+                return new ArrayList<>();
+            }
 
+            return result.getEntityAudits();
+        } catch (AtlasBaseException e) {
+            LOG.error("ERROR in getPoliciesIfUpdated while fetching entity audits {}: ", e.getMessage());
+            return null;
+        } finally {
+            RequestContext.get().endMetricRecord(recorder);
+        }
+    }
+
+    /**
+     * Deltas are sent only to a plugin that has policies already, and only for a bounded number of changes. Changes to
+     * personas and purposes that affect their policies are audited as changes of those policies as well.
+     */
+    private boolean isPolicyDeltaApplicable(long lastUpdatedTime, List<EntityAuditEventV2> policyChanges) {
+        return AtlasConfiguration.POLICY_DELTA_DOWNLOAD_ENABLED.getBoolean() && lastUpdatedTime > 0 && policyChanges != null
+                && policyChanges.size() <= AtlasConfiguration.POLICY_DELTA_DOWNLOAD_MAX_CHANGES.getInt();
+    }
+
+    static Map<String, Object> getPolicyChangesDsl(long lastUpdatedTime, int maxChanges) {
         List<String> entityUpdateToWatch = new ArrayList<>();
         entityUpdateToWatch.add(POLICY_ENTITY_TYPE);
         entityUpdateToWatch.add(PERSONA_ENTITY_TYPE);
         entityUpdateToWatch.add(PURPOSE_ENTITY_TYPE);
 
-        AuditSearchParams parameters = new AuditSearchParams();
-        Map<String, Object> dsl = getMap("size", 1);
+        Map<String, Object> dsl = getMap("size", maxChanges + 1);
 
         List<Map<String, Object>> mustClauseList = new ArrayList<>();
         mustClauseList.add(getMap("terms", getMap("typeName", entityUpdateToWatch)));
@@ -202,26 +274,27 @@ public class AuthREST {
         mustClauseList.add(getMap("range", getMap("timestamp", getMap("gte", lastUpdatedTime))));
 
         dsl.put("query", getMap("bool", getMap("must", mustClauseList)));
+        dsl.put("sort", getMap("timestamp", getMap("order", "asc")));
 
-        parameters.setDsl(dsl);
+        return dsl;
+    }
 
-        try {
-            EntityAuditSearchResult result = auditRepository.searchEvents(parameters.getQueryString());
+    private ServicePolicies getPolicyDeltas(String serviceName, String pluginId, List<EntityAuditEventV2> policyChanges, Date nextUpdateTime) {
+        Set<String> changedPolicyGuids = new LinkedHashSet<>();
+        long        policyVersion      = -1L;
 
-            if (result == null || CollectionUtils.isEmpty(result.getEntityAudits())) {
-                return false;
+        for (EntityAuditEventV2 policyChange : policyChanges) {
+            if (POLICY_ENTITY_TYPE.equals(policyChange.getTypeName())) {
+                changedPolicyGuids.add(policyChange.getEntityId());
             }
-        } catch (AtlasBaseException e) {
-            LOG.error("ERROR in getPoliciesIfUpdated while fetching entity audits {}: ", e.getMessage());
-            return true;
-        } finally {
-            RequestContext.get().endMetricRecord(recorder);
+
+            policyVersion = Math.max(policyVersion, policyChange.getTimestamp());
         }
 
-        return true;
+        return policyTransformer.getPolicyDeltas(serviceName, pluginId, changedPolicyGuids, policyVersion, nextUpdateTime);
     }
 
-    private Map<String, Object> getMap(String key, Object value) {
+    private static Map<String, Object> getMap(String key, Object value) {
         Map<String, Object> map = new HashMap<>();
         map.put(key, value);
         return map;
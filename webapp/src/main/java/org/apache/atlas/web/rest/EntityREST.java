@@ -1735,6 +1735,32 @@ public class EntityREST {
         }
     }
 
+    /**
+     * repairLineageCounts API to recompute the precomputed lineage counts of the given datasets/processes.
+     */
+    @POST
+    @Path("/repairlineagecounts")
+    @Consumes(Servlets.JSON_MEDIA_TYPE)
+    public void repairLineageCounts(Set<String> guids) throws AtlasBaseException {
+        AtlasAuthorizationUtils.verifyAccess(new AtlasAdminAccessRequest(AtlasPrivilege.ADMIN_REPAIR_INDEX), "Admin Repair Lineage Counts");
+
+        AtlasPerfTracer perf = null;
+
+        try {
+            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityREST.repairLineageCounts(" + guids + ")");
+            }
+
+            if (CollectionUtils.isEmpty(guids)) {
+                throw new AtlasBaseException(BAD_REQUEST, "Requires list of guids");
+            }
+
+            entitiesStore.repairLineageCounts(guids);
+        } finally {
+            AtlasPerfTracer.log(perf);
+        }
+    }
+
     private boolean hasNoGUIDAndTypeNameAttributes(ClassificationAssociateRequest request) {
         return (request == null || (CollectionUtils.isEmpty(request.getEntityGuids()) &&
                 (CollectionUtils.isEmpty(request.getEntitiesUniqueAttributes()) || request.getEntityTypeName() == null)));
@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.notification;
+
+import org.apache.atlas.kafka.AtlasKafkaMessage;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.notification.HookNotification;
+import org.apache.atlas.model.notification.HookNotification.EntityCreateRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityUpdateRequestV2;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class HookMessageCoalescerTest {
+    private static final String TOPIC = "ATLAS_HOOK";
+
+    @Test
+    public void mergesEntitiesByQualifiedName() {
+        Map<String, String>  guidRewrites = new HashMap<>();
+        HookMessageCoalescer coalescer    = new HookMessageCoalescer(10, 1000, (entities, rewrites) -> guidRewrites.putAll(rewrites));
+
+        AtlasKafkaMessage<HookNotification> msg1 = createMessage(0, "user1", entity("-1", "db.tbl1@cl1", "old"), entity("-2", "db.tbl2@cl1", "tbl2"));
+        AtlasKafkaMessage<HookNotification> msg2 = createMessage(1, "user1", entity("-3", "db.tbl1@cl1", "new"));
+
+        assertTrue(coalescer.canAdd(msg1));
+        coalescer.add(msg1);
+        assertTrue(coalescer.canAdd(msg2));
+        coalescer.add(msg2);
+
+        List<AtlasKafkaMessage<HookNotification>> messages = coalescer.drain();
+        AtlasKafkaMessage<HookNotification>       merged   = coalescer.merge(messages);
+        List<AtlasEntity>                         entities = ((EntityCreateRequestV2) merged.getMessage()).getEntities().getEntities();
+
+        assertTrue(coalescer.isEmpty());
+        assertEquals(merged.getOffset(), 1);
+        assertEquals(entities.size(), 2);
+        assertEquals(entities.get(0).getGuid(), "-1");
+        assertEquals(entities.get(0).getAttribute("description"), "new");
+        assertEquals(guidRewrites, Collections.singletonMap("-3", "-1"));
+
+        // messages collected are left unchanged
+        assertEquals(((EntityCreateRequestV2) msg1.getMessage()).getEntities().getEntities().get(0).getAttribute("description"), "old");
+    }
+
+    @Test
+    public void mergesOnlyCompatibleMessages() {
+        HookMessageCoalescer coalescer = new HookMessageCoalescer(2, 1000, (entities, rewrites) -> { });
+
+        coalescer.add(createMessage(0, "user1", entity("-1", "db.tbl1@cl1", null)));
+
+        assertFalse(coalescer.canAdd(createMessage(1, "user2", entity("-2", "db.tbl2@cl1", null))));
+        assertFalse(coalescer.canAdd(new AtlasKafkaMessage<>(new EntityUpdateRequestV2("user1", new AtlasEntitiesWithExtInfo(entity("-2", "db.tbl2@cl1", null))), 1, TOPIC, 0)));
+        assertFalse(coalescer.canAdd(new AtlasKafkaMessage<>(new EntityCreateRequestV2("user1", new AtlasEntitiesWithExtInfo(entity("-2", "db.tbl2@cl1", null))), 1, TOPIC, 1)));
+        assertFalse(coalescer.canAdd(createMessage(1, "user1", entity("-2", "db.tbl2@cl1", null), entity("-3", "db.tbl3@cl1", null))));
+        assertTrue(coalescer.canAdd(createMessage(1, "user1", entity("-2", "db.tbl2@cl1", null))));
+
+        coalescer.add(createMessage(1, "user1", entity("-2", "db.tbl2@cl1", null)));
+
+        assertTrue(coalescer.isDue());
+    }
+
+    @Test
+    public void keepsEntitiesWithSameUnassignedGuidApart() {
+        HookMessageCoalescer coalescer = new HookMessageCoalescer(10, 1000, (entities, rewrites) -> { });
+
+        AtlasEntity table1 = entity("-1", null, "table1");
+        AtlasEntity table2 = entity("-1", null, "table2");
+        AtlasEntity column = new AtlasEntity("hive_column");
+
+        column.setGuid("-2");
+        column.setAttribute("table", new AtlasObjectId("-1", "hive_table"));
+
+        AtlasKafkaMessage<HookNotification> msg1 = createMessage(0, "user1", table1);
+        AtlasKafkaMessage<HookNotification> msg2 = createMessage(1, "user1", table2, column);
+
+        coalescer.add(msg1);
+        coalescer.add(msg2);
+
+        AtlasKafkaMessage<HookNotification> merged   = coalescer.merge(coalescer.drain());
+        List<AtlasEntity>                   entities = ((EntityCreateRequestV2) merged.getMessage()).getEntities().getEntities();
+
+        assertEquals(entities.size(), 3);
+        assertEquals(entities.get(0).getGuid(), "-1");
+        assertEquals(entities.get(0).getAttribute("description"), "table1");
+
+        String table2Guid = entities.get(1).getGuid();
+
+        assertEquals(entities.get(1).getAttribute("description"), "table2");
+        assertNotEquals(table2Guid, "-1");
+        assertNotEquals(table2Guid, entities.get(2).getGuid());
+        assertEquals(entities.get(2).getGuid(), "-2");
+        assertEquals(((Map) entities.get(2).getAttribute("table")).get("guid"), table2Guid);
+        assertEquals(((Map) entities.get(2).getAttribute("table")).get("typeName"), "hive_table");
+
+        // messages collected are left unchanged
+        assertEquals(((EntityCreateRequestV2) msg2.getMessage()).getEntities().getEntities().get(0).getGuid(), "-1");
+    }
+
+    @Test
+    public void renamesUnassignedGuidsInReferredEntities() {
+        Set<String>              usedGuids = new HashSet<>(Collections.singleton("-1"));
+        AtlasEntitiesWithExtInfo entities  = new AtlasEntitiesWithExtInfo(entity("-2", null, "process"));
+        AtlasEntity              referred  = entity("-1", null, "input");
+
+        entities.getEntities().get(0).setAttribute("inputs", Collections.singletonList(new AtlasObjectId("-1", "hive_table")));
+        entities.addReferredEntity(referred);
+
+        HookMessageCoalescer.renameUnassignedGuids(entities, usedGuids);
+
+        String renamed = referred.getGuid();
+
+        assertNotEquals(renamed, "-1");
+        assertEquals(entities.getReferredEntities().keySet(), Collections.singleton(renamed));
+        assertEquals(((List<AtlasObjectId>) entities.getEntities().get(0).getAttribute("inputs")).get(0).getGuid(), renamed);
+        assertEquals(usedGuids, new HashSet<>(Arrays.asList("-1", "-2", renamed)));
+    }
+
+    private static AtlasKafkaMessage<HookNotification> createMessage(long offset, String user, AtlasEntity... entities) {
+        return new AtlasKafkaMessage<>(new EntityCreateRequestV2(user, new AtlasEntitiesWithExtInfo(Arrays.asList(entities))), offset, TOPIC, 0);
+    }
+
+    private static AtlasEntity entity(String guid, String qualifiedName, String description) {
+        AtlasEntity ret = new AtlasEntity("hive_table");
+
+        ret.setGuid(guid);
+        ret.setAttribute("qualifiedName", qualifiedName);
+
+        if (description != null) {
+            ret.setAttribute("description", description);
+        }
+
+        return ret;
+    }
+}
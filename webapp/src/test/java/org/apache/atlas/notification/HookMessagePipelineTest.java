@@ -0,0 +1,324 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.notification;
+
+import org.apache.atlas.kafka.AtlasKafkaMessage;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.notification.HookNotification;
+import org.apache.atlas.model.notification.HookNotification.EntityCreateRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityDeleteRequestV2;
+import org.apache.kafka.common.TopicPartition;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class HookMessagePipelineTest {
+    private static final String TOPIC = "ATLAS_HOOK";
+
+    @Test
+    public void entityKeyIsQualifiedNameOrGuid() {
+        AtlasEntity entity = new AtlasEntity("hive_table");
+
+        entity.setAttribute("qualifiedName", "db.tbl@cl1");
+
+        assertEquals(HookMessagePipeline.getEntityKeys(new EntityCreateRequestV2("user", new AtlasEntitiesWithExtInfo(entity))), Collections.singleton("db.tbl@cl1"));
+
+        AtlasObjectId objectId = new AtlasObjectId("guid-1", "hive_table");
+
+        assertEquals(HookMessagePipeline.getEntityKeys(new EntityDeleteRequestV2("user", Collections.singletonList(objectId))), Collections.singleton("guid-1"));
+
+        assertTrue(HookMessagePipeline.getEntityKeys(new EntityDeleteRequestV2("user", Collections.emptyList())).isEmpty());
+    }
+
+    @Test
+    public void entityKeysIncludeAllEntitiesOfMessage() {
+        AtlasEntitiesWithExtInfo entities = new AtlasEntitiesWithExtInfo(entity("db.tbl@cl1"));
+
+        entities.addEntity(entity("db.tbl2@cl1"));
+        entities.addReferredEntity(entity("db.tbl.col1@cl1"));
+
+        assertEquals(HookMessagePipeline.getEntityKeys(new EntityCreateRequestV2("user", entities)),
+                     new LinkedHashSet<>(Arrays.asList("db.tbl@cl1", "db.tbl2@cl1", "db.tbl.col1@cl1")));
+
+        List<AtlasObjectId> toDelete = Arrays.asList(new AtlasObjectId("guid-1", "hive_table"), new AtlasObjectId("guid-2", "hive_table"));
+
+        assertEquals(HookMessagePipeline.getEntityKeys(new EntityDeleteRequestV2("user", toDelete)), new LinkedHashSet<>(toDelete.stream().map(AtlasObjectId::getGuid).collect(Collectors.toList())));
+    }
+
+    @Test
+    public void keepsOrderOfMessagesWithEntitiesInSeveralLanes() throws Exception {
+        List<Long>          processed = new CopyOnWriteArrayList<>();
+        HookMessagePipeline pipeline  = new HookMessagePipeline("test", 2, 100, kafkaMsg -> {
+            if (kafkaMsg.getOffset() == 0) {
+                Thread.sleep(200);
+            }
+
+            processed.add(kafkaMsg.getOffset());
+        });
+
+        try {
+            // a table with a column in another lane, then an update of the column alone, then of the table alone
+            String table  = "a";
+            String column = findKeyInOtherLane(table, 2);
+
+            AtlasEntitiesWithExtInfo tableWithColumn = new AtlasEntitiesWithExtInfo(entity(table));
+
+            tableWithColumn.addReferredEntity(entity(column));
+
+            pipeline.submit(new AtlasKafkaMessage<>(new EntityCreateRequestV2("user", tableWithColumn), 0, TOPIC, 0));
+            pipeline.submit(message(column, 1));
+            pipeline.submit(message(table, 2));
+
+            waitForInFlight(pipeline, 0);
+
+            assertEquals(processed.get(0), Long.valueOf(0));
+            assertEquals(new HashSet<>(processed), new HashSet<>(Arrays.asList(0L, 1L, 2L)));
+            assertEquals(pipeline.getOffsetsToCommit(), Collections.singletonMap(new TopicPartition(TOPIC, 0), 3L));
+        } finally {
+            pipeline.shutdown(1000);
+        }
+    }
+
+    @Test
+    public void commitsLowWaterMarkOfCompletedMessages() throws Exception {
+        CountDownLatch            blockFirst = new CountDownLatch(1);
+        Map<Long, CountDownLatch> completed  = new ConcurrentHashMap<>();
+        HookMessagePipeline       pipeline   = new HookMessagePipeline("test", 2, 10, kafkaMsg -> {
+            if (kafkaMsg.getOffset() == 0) {
+                blockFirst.await();
+            }
+
+            completed.get(kafkaMsg.getOffset()).countDown();
+        });
+
+        TopicPartition partition = new TopicPartition(TOPIC, 0);
+
+        try {
+            // offsets 0 and 1 are for entities in different lanes, so that offset 1 completes before offset 0
+            String key0 = "a";
+            String key1 = findKeyInOtherLane(key0, 2);
+
+            completed.put(0L, new CountDownLatch(1));
+            completed.put(1L, new CountDownLatch(1));
+
+            pipeline.submit(message(key0, 0));
+            pipeline.submit(message(key1, 1));
+
+            assertTrue(completed.get(1L).await(10, TimeUnit.SECONDS));
+            assertEquals(pipeline.getOffsetsToCommit(), Collections.emptyMap());
+
+            blockFirst.countDown();
+
+            assertTrue(completed.get(0L).await(10, TimeUnit.SECONDS));
+            waitForInFlight(pipeline, 0);
+
+            assertEquals(pipeline.getOffsetsToCommit(), Collections.singletonMap(partition, 2L));
+            assertEquals(pipeline.getOffsetsToCommit(), Collections.emptyMap());
+        } finally {
+            pipeline.shutdown(1000);
+        }
+    }
+
+    @Test
+    public void keepsOrderOfMessagesForSameEntity() throws Exception {
+        List<Long>          processed = new CopyOnWriteArrayList<>();
+        HookMessagePipeline pipeline  = new HookMessagePipeline("test", 4, 100, kafkaMsg -> {
+            Thread.sleep(10 - kafkaMsg.getOffset());
+
+            processed.add(kafkaMsg.getOffset());
+        });
+
+        try {
+            for (long offset = 0; offset < 10; offset++) {
+                pipeline.submit(message("db.tbl@cl1", offset));
+            }
+
+            waitForInFlight(pipeline, 0);
+
+            assertEquals(processed, Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L));
+            assertEquals(pipeline.getOffsetsToCommit(), Collections.singletonMap(new TopicPartition(TOPIC, 0), 10L));
+        } finally {
+            pipeline.shutdown(1000);
+        }
+    }
+
+    @Test
+    public void revokeSkipsQueuedMessagesAndWaitsForThoseBeingProcessed() throws Exception {
+        CountDownLatch      started    = new CountDownLatch(1);
+        CountDownLatch      blockFirst = new CountDownLatch(1);
+        List<Long>          processed  = new CopyOnWriteArrayList<>();
+        HookMessagePipeline pipeline   = new HookMessagePipeline("test", 1, 10, kafkaMsg -> {
+            if (kafkaMsg.getOffset() == 0) {
+                started.countDown();
+                blockFirst.await();
+            }
+
+            processed.add(kafkaMsg.getOffset());
+        });
+
+        TopicPartition partition = new TopicPartition(TOPIC, 0);
+
+        try {
+            pipeline.submit(message("db.tbl@cl1", 0));
+            pipeline.submit(message("db.tbl@cl1", 1));
+
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            Thread release = new Thread(() -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                blockFirst.countDown();
+            });
+
+            release.start();
+
+            // waits for offset 0, being processed; offset 1 is skipped, and so is where the new owner continues from
+            assertEquals(pipeline.revoke(Collections.singleton(partition), 10 * 1000), Collections.singletonMap(partition, 1L));
+            assertEquals(processed, Collections.singletonList(0L));
+
+            release.join();
+
+            assertEquals(pipeline.getInFlightCount(), 0);
+            assertEquals(pipeline.getOffsetsToCommit(), Collections.emptyMap());
+
+            // when assigned again, the partition is tracked from the first message received; the lane gets to it
+            // after the skipped message, which is then not processed twice
+            pipeline.submit(message("db.tbl@cl1", 1));
+
+            waitForProcessed(processed, 2);
+            waitForInFlight(pipeline, 0);
+
+            assertEquals(processed, Arrays.asList(0L, 1L));
+            assertEquals(pipeline.getOffsetsToCommit(), Collections.singletonMap(partition, 2L));
+        } finally {
+            blockFirst.countDown();
+            pipeline.shutdown(1000);
+        }
+    }
+
+    @Test
+    public void revokeGivesUpWaitingAfterTimeout() throws Exception {
+        CountDownLatch      started    = new CountDownLatch(1);
+        CountDownLatch      blockFirst = new CountDownLatch(1);
+        HookMessagePipeline pipeline   = new HookMessagePipeline("test", 1, 10, kafkaMsg -> {
+            started.countDown();
+            blockFirst.await();
+        });
+
+        TopicPartition partition = new TopicPartition(TOPIC, 0);
+
+        try {
+            pipeline.submit(message("db.tbl@cl1", 5));
+
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            // nothing completed since offset 5 was received, so nothing to commit
+            assertEquals(pipeline.revoke(Collections.singleton(partition), 100), Collections.emptyMap());
+            assertEquals(pipeline.revoke(Collections.singleton(new TopicPartition(TOPIC, 1)), 100), Collections.emptyMap());
+        } finally {
+            blockFirst.countDown();
+            pipeline.shutdown(1000);
+        }
+    }
+
+    @Test
+    public void trySubmitDoesNotBlockWhenFull() throws Exception {
+        CountDownLatch      blockFirst = new CountDownLatch(1);
+        HookMessagePipeline pipeline   = new HookMessagePipeline("test", 2, 1, kafkaMsg -> blockFirst.await());
+
+        try {
+            assertTrue(pipeline.trySubmit(message("a", 0)));
+            assertFalse(pipeline.trySubmit(message("b", 1)));
+            assertEquals(pipeline.getInFlightCount(), 1);
+
+            blockFirst.countDown();
+
+            assertTrue(pipeline.awaitCapacity(10 * 1000));
+            assertTrue(pipeline.trySubmit(message("b", 1)));
+
+            waitForInFlight(pipeline, 0);
+
+            assertEquals(pipeline.getOffsetsToCommit(), Collections.singletonMap(new TopicPartition(TOPIC, 0), 2L));
+        } finally {
+            blockFirst.countDown();
+            pipeline.shutdown(1000);
+        }
+    }
+
+    private static AtlasKafkaMessage<HookNotification> message(String qualifiedName, long offset) {
+        return new AtlasKafkaMessage<>(new EntityCreateRequestV2("user", new AtlasEntitiesWithExtInfo(entity(qualifiedName))), offset, TOPIC, 0);
+    }
+
+    private static AtlasEntity entity(String qualifiedName) {
+        AtlasEntity ret = new AtlasEntity("hive_table");
+
+        ret.setAttribute("qualifiedName", qualifiedName);
+
+        return ret;
+    }
+
+    private static String findKeyInOtherLane(String key, int numLanes) {
+        int lane = (key.hashCode() & Integer.MAX_VALUE) % numLanes;
+
+        for (int i = 0; ; i++) {
+            String ret = key + i;
+
+            if ((ret.hashCode() & Integer.MAX_VALUE) % numLanes != lane) {
+                return ret;
+            }
+        }
+    }
+
+    private static void waitForProcessed(List<Long> processed, int count) throws InterruptedException {
+        for (int i = 0; i < 1000 && processed.size() < count; i++) {
+            Thread.sleep(10);
+        }
+
+        Thread.sleep(50); // for any message processed beyond the count to show
+
+        assertEquals(processed.size(), count);
+    }
+
+    private static void waitForInFlight(HookMessagePipeline pipeline, int count) throws InterruptedException {
+        for (int i = 0; i < 1000 && pipeline.getInFlightCount() != count; i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(pipeline.getInFlightCount(), count);
+    }
+}
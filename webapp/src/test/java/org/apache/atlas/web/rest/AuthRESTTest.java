@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.web.rest;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.atlas.repository.Constants.PERSONA_ENTITY_TYPE;
+import static org.apache.atlas.repository.Constants.POLICY_ENTITY_TYPE;
+import static org.apache.atlas.repository.Constants.PURPOSE_ENTITY_TYPE;
+import static org.testng.Assert.assertEquals;
+
+public class AuthRESTTest {
+    @Test
+    public void policyChangesAreSearchedFromLastUpdatedTime() {
+        Map<String, Object> dsl = AuthREST.getPolicyChangesDsl(1000L, 500);
+
+        assertEquals(dsl.get("size"), 501);
+        assertEquals(getPath(dsl, "sort", "timestamp", "order"), "asc");
+
+        List<Map<String, Object>> must = (List<Map<String, Object>>) getPath(dsl, "query", "bool", "must");
+
+        assertEquals(must.size(), 2);
+        assertEquals(getPath(must.get(0), "terms", "typeName"), Arrays.asList(POLICY_ENTITY_TYPE, PERSONA_ENTITY_TYPE, PURPOSE_ENTITY_TYPE));
+        assertEquals(getPath(must.get(1), "range", "timestamp", "gte"), 1000L);
+    }
+
+    @Test
+    public void policyChangesAreSearchedFromStartWithoutLastUpdatedTime() {
+        Map<String, Object> dsl = AuthREST.getPolicyChangesDsl(-1L, 500);
+
+        List<Map<String, Object>> must = (List<Map<String, Object>>) getPath(dsl, "query", "bool", "must");
+
+        assertEquals(getPath(must.get(1), "range", "timestamp", "gte"), 0L);
+    }
+
+    @Test
+    public void nextPolicyUpdateTimeTrailsAuditVisibility() {
+        assertEquals(AuthREST.getNextPolicyUpdateTime(100000L, 60000L).getTime(), 40000L);
+        assertEquals(AuthREST.getNextPolicyUpdateTime(100000L, 0L).getTime(), 100000L);
+        assertEquals(AuthREST.getNextPolicyUpdateTime(1000L, 60000L).getTime(), 0L);
+    }
+
+    private static Object getPath(Map<String, Object> map, String... keys) {
+        Object ret = map;
+
+        for (String key : keys) {
+            ret = ((Map<String, Object>) ret).get(key);
+        }
+
+        return ret;
+    }
+}